@@ -43,6 +43,7 @@ import org.jdom2.Element;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.xpath.XPathExpression;
 import org.jdom2.xpath.XPathFactory;
+import org.mycore.access.MCRAccessManager;
 import org.mycore.access.mcrimpl.MCRAccessRule;
 import org.mycore.access.mcrimpl.MCRAccessStore;
 import org.mycore.access.mcrimpl.MCRRuleMapping;
@@ -163,6 +164,7 @@ public class MCRAclEditorResource {
 
             if (!ACCESS_STORE.existsRule(accessID, accessPool)) {
                 ACCESS_STORE.createAccessDefinition(accessRule);
+                MCRAccessManager.invalidAllPermissionCaches();
                 return Response.ok().build();
             } else {
                 return Response.status(Status.CONFLICT).build();
@@ -196,6 +198,7 @@ public class MCRAclEditorResource {
                 accessAsJsonObject.addProperty(JSON_SUCCESS, "0");
             }
         }
+        MCRAccessManager.invalidAllPermissionCaches();
         return jsonObject.toString();
     }
 
@@ -227,6 +230,7 @@ public class MCRAclEditorResource {
                 } else {
                     ACCESS_STORE.createAccessDefinition(accessRule);
                 }
+                MCRAccessManager.invalidAllPermissionCaches();
                 return Response.ok().build();
             } else {
                 return Response.status(Status.CONFLICT).build();
@@ -286,6 +290,7 @@ public class MCRAclEditorResource {
             try {
                 MCRAccessRule accessRule = new MCRAccessRule(ruleID, uid, new Date(), ruleText, ruleDesc);
                 RULE_STORE.updateRule(accessRule);
+                MCRAccessManager.invalidAllPermissionCaches();
                 return Response.ok().build();
             } catch (Exception e) {
                 return Response.status(Status.CONFLICT).build();
@@ -323,6 +328,7 @@ public class MCRAclEditorResource {
                 accessAsJsonObject.addProperty(JSON_SUCCESS, "0");
             }
         }
+        MCRAccessManager.invalidAllPermissionCaches();
         return jsonObject.toString();
     }
 
@@ -18,26 +18,58 @@
 
 package org.mycore.access;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.mycore.common.MCRCache;
 import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCRSessionEvent;
 import org.mycore.common.events.MCRSessionListener;
-
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import org.mycore.datamodel.metadata.MCRObjectID;
 
 /**
+ * Caches the permission decisions of {@link MCRAccessManager}.
+ *
+ * Decisions of the users in <code>MCR.Access.Cache.Shared.Users</code> (by default the guest user) are kept in one
+ * cache that is shared by all sessions of these users with the same IP address. It holds up to
+ * <code>MCR.Access.Cache.Shared.Capacity</code> decisions for at most <code>MCR.Access.Cache.Shared.MaxAge</code>
+ * milliseconds, so that rules depending on the date are evaluated again. A session whose permissions are
+ * invalidated explicitly, e.g. after an access key was added to it, uses its own cache from then on.
+ *
+ * All other sessions have their own cache.
+ *
  * @author Thomas Scheffler (yagee)
  *
  */
 class MCRAccessCacheManager implements MCRSessionListener {
     private static final int CAPACITY = 200;
 
+    private static final String SHARED_CONFIG_PREFIX = "MCR.Access.Cache.Shared.";
+
     private static String key = MCRAccessCacheManager.class.getCanonicalName();
 
+    private static String individualKey = key + ".individual";
+
+    private final Set<String> sharedUsers;
+
+    private final long sharedMaxAge;
+
+    private final MCRCache<SharedPermissionHandle, Boolean> sharedCache;
+
+    /** changed on every invalidation, so that concurrently evaluated outdated decisions are not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** time of the last change that may affect the permissions of any object */
+    private volatile long lastGlobalChange;
+
     ThreadLocal<MCRCache<MCRPermissionHandle, Boolean>> accessCache = ThreadLocal.withInitial(() -> {
         //this is only called for every session that was created before this class could attach to session events
         MCRSession session = MCRSessionMgr.getCurrentSession();
@@ -83,50 +115,170 @@ class MCRAccessCacheManager implements MCRSessionListener {
     }
 
     MCRAccessCacheManager() {
+        sharedUsers = MCRConfiguration2.getString(SHARED_CONFIG_PREFIX + "Users")
+            .map(MCRConfiguration2::splitValue)
+            .orElseGet(() -> Stream.of(MCRSystemUserInformation.getGuestInstance().getUserID()))
+            .collect(Collectors.toSet());
+        sharedMaxAge = MCRConfiguration2.getLong(SHARED_CONFIG_PREFIX + "MaxAge").orElse(300_000L);
+        int sharedCapacity = MCRConfiguration2.getInt(SHARED_CONFIG_PREFIX + "Capacity").orElse(10_000);
+        sharedCache = new MCRCache<>(sharedCapacity, "Shared access rights");
         //init for current user done
         MCRSessionMgr.addSessionListener(this);
     }
 
     public Boolean isPermitted(String id, String permission) {
         MCRPermissionHandle handle = new MCRPermissionHandle(id, permission);
-        MCRCache<MCRPermissionHandle, Boolean> permissionCache = accessCache.get();
         MCRSession currentSession = MCRSessionMgr.getCurrentSession();
+        String fingerprint = getSharedFingerprint(currentSession);
+        if (fingerprint != null) {
+            return sharedCache.getIfUpToDate(new SharedPermissionHandle(handle, fingerprint),
+                System.currentTimeMillis() - sharedMaxAge);
+        }
+        MCRCache<MCRPermissionHandle, Boolean> permissionCache = accessCache.get();
         return permissionCache.getIfUpToDate(handle, currentSession.getLoginTime());
     }
 
-    public void cachePermission(String id, String permission, boolean permitted) {
+    /**
+     * Caches a decision that was evaluated after {@link #getGeneration()} returned <code>generation</code>.
+     * Decisions of the shared cache are dropped if it was invalidated in the meantime.
+     */
+    public void cachePermission(String id, String permission, boolean permitted, long generation) {
         MCRPermissionHandle handle = new MCRPermissionHandle(id, permission);
-        accessCache.get().put(handle, permitted);
+        String fingerprint = getSharedFingerprint(MCRSessionMgr.getCurrentSession());
+        if (fingerprint == null) {
+            accessCache.get().put(handle, permitted);
+        } else if (generation == this.generation.get()) {
+            sharedCache.put(new SharedPermissionHandle(handle, fingerprint), permitted);
+        }
+    }
+
+    public long getGeneration() {
+        return generation.get();
     }
 
     public void removePermission(String id, String permission) {
         MCRPermissionHandle handle = new MCRPermissionHandle(id, permission);
-        MCRCache<MCRPermissionHandle, Boolean> permissionCache = accessCache.get();
+        MCRCache<MCRPermissionHandle, Boolean> permissionCache = getIndividualCache();
         permissionCache.remove(handle);
     }
 
     public void removePermission(String... ids) {
-        MCRCache<MCRPermissionHandle, Boolean> permissionCache = accessCache.get();
-        removePermissionFromCache(permissionCache, Stream.of(ids).collect(Collectors.toSet()));
+        MCRCache<MCRPermissionHandle, Boolean> permissionCache = getIndividualCache();
+        removePermissionFromCache(permissionCache, Stream.of(ids).collect(Collectors.toSet()), hdl -> hdl);
     }
 
-    private void removePermissionFromCache(MCRCache<MCRPermissionHandle, Boolean> permissionCache, Set<String> ids) {
-        final List<MCRPermissionHandle> handlesToRemove = permissionCache.keys()
+    private <T> void removePermissionFromCache(MCRCache<T, Boolean> permissionCache, Set<String> ids,
+        Function<T, MCRPermissionHandle> toHandle) {
+        final List<T> handlesToRemove = permissionCache.keys()
             .stream()
-            .filter(hdl-> hdl.getId()!=null)
-            .filter(hdl -> ids.contains(hdl.getId()))
+            .filter(hdl -> toHandle.apply(hdl).getId() != null)
+            .filter(hdl -> ids.contains(toHandle.apply(hdl).getId()))
             .collect(Collectors.toList());
         handlesToRemove.forEach(permissionCache::remove);
     }
 
     public void removePermissionFromAllCachesById(String... ids) {
         final Set<String> idSet = Stream.of(ids).collect(Collectors.toSet());
+        generation.incrementAndGet();
+        removePermissionFromCache(sharedCache, idSet, SharedPermissionHandle::getHandle);
+        MCRSessionMgr.getAllSessions().forEach((sessionId, mcrSession) -> {
+            final MCRCache<MCRPermissionHandle, Boolean> cache = getCacheFromSession(mcrSession);
+            if (cache != null) {
+                removePermissionFromCache(cache, idSet, hdl -> hdl);
+            }
+        });
+    }
+
+    /**
+     * Removes all decisions from the shared cache, e.g. after an access rule was changed.
+     */
+    public void clearSharedCache() {
+        generation.incrementAndGet();
+        sharedCache.clear();
+    }
+
+    /**
+     * Removes all decisions from the shared cache after a rule of the ID was changed. Rules of IDs that are no
+     * {@link MCRObjectID} may apply to any object.
+     */
+    public void clearSharedCache(String id) {
+        if (!MCRObjectID.isValid(id)) {
+            lastGlobalChange = System.currentTimeMillis();
+        }
+        clearSharedCache();
+    }
+
+    public long getLastGlobalChange() {
+        return lastGlobalChange;
+    }
+
+    /**
+     * Removes all decisions from the shared cache and from the caches of all sessions.
+     */
+    public void clearAllCaches() {
+        lastGlobalChange = System.currentTimeMillis();
+        clearSharedCache();
         MCRSessionMgr.getAllSessions().forEach((sessionId, mcrSession) -> {
             final MCRCache<MCRPermissionHandle, Boolean> cache = getCacheFromSession(mcrSession);
             if (cache != null) {
-                removePermissionFromCache(cache, idSet);
+                cache.clear();
             }
         });
     }
 
+    /**
+     * Permissions of the current session are invalidated because they differ from those of other sessions of the
+     * same user, so the session must not use the shared cache anymore.
+     */
+    private MCRCache<MCRPermissionHandle, Boolean> getIndividualCache() {
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        if (session.get(individualKey) == null) {
+            session.put(individualKey, Boolean.TRUE);
+        }
+        return accessCache.get();
+    }
+
+    /**
+     * @return null if the session does not use the shared cache
+     */
+    private String getSharedFingerprint(MCRSession session) {
+        String userID = session.getUserInformation().getUserID();
+        if (!sharedUsers.contains(userID) || session.get(individualKey) != null) {
+            return null;
+        }
+        return userID + '@' + Objects.toString(session.getCurrentIP(), "");
+    }
+
+    private static final class SharedPermissionHandle {
+
+        private final MCRPermissionHandle handle;
+
+        private final String fingerprint;
+
+        SharedPermissionHandle(MCRPermissionHandle handle, String fingerprint) {
+            this.handle = handle;
+            this.fingerprint = fingerprint;
+        }
+
+        MCRPermissionHandle getHandle() {
+            return handle;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * handle.hashCode() + fingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SharedPermissionHandle)) {
+                return false;
+            }
+            SharedPermissionHandle other = (SharedPermissionHandle) obj;
+            return handle.equals(other.handle) && fingerprint.equals(other.fingerprint);
+        }
+    }
 }
@@ -18,6 +18,8 @@
 package org.mycore.access;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -104,6 +106,7 @@ public class MCRAccessManager {
     public static void addRule(MCRObjectID id, String permission, Element rule, String description)
         throws MCRException {
         requireRulesInterface().addRule(id.toString(), permission, rule, description);
+        ACCESS_CACHE.clearSharedCache();
     }
 
     /**
@@ -124,6 +127,7 @@ public class MCRAccessManager {
     public static void addRule(String id, String permission, Element rule, String description)
         throws MCRException {
         requireRulesInterface().addRule(id, permission, rule, description);
+        ACCESS_CACHE.clearSharedCache(id);
     }
 
     /**
@@ -139,6 +143,7 @@ public class MCRAccessManager {
      */
     public static void removeRule(MCRObjectID id, String permission) throws MCRException {
         requireRulesInterface().removeRule(id.toString(), permission);
+        ACCESS_CACHE.clearSharedCache();
     }
 
     /**
@@ -154,6 +159,7 @@ public class MCRAccessManager {
      */
     public static void removeRule(String id, String permission) throws MCRException {
         requireRulesInterface().removeRule(id, permission);
+        ACCESS_CACHE.clearSharedCache(id);
     }
 
     /**
@@ -167,6 +173,7 @@ public class MCRAccessManager {
      */
     public static void removeAllRules(MCRObjectID id) throws MCRException {
         requireRulesInterface().removeAllRules(id.toString());
+        ACCESS_CACHE.clearSharedCache();
     }
 
     /**
@@ -187,6 +194,7 @@ public class MCRAccessManager {
     public static void updateRule(MCRObjectID id, String permission, Element rule, String description)
         throws MCRException {
         requireRulesInterface().updateRule(id.toString(), permission, rule, description);
+        ACCESS_CACHE.clearSharedCache();
     }
 
     /**
@@ -207,6 +215,7 @@ public class MCRAccessManager {
     public static void updateRule(String id, String permission, Element rule, String description)
         throws MCRException {
         requireRulesInterface().updateRule(id, permission, rule, description);
+        ACCESS_CACHE.clearSharedCache(id);
     }
 
     /**
@@ -268,8 +277,9 @@ public class MCRAccessManager {
     public static boolean checkPermission(String id, String permission) {
         Boolean value = ACCESS_CACHE.isPermitted(id, permission);
         if (value == null) {
+            long generation = ACCESS_CACHE.getGeneration();
             value = getAccessStrategy().checkPermission(id, permission);
-            ACCESS_CACHE.cachePermission(id, permission, value);
+            ACCESS_CACHE.cachePermission(id, permission, value, generation);
         }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("checkPermission id:{} permission:{} --> {}", id, permission, value);
@@ -277,6 +287,41 @@ public class MCRAccessManager {
         return value;
     }
 
+    /**
+     * determines whether the current user has the permission to perform a certain action on each of the given IDs,
+     * e.g. to filter a list of search results. Cached decisions are used, the access strategy is only asked once
+     * for every other ID.
+     *
+     * @param ids
+     *            the IDs of the objects
+     * @param permission
+     *            the access permission for the rule
+     * @return the decision for every ID, in the order of <code>ids</code>
+     */
+    public static Map<String, Boolean> checkPermission(Collection<String> ids, String permission) {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        MCRAccessCheckStrategy strategy = null;
+        for (String id : ids) {
+            if (result.containsKey(id)) {
+                continue;
+            }
+            Boolean value = ACCESS_CACHE.isPermitted(id, permission);
+            if (value == null) {
+                if (strategy == null) {
+                    strategy = getAccessStrategy();
+                }
+                long generation = ACCESS_CACHE.getGeneration();
+                value = strategy.checkPermission(id, permission);
+                ACCESS_CACHE.cachePermission(id, permission, value, generation);
+            }
+            result.put(id, value);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("checkPermission ids:{} permission:{} --> {}", ids, permission, result);
+        }
+        return result;
+    }
+
     /**
      * determines whether the current user has the permission to perform a certain action.
      *
@@ -287,8 +332,9 @@ public class MCRAccessManager {
     public static boolean checkPermission(String permission) {
         Boolean value = ACCESS_CACHE.isPermitted(null, permission);
         if (value == null) {
+            long generation = ACCESS_CACHE.getGeneration();
             value = getAccessImpl().checkPermission(permission);
-            ACCESS_CACHE.cachePermission(null, permission, value);
+            ACCESS_CACHE.cachePermission(null, permission, value, generation);
         }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("checkPermission permission:{} --> {}", permission, value);
@@ -322,6 +368,24 @@ public class MCRAccessManager {
         ACCESS_CACHE.removePermissionFromAllCachesById(ids);
     }
 
+    /**
+     * Invalidates all permissions of all users, e.g. after the access rules were changed without this class.
+     */
+    public static void invalidAllPermissionCaches() {
+        ACCESS_CACHE.clearAllCaches();
+    }
+
+    /**
+     * Returns the time of the last change that may affect the permissions of any object: all permission caches were
+     * invalidated or a rule that is not bound to an object was changed. Results derived from permissions of objects
+     * that are older than this have to be dropped.
+     *
+     * @return milliseconds since the epoch or 0, if there was no such change since startup
+     */
+    public static long getLastGlobalPermissionChange() {
+        return ACCESS_CACHE.getLastGlobalChange();
+    }
+
     /**
      * Invalidates the permission for current user on cache.
      *
@@ -19,37 +19,27 @@ package org.mycore.access.facts;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.mycore.common.MCRCache;
 import org.mycore.common.MCRPersistenceException;
-import org.mycore.common.events.MCREvent;
-import org.mycore.common.events.MCREventHandlerBase;
-import org.mycore.common.events.MCREventManager;
-import org.mycore.datamodel.metadata.MCRMetadataManager;
+import org.mycore.datamodel.metadata.MCRBase;
+import org.mycore.datamodel.metadata.MCRMetadataCache;
 import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.datamodel.metadata.MCRObjectID;
 
 /**
- * This implementation creates an object cache
- * for MyCoRe objects which are retrieved during the processing of the rules.
+ * Provides the MyCoRe objects which are retrieved during the processing of the rules.
  * 
- * It is registered as event handler to listen for updated and deleted objects.
+ * The objects are shared via {@link MCRMetadataCache} and must not be modified.
  *  
  * @author Robert Stephan
  *
  */
-public class MCRObjectCacheFactory extends MCREventHandlerBase {
+public class MCRObjectCacheFactory {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
     private static final MCRObjectCacheFactory SINGLETON = new MCRObjectCacheFactory();
 
-    private static final int CACHE_MAX_SIZE = 100;
-
-    private final MCRCache<MCRObjectID, MCRObject> objectCache;
-
     private MCRObjectCacheFactory() {
-        objectCache = new MCRCache<MCRObjectID, MCRObject>(CACHE_MAX_SIZE, this.getClass().getName());
-        MCREventManager.instance().addEventHandler(MCREvent.OBJECT_TYPE, this);
     }
 
     public static MCRObjectCacheFactory instance() {
@@ -57,38 +47,12 @@ public class MCRObjectCacheFactory extends MCREventHandlerBase {
     }
 
     public MCRObject getObject(MCRObjectID oid) {
-        MCRObject obj = objectCache.get(oid);
-        if (obj == null) {
-            LOGGER.debug("reading object {} from metadata manager", oid);
-            try {
-                obj = MCRMetadataManager.retrieveMCRObject(oid);
-                objectCache.put(oid, obj);
-            } catch (MCRPersistenceException e) {
-                LOGGER.debug("Object does not exist", e);
-                return null;
-            }
-        } else {
-            LOGGER.debug("reading object {} from cache", oid);
+        try {
+            MCRBase base = MCRMetadataCache.instance().retrieveReadOnly(oid);
+            return base instanceof MCRObject ? (MCRObject) base : null;
+        } catch (MCRPersistenceException e) {
+            LOGGER.debug("Object does not exist", e);
+            return null;
         }
-
-        return obj;
-    }
-
-    @Override
-    protected void handleObjectDeleted(MCREvent evt, MCRObject obj) {
-        objectCache.remove(obj.getId());
-        LOGGER.debug("removing object {} from cache", obj.getId());
-    }
-
-    @Override
-    protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
-        objectCache.remove(obj.getId());
-        LOGGER.debug("removing object {} from cache", obj.getId());
-    }
-
-    @Override
-    protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
-        objectCache.remove(obj.getId());
-        LOGGER.debug("removing object {} from cache", obj.getId());
     }
 }
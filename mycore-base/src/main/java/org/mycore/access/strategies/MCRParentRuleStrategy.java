@@ -29,7 +29,7 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.mycore.access.MCRAccessManager;
 import org.mycore.access.MCRRuleAccessInterface;
-import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.mycore.datamodel.metadata.MCRMetadataCache;
 import org.mycore.datamodel.metadata.MCRObjectID;
 import org.xml.sax.SAXException;
 
@@ -68,7 +68,7 @@ public class MCRParentRuleStrategy implements MCRAccessCheckStrategy {
     private static String getParentID(String objectID) {
         Document parentDoc;
         try {
-            parentDoc = MCRXMLMetadataManager.instance().retrieveXML(MCRObjectID.getInstance(objectID));
+            parentDoc = MCRMetadataCache.instance().retrieveXML(MCRObjectID.getInstance(objectID));
         } catch (IOException | JDOMException | SAXException e) {
             LOGGER.error("Could not read object: {}", objectID, e);
             return null;
@@ -21,6 +21,7 @@ package org.mycore.backend.hibernate;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -232,4 +233,13 @@ public class MCRHIBLinkTableStore implements MCRLinkTableInterface {
         return toQuery.getResultList();
     }
 
+    @Override
+    public void forEachLink(LinkVisitor visitor) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        try (Stream<Object[]> links = em.createNamedQuery("MCRLINKHREF.getLinks", Object[].class)
+            .getResultStream()) {
+            links.forEach(row -> visitor.visit((String) row[0], (String) row[1], (String) row[2]));
+        }
+    }
+
 }
@@ -49,7 +49,8 @@ import javax.persistence.Transient;
     @NamedQuery(name = "MCRLINKHREF.getSourcesWithType",
         query = "SELECT key.mcrfrom FROM MCRLINKHREF WHERE key.mcrto=:to AND key.mcrtype=:type"),
     @NamedQuery(name = "MCRLINKHREF.group",
-        query = "SELECT count(key.mcrfrom), key.mcrto FROM MCRLINKHREF WHERE key.mcrto like :like GROUP BY key.mcrto")
+        query = "SELECT count(key.mcrfrom), key.mcrto FROM MCRLINKHREF WHERE key.mcrto like :like GROUP BY key.mcrto"),
+    @NamedQuery(name = "MCRLINKHREF.getLinks", query = "SELECT key.mcrfrom, key.mcrto, key.mcrtype FROM MCRLINKHREF")
 })
 public class MCRLINKHREF {
     private MCRLINKHREFPK key;
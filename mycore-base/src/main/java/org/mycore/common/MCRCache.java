@@ -21,11 +21,22 @@ package org.mycore.common;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.mycore.services.mbeans.MCRJMXBridge;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Instances of this class can be used as object cache. Each MCRCache has a certain capacity, the maximum number of
@@ -34,7 +45,15 @@ import com.google.common.cache.CacheBuilder;
  * objects by updating its internal structure whenever an object is get from the cache or put into the cache. The cache
  * also provides methods for getting the current cache hit rate and fill rate. Like in a hashtable, an MCRCache uses a
  * unique key for each object.
- * 
+ * <p>
+ * If a {@link Weigher} is given, the capacity is not the maximum number of objects but the maximum total weight of
+ * all objects, e.g. their estimated size in bytes. Optionally objects discarded because of the capacity limit are
+ * moved to a soft tier, where they are kept until the garbage collector needs the memory.
+ * <p>
+ * The capacity can be changed at runtime without blocking readers and writers: a new cache with the new capacity
+ * replaces the current one at once, then the objects of the previous cache are moved one by one, so that objects
+ * removed in the meantime do not come back. Objects exceeding the new capacity are evicted by the new cache.
+ *
  * @see java.util.Hashtable
  * @author Frank Lützenkirchen
  * @version $Revision$ $Date$
@@ -43,9 +62,28 @@ public class MCRCache<K, V> {
     /** Tch type string for the MCRCacheJMXBridge */
     protected String type;
 
-    Cache<K, MCRCacheEntry<V>> backingCache;
+    volatile Cache<K, MCRCacheEntry<V>> backingCache;
+
+    /** the previous backing cache while its objects are moved by {@link #setCapacity(long)}, else null */
+    private volatile Cache<K, MCRCacheEntry<V>> retiringCache;
+
+    /** only held by {@link #setCapacity(long)}, so that one capacity change is done at a time */
+    private final ReentrantLock resizeLock = new ReentrantLock();
+
+    /** holds objects discarded due to the capacity limit as long as there is enough memory, may be null */
+    private final Cache<K, MCRCacheEntry<V>> softTier;
+
+    private final Weigher<? super K, ? super V> weigher;
+
+    private volatile CacheStats retiredStats;
+
+    private final LongAdder weightedSize;
+
+    private final LongAdder softTierHits;
 
-    private long capacity;
+    private final int concurrencyLevel;
+
+    private volatile long capacity;
 
     /**
      * Creates a new cache with a given capacity.
@@ -56,13 +94,90 @@ public class MCRCache<K, V> {
      *            the type string for MCRCacheJMXBridge
      */
     public MCRCache(long capacity, String type) {
-        backingCache = CacheBuilder.newBuilder().recordStats().maximumSize(capacity).build();
+        this(capacity, null, false, type);
+    }
+
+    /**
+     * Creates a new cache with a given capacity in units of the given weigher.
+     *
+     * @param capacity
+     *            the maximum total weight of objects this cache will hold
+     * @param weigher
+     *            computes the weight of every object, if <code>null</code> each object has a weight of 1
+     * @param softTier
+     *            if true, objects discarded because of the capacity are kept softly reachable
+     * @param type
+     *            the type string for MCRCacheJMXBridge
+     */
+    public MCRCache(long capacity, Weigher<? super K, ? super V> weigher, boolean softTier, String type) {
+        this(capacity, weigher, softTier, 0, type);
+    }
+
+    /**
+     * Creates a new cache with a given capacity in units of the given weigher.
+     *
+     * The backing cache is split into <code>concurrencyLevel</code> segments that share the capacity evenly, so an
+     * object heavier than <code>capacity / concurrencyLevel</code> is discarded at once. Use a concurrency level of
+     * 1 if single objects may use most of the capacity.
+     *
+     * @param capacity
+     *            the maximum total weight of objects this cache will hold
+     * @param weigher
+     *            computes the weight of every object, if <code>null</code> each object has a weight of 1
+     * @param softTier
+     *            if true, objects discarded because of the capacity are kept softly reachable
+     * @param concurrencyLevel
+     *            the number of concurrent writers, if <code>0</code> the default of the backing cache is used
+     * @param type
+     *            the type string for MCRCacheJMXBridge
+     */
+    public MCRCache(long capacity, Weigher<? super K, ? super V> weigher, boolean softTier, int concurrencyLevel,
+        String type) {
+        this.weigher = weigher;
+        this.concurrencyLevel = concurrencyLevel;
+        this.weightedSize = new LongAdder();
+        this.softTierHits = new LongAdder();
+        this.retiredStats = new CacheStats(0, 0, 0, 0, 0, 0);
+        if (softTier) {
+            this.softTier = CacheBuilder.newBuilder().softValues().build();
+        } else {
+            this.softTier = null;
+        }
+        this.backingCache = buildCache(capacity);
         this.capacity = capacity;
         this.type = type;
         Object mbean = new MCRCacheManager(this);
         MCRJMXBridge.register(mbean, "MCRCache", type);
     }
 
+    private Cache<K, MCRCacheEntry<V>> buildCache(long capacity) {
+        RemovalListener<K, MCRCacheEntry<V>> removalListener = this::onRemoval;
+        CacheBuilder<K, MCRCacheEntry<V>> builder = CacheBuilder.newBuilder()
+            .recordStats()
+            .removalListener(removalListener);
+        if (concurrencyLevel > 0) {
+            builder.concurrencyLevel(concurrencyLevel);
+        }
+        if (weigher == null) {
+            return builder.maximumSize(capacity).build();
+        }
+        com.google.common.cache.Weigher<K, MCRCacheEntry<V>> entryWeigher = (key, entry) -> entry.weight;
+        return builder.weigher(entryWeigher)
+            .maximumWeight(capacity)
+            .build();
+    }
+
+    private void onRemoval(RemovalNotification<K, MCRCacheEntry<V>> notification) {
+        MCRCacheEntry<V> entry = notification.getValue();
+        if (entry == null) {
+            return;
+        }
+        weightedSize.add(-entry.weight);
+        if (softTier != null && notification.getCause() == RemovalCause.SIZE && notification.getKey() != null) {
+            softTier.put(notification.getKey(), entry);
+        }
+    }
+
     /**
      * A small sample program for testing this class.
      */
@@ -99,8 +214,7 @@ public class MCRCache<K, V> {
         if (value == null) {
             throw new NullPointerException("The value of a cache entry may not be null.");
         }
-        MCRCacheEntry<V> entry = new MCRCacheEntry<>(value);
-        backingCache.put(key, entry);
+        putEntry(key, newEntry(key, value));
     }
 
     /**
@@ -122,8 +236,22 @@ public class MCRCache<K, V> {
         if (value == null) {
             throw new NullPointerException("The value of a cache entry may not be null.");
         }
-        MCRCacheEntry<V> entry = new MCRCacheEntry<>(value);
+        MCRCacheEntry<V> entry = newEntry(key, value);
         entry.insertTime = insertTime;
+        putEntry(key, entry);
+    }
+
+    private MCRCacheEntry<V> newEntry(K key, V value) {
+        int weight = weigher == null ? 1 : weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new MCRUsageException("Weight of cache entry " + key + " is negative: " + weight);
+        }
+        return new MCRCacheEntry<>(value, weight);
+    }
+
+    private void putEntry(K key, MCRCacheEntry<V> entry) {
+        invalidateTiers(key);
+        weightedSize.add(entry.weight);
         backingCache.put(key, entry);
     }
 
@@ -137,7 +265,85 @@ public class MCRCache<K, V> {
         if (key == null) {
             throw new MCRUsageException("The value of the argument key is null.");
         }
-        backingCache.invalidate(key);
+        invalidateTiers(key);
+        invalidate(key);
+    }
+
+    /**
+     * Removes the key from the backing cache and the cache that is retired by a concurrent capacity change.
+     * Repeated if the backing cache was replaced meanwhile, as the key may have been moved to the new one.
+     */
+    private void invalidate(K key) {
+        Cache<K, MCRCacheEntry<V>> cache;
+        do {
+            cache = backingCache;
+            Cache<K, MCRCacheEntry<V>> retiring = retiringCache;
+            if (retiring != null) {
+                retiring.invalidate(key);
+            }
+            cache.invalidate(key);
+        } while (cache != backingCache);
+    }
+
+    /**
+     * Moves an object of a retired cache to the new one. Holds the lock of the retired cache for the key, so that a
+     * concurrent {@link #invalidate(Object)} removes the object from either cache.
+     */
+    private void move(Cache<K, MCRCacheEntry<V>> retiring, Cache<K, MCRCacheEntry<V>> cache, K key) {
+        retiring.asMap().computeIfPresent(key, (k, entry) -> {
+            weightedSize.add(entry.weight);
+            if (cache.asMap().putIfAbsent(k, entry) != null) {
+                weightedSize.add(-entry.weight);
+            }
+            return null;
+        });
+    }
+
+    private void invalidateTiers(K key) {
+        if (softTier != null) {
+            softTier.invalidate(key);
+        }
+    }
+
+    /**
+     * Returns the entry for the given key. Entries found in the soft tier are moved to the backing cache.
+     */
+    private MCRCacheEntry<V> getEntry(K key) {
+        Cache<K, MCRCacheEntry<V>> cache = backingCache;
+        MCRCacheEntry<V> found = cache.getIfPresent(key);
+        if (found != null) {
+            return found;
+        }
+        Cache<K, MCRCacheEntry<V>> retiring = retiringCache;
+        if (retiring != null) {
+            move(retiring, cache, key);
+            found = cache.getIfPresent(key);
+            if (found != null) {
+                return found;
+            }
+        }
+        found = takeFromSoftTier(key);
+        if (found == null) {
+            return null;
+        }
+        weightedSize.add(found.weight);
+        MCRCacheEntry<V> concurrent = cache.asMap().putIfAbsent(key, found);
+        if (concurrent != null) {
+            weightedSize.add(-found.weight);
+            return concurrent;
+        }
+        return found;
+    }
+
+    private MCRCacheEntry<V> takeFromSoftTier(K key) {
+        if (softTier == null) {
+            return null;
+        }
+        MCRCacheEntry<V> found = softTier.asMap().remove(key);
+        if (found != null) {
+            softTierHits.increment();
+        }
+        return found;
     }
 
     /**
@@ -149,10 +355,49 @@ public class MCRCache<K, V> {
      * @return the cached object, or null
      */
     public V get(K key) {
-        MCRCacheEntry<V> found = backingCache.getIfPresent(key);
+        MCRCacheEntry<V> found = getEntry(key);
         return found == null ? null : found.value;
     }
 
+    /**
+     * Returns an object from the cache for the given key. If there is no object in the cache, it is computed by the
+     * given loader and put into the cache. The time spent in the loader is recorded in the cache statistics.
+     *
+     * @param key
+     *            the key for the object you want to get from this cache
+     * @param loader
+     *            computes the object if it is not in the cache, may return null
+     * @return the cached or loaded object, or null if the loader returned null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        try {
+            return backingCache.get(key, () -> {
+                MCRCacheEntry<V> found = takeFromSoftTier(key);
+                if (found == null) {
+                    V value = loader.apply(key);
+                    if (value == null) {
+                        return null;
+                    }
+                    found = newEntry(key, value);
+                }
+                weightedSize.add(found.weight);
+                return found;
+            }).value;
+        } catch (InvalidCacheLoadException e) {
+            //loader returned null
+            return null;
+        } catch (UncheckedExecutionException | ExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MCRException("Error while loading cache entry " + key, cause);
+        }
+    }
+
     /**
      * Returns an object from the cache for the given key, but only if the cache entry is not older than the given
      * timestamp. If there currently is no object in the cache with this key, null is returned. If the cache entry is
@@ -165,7 +410,7 @@ public class MCRCache<K, V> {
      * @return the cached object, or null
      */
     public V getIfUpToDate(K key, long time) {
-        MCRCacheEntry<V> found = backingCache.getIfPresent(key);
+        MCRCacheEntry<V> found = getEntry(key);
 
         if (found == null || found.insertTime < time) {
             return null;
@@ -175,7 +420,7 @@ public class MCRCache<K, V> {
             found.lookUpTime = System.currentTimeMillis();
             return found.value;
         }
-        backingCache.invalidate(key);
+        invalidate(key);
         return null;
     }
 
@@ -195,7 +440,7 @@ public class MCRCache<K, V> {
      * @since 2.1.81
      */
     public V getIfUpToDate(K key, ModifiedHandle handle) throws IOException {
-        MCRCacheEntry<V> found = backingCache.getIfPresent(key);
+        MCRCacheEntry<V> found = getEntry(key);
         if (found == null) {
             return null;
         }
@@ -204,7 +449,7 @@ public class MCRCache<K, V> {
                 found.lookUpTime = System.currentTimeMillis();
                 return found.value;
             }
-            backingCache.invalidate(key);
+            invalidate(key);
             return null;
         } else {
             return found.value;
@@ -222,7 +467,39 @@ public class MCRCache<K, V> {
     }
 
     /**
-     * Returns the capacity of this cache. This is the maximum number of objects this cache will hold at a time.
+     * Returns the total weight of all objects currently cached. If no {@link Weigher} is used, this is the number of
+     * objects currently cached.
+     *
+     * @return the total weight of all objects currently cached, not including the soft tier
+     */
+    public long getCurrentWeight() {
+        backingCache.cleanUp();
+        return weightedSize.sum();
+    }
+
+    /**
+     * Returns the number of objects currently held in the soft tier.
+     *
+     * @return 0 if there is no soft tier
+     */
+    public long getSoftTierSize() {
+        if (softTier == null) {
+            return 0;
+        }
+        softTier.cleanUp();
+        return softTier.size();
+    }
+
+    /**
+     * Returns the number of requests that were answered from the soft tier.
+     */
+    public long getSoftTierHits() {
+        return softTierHits.sum();
+    }
+
+    /**
+     * Returns the capacity of this cache. This is the maximum number of objects (or the maximum total weight, if a
+     * {@link Weigher} is used) this cache will hold at a time.
      *
      * @return the capacity of this cache
      */
@@ -238,13 +515,23 @@ public class MCRCache<K, V> {
      * @param capacity
      *            the maximum number of objects this cache will hold
      */
-    public synchronized void setCapacity(long capacity) {
-        this.capacity = capacity;
-        Cache<K, MCRCacheEntry<V>> newCache = CacheBuilder.newBuilder().recordStats().maximumSize(capacity).build();
-        newCache.putAll(backingCache.asMap());
-        Cache<K, MCRCacheEntry<V>> oldCache = backingCache;
-        backingCache = newCache;
-        oldCache.invalidateAll();
+    public void setCapacity(long capacity) {
+        resizeLock.lock();
+        try {
+            Cache<K, MCRCacheEntry<V>> newCache = buildCache(capacity);
+            Cache<K, MCRCacheEntry<V>> oldCache = backingCache;
+            retiringCache = oldCache;
+            backingCache = newCache;
+            this.capacity = capacity;
+            //moved entries exceeding the new capacity are evicted by the new cache
+            oldCache.asMap().keySet().forEach(key -> move(oldCache, newCache, key));
+            retiringCache = null;
+            retiredStats = retiredStats.plus(oldCache.stats());
+            oldCache.invalidateAll();
+            newCache.cleanUp();
+        } finally {
+            resizeLock.unlock();
+        }
     }
 
     /**
@@ -253,8 +540,7 @@ public class MCRCache<K, V> {
      * @return true if this cache is full
      */
     public boolean isFull() {
-        backingCache.cleanUp();
-        return backingCache.size() == capacity;
+        return getCurrentWeight() >= capacity;
     }
 
     /**
@@ -263,17 +549,17 @@ public class MCRCache<K, V> {
      * @return true if this cache is empty
      */
     public boolean isEmpty() {
-        backingCache.cleanUp();
-        return backingCache.size() == 0;
+        return getCurrentSize() == 0;
     }
 
     /**
-     * Returns the fill rate of this cache. This is the current number of objects in the cache diveded by its capacity.
+     * Returns the fill rate of this cache. This is the current number of objects (or their total weight) in the cache
+     * diveded by its capacity.
      *
      * @return the fill rate of this cache as double value
      */
     public double getFillRate() {
-        return capacity == 0 ? 1.0 : (double) getCurrentSize() / (double) capacity;
+        return capacity == 0 ? 1.0 : (double) getCurrentWeight() / (double) capacity;
     }
 
     /**
@@ -283,14 +569,32 @@ public class MCRCache<K, V> {
      * @return the hit rate of this cache as double value
      */
     public double getHitRate() {
-        return backingCache.stats().hitRate();
+        return stats().hitRate();
+    }
+
+    /**
+     * Returns the statistics of this cache since its creation, including capacity changes.
+     */
+    CacheStats stats() {
+        return retiredStats.plus(backingCache.stats());
     }
 
     /**
      * Clears the cache by removing all entries from the cache
      */
     public void clear() {
-        backingCache.invalidateAll();
+        if (softTier != null) {
+            softTier.invalidateAll();
+        }
+        Cache<K, MCRCacheEntry<V>> cache;
+        do {
+            cache = backingCache;
+            Cache<K, MCRCacheEntry<V>> retiring = retiringCache;
+            if (retiring != null) {
+                retiring.invalidateAll();
+            }
+            cache.invalidateAll();
+        } while (cache != backingCache);
     }
 
     /**
@@ -300,7 +604,7 @@ public class MCRCache<K, V> {
     @Override
     public String toString() {
 
-        return "Cache capacity:  " + capacity + "\n" + "Cache size:      " + backingCache.size() + "\n"
+        return "Cache capacity:  " + capacity + "\n" + "Cache size:      " + getCurrentSize() + "\n"
             + "Cache fill rate: " + getFillRate() + "\n" + "Cache hit rate:  " + getHitRate();
     }
 
@@ -334,6 +638,23 @@ public class MCRCache<K, V> {
 
     }
 
+    /**
+     * Computes the weight of a cache entry, e.g. its estimated size in bytes.
+     *
+     * @author Thomas Scheffler (yagee)
+     */
+    @FunctionalInterface
+    public interface Weigher<K, V> {
+
+        /**
+         * Returns the weight of the given entry. The weight is computed once when the entry is put into the cache.
+         *
+         * @return a non-negative weight
+         */
+        int weigh(K key, V value);
+
+    }
+
     private static class MCRCacheEntry<V> {
         public long lookUpTime;
 
@@ -341,8 +662,11 @@ public class MCRCache<K, V> {
 
         long insertTime;
 
-        MCRCacheEntry(V value) {
+        final int weight;
+
+        MCRCacheEntry(V value, int weight) {
             this.value = value;
+            this.weight = weight;
             this.insertTime = System.currentTimeMillis();
         }
     }
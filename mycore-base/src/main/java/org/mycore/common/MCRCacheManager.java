@@ -47,21 +47,46 @@ public class MCRCacheManager implements MCRCacheManagerMBean {
     }
 
     public long getHits() {
-        return cache.backingCache.stats().hitCount();
+        return cache.stats().hitCount();
     }
 
     public long getRequests() {
-        return cache.backingCache.stats().requestCount();
+        return cache.stats().requestCount();
     }
 
     public long getEvictions() {
-        return cache.backingCache.stats().evictionCount();
+        return cache.stats().evictionCount();
+    }
+
+    public long getMisses() {
+        return cache.stats().missCount();
+    }
+
+    public long getLoads() {
+        return cache.stats().loadCount();
+    }
+
+    public double getAverageLoadTime() {
+        //nanoseconds to milliseconds
+        return cache.stats().averageLoadPenalty() / 1_000_000d;
     }
 
     public long getSize() {
         return cache.getCurrentSize();
     }
 
+    public long getWeight() {
+        return cache.getCurrentWeight();
+    }
+
+    public long getSoftTierSize() {
+        return cache.getSoftTierSize();
+    }
+
+    public long getSoftTierHits() {
+        return cache.getSoftTierHits();
+    }
+
     /**
      * jmx.managed-operation
      */
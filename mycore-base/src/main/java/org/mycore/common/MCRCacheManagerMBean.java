@@ -22,6 +22,18 @@ public interface MCRCacheManagerMBean {
 
     long getSize();
 
+    long getWeight();
+
+    long getSoftTierSize();
+
+    long getSoftTierHits();
+
+    long getMisses();
+
+    long getLoads();
+
+    double getAverageLoadTime();
+
     long getRequests();
 
     long getEvictions();
@@ -25,6 +25,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -43,6 +44,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
@@ -110,6 +112,8 @@ public class MCRSession implements Cloneable {
 
     private ThreadLocal<Queue<Runnable>> onCommitTasks = ThreadLocal.withInitial(LinkedList::new);
 
+    private ThreadLocal<Map<Object, Object>> transactionAttributes = ThreadLocal.withInitial(HashMap::new);
+
     private static ExecutorService COMMIT_SERVICE;
 
     private static MCRUserInformation guestUserInformation = MCRSystemUserInformation.getGuestInstance();
@@ -337,7 +341,7 @@ public class MCRSession implements Cloneable {
         if (firstURI.isEmpty()) {
             firstURI = Optional.of(DEFAULT_URI);
         }
-        onCommitTasks.remove();
+        discardTransaction();
     }
 
     /**
@@ -448,9 +452,42 @@ public class MCRSession implements Cloneable {
         this.onCommitTasks.get().offer(Objects.requireNonNull(task));
     }
 
+    /**
+     * Returns the object stored under the given key for the current transaction of this session in this thread.
+     * If there is none yet, it is created by <code>factory</code>. These objects are dropped together with the
+     * tasks added by {@link #onCommit(Runnable)} on commit, on roll back and when the session is released, so an
+     * object that registers an onCommit task on creation is bound to exactly one transaction.
+     *
+     * @param key the key of the object, e.g. the instance that uses it
+     * @param factory creates the object on first access within the transaction
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T computeTransactionAttributeIfAbsent(Object key, Function<Object, T> factory) {
+        return (T) transactionAttributes.get().computeIfAbsent(key, factory);
+    }
+
+    /**
+     * Returns the object stored under the given key for the current transaction of this session in this thread.
+     *
+     * @return the object or <code>null</code> if there is none
+     * @see #computeTransactionAttributeIfAbsent(Object, Function)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getTransactionAttribute(Object key) {
+        return (T) transactionAttributes.get().get(key);
+    }
+
+    /**
+     * Drops the onCommit tasks and transaction attributes of this thread without running the tasks.
+     */
+    void discardTransaction() {
+        onCommitTasks.remove();
+        transactionAttributes.remove();
+    }
+
     protected void submitOnCommitTasks() {
         Queue<Runnable> runnables = onCommitTasks.get();
-        onCommitTasks.remove();
+        discardTransaction();
         CompletableFuture.allOf(runnables.stream()
             .map(r -> new MCRTransactionableRunnable(r, this))
             .map(MCRSession::toCompletableFuture)
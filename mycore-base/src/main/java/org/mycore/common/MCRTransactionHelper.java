@@ -58,13 +58,16 @@ public class MCRTransactionHelper implements Cloneable {
 
     /**
      * forces the database transaction to roll back. Roll back is only performed if {@link #isTransactionActive()}
-     * returns true.
+     * returns true. Tasks registered by {@link MCRSession#onCommit(Runnable)} are discarded in any case.
      */
     public static void rollbackTransaction() {
         if (isTransactionActive()) {
             transaction.get().forEach(MCRPersistenceTransaction::rollback);
             transaction.remove();
         }
+        if (MCRSessionMgr.hasCurrentSession()) {
+            MCRSessionMgr.getCurrentSession().discardTransaction();
+        }
     }
 
     /**
@@ -357,6 +357,17 @@ public abstract class MCRContent {
         return getSimpleWeakETag(getSystemId(), length, lastModified);
     }
 
+    /**
+     * Returns ETag and last modified date to answer conditional requests. Implementations should override this
+     * method, if both can be determined from metadata, so that no content has to be read.
+     *
+     * @see #getETag()
+     * @see #lastModified()
+     */
+    public MCRContentFingerprint getFingerprint() throws IOException {
+        return new MCRContentFingerprint(getETag(), lastModified());
+    }
+
     /**
      * Uses provided parameter to compute simple weak ETag.
      * 
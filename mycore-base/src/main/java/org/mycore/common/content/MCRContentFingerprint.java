@@ -0,0 +1,123 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.content;
+
+import java.util.StringTokenizer;
+
+/**
+ * ETag and last modified date of a {@link MCRContent}, used to answer conditional requests without reading the
+ * content.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see MCRContent#getFingerprint()
+ */
+public final class MCRContentFingerprint {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final String eTag;
+
+    private final long lastModified;
+
+    /**
+     * @param eTag the ETag including quotes, may be <code>null</code>
+     * @param lastModified the last modified date or -1, if unknown
+     */
+    public MCRContentFingerprint(String eTag, long lastModified) {
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Creates a fingerprint with a strong ETag from a checksum of the content, e.g. the MD5 sum stored in
+     * {@link org.mycore.datamodel.niofs.MCRFileAttributes}.
+     */
+    public static MCRContentFingerprint ofChecksum(String checksum, long lastModified) {
+        return new MCRContentFingerprint('"' + checksum + '"', lastModified);
+    }
+
+    /**
+     * @return the ETag or <code>null</code>, if unknown
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return the last modified date in milliseconds or -1, if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return true, if the ETag is known and not weak
+     */
+    public boolean isStrong() {
+        return eTag != null && !eTag.startsWith(WEAK_PREFIX);
+    }
+
+    /**
+     * Checks if the ETag matches any entity tag of the given <code>If-Match</code> or <code>If-None-Match</code>
+     * header value.
+     *
+     * @param headerValue the header value, e.g. <code>"abc", W/"def"</code> or <code>*</code>
+     * @param weakComparison true for <code>If-None-Match</code>, false for <code>If-Match</code> or
+     *                       <code>If-Range</code> which require a strong ETag
+     */
+    public boolean matches(String headerValue, boolean weakComparison) {
+        if (eTag == null) {
+            return false;
+        }
+        if ("*".equals(headerValue.trim())) {
+            return true;
+        }
+        if (!weakComparison && !isStrong()) {
+            return false;
+        }
+        String opaqueTag = getOpaqueTag(eTag);
+        StringTokenizer commaTokenizer = new StringTokenizer(headerValue, ",");
+        while (commaTokenizer.hasMoreTokens()) {
+            String currentToken = commaTokenizer.nextToken().trim();
+            if (weakComparison ? getOpaqueTag(currentToken).equals(opaqueTag) : currentToken.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the content was modified after the given date of a <code>If-Modified-Since</code> header.
+     * Dates are compared with a precision of seconds.
+     *
+     * @return true, if the content was modified or the last modified date is unknown
+     */
+    public boolean isModifiedSince(long date) {
+        return lastModified < 0 || lastModified >= date + 1000;
+    }
+
+    private static String getOpaqueTag(String eTag) {
+        return eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+    }
+
+    @Override
+    public String toString() {
+        return "MCRContentFingerprint [eTag=" + eTag + ", lastModified=" + lastModified + "]";
+    }
+}
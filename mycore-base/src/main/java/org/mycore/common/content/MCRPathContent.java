@@ -97,17 +97,31 @@ public class MCRPathContent extends MCRContent implements MCRSeekableChannelCont
     @Override
     public String getETag() throws IOException {
         if (attrs instanceof MCRFileAttributes) {
-            return ((MCRFileAttributes) attrs).md5sum();
+            return '"' + ((MCRFileAttributes) attrs).md5sum() + '"';
         }
 
         if (Files.getFileStore(path).supportsFileAttributeView("md5")) {
             Object fileKey = Files.getAttribute(path, "md5:md5");
             if (fileKey instanceof String) {
-                return fileKey.toString();
+                return '"' + fileKey.toString() + '"';
             }
         }
 
-        return super.getETag();
+        return getSimpleWeakETag(getSystemId(), length(), lastModified());
+    }
+
+    /**
+     * Uses the MD5 sum of {@link MCRFileAttributes} as strong ETag, so that no file content has to be read.
+     */
+    @Override
+    public MCRContentFingerprint getFingerprint() throws IOException {
+        BasicFileAttributes attributes = attrs != null ? attrs : Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (attributes instanceof MCRFileAttributes) {
+            return MCRContentFingerprint.ofChecksum(((MCRFileAttributes<?>) attributes).md5sum(), lastModified);
+        }
+        return new MCRContentFingerprint(getSimpleWeakETag(getSystemId(), attributes.size(), lastModified),
+            lastModified);
     }
 
     @Override
@@ -163,6 +163,11 @@ public abstract class MCRWrappedContent extends MCRContent {
         return getBaseContent().getETag();
     }
 
+    @Override
+    public MCRContentFingerprint getFingerprint() throws IOException {
+        return getBaseContent().getFingerprint();
+    }
+
     @Override
     public ReadableByteChannel getReadableByteChannel() throws IOException {
         return getBaseContent().getReadableByteChannel();
@@ -62,6 +62,7 @@ import org.mycore.common.xml.MCRURIResolver;
 import org.mycore.common.xml.MCRXMLParserFactory;
 import org.mycore.common.xsl.MCRErrorListener;
 import org.mycore.common.xsl.MCRParameterCollector;
+import org.mycore.common.xsl.MCRTemplatesCache;
 import org.mycore.common.xsl.MCRTemplatesSource;
 import org.mycore.common.xsl.MCRTraceListener;
 import org.xml.sax.SAXException;
@@ -129,7 +130,7 @@ public class MCRXSLTransformer extends MCRParameterizedTransformer {
             .map(c -> TransformerFactory.newInstance(c, MCRClassTools.getClassLoader()))
             .orElseGet(TransformerFactory::newInstance);
         LOGGER.debug("Transformerfactory: {}", transformerFactory.getClass().getName());
-        transformerFactory.setURIResolver(URI_RESOLVER);
+        transformerFactory.setURIResolver(MCRTemplatesCache.getURIResolver(URI_RESOLVER));
         transformerFactory.setErrorListener(MCRErrorListener.getInstance());
         if (transformerFactory.getFeature(SAXSource.FEATURE) && transformerFactory.getFeature(SAXResult.FEATURE)) {
             this.tFactory = (SAXTransformerFactory) transformerFactory;
@@ -181,17 +182,12 @@ public class MCRXSLTransformer extends MCRParameterizedTransformer {
         boolean useCache = MCRConfiguration2.getBoolean("MCR.UseXSLTemplateCache").orElse(true);
 
         if (check || !useCache) {
+            MCRTemplatesCache templatesCache = MCRTemplatesCache.instance();
             for (int i = 0; i < templateSources.length; i++) {
-                long lastModified = templateSources[i].getLastModified();
-                if (templates[i] == null || modified[i] < lastModified || !useCache) {
-                    SAXSource source = templateSources[i].getSource();
-                    templates[i] = tFactory.newTemplates(source);
-                    if (templates[i] == null) {
-                        throw new TransformerConfigurationException(
-                            "XSLT Stylesheet could not be compiled: " + templateSources[i].getURL());
-                    }
-                    modified[i] = lastModified;
-                }
+                MCRTemplatesCache.Entry entry = useCache ? templatesCache.getTemplates(tFactory, templateSources[i])
+                    : templatesCache.compile(tFactory, templateSources[i]);
+                templates[i] = entry.getTemplates();
+                modified[i] = entry.getLastModified();
             }
             modifiedChecked = System.currentTimeMillis();
         }
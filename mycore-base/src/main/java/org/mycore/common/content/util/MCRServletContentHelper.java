@@ -23,7 +23,6 @@ import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.Locale;
-import java.util.StringTokenizer;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
@@ -35,6 +34,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.mycore.common.content.MCRContent;
+import org.mycore.common.content.MCRContentFingerprint;
 
 /**
  * @author Thomas Scheffler (yagee)
@@ -117,8 +117,11 @@ public abstract class MCRServletContentHelper {
             return;
         }
 
+        //content fingerprint is determined once, as it may require I/O
+        final MCRContentFingerprint fingerprint = isError ? null : content.getFingerprint();
+
         //Check if all conditional header validate
-        if (!isError && !checkIfHeaders(request, response, content)) {
+        if (!isError && !checkIfHeaders(request, response, content, fingerprint)) {
             return;
         }
 
@@ -137,16 +140,18 @@ public abstract class MCRServletContentHelper {
         String eTag = null;
         List<Range> ranges = null;
         if (!isError) {
-            eTag = content.getETag();
+            eTag = fingerprint.getETag();
             if (config.useAcceptRanges) {
                 response.setHeader("Accept-Ranges", "bytes");
             }
 
-            ranges = parseRange(request, response, content);
+            ranges = parseRange(request, response, content, fingerprint);
 
-            response.setHeader("ETag", eTag);
+            if (eTag != null) {
+                response.setHeader("ETag", eTag);
+            }
 
-            long lastModified = content.lastModified();
+            long lastModified = fingerprint.getLastModified();
             if (lastModified >= 0) {
                 response.setDateHeader("Last-Modified", lastModified);
             }
@@ -245,13 +250,14 @@ public abstract class MCRServletContentHelper {
 
     /**
      * Check if all conditions specified in the If headers are
-     * satisfied.
+     * satisfied. The conditions are evaluated in the order of RFC 7232, section 6.
      */
     private static boolean checkIfHeaders(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent content) throws IOException {
+        final MCRContent content, final MCRContentFingerprint fingerprint) throws IOException {
 
-        return checkIfMatch(request, response, content) && checkIfModifiedSince(request, response, content)
-            && checkIfNoneMatch(request, response, content) && checkIfUnmodifiedSince(request, response, content);
+        return checkIfMatch(request, response, fingerprint) && checkIfUnmodifiedSince(request, response, fingerprint)
+            && checkIfNoneMatch(request, response, content, fingerprint)
+            && checkIfModifiedSince(request, response, content, fingerprint);
 
     }
 
@@ -259,30 +265,13 @@ public abstract class MCRServletContentHelper {
      * Check if the If-Match condition is satisfied.
      */
     private static boolean checkIfMatch(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent content) throws IOException {
+        final MCRContentFingerprint fingerprint) throws IOException {
 
-        final String eTag = content.getETag();
         final String headerValue = request.getHeader("If-Match");
-        if (headerValue != null) {
-            if (headerValue.indexOf('*') == -1) {
-
-                final StringTokenizer commaTokenizer = new StringTokenizer(headerValue, ",");
-                boolean conditionSatisfied = false;
-
-                while (!conditionSatisfied && commaTokenizer.hasMoreTokens()) {
-                    final String currentToken = commaTokenizer.nextToken();
-                    if (currentToken.trim().equals(eTag)) {
-                        conditionSatisfied = true;
-                    }
-                }
-
-                // none of the given ETags match
-                if (!conditionSatisfied) {
-                    response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
-                    return false;
-                }
-
-            }
+        if (headerValue != null && !fingerprint.matches(headerValue, false)) {
+            // none of the given ETags match
+            response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+            return false;
         }
         return true;
     }
@@ -292,20 +281,16 @@ public abstract class MCRServletContentHelper {
      *
      */
     private static boolean checkIfModifiedSince(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent content) throws IOException {
+        final MCRContent content, final MCRContentFingerprint fingerprint) {
+        // If an If-None-Match header has been specified, if modified since is ignored.
+        if (request.getHeader("If-None-Match") != null || !isGetOrHead(request)) {
+            return true;
+        }
         try {
             final long headerValue = request.getDateHeader("If-Modified-Since");
-            final long lastModified = content.lastModified();
-            if (headerValue != -1) {
-
-                // If an If-None-Match header has been specified, if modified since
-                // is ignored.
-                if (request.getHeader("If-None-Match") == null && lastModified < headerValue + 1000) {
-                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                    response.setHeader("ETag", content.getETag());
-
-                    return false;
-                }
+            if (headerValue != -1 && !fingerprint.isModifiedSince(headerValue)) {
+                sendNotModified(response, content, fingerprint);
+                return false;
             }
         } catch (final IllegalArgumentException illegalArgument) {
             return true;
@@ -317,38 +302,17 @@ public abstract class MCRServletContentHelper {
      * Check if the if-none-match condition is satisfied.
      */
     private static boolean checkIfNoneMatch(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent content) throws IOException {
+        final MCRContent content, final MCRContentFingerprint fingerprint) throws IOException {
 
-        final String eTag = content.getETag();
         final String headerValue = request.getHeader("If-None-Match");
-        if (headerValue != null) {
-
-            boolean conditionSatisfied = false;
-
-            if ("*".equals(headerValue)) {
-                conditionSatisfied = true;
-            } else {
-                final StringTokenizer commaTokenizer = new StringTokenizer(headerValue, ",");
-                while (!conditionSatisfied && commaTokenizer.hasMoreTokens()) {
-                    final String currentToken = commaTokenizer.nextToken();
-                    if (currentToken.trim().equals(eTag)) {
-                        conditionSatisfied = true;
-                    }
-                }
-
-            }
-
-            if (conditionSatisfied) {
-                //'GET' 'HEAD' -> not modified
-                if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
-                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                    response.setHeader("ETag", eTag);
-
-                    return false;
-                }
-                response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+        if (headerValue != null && fingerprint.matches(headerValue, true)) {
+            //'GET' 'HEAD' -> not modified
+            if (isGetOrHead(request)) {
+                sendNotModified(response, content, fingerprint);
                 return false;
             }
+            response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+            return false;
         }
         return true;
     }
@@ -357,16 +321,18 @@ public abstract class MCRServletContentHelper {
      * Check if the if-unmodified-since condition is satisfied.
      */
     private static boolean checkIfUnmodifiedSince(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent resource) throws IOException {
+        final MCRContentFingerprint fingerprint) throws IOException {
+        // If an If-Match header has been specified, if unmodified since is ignored.
+        if (request.getHeader("If-Match") != null) {
+            return true;
+        }
         try {
-            final long lastModified = resource.lastModified();
             final long headerValue = request.getDateHeader("If-Unmodified-Since");
-            if (headerValue != -1) {
-                if (lastModified >= headerValue + 1000) {
-                    // The content has been modified.
-                    response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
-                    return false;
-                }
+            if (headerValue != -1 && fingerprint.getLastModified() >= 0
+                && fingerprint.isModifiedSince(headerValue)) {
+                // The content has been modified.
+                response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+                return false;
             }
         } catch (final IllegalArgumentException illegalArgument) {
             return true;
@@ -374,6 +340,24 @@ public abstract class MCRServletContentHelper {
         return true;
     }
 
+    private static boolean isGetOrHead(final HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    private static void sendNotModified(final HttpServletResponse response, final MCRContent content,
+        final MCRContentFingerprint fingerprint) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        if (fingerprint.getETag() != null) {
+            response.setHeader("ETag", fingerprint.getETag());
+        }
+        if (fingerprint.getLastModified() >= 0) {
+            response.setDateHeader("Last-Modified", fingerprint.getLastModified());
+        }
+        if (content.isUsingSession()) {
+            response.addHeader("Cache-Control", "private, max-age=0, must-revalidate");
+        }
+    }
+
     public static long copyLarge(InputStream input, OutputStream output, long inputOffset, long length, byte[] buffer)
         throws IOException {
         return ContentUtils.copyLarge(input, output, inputOffset, length, buffer);
@@ -414,7 +398,7 @@ public abstract class MCRServletContentHelper {
      * InputStream.
      */
     private static List<Range> parseRange(final HttpServletRequest request, final HttpServletResponse response,
-        final MCRContent content) throws IOException {
+        final MCRContent content, final MCRContentFingerprint fingerprint) throws IOException {
 
         // Checking if range is still valid (lastModified)
         final String headerValue = request.getHeader("If-Range");
@@ -427,17 +411,14 @@ public abstract class MCRServletContentHelper {
                 // Ignore
             }
 
-            final String eTag = content.getETag();
-            final long lastModified = content.lastModified();
-
             if (headerValueTime == -1L) {
                 // If the content changed, the complete content is served.
-                if (!eTag.equals(headerValue.trim())) {
+                if (!fingerprint.matches(headerValue, false)) {
                     return ContentUtils.FULL;
                 }
             } else {
                 //add one second buffer to check if the content was modified.
-                if (lastModified > headerValueTime + 1000) {
+                if (fingerprint.isModifiedSince(headerValueTime)) {
                     return ContentUtils.FULL;
                 }
             }
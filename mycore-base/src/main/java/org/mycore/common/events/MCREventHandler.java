@@ -37,6 +37,13 @@ import org.mycore.common.MCRException;
  * handlers are called in the same order as they are registered in the
  * properties file.
  * 
+ * Event handlers registered with
+ * 
+ * MCR.EventHandler.[objType].X.PostCommitClass=[package and class name]
+ * 
+ * are called asynchronously after the transaction was committed, see
+ * {@link MCRPostCommitEventHandler}.
+ * 
  * @author Frank Lützenkirchen
  */
 public interface MCREventHandler {
@@ -240,6 +240,9 @@ public class MCREventManager {
             return MCRConfiguration2.<MCREventHandler>getSingleInstanceOf(propertyValue)
                 .orElseThrow(() -> MCRConfiguration2.createConfigurationException(propertyValue));
         }
+        if ("PostCommitClass".equals(mode)) {
+            return new MCRPostCommitEventHandler(getEventHandler("Class", propertyValue));
+        }
         String className = CONFIG_PREFIX + "Mode." + mode;
         MCREventHandlerInitializer configuredInitializer = MCRConfiguration2
             .<MCREventHandlerInitializer>getSingleInstanceOf(className)
@@ -0,0 +1,397 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.events;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRException;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.MCRUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.datamodel.classifications2.MCRCategory;
+import org.mycore.datamodel.metadata.MCRBase;
+import org.mycore.datamodel.metadata.MCRDerivate;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.util.concurrent.MCRFixedUserCallable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Dispatches events of {@link MCRPostCommitEventHandler}s after the current transaction was committed.
+ *
+ * Events are collected per transaction and put into a queue per object (e.g. per {@link MCREvent#OBJECT_KEY object}
+ * ID or {@link MCREvent#PATH_KEY path}) on commit. The queues are processed by
+ * <code>MCR.EventManager.PostCommit.ThreadCount</code> threads, so events of different objects are handled in
+ * parallel and events of the same object in the order they occurred. Events that are still waiting in a queue are
+ * coalesced: subsequent updates of the same object are merged into one event per handler.
+ *
+ * At most <code>MCR.EventManager.PostCommit.MaxPending</code> events may be waiting. If this limit is reached,
+ * committing transactions are blocked until events were handled. Transactions committed by post commit handlers
+ * themselves are never blocked, their events are queued beyond the limit instead.
+ *
+ * Handlers get a copy of the {@link MCRObject} or {@link MCRDerivate} of the event, so later changes of the
+ * committing thread are not visible to them.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRPostCommitEventDispatcher implements MCRShutdownHandler.Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.EventManager.PostCommit.";
+
+    private static final MCRPostCommitEventDispatcher INSTANCE = new MCRPostCommitEventDispatcher();
+
+    private static final List<String> OBJECT_KEYS = List.of(MCREvent.OBJECT_KEY, MCREvent.OBJECT_OLD_KEY,
+        MCREvent.DERIVATE_KEY, MCREvent.DERIVATE_OLD_KEY);
+
+    /** true in threads that handle queued events */
+    private final ThreadLocal<Boolean> worker = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /** queued events per object, guarded by itself */
+    private final Map<String, Deque<QueuedEvent>> queues = new HashMap<>();
+
+    private final Semaphore pendingPermits;
+
+    private final ExecutorService executor;
+
+    private MCRPostCommitEventDispatcher() {
+        this(MCRConfiguration2.getInt(CONFIG_PREFIX + "ThreadCount").orElse(4),
+            MCRConfiguration2.getInt(CONFIG_PREFIX + "MaxPending").orElse(10000));
+        MCRShutdownHandler.getInstance().addCloseable(this);
+    }
+
+    MCRPostCommitEventDispatcher(int threadCount, int maxPending) {
+        pendingPermits = new Semaphore(maxPending);
+        executor = Executors.newFixedThreadPool(threadCount,
+            new ThreadFactoryBuilder().setNameFormat("MCRPostCommitEvent-#%d").setDaemon(true).build());
+    }
+
+    public static MCRPostCommitEventDispatcher instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues the event for the handler. The event is handled after the current transaction was committed or as
+     * soon as possible, if no transaction is active.
+     */
+    public void dispatch(MCREventHandler handler, MCREvent evt) {
+        QueuedEvent event = new QueuedEvent(handler, evt, copy(evt),
+            MCRSessionMgr.getCurrentSession().getUserInformation());
+        if (!MCRTransactionHelper.isTransactionActive()) {
+            enqueue(List.of(event));
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        PendingEvents pending = session.computeTransactionAttributeIfAbsent(this, key -> {
+            PendingEvents events = new PendingEvents();
+            session.onCommit(events);
+            return events;
+        });
+        pending.add(event);
+    }
+
+    /**
+     * Removes the event from the events of the current transaction.
+     */
+    public void discard(MCREventHandler handler, MCREvent evt) {
+        PendingEvents pending = MCRSessionMgr.getCurrentSession().getTransactionAttribute(this);
+        if (pending != null) {
+            pending.remove(handler, evt);
+        }
+    }
+
+    /**
+     * @return the number of events waiting to be handled
+     */
+    public int getQueuedEventCount() {
+        synchronized (queues) {
+            return queues.values().stream().mapToInt(Deque::size).sum();
+        }
+    }
+
+    /**
+     * Copies the event and the {@link MCRBase} instances it contains.
+     */
+    private static MCREvent copy(MCREvent evt) {
+        MCREvent copy = new MCREvent(evt.getObjectType(), evt.getEventType());
+        copy.putAll(evt);
+        for (String key : OBJECT_KEYS) {
+            Object object = evt.get(key);
+            if (object instanceof MCRBase) {
+                copy.put(key, copy((MCRBase) object));
+            }
+        }
+        return copy;
+    }
+
+    private static MCRBase copy(MCRBase base) {
+        try {
+            return base instanceof MCRObject ? new MCRObject(base.createXML()) : new MCRDerivate(base.createXML());
+        } catch (MCRException e) {
+            LOGGER.warn("Could not copy {}, post commit handlers get the original instance.", base.getId(), e);
+            return base;
+        }
+    }
+
+    private void enqueue(List<QueuedEvent> events) {
+        for (QueuedEvent event : events) {
+            if (worker.get()) {
+                //waiting for permits here would wait for ourself
+                event.permit = pendingPermits.tryAcquire();
+            } else {
+                try {
+                    pendingPermits.acquire();
+                    event.permit = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MCRException("Interrupted while waiting to queue " + event, e);
+                }
+            }
+            String key = getKey(event.event);
+            boolean startWorker;
+            synchronized (queues) {
+                Deque<QueuedEvent> queue = queues.get(key);
+                startWorker = queue == null;
+                if (startWorker) {
+                    queue = new ArrayDeque<>();
+                    queues.put(key, queue);
+                }
+                if (coalesce(queue, event)) {
+                    releasePermit(event);
+                } else {
+                    queue.addLast(event);
+                }
+            }
+            if (startWorker) {
+                executor.execute(() -> processQueue(key));
+            }
+        }
+    }
+
+    /**
+     * Merges the event into the last queued event of the same handler.
+     *
+     * @return true, if the event was merged
+     */
+    private static boolean coalesce(Deque<QueuedEvent> queue, QueuedEvent event) {
+        Iterator<QueuedEvent> queuedEvents = queue.descendingIterator();
+        while (queuedEvents.hasNext()) {
+            QueuedEvent queuedEvent = queuedEvents.next();
+            if (queuedEvent.handler != event.handler) {
+                continue;
+            }
+            MCREvent merged = merge(queuedEvent.event, event.event);
+            if (merged == null) {
+                return false;
+            }
+            LOGGER.debug("Coalesced {} event of {}.", event.event.getEventType(), getKey(event.event));
+            queuedEvent.event = merged;
+            queuedEvent.userInformation = event.userInformation;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merges two subsequent events of the same object.
+     *
+     * @return the merged event or <code>null</code>, if both events have to be handled
+     */
+    static MCREvent merge(MCREvent first, MCREvent second) {
+        String firstType = first.getEventType();
+        String secondType = second.getEventType();
+        if (MCREvent.UPDATE_EVENT.equals(secondType)
+            && (MCREvent.CREATE_EVENT.equals(firstType) || MCREvent.UPDATE_EVENT.equals(firstType))) {
+            //handler sees one create or update from the first old state to the latest state
+            MCREvent merged = new MCREvent(first.getObjectType(), firstType);
+            merged.putAll(second);
+            for (String oldKey : List.of(MCREvent.OBJECT_OLD_KEY, MCREvent.DERIVATE_OLD_KEY)) {
+                merged.remove(oldKey);
+                if (first.containsKey(oldKey)) {
+                    merged.put(oldKey, first.get(oldKey));
+                }
+            }
+            return merged;
+        }
+        if (firstType.equals(secondType)
+            && (MCREvent.REPAIR_EVENT.equals(secondType) || MCREvent.INDEX_EVENT.equals(secondType))) {
+            return second;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key of the queue for the event. Events of unknown objects are queued per object type.
+     */
+    static String getKey(MCREvent evt) {
+        Object object = evt.get(MCREvent.OBJECT_KEY);
+        if (object == null) {
+            object = evt.get(MCREvent.DERIVATE_KEY);
+        }
+        if (object instanceof MCRBase) {
+            return evt.getObjectType() + ':' + ((MCRBase) object).getId();
+        }
+        Object path = evt.get(MCREvent.PATH_KEY);
+        if (path instanceof Path) {
+            return evt.getObjectType() + ':' + path;
+        }
+        Object category = evt.get("class");
+        if (category instanceof MCRCategory) {
+            return evt.getObjectType() + ':' + ((MCRCategory) category).getId();
+        }
+        return evt.getObjectType();
+    }
+
+    private void processQueue(String key) {
+        worker.set(Boolean.TRUE);
+        try {
+            while (true) {
+                QueuedEvent event;
+                synchronized (queues) {
+                    Deque<QueuedEvent> queue = queues.get(key);
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        queues.remove(key);
+                        return;
+                    }
+                }
+                releasePermit(event);
+                handle(event);
+            }
+        } finally {
+            worker.remove();
+        }
+    }
+
+    private void releasePermit(QueuedEvent event) {
+        if (event.permit) {
+            pendingPermits.release();
+        }
+    }
+
+    private void handle(QueuedEvent event) {
+        MCREvent evt = event.event;
+        LOGGER.debug("Calling post commit handler {} for {} {}", event.handler.getClass().getName(),
+            evt.getEventType(), getKey(evt));
+        try {
+            new MCRFixedUserCallable<>(() -> {
+                event.handler.doHandleEvent(evt);
+                return null;
+            }, event.userInformation).call();
+        } catch (Exception e) {
+            LOGGER.error("Exception caught while calling post commit event handler {} for {} {}",
+                event.handler.getClass().getName(), evt.getEventType(), getKey(evt), e);
+        }
+    }
+
+    @Override
+    public void prepareClose() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                LOGGER.warn("Post commit events are still processed, {} events are lost.", getQueuedEventCount());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for post commit events.", e);
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public int getPriority() {
+        //handle remaining events before other services are closed
+        return MCRShutdownHandler.Closeable.DEFAULT_PRIORITY + 1;
+    }
+
+    private static class QueuedEvent {
+
+        private final MCREventHandler handler;
+
+        /** the event that was dispatched, used to discard it */
+        private final MCREvent source;
+
+        private MCREvent event;
+
+        private MCRUserInformation userInformation;
+
+        /** true, if a permit of the pending events was acquired */
+        private boolean permit;
+
+        QueuedEvent(MCREventHandler handler, MCREvent source, MCREvent event, MCRUserInformation userInformation) {
+            this.handler = handler;
+            this.source = source;
+            this.event = event;
+            this.userInformation = userInformation;
+        }
+
+        @Override
+        public String toString() {
+            return event.getEventType() + " " + getKey(event);
+        }
+    }
+
+    /**
+     * Events of one transaction, queued on commit. Stored as a
+     * {@link MCRSession#computeTransactionAttributeIfAbsent(Object, java.util.function.Function) transaction
+     * attribute}, so events of a transaction that is rolled back are dropped with it.
+     */
+    private class PendingEvents implements Runnable {
+
+        private final List<QueuedEvent> events = new ArrayList<>();
+
+        synchronized void add(QueuedEvent event) {
+            events.add(event);
+        }
+
+        synchronized void remove(MCREventHandler handler, MCREvent evt) {
+            events.removeIf(event -> event.handler == handler && event.source == evt);
+        }
+
+        @Override
+        public void run() {
+            List<QueuedEvent> committedEvents;
+            synchronized (this) {
+                committedEvents = new ArrayList<>(events);
+                events.clear();
+            }
+            enqueue(committedEvents);
+        }
+    }
+}
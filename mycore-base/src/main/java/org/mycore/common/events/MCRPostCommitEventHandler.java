@@ -0,0 +1,69 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.events;
+
+import org.mycore.common.MCRException;
+
+/**
+ * Forwards events to an {@link MCREventHandler} after the current transaction was committed.
+ *
+ * Register a handler with
+ *
+ * <code>MCR.EventHandler.[objType].X.PostCommitClass=[package and class name]</code>
+ *
+ * instead of <code>...X.Class</code> to decouple it from the caller. Events are handled asynchronously by the
+ * {@link MCRPostCommitEventDispatcher} which coalesces pending events of the same object.
+ * As the transaction is already committed, exceptions of the handler are only logged and
+ * {@link MCREventHandler#undoHandleEvent(MCREvent)} is never called.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRPostCommitEventHandler implements MCREventHandler {
+
+    private final MCREventHandler handler;
+
+    public MCRPostCommitEventHandler(MCREventHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @return the handler the events are forwarded to
+     */
+    public MCREventHandler getHandler() {
+        return handler;
+    }
+
+    @Override
+    public void doHandleEvent(MCREvent evt) throws MCRException {
+        MCRPostCommitEventDispatcher.instance().dispatch(handler, evt);
+    }
+
+    /**
+     * Discards the event, if it is still pending.
+     */
+    @Override
+    public void undoHandleEvent(MCREvent evt) throws MCRException {
+        MCRPostCommitEventDispatcher.instance().discard(handler, evt);
+    }
+
+    @Override
+    public String toString() {
+        return "post commit " + handler;
+    }
+}
@@ -107,6 +107,7 @@ import org.mycore.datamodel.common.MCRDataURL;
 import org.mycore.datamodel.common.MCRXMLMetadataManager;
 import org.mycore.datamodel.metadata.MCRDerivate;
 import org.mycore.datamodel.metadata.MCRFileMetadata;
+import org.mycore.datamodel.metadata.MCRMetadataCache;
 import org.mycore.datamodel.metadata.MCRMetadataManager;
 import org.mycore.datamodel.metadata.MCRObjectDerivate;
 import org.mycore.datamodel.metadata.MCRObjectID;
@@ -606,16 +607,18 @@ public final class MCRURIResolver implements URIResolver {
 
             MCRObjectID mcrid = MCRObjectID.getInstance(id);
             try {
-                MCRXMLMetadataManager xmlmm = MCRXMLMetadataManager.instance();
-                MCRContent content = params.containsKey("r")
-                    ? xmlmm.retrieveContent(mcrid, params.get("r"))
-                    : xmlmm.retrieveContent(mcrid);
+                if (!params.containsKey("r")) {
+                    Document xml = MCRMetadataCache.instance().retrieveXML(mcrid);
+                    LOGGER.debug("end resolving {}", href);
+                    return xml == null ? null : new JDOMSource(xml);
+                }
+                MCRContent content = MCRXMLMetadataManager.instance().retrieveContent(mcrid, params.get("r"));
                 if (content == null) {
                     return null;
                 }
                 LOGGER.debug("end resolving {}", href);
                 return content.getSource();
-            } catch (IOException e) {
+            } catch (IOException | JDOMException | SAXException e) {
                 throw new TransformerException(e);
             }
         }
@@ -0,0 +1,362 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.xsl;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.sax.SAXTransformerFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRCache;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.config.MCRConfigurationDir;
+import org.mycore.services.mbeans.MCRJMXBridge;
+import org.xml.sax.SAXException;
+
+/**
+ * Central cache of compiled XSL stylesheets.
+ *
+ * Compiled {@link Templates} are cached per transformer factory class and stylesheet. Every stylesheet, that is
+ * imported or included while compiling, is recorded by the {@link URIResolver} returned by
+ * {@link #getURIResolver(URIResolver)}. An entry is only up-to-date as long as neither the stylesheet itself nor one
+ * of the recorded resources was modified. This is checked at most every
+ * <code>MCR.LayoutService.LastModifiedCheckPeriod</code> milliseconds, which defaults to 60 seconds like the check
+ * period of {@link org.mycore.common.content.transformer.MCRXSLTransformer}.
+ *
+ * The number of cached stylesheets is limited by <code>MCR.LayoutService.XSLCacheSize</code>. Hits, misses and
+ * compile times are exposed via JMX.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see MCRTemplatesPrecompiler
+ */
+public final class MCRTemplatesCache implements MCRTemplatesCacheMBean {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final MCRTemplatesCache INSTANCE = new MCRTemplatesCache();
+
+    /** resources resolved while compiling on the current thread */
+    private static final ThreadLocal<Map<String, Long>> DEPENDENCIES = new ThreadLocal<>();
+
+    private static final String RESOURCE_PREFIX = "resource:";
+
+    /** connect and read timeout of last modified checks of remote stylesheets */
+    private static final int TIMEOUT = MCRConfiguration2.getInt("MCR.LayoutService.LastModifiedCheckTimeout")
+        .orElse(5000);
+
+    private final MCRCache<String, Entry> cache;
+
+    private final long checkPeriod;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder compilations = new LongAdder();
+
+    private final LongAdder recompilations = new LongAdder();
+
+    private final LongAdder compileTime = new LongAdder();
+
+    private final LongAccumulator maxCompileTime = new LongAccumulator(Math::max, 0);
+
+    private MCRTemplatesCache() {
+        cache = new MCRCache<>(MCRConfiguration2.getInt("MCR.LayoutService.XSLCacheSize").orElse(200),
+            "XSL Templates");
+        checkPeriod = MCRConfiguration2.getLong("MCR.LayoutService.LastModifiedCheckPeriod").orElse(60000L);
+        MCRJMXBridge.register(this, "MCRTemplatesCache", "XSL Templates");
+    }
+
+    public static MCRTemplatesCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns an URI resolver that records the resources resolved while compiling a stylesheet. Transformer
+     * factories passed to {@link #getTemplates(SAXTransformerFactory, MCRTemplatesSource)} should use it, otherwise
+     * changes of imported or included stylesheets are not detected.
+     *
+     * @param resolver the resolver that actually resolves the resources
+     */
+    public static URIResolver getURIResolver(URIResolver resolver) {
+        return new DependencyRecorder(resolver);
+    }
+
+    /**
+     * Returns the compiled stylesheet from cache or compiles it, if it is not cached or not up-to-date.
+     *
+     * @param factory the transformer factory to compile the stylesheet
+     * @param source the stylesheet
+     */
+    public Entry getTemplates(SAXTransformerFactory factory, MCRTemplatesSource source)
+        throws TransformerConfigurationException, SAXException, ParserConfigurationException {
+        String key = factory.getClass().getName() + ':' + source.getKey();
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (entry.isUpToDate(checkPeriod)) {
+                hits.increment();
+                return entry;
+            }
+            LOGGER.info("Stylesheet {} was modified and is compiled again.", source);
+            recompilations.increment();
+            cache.remove(key);
+        }
+        try {
+            return cache.get(key, k -> {
+                try {
+                    return compile(factory, source);
+                } catch (TransformerConfigurationException | SAXException | ParserConfigurationException e) {
+                    throw new CompileException(e);
+                }
+            });
+        } catch (CompileException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TransformerConfigurationException) {
+                throw (TransformerConfigurationException) cause;
+            }
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            }
+            throw (ParserConfigurationException) cause;
+        }
+    }
+
+    /**
+     * Compiles the stylesheet without caching the result.
+     */
+    public Entry compile(SAXTransformerFactory factory, MCRTemplatesSource source)
+        throws TransformerConfigurationException, SAXException, ParserConfigurationException {
+        misses.increment();
+        long lastModified = source.getLastModified();
+        Map<String, Long> outerDependencies = DEPENDENCIES.get();
+        Map<String, Long> dependencies = new LinkedHashMap<>();
+        DEPENDENCIES.set(dependencies);
+        long start = System.nanoTime();
+        Templates templates;
+        try {
+            templates = factory.newTemplates(source.getSource());
+        } finally {
+            DEPENDENCIES.set(outerDependencies);
+        }
+        long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (templates == null) {
+            throw new TransformerConfigurationException("XSLT Stylesheet could not be compiled: " + source.getURL());
+        }
+        compilations.increment();
+        compileTime.add(time);
+        maxCompileTime.accumulate(time);
+        LOGGER.debug("Compiled {} with {} resolved resources in {} ms.", source, dependencies.size(), time);
+        return new Entry(source, templates, lastModified, dependencies);
+    }
+
+    /**
+     * @return the last modified date or -1, if it could not be determined, which counts as unchanged
+     */
+    private static long getLastModified(String systemId) {
+        try {
+            URL url = systemId.startsWith(RESOURCE_PREFIX)
+                ? MCRConfigurationDir.getConfigResource(systemId.substring(RESOURCE_PREFIX.length()))
+                : new URL(systemId);
+            if (url == null) {
+                return -1;
+            }
+            if ("file".equals(url.getProtocol())) {
+                return Files.getLastModifiedTime(Paths.get(url.toURI())).toMillis();
+            }
+            URLConnection con = url.openConnection();
+            con.setConnectTimeout(TIMEOUT);
+            con.setReadTimeout(TIMEOUT);
+            if (con instanceof HttpURLConnection) {
+                HttpURLConnection httpCon = (HttpURLConnection) con;
+                httpCon.setRequestMethod("HEAD");
+                try {
+                    return httpCon.getLastModified();
+                } finally {
+                    httpCon.disconnect();
+                }
+            }
+            return con.getLastModified();
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            LOGGER.debug("Could not determine last modified date of {}", systemId, e);
+            return -1;
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return cache.getCurrentSize();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hitCount = getHits();
+        long requests = hitCount + getMisses();
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    @Override
+    public long getCompilations() {
+        return compilations.sum();
+    }
+
+    @Override
+    public long getRecompilations() {
+        return recompilations.sum();
+    }
+
+    @Override
+    public long getTotalCompileTime() {
+        return compileTime.sum();
+    }
+
+    @Override
+    public double getAverageCompileTime() {
+        long count = getCompilations();
+        return count == 0 ? 0 : (double) getTotalCompileTime() / count;
+    }
+
+    @Override
+    public long getMaxCompileTime() {
+        return maxCompileTime.get();
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * A compiled stylesheet and the resources it was compiled from.
+     */
+    public static final class Entry {
+
+        private final MCRTemplatesSource source;
+
+        private final Templates templates;
+
+        private final long sourceModified;
+
+        /** system ID and last modified date of every resource resolved while compiling */
+        private final Map<String, Long> dependencies;
+
+        private final long lastModified;
+
+        private volatile long checked;
+
+        Entry(MCRTemplatesSource source, Templates templates, long sourceModified, Map<String, Long> dependencies) {
+            this.source = source;
+            this.templates = templates;
+            this.sourceModified = sourceModified;
+            this.dependencies = dependencies;
+            this.lastModified = sourceModified < 0 ? -1
+                : dependencies.values().stream().mapToLong(Long::longValue).reduce(sourceModified, Math::max);
+            this.checked = System.currentTimeMillis();
+        }
+
+        public Templates getTemplates() {
+            return templates;
+        }
+
+        /**
+         * @return the last modified date of the stylesheet and all resources imported or included by it
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        boolean isUpToDate(long checkPeriod) {
+            long now = System.currentTimeMillis();
+            if (now - checked < checkPeriod) {
+                return true;
+            }
+            if (source.getLastModified() > sourceModified) {
+                return false;
+            }
+            //a failed check returns -1, so an unreachable resource does not cause a recompilation
+            for (Map.Entry<String, Long> dependency : dependencies.entrySet()) {
+                long modified = getLastModified(dependency.getKey());
+                if (modified >= 0 && modified > dependency.getValue()) {
+                    LOGGER.debug("{} was modified.", dependency.getKey());
+                    return false;
+                }
+            }
+            checked = now;
+            return true;
+        }
+    }
+
+    private static class DependencyRecorder implements URIResolver {
+
+        private final URIResolver resolver;
+
+        DependencyRecorder(URIResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public Source resolve(String href, String base) throws TransformerException {
+            Source source = resolver.resolve(href, base);
+            Map<String, Long> dependencies = DEPENDENCIES.get();
+            if (dependencies != null && source != null && source.getSystemId() != null) {
+                String systemId = source.getSystemId();
+                if (!dependencies.containsKey(systemId)) {
+                    dependencies.put(systemId, getLastModified(systemId));
+                }
+            }
+            return source;
+        }
+    }
+
+    private static class CompileException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CompileException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -60,7 +60,7 @@ public class MCRTemplatesCompiler {
         }
 
         factory = (SAXTransformerFactory) tf;
-        factory.setURIResolver(MCRURIResolver.instance());
+        factory.setURIResolver(MCRTemplatesCache.getURIResolver(MCRURIResolver.instance()));
         factory.setErrorListener(new ErrorListener() {
             public void error(TransformerException ex) {
                 throw new WrappedRuntimeException(MCRExceptionCauseFinder.getCause(ex));
@@ -89,6 +89,11 @@ public class MCRTemplatesCompiler {
         }
     }
 
+    /** Returns the transformer factory used to compile templates */
+    static SAXTransformerFactory getFactory() {
+        return factory;
+    }
+
     /** Returns a new transformer for the compiled XSL templates 
      */
     public static Transformer getTransformer(Templates templates) throws TransformerConfigurationException {
@@ -0,0 +1,92 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.xsl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import javax.servlet.ServletContext;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.content.transformer.MCRXSLTransformer;
+import org.mycore.common.events.MCRStartupHandler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Compiles the stylesheets listed in <code>MCR.LayoutService.TemplatesCache.Precompile</code> in background on
+ * start-up, so that the first requests do not have to wait for them. The stylesheets are compiled in parallel by
+ * <code>MCR.LayoutService.TemplatesCache.PrecompileThreads</code> threads into the {@link MCRTemplatesCache}.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRTemplatesPrecompiler implements MCRStartupHandler.AutoExecutable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.LayoutService.TemplatesCache.";
+
+    @Override
+    public String getName() {
+        return "XSL Templates Precompiler";
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public void startUp(ServletContext servletContext) {
+        List<String> stylesheets = MCRConfiguration2.getString(CONFIG_PREFIX + "Precompile")
+            .map(MCRConfiguration2::splitValue)
+            .map(s -> s.collect(Collectors.toList()))
+            .orElseGet(List::of);
+        if (stylesheets.isEmpty()) {
+            return;
+        }
+        int threads = MCRConfiguration2.getInt(CONFIG_PREFIX + "PrecompileThreads")
+            .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, stylesheets.size()),
+            new ThreadFactoryBuilder().setNameFormat("MCRTemplatesPrecompiler-#%d").setDaemon(true).build());
+        long start = System.currentTimeMillis();
+        LOGGER.info("Precompiling {} stylesheets.", stylesheets.size());
+        CompletableFuture.allOf(stylesheets.stream()
+            .map(stylesheet -> CompletableFuture.runAsync(() -> precompile(stylesheet), executor))
+            .toArray(CompletableFuture[]::new))
+            .whenComplete((result, exc) -> LOGGER.info("Precompiled {} stylesheets in {} ms.", stylesheets.size(),
+                System.currentTimeMillis() - start));
+        executor.shutdown();
+    }
+
+    private static void precompile(String stylesheet) {
+        try {
+            //compiles all templates of the transformer
+            MCRXSLTransformer.getInstance(stylesheet).getOutputProperties();
+            LOGGER.debug("Precompiled {}", stylesheet);
+        } catch (Exception e) {
+            LOGGER.warn("Could not precompile {}", stylesheet, e);
+        }
+    }
+}
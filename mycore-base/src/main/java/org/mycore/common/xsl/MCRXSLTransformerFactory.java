@@ -20,55 +20,32 @@ package org.mycore.common.xsl;
 
 import java.io.IOException;
 
-import javax.xml.transform.Templates;
+import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 
-import org.mycore.common.MCRCache;
-import org.mycore.common.config.MCRConfiguration2;
+import org.xml.sax.SAXException;
 
 /**
  * Returns a Transformer for a given XSL source, providing caching of
- * already compiled XSL stylesheets. The cache size can be set via
- * MCR.LayoutService.XSLCacheSize (default is 200).
+ * already compiled XSL stylesheets.
  * 
  * @author Frank L\u00FCtzenkirchen
+ * @deprecated use {@link MCRTemplatesCache}, which this class delegates to
  */
+@Deprecated
 public class MCRXSLTransformerFactory {
 
-    /** A cache of already compiled stylesheets */
-    private static MCRCache<String, Templates> cache;
-
-    private static long checkPeriod;
-
-    static {
-        int cacheSize = MCRConfiguration2.getInt("MCR.LayoutService.XSLCacheSize").orElse(200);
-        checkPeriod = MCRConfiguration2.getLong("MCR.LayoutService.LastModifiedCheckPeriod").orElse(10000l);
-        cache = new MCRCache<>(cacheSize, MCRXSLTransformerFactory.class.getName());
-    }
-
-    /** Returns the compiled XSL templates cached for the given source, if it is up-to-date. 
-     * @throws IOException */
-    private static Templates getCachedTemplates(MCRTemplatesSource source) throws IOException {
-        String key = source.getKey();
-        return cache.getIfUpToDate(key, source.getModifiedHandle(checkPeriod));
-    }
-
-    /** Compiles the given XSL source, and caches the result */
-    private static Templates compileTemplates(MCRTemplatesSource source) {
-        Templates templates = MCRTemplatesCompiler.compileTemplates(source);
-        cache.put(source.getKey(), templates);
-        return templates;
-    }
-
     /** Returns a transformer for the given XSL source
      */
     public static Transformer getTransformer(MCRTemplatesSource source)
         throws IOException, TransformerConfigurationException {
-        Templates templates = getCachedTemplates(source);
-        if (templates == null) {
-            templates = compileTemplates(source);
+        MCRTemplatesCache.Entry entry;
+        try {
+            entry = MCRTemplatesCache.instance().getTemplates(MCRTemplatesCompiler.getFactory(), source);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new TransformerConfigurationException(e);
         }
-        return MCRTemplatesCompiler.getTransformer(templates);
+        return MCRTemplatesCompiler.getTransformer(entry.getTemplates());
     }
 }
@@ -158,4 +158,23 @@ public interface MCRCategLinkService {
      */
     void setLinks(MCRCategLinkReference objectReference, Collection<MCRCategoryID> categories);
 
+    /**
+     * Replaces all links of an object with links to the given categories.
+     *
+     * Implementors should only write links that are changed.
+     *
+     * @param objectReference
+     *            reference to a Object
+     * @param categories
+     *            a collection of categoryIDs to be linked to, may be empty
+     * @see #setLinks(MCRCategLinkReference, Collection)
+     * @see #deleteLink(MCRCategLinkReference)
+     */
+    default void replaceLinks(MCRCategLinkReference objectReference, Collection<MCRCategoryID> categories) {
+        deleteLink(objectReference);
+        if (!categories.isEmpty()) {
+            setLinks(objectReference, categories);
+        }
+    }
+
 }
@@ -0,0 +1,216 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.mycore.datamodel.classifications2.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRCache;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.datamodel.classifications2.MCRCategoryID;
+
+/**
+ * Keeps the number of linked objects of every category in memory, so that {@link MCRCategLinkServiceImpl} can
+ * answer <code>countLinks</code> and <code>hasLinks</code> without scanning the link table on every request.
+ *
+ * The numbers are those of the <code>MCRCategoryLink.NumberPerClassID</code> query: every category counts the
+ * distinct objects linked to it or to one of its descendants. As objects are counted only once per category, the
+ * numbers cannot be adjusted link by link. Instead they are loaded once per classification and object type and
+ * dropped when a link to that classification or the classification itself is changed. The session that changes
+ * them reads from the database until its transaction is committed. Changes made by other applications on the same
+ * database, e.g. the command line interface, are not reported, so the numbers expire after
+ * <code>MCR.Classifications.LinkServiceImpl.CountIndex.MaxAge</code> milliseconds.
+ *
+ * The index is disabled by default and enabled by
+ * <code>MCR.Classifications.LinkServiceImpl.CountIndex.Enabled=true</code>. It holds the numbers of up to
+ * <code>MCR.Classifications.LinkServiceImpl.CountIndex.Capacity</code> classifications.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+final class MCRCategLinkCountIndex {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String TOUCHED_KEY = MCRCategLinkCountIndex.class.getName() + ".touched";
+
+    private static final String TOUCHED_ALL_KEY = MCRCategLinkCountIndex.class.getName() + ".touchedAll";
+
+    /** key of the numbers that are not restricted by an object type */
+    private static final String ALL_TYPES = "";
+
+    private MCRCategLinkCountIndex() {
+    }
+
+    /**
+     * Returns the number of linked objects of every category of a classification.
+     *
+     * @param type restrict links to objects of this type, or null for all types
+     * @return null if the index is disabled or the classification was changed in the current transaction, else an
+     * unmodifiable map that contains only categories with links
+     */
+    static Map<MCRCategoryID, Number> get(String rootID, String type) {
+        Cache cache = Cache.INSTANCE;
+        if (!cache.enabled || isTouched(rootID)) {
+            return null;
+        }
+        long loadGeneration = cache.generation.get();
+        long now = System.currentTimeMillis();
+        Map<String, Map<MCRCategoryID, Number>> counts = cache.counts.getIfUpToDate(rootID, now - cache.maxAge);
+        if (counts == null) {
+            counts = new ConcurrentHashMap<>();
+            cache.counts.put(rootID, counts, now);
+        }
+        String key = type == null ? ALL_TYPES : type;
+        Map<MCRCategoryID, Number> typeCounts = counts.get(key);
+        if (typeCounts == null) {
+            typeCounts = load(rootID, type);
+            if (loadGeneration == cache.generation.get()) {
+                counts.put(key, typeCounts);
+            }
+        }
+        return typeCounts;
+    }
+
+    /**
+     * Removes the numbers of a classification whose links or categories were changed in the current transaction.
+     */
+    static void touch(String rootID) {
+        invalidate(rootID);
+        if (!MCRSessionMgr.hasCurrentSession() || !MCRTransactionHelper.isTransactionActive()) {
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        Set<String> touched = session.computeTransactionAttributeIfAbsent(TOUCHED_KEY, k -> {
+            Set<String> newTouched = ConcurrentHashMap.newKeySet();
+            session.onCommit(() -> newTouched.forEach(MCRCategLinkCountIndex::invalidate));
+            return newTouched;
+        });
+        touched.add(rootID);
+    }
+
+    /**
+     * Removes the numbers of all classifications, if links of unknown classifications were changed in the current
+     * transaction.
+     */
+    static void touchAll() {
+        invalidateAll();
+        if (!MCRSessionMgr.hasCurrentSession() || !MCRTransactionHelper.isTransactionActive()) {
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        session.computeTransactionAttributeIfAbsent(TOUCHED_ALL_KEY, k -> {
+            session.onCommit(MCRCategLinkCountIndex::invalidateAll);
+            return Boolean.TRUE;
+        });
+    }
+
+    /**
+     * Removes the numbers of a classification.
+     */
+    static void invalidate(String rootID) {
+        Cache cache = Cache.INSTANCE;
+        cache.generation.incrementAndGet();
+        cache.counts.remove(rootID);
+        LOGGER.debug("removed link counts of classification {}", rootID);
+    }
+
+    private static void invalidateAll() {
+        Cache cache = Cache.INSTANCE;
+        cache.generation.incrementAndGet();
+        cache.counts.clear();
+        LOGGER.debug("removed link counts of all classifications");
+    }
+
+    static boolean isEnabled() {
+        return Cache.INSTANCE.enabled;
+    }
+
+    /**
+     * @return true, if no numbers are loaded
+     */
+    static boolean isEmpty() {
+        return Cache.INSTANCE.counts.isEmpty();
+    }
+
+    private static boolean isTouched(String rootID) {
+        if (!MCRSessionMgr.hasCurrentSession()) {
+            return false;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        if (session.getTransactionAttribute(TOUCHED_ALL_KEY) != null) {
+            return true;
+        }
+        Set<String> touched = session.getTransactionAttribute(TOUCHED_KEY);
+        return touched != null && touched.contains(rootID);
+    }
+
+    private static Map<MCRCategoryID, Number> load(String rootID, String type) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        String queryName = type == null ? "NumberPerClassID" : "NumberByTypePerClassID";
+        TypedQuery<Object[]> q = em.createNamedQuery("MCRCategoryLink." + queryName, Object[].class);
+        q.setHint("org.hibernate.readOnly", Boolean.TRUE);
+        q.setParameter("classID", rootID);
+        if (type != null) {
+            q.setParameter("type", type);
+        }
+        Map<MCRCategoryID, Number> counts = new HashMap<>();
+        for (Object[] row : q.getResultList()) {
+            counts.put(new MCRCategoryID(rootID, row[0].toString()), ((Number) row[1]).intValue());
+        }
+        LOGGER.debug("loaded link counts of {} categories of classification {}", counts.size(), rootID);
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private static final class Cache {
+
+        private static final Cache INSTANCE = new Cache();
+
+        private final boolean enabled;
+
+        private final long maxAge;
+
+        /** rootID -> object type -> counts */
+        private final MCRCache<String, Map<String, Map<MCRCategoryID, Number>>> counts;
+
+        /** changed on every invalidation, so that concurrently loaded outdated numbers are not cached */
+        private final AtomicLong generation = new AtomicLong();
+
+        private Cache() {
+            String prefix = "MCR.Classifications.LinkServiceImpl.CountIndex.";
+            enabled = MCRConfiguration2.getBoolean(prefix + "Enabled").orElse(false);
+            maxAge = MCRConfiguration2.getLong(prefix + "MaxAge").orElse(60_000L);
+            counts = new MCRCache<>(MCRConfiguration2.getInt(prefix + "Capacity").orElse(1000),
+                "MCRCategLinkCountIndex");
+        }
+    }
+}
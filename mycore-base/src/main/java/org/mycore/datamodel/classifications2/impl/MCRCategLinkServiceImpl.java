@@ -18,15 +18,20 @@
 
 package org.mycore.datamodel.classifications2.impl;
 
+import java.sql.PreparedStatement;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 import javax.persistence.Query;
@@ -38,17 +43,19 @@ import javax.persistence.criteria.Root;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.Session;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
 import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.mycore.backend.jpa.MCREntityManagerProvider;
-import org.mycore.common.MCRCache;
 import org.mycore.common.MCRPersistenceException;
 import org.mycore.common.MCRStreamUtils;
-import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.datamodel.classifications2.MCRCategLinkReference;
 import org.mycore.datamodel.classifications2.MCRCategLinkReference_;
 import org.mycore.datamodel.classifications2.MCRCategLinkService;
 import org.mycore.datamodel.classifications2.MCRCategory;
-import org.mycore.datamodel.classifications2.MCRCategoryDAO;
 import org.mycore.datamodel.classifications2.MCRCategoryDAOFactory;
 import org.mycore.datamodel.classifications2.MCRCategoryID;
 import org.mycore.datamodel.classifications2.MCRCategoryLink;
@@ -68,12 +75,6 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
 
     private static final String NAMED_QUERY_NAMESPACE = "MCRCategoryLink.";
 
-    private static MCRCache<MCRCategoryID, MCRCategory> categCache = new MCRCache<>(
-        MCRConfiguration2.getInt("MCR.Classifications.LinkServiceImpl.CategCache.Size").orElse(1000),
-        "MCRCategLinkService category cache");
-
-    private static MCRCategoryDAO DAO = MCRCategoryDAOFactory.getInstance();
-
     @Override
     public Map<MCRCategoryID, Number> countLinks(MCRCategory parent, boolean childrenOnly) {
         return countLinksForType(parent, null, childrenOnly);
@@ -94,6 +95,20 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
             // initialize all categIDs with link count of zero
             countLinks.put(id, 0);
         }
+        Map<MCRCategoryID, Number> linkCounts = MCRCategLinkCountIndex.get(parent.getId().getRootID(), type);
+        if (linkCounts != null) {
+            if (!childrenOnly) {
+                countLinks.putAll(linkCounts);
+                return countLinks;
+            }
+            for (MCRCategoryID id : ids) {
+                Number count = linkCounts.get(id);
+                if (count != null) {
+                    countLinks.put(id, count);
+                }
+            }
+            return countLinks;
+        }
         //have to use rootID here if childrenOnly=false
         //old classification browser/editor could not determine links correctly otherwise
         final EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
@@ -128,6 +143,7 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
     @Override
     public void deleteLink(MCRCategLinkReference reference) {
         final EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        touchClassifications(em, List.of(reference.getObjectID()), reference.getType());
         Query q = em.createNamedQuery(NAMED_QUERY_NAMESPACE + "deleteByObjectID");
         q.setParameter("id", reference.getObjectID());
         q.setParameter("type", reference.getType());
@@ -157,6 +173,7 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
         javax.persistence.Query q = em.createNamedQuery(NAMED_QUERY_NAMESPACE + "deleteByObjectCollection");
         int deleted = 0;
         for (Map.Entry<String, Collection<String>> entry : typeMap.entrySet()) {
+            touchClassifications(em, entry.getValue(), entry.getKey());
             q.setParameter("ids", entry.getValue());
             q.setParameter("type", entry.getKey());
             deleted += q.executeUpdate();
@@ -164,6 +181,27 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
         LOGGER.debug("Number of Links deleted: {}", deleted);
     }
 
+    /**
+     * Removes the link counts of all classifications the objects are linked to.
+     *
+     * While no link counts are loaded, e.g. during mass deletions, the classifications are not queried but all
+     * link counts are read from the database until the transaction is committed.
+     */
+    private static void touchClassifications(EntityManager em, Collection<String> objectIDs, String type) {
+        if (!MCRCategLinkCountIndex.isEnabled()) {
+            return;
+        }
+        if (MCRCategLinkCountIndex.isEmpty()) {
+            MCRCategLinkCountIndex.touchAll();
+            return;
+        }
+        TypedQuery<String> q = em.createNamedQuery(NAMED_QUERY_NAMESPACE + "classificationsByObjectCollection",
+            String.class);
+        q.setParameter("ids", objectIDs);
+        q.setParameter("type", type);
+        q.getResultList().forEach(MCRCategLinkCountIndex::touch);
+    }
+
     @Override
     public Collection<String> getLinksFromCategory(MCRCategoryID id) {
         final EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
@@ -197,44 +235,142 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
         return q.getResultList();
     }
 
+    /**
+     * Adds the links that do not exist yet.
+     */
     @Override
     public void setLinks(MCRCategLinkReference objectReference, Collection<MCRCategoryID> categories) {
-        EntityManager entityManager = MCREntityManagerProvider.getCurrentEntityManager();
-        categories
-            .stream()
+        updateLinks(objectReference, categories, false);
+    }
+
+    /**
+     * Adds the links that do not exist yet and removes the links to categories that are not given.
+     */
+    @Override
+    public void replaceLinks(MCRCategLinkReference objectReference, Collection<MCRCategoryID> categories) {
+        updateLinks(objectReference, categories, true);
+    }
+
+    private void updateLinks(MCRCategLinkReference objectReference, Collection<MCRCategoryID> categories,
+        boolean removeOthers) {
+        if (categories.isEmpty() && !removeOthers) {
+            return;
+        }
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        Map<MCRCategoryID, Integer> linked = getLinkedCategories(em, objectReference);
+        Set<MCRCategoryID> added = new LinkedHashSet<>(categories);
+        added.removeAll(linked.keySet());
+        Map<MCRCategoryID, Integer> addedInternalIds = getInternalIds(em, added);
+        added.stream()
+            .filter(categID -> !addedInternalIds.containsKey(categID))
+            .findFirst()
+            .ifPresent(categID -> {
+                throw new MCRPersistenceException("Could not link to unknown category " + categID);
+            });
+        Map<MCRCategoryID, Integer> removed = new HashMap<>();
+        if (removeOthers) {
+            removed.putAll(linked);
+            removed.keySet().removeAll(new HashSet<>(categories));
+        }
+        if (!removed.isEmpty()) {
+            Query q = em.createNamedQuery(NAMED_QUERY_NAMESPACE + "deleteByObjectIDAndCategories");
+            q.setParameter("id", objectReference.getObjectID());
+            q.setParameter("type", objectReference.getType());
+            q.setParameter("categories", removed.values());
+            int deleted = q.executeUpdate();
+            LOGGER.debug("Number of Links deleted from {}: {}", objectReference, deleted);
+        }
+        if (!added.isEmpty()) {
+            insertLinks(em, objectReference, addedInternalIds.values());
+            LOGGER.debug("Added Links from {} to {}", addedInternalIds, objectReference);
+        }
+        Stream.concat(added.stream(), removed.keySet().stream())
+            .map(MCRCategoryID::getRootID)
             .distinct()
-            .forEach(categID -> {
-                final MCRCategory category = getMCRCategory(entityManager, categID);
-                if (category == null) {
-                    throw new MCRPersistenceException("Could not link to unknown category " + categID);
-                }
-                MCRCategoryLinkImpl link = new MCRCategoryLinkImpl(category, objectReference);
-                if (LOGGER.isDebugEnabled()) {
-                    MCRCategory linkedCategory = link.getCategory();
-                    StringBuilder debugMessage = new StringBuilder("Adding Link from ").append(linkedCategory.getId());
-                    if (linkedCategory instanceof MCRCategoryImpl) {
-                        debugMessage.append("(").append(((MCRCategoryImpl) linkedCategory).getInternalID())
-                            .append(") ");
+            .forEach(MCRCategLinkCountIndex::touch);
+    }
+
+    /**
+     * @return the internal ID of every category the object is linked to
+     */
+    private static Map<MCRCategoryID, Integer> getLinkedCategories(EntityManager em,
+        MCRCategLinkReference objectReference) {
+        TypedQuery<Object[]> q = em.createNamedQuery(NAMED_QUERY_NAMESPACE + "internalIDsByObjectID",
+            Object[].class);
+        setReadOnly(q);
+        q.setParameter("id", objectReference.getObjectID());
+        q.setParameter("type", objectReference.getType());
+        Map<MCRCategoryID, Integer> linked = new HashMap<>();
+        for (Object[] row : q.getResultList()) {
+            linked.put((MCRCategoryID) row[0], ((Number) row[1]).intValue());
+        }
+        return linked;
+    }
+
+    /**
+     * Resolves the internal IDs with one query per classification, or without a query from the classification
+     * snapshots.
+     *
+     * @return the internal ID of every category that exists
+     */
+    private static Map<MCRCategoryID, Integer> getInternalIds(EntityManager em, Collection<MCRCategoryID> categories) {
+        Map<MCRCategoryID, Integer> internalIds = new LinkedHashMap<>();
+        Map<String, List<MCRCategoryID>> byClassification = categories.stream()
+            .collect(Collectors.groupingBy(MCRCategoryID::getRootID));
+        byClassification.forEach((rootID, categIDs) -> {
+            MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(rootID);
+            if (snapshot != null) {
+                for (MCRCategoryID categID : categIDs) {
+                    int internalID = snapshot.getInternalID(categID);
+                    if (internalID >= 0) {
+                        internalIds.put(categID, internalID);
                     }
-                    debugMessage.append("to ").append(objectReference);
-                    LOGGER.debug(debugMessage.toString());
                 }
-                entityManager.persist(link);
-                LOGGER.debug("===DONE: {}", link.id);
-            });
+                return;
+            }
+            TypedQuery<Object[]> q = em.createNamedQuery("MCRCategory.internalIDs", Object[].class);
+            setReadOnly(q);
+            q.setParameter("classID", rootID);
+            q.setParameter("categIDs", categIDs.stream().map(MCRCategoryID::getID).collect(Collectors.toList()));
+            for (Object[] row : q.getResultList()) {
+                MCRCategoryID categID = (MCRCategoryID) row[0];
+                if (categIDs.contains(categID)) {
+                    internalIds.put(categID, ((Number) row[1]).intValue());
+                }
+            }
+        });
+        return internalIds;
     }
 
-    private static MCRCategory getMCRCategory(EntityManager entityManager, MCRCategoryID categID) {
-        MCRCategory categ = categCache.getIfUpToDate(categID, DAO.getLastModified());
-        if (categ != null) {
-            return categ;
-        }
-        categ = MCRCategoryDAOImpl.getByNaturalID(entityManager, categID);
-        if (categ == null) {
-            return null;
-        }
-        categCache.put(categID, categ);
-        return categ;
+    /**
+     * Inserts the links with a JDBC batch, as Hibernate cannot batch entities with identity columns.
+     */
+    private static void insertLinks(EntityManager em, MCRCategLinkReference objectReference,
+        Collection<Integer> internalIds) {
+        //categories and links of this transaction have to be written before
+        em.flush();
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMetamodel()
+            .entityPersister(LINK_CLASS);
+        String insert = "insert into " + persister.getTableName() + " ("
+            + persister.getPropertyColumnNames("category")[0] + ", "
+            + persister.getPropertyColumnNames("objectReference.objectID")[0] + ", "
+            + persister.getPropertyColumnNames("objectReference.type")[0] + ") values (?, ?, ?)";
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement stmt = connection.prepareStatement(insert)) {
+                for (Integer internalID : internalIds) {
+                    stmt.setInt(1, internalID);
+                    stmt.setString(2, objectReference.getObjectID());
+                    stmt.setString(3, objectReference.getType());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        });
+        //results of cacheable queries on the link table are outdated now and until the transaction is completed
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        session.getActionQueue().addAction(new BulkOperationCleanupAction(session, persister));
     }
 
     @Override
@@ -250,6 +386,14 @@ public class MCRCategLinkServiceImpl implements MCRCategLinkService {
             return getNoLinksMap(category);
         }
         HashMap<MCRCategoryID, Boolean> boolMap = new HashMap<>();
+        Map<MCRCategoryID, Number> linkCounts = MCRCategLinkCountIndex.get(rootImpl.getRootID(), null);
+        if (linkCounts != null) {
+            //contains only categories with links in their subtree
+            for (MCRCategoryID categID : getAllCategIDs(rootImpl)) {
+                boolMap.put(categID, linkCounts.containsKey(categID));
+            }
+            return boolMap;
+        }
         final BitSet linkedInternalIds = getLinkedInternalIds();
         storeHasLinkValues(boolMap, linkedInternalIds, rootImpl);
         return boolMap;
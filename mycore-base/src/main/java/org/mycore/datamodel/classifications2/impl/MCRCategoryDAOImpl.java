@@ -172,6 +172,10 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
      */
     @Override
     public boolean exist(MCRCategoryID id) {
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(id.getRootID());
+        if (snapshot != null) {
+            return snapshot.exist(id);
+        }
         return getLeftRightLevelValues(MCREntityManagerProvider.getCurrentEntityManager(), id) != null;
     }
 
@@ -186,6 +190,10 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
 
     @Override
     public List<MCRCategory> getCategoriesByLabel(MCRCategoryID baseID, String lang, String text) {
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(baseID.getRootID());
+        if (snapshot != null) {
+            return snapshot.getCategoriesByLabel(baseID, lang, text);
+        }
         EntityManager entityManager = MCREntityManagerProvider.getCurrentEntityManager();
         MCRCategoryDTO leftRight = getLeftRightLevelValues(entityManager, baseID);
         return cast(entityManager
@@ -201,6 +209,10 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
     @Override
     @SuppressWarnings("unchecked")
     public MCRCategory getCategory(MCRCategoryID id, int childLevel) {
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(id.getRootID());
+        if (snapshot != null) {
+            return snapshot.getCategory(id, childLevel);
+        }
         EntityManager entityManager = MCREntityManagerProvider.getCurrentEntityManager();
         final boolean fetchAllChildren = childLevel < 0;
         Query q;
@@ -258,6 +270,10 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
 
     @Override
     public List<MCRCategory> getParents(MCRCategoryID id) {
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(id.getRootID());
+        if (snapshot != null) {
+            return snapshot.getParents(id);
+        }
         EntityManager entityManager = MCREntityManagerProvider.getCurrentEntityManager();
         MCRCategoryDTO leftRight = getLeftRightLevelValues(entityManager, id);
         if (leftRight == null) {
@@ -355,6 +371,10 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
     public boolean hasChildren(MCRCategoryID cid) {
         // SELECT * FROM MCRCATEGORY WHERE PARENTID=(SELECT INTERNALID FROM
         // MCRCATEGORY WHERE rootID=cid.getRootID() and ID...);
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.get(cid.getRootID());
+        if (snapshot != null) {
+            return snapshot.hasChildren(cid);
+        }
         return getNumberOfChildren(MCREntityManagerProvider.getCurrentEntityManager(), cid) > 0;
     }
 
@@ -553,6 +573,7 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
             entityManager.flush();
             classification.calculateLeftRightAndLevel(LEFT_START_VALUE, LEVEL_START_VALUE);
         });
+        updateLastModified(classID);
     }
 
     @Override
@@ -677,10 +698,13 @@ public class MCRCategoryDAOImpl implements MCRCategoryDAO {
 
     /**
      * Method updates the last modified timestamp, for the given root id.
+     * The snapshot of the classification is replaced after the current transaction is committed.
      * 
      */
     protected synchronized void updateLastModified(String root) {
         LAST_MODIFIED_MAP.put(root, System.currentTimeMillis());
+        MCRCategorySnapshot.touch(root);
+        MCRCategLinkCountIndex.touch(root);
     }
 
     /**
@@ -124,6 +124,9 @@ import org.mycore.datamodel.classifications2.MCRLabel;
     @NamedQuery(name = "MCRCategory.rootCategs",
         query = MCRCategoryDTO.SELECT
             + " WHERE cat.left = 0 ORDER BY cat.id.rootID"),
+    @NamedQuery(name = "MCRCategory.internalIDs",
+        query = "SELECT cat.id, cat.internalID FROM MCRCategoryImpl cat WHERE "
+            + "cat.id.rootID=:classID AND (cat.id.id IN (:categIDs) OR cat.left=0)"),
     @NamedQuery(name = "MCRCategory.rootIds", query = "SELECT cat.id FROM MCRCategoryImpl cat WHERE cat.left = 0"),
     @NamedQuery(name = "MCRCategory.childCount",
         query = "SELECT CAST(count(*) AS integer) FROM MCRCategoryImpl children WHERE "
@@ -95,6 +95,15 @@ import org.mycore.datamodel.classifications2.MCRCategoryLink;
             + "  GROUP BY cat.id.id"),
     @NamedQuery(name = "MCRCategoryLink.deleteByObjectID",
         query = "DELETE FROM MCRCategoryLinkImpl WHERE objectReference.objectID=:id and objectReference.type=:type"),
+    @NamedQuery(name = "MCRCategoryLink.deleteByObjectIDAndCategories",
+        query = "DELETE FROM MCRCategoryLinkImpl WHERE objectReference.objectID=:id and objectReference.type=:type"
+            + " and category.internalID IN (:categories)"),
+    @NamedQuery(name = "MCRCategoryLink.internalIDsByObjectID",
+        query = "SELECT category.id, category.internalID FROM MCRCategoryLinkImpl WHERE "
+            + "objectReference.objectID=:id and objectReference.type=:type"),
+    @NamedQuery(name = "MCRCategoryLink.classificationsByObjectCollection",
+        query = "SELECT distinct category.id.rootID FROM MCRCategoryLinkImpl WHERE "
+            + "objectReference.objectID IN (:ids) and objectReference.type=:type"),
     @NamedQuery(name = "MCRCategoryLink.CategoryAndObjectID",
         query = "SELECT link.objectReference.objectID"
             + "  FROM MCRCategoryLinkImpl link, MCRCategoryImpl cat, MCRCategoryImpl cattree"
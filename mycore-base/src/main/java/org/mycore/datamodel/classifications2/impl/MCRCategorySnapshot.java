@@ -0,0 +1,394 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.classifications2.impl;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRCache;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.datamodel.classifications2.MCRCategory;
+import org.mycore.datamodel.classifications2.MCRCategoryID;
+import org.mycore.datamodel.classifications2.MCRLabel;
+
+/**
+ * Immutable copy of a classification, so that {@link MCRCategoryDAOImpl} can answer read requests without a
+ * database query.
+ *
+ * The categories are stored in nested set order in arrays, together with the index of their parent, first child
+ * and next sibling, an index by ID and an index by label. Every request gets its own {@link MCRCategoryImpl}
+ * instances that are built like those of the corresponding database queries.
+ *
+ * A snapshot is removed when its classification is changed by {@link MCRCategoryDAOImpl}. The session that
+ * changes a classification reads it from the database until its transaction is committed, so that it sees its own
+ * changes; after the commit the snapshot is removed again, so that it is rebuilt with the committed state.
+ * Changes made by other applications on the same database, e.g. the command line interface, are not reported, so
+ * snapshots expire after <code>MCR.Category.Snapshot.MaxAge</code> milliseconds.
+ *
+ * Snapshots are disabled by default and enabled by <code>MCR.Category.Snapshot.Enabled=true</code>. They hold up
+ * to <code>MCR.Category.Snapshot.Capacity</code> categories.
+ * Classifications with more categories get no snapshot and are always read from the database.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+final class MCRCategorySnapshot {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String TOUCHED_KEY = MCRCategorySnapshot.class.getName() + ".touched";
+
+    private static final int ROOT = 0;
+
+    private final int[] internalIDs;
+
+    private final int[] lefts;
+
+    private final int[] rights;
+
+    private final int[] levels;
+
+    private final int[] parents;
+
+    private final int[] firstChildren;
+
+    private final int[] nextSiblings;
+
+    private final MCRCategoryID[] ids;
+
+    private final URI[] uris;
+
+    /** never handed out, every category gets copies */
+    private final MCRLabel[][] labels;
+
+    private final Map<MCRCategoryID, Integer> idIndex;
+
+    private final Map<String, int[]> labelIndex;
+
+    private MCRCategorySnapshot(List<MCRCategoryDTO> rows) {
+        List<MCRCategoryDTO> categories = new ArrayList<>();
+        List<List<MCRLabel>> categoryLabels = new ArrayList<>();
+        for (MCRCategoryDTO row : rows) {
+            if (categories.isEmpty() || categories.get(categories.size() - 1).internalID != row.internalID) {
+                categories.add(row);
+                categoryLabels.add(new ArrayList<>());
+            }
+            if (row.lang != null) {
+                categoryLabels.get(categoryLabels.size() - 1).add(new MCRLabel(row.lang, row.text,
+                    row.description == null || row.description.isEmpty() ? null : row.description));
+            }
+        }
+        int size = categories.size();
+        internalIDs = new int[size];
+        lefts = new int[size];
+        rights = new int[size];
+        levels = new int[size];
+        parents = new int[size];
+        firstChildren = new int[size];
+        nextSiblings = new int[size];
+        ids = new MCRCategoryID[size];
+        uris = new URI[size];
+        labels = new MCRLabel[size][];
+        idIndex = new HashMap<>(size * 4 / 3 + 1);
+        Map<String, List<Integer>> labelPositions = new HashMap<>();
+        int[] lastChildren = new int[size];
+        Deque<Integer> ancestors = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            MCRCategoryDTO category = categories.get(i);
+            internalIDs[i] = category.internalID;
+            lefts[i] = category.leftValue;
+            rights[i] = category.rightValue;
+            levels[i] = category.level;
+            ids[i] = category.id;
+            uris[i] = category.uri;
+            labels[i] = categoryLabels.get(i).toArray(MCRLabel[]::new);
+            idIndex.put(category.id, i);
+            for (MCRLabel label : labels[i]) {
+                labelPositions.computeIfAbsent(getLabelKey(label.getLang(), label.getText()), k -> new ArrayList<>())
+                    .add(i);
+            }
+            //same parent as MCRCategoryDTO.merge() would choose
+            while (!ancestors.isEmpty() && levels[ancestors.peek()] >= levels[i]) {
+                ancestors.pop();
+            }
+            int parent = ancestors.isEmpty() ? -1 : ancestors.peek();
+            parents[i] = parent;
+            firstChildren[i] = -1;
+            nextSiblings[i] = -1;
+            lastChildren[i] = -1;
+            if (parent >= 0) {
+                if (firstChildren[parent] < 0) {
+                    firstChildren[parent] = i;
+                } else {
+                    nextSiblings[lastChildren[parent]] = i;
+                }
+                lastChildren[parent] = i;
+            }
+            ancestors.push(i);
+        }
+        labelIndex = new HashMap<>(labelPositions.size() * 4 / 3 + 1);
+        labelPositions.forEach((key, positions) -> labelIndex.put(key,
+            positions.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Returns the snapshot of a classification.
+     *
+     * @return null if snapshots are disabled, the classification was changed in the current transaction or it does
+     * not exist
+     */
+    static MCRCategorySnapshot get(String rootID) {
+        Cache cache = Cache.INSTANCE;
+        if (!cache.enabled || isTouched(rootID) || cache.oversized.contains(rootID)) {
+            return null;
+        }
+        MCRCategorySnapshot snapshot = cache.snapshots.getIfUpToDate(rootID,
+            System.currentTimeMillis() - cache.maxAge);
+        if (snapshot == null) {
+            long loadGeneration = cache.generation.get();
+            long loadTime = System.currentTimeMillis();
+            snapshot = load(rootID);
+            if (snapshot != null && snapshot.size() > cache.snapshots.getCapacity()) {
+                LOGGER.warn("classification {} has {} categories, more than MCR.Category.Snapshot.Capacity allows,"
+                    + " reading it from the database", rootID, snapshot.size());
+                cache.oversized.add(rootID);
+            } else if (snapshot != null && loadGeneration == cache.generation.get()) {
+                cache.snapshots.put(rootID, snapshot, loadTime);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Removes the snapshot of a classification that was changed in the current transaction.
+     */
+    static void touch(String rootID) {
+        invalidate(rootID);
+        if (!MCRSessionMgr.hasCurrentSession() || !MCRTransactionHelper.isTransactionActive()) {
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        Set<String> touched = session.computeTransactionAttributeIfAbsent(TOUCHED_KEY, k -> {
+            Set<String> newTouched = ConcurrentHashMap.newKeySet();
+            session.onCommit(() -> newTouched.forEach(MCRCategorySnapshot::invalidate));
+            return newTouched;
+        });
+        touched.add(rootID);
+    }
+
+    /**
+     * Removes the snapshot of a classification.
+     */
+    static void invalidate(String rootID) {
+        Cache cache = Cache.INSTANCE;
+        cache.generation.incrementAndGet();
+        cache.snapshots.remove(rootID);
+        cache.oversized.remove(rootID);
+        LOGGER.debug("removed snapshot of classification {}", rootID);
+    }
+
+    private static boolean isTouched(String rootID) {
+        if (!MCRSessionMgr.hasCurrentSession()) {
+            return false;
+        }
+        Set<String> touched = MCRSessionMgr.getCurrentSession().getTransactionAttribute(TOUCHED_KEY);
+        return touched != null && touched.contains(rootID);
+    }
+
+    static MCRCategorySnapshot load(String rootID) {
+        EntityManager entityManager = MCREntityManagerProvider.getCurrentEntityManager();
+        List<MCRCategoryDTO> rows = entityManager
+            .createNamedQuery("MCRCategory.prefetchClassQuery", MCRCategoryDTO.class)
+            .setParameter("classID", rootID)
+            .getResultList();
+        if (rows.isEmpty() || !rows.get(0).id.isRootID()) {
+            return null;
+        }
+        MCRCategorySnapshot snapshot = new MCRCategorySnapshot(rows);
+        LOGGER.debug("created snapshot of classification {} with {} categories", rootID, snapshot.size());
+        return snapshot;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    boolean exist(MCRCategoryID id) {
+        return idIndex.containsKey(id);
+    }
+
+    boolean hasChildren(MCRCategoryID id) {
+        Integer pos = idIndex.get(id);
+        return pos != null && firstChildren[pos] >= 0;
+    }
+
+    /**
+     * @return the internal ID of the category or -1 if it does not exist
+     */
+    int getInternalID(MCRCategoryID id) {
+        Integer pos = idIndex.get(id);
+        return pos == null ? -1 : internalIDs[pos];
+    }
+
+    /**
+     * @see MCRCategoryDAOImpl#getCategory(MCRCategoryID, int)
+     */
+    MCRCategoryImpl getCategory(MCRCategoryID id, int childLevel) {
+        Integer pos = idIndex.get(id);
+        if (pos == null) {
+            return null;
+        }
+        MCRCategoryImpl category = toCategory(pos);
+        if (pos != ROOT) {
+            //like the database query the root is the parent of every other category
+            addChild(toCategory(ROOT), category, pos);
+        }
+        addDescendants(category, pos, childLevel < 0 ? Integer.MAX_VALUE : levels[pos] + childLevel);
+        return category;
+    }
+
+    /**
+     * @see MCRCategoryDAOImpl#getParents(MCRCategoryID)
+     */
+    List<MCRCategory> getParents(MCRCategoryID id) {
+        Integer pos = idIndex.get(id);
+        if (pos == null) {
+            return null;
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int i = parents[pos]; i >= 0; i = parents[i]) {
+            path.add(i);
+        }
+        Collections.reverse(path);
+        MCRCategoryImpl parent = null;
+        for (int i : path) {
+            MCRCategoryImpl category = toCategory(i);
+            if (parent != null) {
+                addChild(parent, category, i);
+            }
+            parent = category;
+        }
+        if (parent != null) {
+            addChild(parent, toCategory(pos), pos);
+        }
+        List<MCRCategory> result = new ArrayList<>(path.size());
+        for (MCRCategory category = parent; category != null; category = category.getParent()) {
+            result.add(category);
+        }
+        return result;
+    }
+
+    /**
+     * @see MCRCategoryDAOImpl#getCategoriesByLabel(MCRCategoryID, String, String)
+     */
+    List<MCRCategory> getCategoriesByLabel(MCRCategoryID baseID, String lang, String text) {
+        Integer base = idIndex.get(baseID);
+        int[] positions = labelIndex.get(getLabelKey(lang, text));
+        if (base == null || positions == null) {
+            return new ArrayList<>();
+        }
+        List<MCRCategory> result = new ArrayList<>(positions.length);
+        for (int pos : positions) {
+            if (lefts[pos] >= lefts[base] && lefts[pos] <= rights[base]) {
+                result.add(getCategory(ids[pos], 0));
+            }
+        }
+        return result;
+    }
+
+    private void addDescendants(MCRCategoryImpl category, int pos, int endLevel) {
+        for (int child = firstChildren[pos]; child >= 0; child = nextSiblings[child]) {
+            if (levels[child] > endLevel) {
+                return;
+            }
+            MCRCategoryImpl childCategory = toCategory(child);
+            addChild(category, childCategory, child);
+            addDescendants(childCategory, child, endLevel);
+        }
+    }
+
+    private void addChild(MCRCategoryImpl parent, MCRCategoryImpl child, int childPos) {
+        parent.getChildren().add(child);
+        child.setLevel(levels[childPos]); //is reset to parent.level+1 in step before
+    }
+
+    private MCRCategoryImpl toCategory(int pos) {
+        MCRCategoryImpl category = new MCRCategoryImpl();
+        category.setInternalID(internalIDs[pos]);
+        category.setURI(uris[pos]);
+        category.setId(ids[pos]);
+        if (ids[pos].isRootID()) {
+            category.setRoot(category);
+        }
+        category.setLeft(lefts[pos]);
+        category.setRight(rights[pos]);
+        category.setLevel(levels[pos]);
+        category.setChildren(new ArrayList<>());
+        for (MCRLabel label : labels[pos]) {
+            category.getLabels().add(label.clone());
+        }
+        return category;
+    }
+
+    private static String getLabelKey(String lang, String text) {
+        return lang + '\u0000' + text;
+    }
+
+    private static final class Cache {
+
+        private static final Cache INSTANCE = new Cache();
+
+        private final boolean enabled;
+
+        private final long maxAge;
+
+        private final MCRCache<String, MCRCategorySnapshot> snapshots;
+
+        /** changed on every invalidation, so that concurrently loaded outdated snapshots are not cached */
+        private final AtomicLong generation = new AtomicLong();
+
+        /** classifications that exceed the capacity on their own */
+        private final Set<String> oversized = ConcurrentHashMap.newKeySet();
+
+        private Cache() {
+            enabled = MCRConfiguration2.getBoolean("MCR.Category.Snapshot.Enabled").orElse(false);
+            maxAge = MCRConfiguration2.getLong("MCR.Category.Snapshot.MaxAge").orElse(60_000L);
+            long capacity = MCRConfiguration2.getLong("MCR.Category.Snapshot.Capacity").orElse(1_000_000L);
+            //a single segment, so that one classification may use the whole capacity
+            snapshots = new MCRCache<>(capacity, (rootID, snapshot) -> snapshot.size(), false, 1,
+                "MCRCategorySnapshot");
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory adjacency index of the link table.
+ *
+ * Every ID is interned to an <code>int</code> and every link type to a small index, so a link is stored as a single
+ * <code>long</code> in the outgoing list of its source and in the incoming list of its destination. Lookups only
+ * hold a read lock and do not touch the database. Like the link table, the graph holds every
+ * <code>(from, to, type)</code> triple at most once.
+ *
+ * Interned IDs are never released, so deleting links of an object does not shrink the ID table.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see MCRLinkTableManager
+ */
+public class MCRLinkGraph {
+
+    private static final int TYPE_BITS = 8;
+
+    private static final long TYPE_MASK = (1L << TYPE_BITS) - 1;
+
+    private static final long[] NO_LINKS = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> types = new ArrayList<>();
+
+    private String[] names = new String[1024];
+
+    private long[][] outgoing = new long[1024][];
+
+    private long[][] incoming = new long[1024][];
+
+    private int[] outgoingCount = new int[1024];
+
+    private int[] incomingCount = new int[1024];
+
+    private int linkCount;
+
+    private static long pack(int id, int type) {
+        return ((long) id << TYPE_BITS) | type;
+    }
+
+    private static int getId(long link) {
+        return (int) (link >>> TYPE_BITS);
+    }
+
+    private static int getType(long link) {
+        return (int) (link & TYPE_MASK);
+    }
+
+    /**
+     * Adds a link. Adding an existing link has no effect.
+     */
+    public void addLink(String from, String to, String type) {
+        lock.writeLock().lock();
+        try {
+            int fromId = intern(from);
+            int toId = intern(to);
+            int typeIndex = internType(type);
+            long outLink = pack(toId, typeIndex);
+            if (indexOf(outgoing[fromId], outgoingCount[fromId], outLink) >= 0) {
+                return;
+            }
+            outgoing[fromId] = append(outgoing[fromId], outgoingCount[fromId]++, outLink);
+            incoming[toId] = append(incoming[toId], incomingCount[toId]++, pack(fromId, typeIndex));
+            linkCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes links of the given source.
+     *
+     * @param from the source of the links
+     * @param to the destination or <code>null</code> for any destination
+     * @param type the type or <code>null</code> for any type
+     */
+    public void removeLinks(String from, String to, String type) {
+        lock.writeLock().lock();
+        try {
+            Integer fromId = ids.get(from);
+            Integer toId = to == null ? null : ids.get(to);
+            int typeIndex = type == null ? -1 : types.indexOf(type);
+            if (fromId == null || (to != null && toId == null) || (type != null && typeIndex < 0)) {
+                return;
+            }
+            long[] links = outgoing[fromId];
+            int count = outgoingCount[fromId];
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                long link = links[i];
+                if ((toId == null || getId(link) == toId) && (typeIndex < 0 || getType(link) == typeIndex)) {
+                    int destination = getId(link);
+                    incomingCount[destination] = remove(incoming[destination], incomingCount[destination],
+                        pack(fromId, getType(link)));
+                    linkCount--;
+                } else {
+                    links[kept++] = link;
+                }
+            }
+            outgoingCount[fromId] = kept;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sources of all links to the given destination.
+     *
+     * @param type the link type or <code>null</code> for any type
+     */
+    public List<String> getSources(String to, String type) {
+        lock.readLock().lock();
+        try {
+            return resolve(incoming, incomingCount, to, type);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the sources of all links to the given destinations.
+     *
+     * @param type the link type or <code>null</code> for any type
+     * @return sources per destination in iteration order of <code>to</code>
+     */
+    public Map<String, List<String>> getSources(Collection<String> to, String type) {
+        lock.readLock().lock();
+        try {
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            to.forEach(id -> result.put(id, resolve(incoming, incomingCount, id, type)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the destinations of all links from the given source.
+     *
+     * @param type the link type or <code>null</code> for any type
+     */
+    public List<String> getDestinations(String from, String type) {
+        lock.readLock().lock();
+        try {
+            return resolve(outgoing, outgoingCount, from, type);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the destinations of all links from the given sources.
+     *
+     * @param type the link type or <code>null</code> for any type
+     * @return destinations per source in iteration order of <code>from</code>
+     */
+    public Map<String, List<String>> getDestinations(Collection<String> from, String type) {
+        lock.readLock().lock();
+        try {
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            from.forEach(id -> result.put(id, resolve(outgoing, outgoingCount, id, type)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the links to the given destination.
+     *
+     * @param type the link type or <code>null</code> for any type
+     */
+    public int countSources(String to, String type) {
+        lock.readLock().lock();
+        try {
+            Integer toId = ids.get(to);
+            if (toId == null) {
+                return 0;
+            }
+            if (type == null) {
+                return incomingCount[toId];
+            }
+            int typeIndex = types.indexOf(type);
+            if (typeIndex < 0) {
+                return 0;
+            }
+            long[] links = incoming[toId];
+            int count = 0;
+            for (int i = 0; i < incomingCount[toId]; i++) {
+                if (getType(links[i]) == typeIndex) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of links in this graph
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return linkCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String> resolve(long[][] adjacency, int[] adjacencyCount, String id, String type) {
+        Integer nodeId = ids.get(id);
+        if (nodeId == null) {
+            return new ArrayList<>();
+        }
+        int typeIndex = type == null ? -1 : types.indexOf(type);
+        if (type != null && typeIndex < 0) {
+            return new ArrayList<>();
+        }
+        long[] links = adjacency[nodeId];
+        int count = adjacencyCount[nodeId];
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long link = links[i];
+            if (typeIndex < 0 || getType(link) == typeIndex) {
+                result.add(names[getId(link)]);
+            }
+        }
+        return result;
+    }
+
+    private int intern(String id) {
+        Integer nodeId = ids.get(id);
+        if (nodeId != null) {
+            return nodeId;
+        }
+        int newId = ids.size();
+        if (newId == names.length) {
+            int newLength = names.length * 2;
+            names = Arrays.copyOf(names, newLength);
+            outgoing = Arrays.copyOf(outgoing, newLength);
+            incoming = Arrays.copyOf(incoming, newLength);
+            outgoingCount = Arrays.copyOf(outgoingCount, newLength);
+            incomingCount = Arrays.copyOf(incomingCount, newLength);
+        }
+        names[newId] = id;
+        outgoing[newId] = NO_LINKS;
+        incoming[newId] = NO_LINKS;
+        ids.put(id, newId);
+        return newId;
+    }
+
+    private int internType(String type) {
+        int typeIndex = types.indexOf(type);
+        if (typeIndex < 0) {
+            if (types.size() > TYPE_MASK) {
+                throw new IllegalStateException("Too many link types, cannot add " + type);
+            }
+            typeIndex = types.size();
+            types.add(type);
+        }
+        return typeIndex;
+    }
+
+    private static int indexOf(long[] links, int count, long link) {
+        for (int i = 0; i < count; i++) {
+            if (links[i] == link) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long[] append(long[] links, int count, long link) {
+        long[] target = links;
+        if (count == links.length) {
+            target = Arrays.copyOf(links, Math.max(4, count + (count >> 1)));
+        }
+        target[count] = link;
+        return target;
+    }
+
+    private static int remove(long[] links, int count, long link) {
+        int i = indexOf(links, count, link);
+        if (i < 0) {
+            return count;
+        }
+        System.arraycopy(links, i + 1, links, i, count - i - 1);
+        return count - 1;
+    }
+
+}
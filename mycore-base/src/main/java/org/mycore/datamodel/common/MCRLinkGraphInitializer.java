@@ -0,0 +1,67 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.common;
+
+import javax.servlet.ServletContext;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.events.MCRStartupHandler;
+import org.mycore.util.concurrent.MCRTransactionableRunnable;
+
+/**
+ * Loads the in-memory link graph of the {@link MCRLinkTableManager} in background on start-up, if
+ * <code>MCR.Persistence.LinkTable.Graph.Enabled</code> is <code>true</code>.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRLinkGraphInitializer implements MCRStartupHandler.AutoExecutable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    @Override
+    public String getName() {
+        return "Link Graph";
+    }
+
+    @Override
+    public int getPriority() {
+        return 0;
+    }
+
+    @Override
+    public void startUp(ServletContext servletContext) {
+        MCRLinkTableManager linkTableManager = MCRLinkTableManager.instance();
+        if (!linkTableManager.isLinkGraphEnabled() || !MCRTransactionHelper.isDatabaseAccessEnabled()
+            || MCREntityManagerProvider.getEntityManagerFactory() == null) {
+            return;
+        }
+        Thread loader = new Thread(new MCRTransactionableRunnable(() -> {
+            try {
+                linkTableManager.loadLinkGraph();
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not load link graph, links are looked up in the database.", e);
+            }
+        }), "MCRLinkGraphLoader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+}
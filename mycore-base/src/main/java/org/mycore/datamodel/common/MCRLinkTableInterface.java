@@ -110,4 +110,22 @@ public interface MCRLinkTableInterface {
      */
     Collection<String> getDestinationsOf(String from, String type);
 
+    /**
+     * Calls the visitor for every link of the datastore. This is used to build the
+     * {@link MCRLinkGraph} of the {@link MCRLinkTableManager}.
+     *
+     * @param visitor
+     *            called with MCRFROM, MCRTO and MCRTYPE of every link
+     * @throws UnsupportedOperationException
+     *            if the datastore does not support iterating over all links, the link graph is disabled then
+     */
+    default void forEachLink(LinkVisitor visitor) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support iterating over all links.");
+    }
+
+    @FunctionalInterface
+    interface LinkVisitor {
+        void visit(String from, String to, String type);
+    }
+
 }
@@ -18,18 +18,25 @@
 
 package org.mycore.datamodel.common;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
 import org.mycore.common.MCRUtils;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.datamodel.classifications2.MCRCategLinkReference;
@@ -50,6 +57,14 @@ import org.mycore.datamodel.metadata.MCRObjectStructure;
 /**
  * This class manage all accesses to the link table database. This database
  * holds all informations about links between MCRObjects/MCRClassifications.
+ *
+ * If <code>MCR.Persistence.LinkTable.Graph.Enabled</code> is <code>true</code>, the links are also kept in an
+ * in-memory {@link MCRLinkGraph} that answers {@link #getSourceOf(String)}, {@link #getDestinationOf(String, String)}
+ * and {@link #countReferenceLinkTo(String)} without a database query. The graph is loaded on start-up
+ * (see {@link MCRLinkGraphInitializer}) and changes of the link table are applied after they were committed. A
+ * transaction that changed the link table reads from the database until it is committed, so it sees its own links.
+ * If the link table store does not support {@link MCRLinkTableInterface#forEachLink(MCRLinkTableInterface.LinkVisitor)
+ * iterating over all links}, the link graph is disabled.
  * 
  * @author Jens Kupferschmidt
  * @version $Revision$ $Date$
@@ -74,6 +89,14 @@ public class MCRLinkTableManager {
 
     private MCRLinkTableInterface linkTableInstance = null;
 
+    private volatile boolean linkGraphEnabled;
+
+    /** the in-memory link graph or <code>null</code>, if it is disabled or not loaded yet */
+    private volatile MCRLinkGraph linkGraph;
+
+    /** committed updates while the link graph is loaded, guarded by this */
+    private List<Consumer<MCRLinkGraph>> loadingUpdates;
+
     /**
      * Returns the link table manager singleton.
      * 
@@ -94,6 +117,103 @@ public class MCRLinkTableManager {
         // Load the persistence class
         linkTableInstance = MCRConfiguration2
             .getOrThrow("MCR.Persistence.LinkTable.Store.Class", MCRConfiguration2::instantiateClass);
+        linkGraphEnabled = MCRConfiguration2.getBoolean("MCR.Persistence.LinkTable.Graph.Enabled").orElse(false);
+    }
+
+    /**
+     * @return true, if the in-memory link graph is enabled
+     */
+    public boolean isLinkGraphEnabled() {
+        return linkGraphEnabled;
+    }
+
+    /**
+     * Loads the in-memory link graph from the link table. Until it is loaded, all lookups are answered by the
+     * database. Calling this method again rebuilds the graph. This method has to be called within a transaction.
+     */
+    public void loadLinkGraph() {
+        if (!linkGraphEnabled) {
+            LOGGER.warn("Link graph is disabled, set MCR.Persistence.LinkTable.Graph.Enabled=true to enable it.");
+            return;
+        }
+        synchronized (this) {
+            if (loadingUpdates != null) {
+                LOGGER.info("Link graph is already loading.");
+                return;
+            }
+            loadingUpdates = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        MCRLinkGraph graph = new MCRLinkGraph();
+        try {
+            linkTableInstance.forEachLink(graph::addLink);
+        } catch (UnsupportedOperationException e) {
+            LOGGER.warn("Link graph is disabled: {}", e.getMessage());
+            synchronized (this) {
+                linkGraphEnabled = false;
+                loadingUpdates = null;
+            }
+            return;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loadingUpdates = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            //links committed while loading may be missing in the result of the query
+            loadingUpdates.forEach(update -> update.accept(graph));
+            loadingUpdates = null;
+            linkGraph = graph;
+        }
+        LOGGER.info("Loaded {} links into link graph in {} ms.", graph.size(), System.currentTimeMillis() - start);
+    }
+
+    private void updateLinkGraph(Consumer<MCRLinkGraph> update) {
+        if (!linkGraphEnabled) {
+            return;
+        }
+        if (!MCRTransactionHelper.isTransactionActive()) {
+            applyLinkGraphUpdates(List.of(update));
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        LinkGraphUpdates pending = session.computeTransactionAttributeIfAbsent(this, key -> {
+            LinkGraphUpdates updates = new LinkGraphUpdates();
+            session.onCommit(updates);
+            return updates;
+        });
+        pending.add(update);
+    }
+
+    /**
+     * Returns the link graph, if it is loaded and the current transaction did not change the link table.
+     * Changes are applied to the link graph after commit, so the database has to answer until then.
+     *
+     * @return the link graph or <code>null</code>, if lookups have to be answered by the database
+     */
+    private MCRLinkGraph getLinkGraph() {
+        MCRLinkGraph graph = linkGraph;
+        if (graph == null) {
+            return null;
+        }
+        if (MCRTransactionHelper.isTransactionActive()) {
+            LinkGraphUpdates pending = MCRSessionMgr.getCurrentSession().getTransactionAttribute(this);
+            if (pending != null && pending.isPending()) {
+                return null;
+            }
+        }
+        return graph;
+    }
+
+    private synchronized void applyLinkGraphUpdates(List<Consumer<MCRLinkGraph>> updates) {
+        if (loadingUpdates != null) {
+            loadingUpdates.addAll(updates);
+        }
+        MCRLinkGraph graph = linkGraph;
+        if (graph != null) {
+            updates.forEach(update -> update.accept(graph));
+        }
     }
 
     /**
@@ -149,6 +269,10 @@ public class MCRLinkTableManager {
 
         try {
             linkTableInstance.create(from, to, type, attr);
+            String linkFrom = from;
+            String linkTo = to;
+            String linkType = type;
+            updateLinkGraph(graph -> graph.addLink(linkFrom, linkTo, linkType));
         } catch (Exception e) {
             LOGGER.warn("An error occured while adding a dataset from the reference link table, adding not succesful.",
                 e);
@@ -181,6 +305,8 @@ public class MCRLinkTableManager {
 
         try {
             linkTableInstance.delete(from, null, null);
+            String linkFrom = from;
+            updateLinkGraph(graph -> graph.removeLinks(linkFrom, null, null));
         } catch (Exception e) {
             LOGGER.warn("An error occured while deleting a dataset from the" + from
                 + " reference link table, deleting could be not succesful.", e);
@@ -206,6 +332,10 @@ public class MCRLinkTableManager {
         }
         try {
             linkTableInstance.delete(from, to, type);
+            String linkFrom = from;
+            String linkTo = MCRUtils.filterTrimmedNotEmpty(to).orElse(null);
+            String linkType = MCRUtils.filterTrimmedNotEmpty(type).orElse(null);
+            updateLinkGraph(graph -> graph.removeLinks(linkFrom, linkTo, linkType));
         } catch (Exception e) {
             LOGGER.warn("An error occured while deleting a dataset from the"
                 + " reference link table, deleting is not succesful.", e);
@@ -238,6 +368,11 @@ public class MCRLinkTableManager {
             return 0;
         }
 
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return graph.countSources(to, null);
+        }
+
         try {
             return linkTableInstance.countTo(null, to, null, null);
         } catch (Exception e) {
@@ -263,6 +398,14 @@ public class MCRLinkTableManager {
             return 0;
         }
 
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null && (restriction == null || restriction.length() == 0)) {
+            if (types != null && types.length > 0) {
+                return Stream.of(types).mapToInt(type -> graph.countSources(myTo.get(), type)).sum();
+            }
+            return graph.countSources(myTo.get(), null);
+        }
+
         try {
             if (types != null && types.length > 0) {
                 return Stream.of(types).mapToInt(type -> linkTableInstance.countTo(null, myTo.get(), type, restriction))
@@ -326,6 +469,11 @@ public class MCRLinkTableManager {
             return Collections.emptyList();
         }
 
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return graph.getSources(to, null);
+        }
+
         try {
             return linkTableInstance.getSourcesOf(to, null);
         } catch (Exception e) {
@@ -368,6 +516,11 @@ public class MCRLinkTableManager {
             return Collections.emptyList();
         }
 
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return graph.getSources(to, type);
+        }
+
         try {
             return linkTableInstance.getSourcesOf(to, type);
         } catch (Exception e) {
@@ -392,6 +545,11 @@ public class MCRLinkTableManager {
             return Collections.emptyList();
         }
         LinkedList<String> ll = new LinkedList<>();
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            graph.getSources(Arrays.asList(to), type).values().forEach(ll::addAll);
+            return ll;
+        }
         try {
             for (String singleTo : to) {
                 ll.addAll(linkTableInstance.getSourcesOf(singleTo, type));
@@ -438,6 +596,11 @@ public class MCRLinkTableManager {
             return Collections.emptyList();
         }
 
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return graph.getDestinations(from, type);
+        }
+
         try {
             return linkTableInstance.getDestinationsOf(from, type);
         } catch (Exception e) {
@@ -446,6 +609,50 @@ public class MCRLinkTableManager {
         }
     }
 
+    /**
+     * Returns the link sources of every given destination. If the link graph is enabled, all destinations are
+     * resolved by a single lookup, otherwise one query per destination is issued.
+     *
+     * @param to
+     *            Destination-IDs
+     * @param type
+     *            link reference type, this can be null
+     * @return Source-IDs per Destination-ID in iteration order of <code>to</code>
+     */
+    public Map<String, Collection<String>> getSourcesOf(Collection<String> to, String type) {
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return new LinkedHashMap<>(graph.getSources(to, type));
+        }
+        Map<String, Collection<String>> sources = new LinkedHashMap<>();
+        for (String singleTo : to) {
+            sources.put(singleTo, type == null ? getSourceOf(singleTo) : getSourceOf(singleTo, type));
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the link destinations of every given source. If the link graph is enabled, all sources are
+     * resolved by a single lookup, otherwise one query per source is issued.
+     *
+     * @param from
+     *            Source-IDs
+     * @param type
+     *            link reference type
+     * @return Destination-IDs per Source-ID in iteration order of <code>from</code>
+     */
+    public Map<String, Collection<String>> getDestinationsOf(Collection<String> from, String type) {
+        MCRLinkGraph graph = getLinkGraph();
+        if (graph != null) {
+            return new LinkedHashMap<>(graph.getDestinations(from, type));
+        }
+        Map<String, Collection<String>> destinations = new LinkedHashMap<>();
+        for (String singleFrom : from) {
+            destinations.put(singleFrom, getDestinationOf(singleFrom, type));
+        }
+        return destinations;
+    }
+
     /**
      * Creates all references for the given object. You should call {@link #delete(MCRObjectID)} before using this
      * method otherwise doublets could occur.
@@ -453,6 +660,10 @@ public class MCRLinkTableManager {
      * @param obj the object to create the references
      */
     public void create(MCRObject obj) {
+        create(obj, false);
+    }
+
+    private void create(MCRObject obj, boolean replaceCategoryLinks) {
         MCRObjectID mcrId = obj.getId();
         // set new entries
         MCRObjectMetadata meta = obj.getMetadata();
@@ -476,8 +687,10 @@ public class MCRLinkTableManager {
             categories.add(state);
         }
         categories.addAll(obj.getService().getClassifications());
-        if (categories.size() > 0) {
-            MCRCategLinkReference objectReference = new MCRCategLinkReference(mcrId);
+        MCRCategLinkReference objectReference = new MCRCategLinkReference(mcrId);
+        if (replaceCategoryLinks) {
+            MCRCategLinkServiceFactory.getInstance().replaceLinks(objectReference, categories);
+        } else if (categories.size() > 0) {
             MCRCategLinkServiceFactory.getInstance().setLinks(objectReference, categories);
         }
         // add derivate reference
@@ -504,20 +717,25 @@ public class MCRLinkTableManager {
     }
 
     /**
-     * Updates all references of this object. Old ones will be removed and new links will be created.
+     * Updates all references of this object. Old ones will be removed and new links will be created. Only changed
+     * category links are written.
      *
      * @param id the mycore object identifer
      */
     public void update(MCRObjectID id) {
-        delete(id);
+        deleteReferenceLink(id);
         if ("derivate".equals(id.getTypeId())) {
-            create(MCRMetadataManager.retrieveMCRDerivate(id));
+            create(MCRMetadataManager.retrieveMCRDerivate(id), true);
         } else {
-            create(MCRMetadataManager.retrieveMCRObject(id));
+            create(MCRMetadataManager.retrieveMCRObject(id), true);
         }
     }
 
     public void create(MCRDerivate der) {
+        create(der, false);
+    }
+
+    private void create(MCRDerivate der, boolean replaceCategoryLinks) {
         Collection<MCRCategoryID> categoryList = new HashSet<>();
         categoryList.addAll(der.getDerivate().getClassifications()
             .stream()
@@ -530,10 +748,44 @@ public class MCRLinkTableManager {
         }
 
         MCRCategLinkReference objectReference = new MCRCategLinkReference(der.getId());
-        MCRCategLinkServiceFactory.getInstance().setLinks(objectReference, categoryList);
+        if (replaceCategoryLinks) {
+            MCRCategLinkServiceFactory.getInstance().replaceLinks(objectReference, categoryList);
+        } else {
+            MCRCategLinkServiceFactory.getInstance().setLinks(objectReference, categoryList);
+        }
     }
 
     private MCRCategoryID metaClassToCategoryID(MCRMetaClassification metaClazz) {
         return new MCRCategoryID(metaClazz.getClassId(), metaClazz.getCategId());
     }
+
+    /**
+     * Link graph updates of one transaction, applied on commit. Stored as a transaction attribute of the session,
+     * so updates of a transaction that is rolled back are dropped with it.
+     */
+    private class LinkGraphUpdates implements Runnable {
+
+        private final List<Consumer<MCRLinkGraph>> updates = new ArrayList<>();
+
+        synchronized void add(Consumer<MCRLinkGraph> update) {
+            updates.add(update);
+        }
+
+        /**
+         * @return true, if the transaction has updates that are not applied yet
+         */
+        synchronized boolean isPending() {
+            return !updates.isEmpty();
+        }
+
+        @Override
+        public void run() {
+            List<Consumer<MCRLinkGraph>> committedUpdates;
+            synchronized (this) {
+                committedUpdates = new ArrayList<>(updates);
+                updates.clear();
+            }
+            applyLinkGraphUpdates(committedUpdates);
+        }
+    }
 }
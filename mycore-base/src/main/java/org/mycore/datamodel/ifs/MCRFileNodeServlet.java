@@ -105,7 +105,7 @@ public class MCRFileNodeServlet extends MCRContentServlet {
             }
         }
         if (attr.isRegularFile()) {
-            return sendFile(request, response, mcrPath);
+            return sendFile(request, response, mcrPath, attr);
         }
         response.sendError(HttpServletResponse.SC_NOT_FOUND, "Not a file or directory: " + mcrPath);
         return null;
@@ -156,9 +156,11 @@ public class MCRFileNodeServlet extends MCRContentServlet {
         return path;
     }
 
-    private MCRContent sendFile(HttpServletRequest request, HttpServletResponse response, MCRPath mcrPath) {
+    private MCRContent sendFile(HttpServletRequest request, HttpServletResponse response, MCRPath mcrPath,
+        BasicFileAttributes attr) {
         // TODO: Does MCRFileNodeServlet really has to handle IFS1 AudioVideoExtender support? (last rev: 30037))
-        return new MCRPathContent(mcrPath);
+        // reuse attributes, so that conditional requests can be answered by the stored MD5 sum
+        return new MCRPathContent(mcrPath, attr);
     }
 
     /**
@@ -0,0 +1,222 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.metadata;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.mycore.common.MCRCache;
+import org.mycore.common.MCRPersistenceException;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.content.MCRByteContent;
+import org.mycore.common.content.MCRContent;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.xml.sax.SAXException;
+
+/**
+ * Caches the parsed XML of objects and derivates, so that {@link MCRMetadataManager#retrieveMCRObject(MCRObjectID)},
+ * {@link MCRMetadataManager#retrieveMCRDerivate(MCRObjectID)} and the URI resolvers do not read and parse the same
+ * XML again and again.
+ *
+ * The cached documents are never handed out, every caller gets its own copy. Entries are removed by
+ * {@link MCRMetadataCacheEventHandler} when an object or derivate is changed. Changes that bypass the event system
+ * are detected by comparing the last modified date of the store, at most every
+ * <code>MCR.Metadata.Cache.CheckPeriod</code> milliseconds.
+ *
+ * The capacity <code>MCR.Metadata.Cache.Capacity</code> is the total size in bytes of the cached XML. Hit rates are
+ * available via JMX as <code>MCRCache</code> of type <code>MCRMetadataCache</code>.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public final class MCRMetadataCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.Metadata.Cache.";
+
+    private static final MCRMetadataCache INSTANCE = new MCRMetadataCache();
+
+    private final boolean enabled;
+
+    private final long checkPeriod;
+
+    private final MCRCache<MCRObjectID, Entry> cache;
+
+    /** changed on every invalidation, so that concurrently loaded outdated documents are not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    private MCRMetadataCache() {
+        enabled = MCRConfiguration2.getBoolean(CONFIG_PREFIX + "Enabled").orElse(true);
+        checkPeriod = MCRConfiguration2.getLong(CONFIG_PREFIX + "CheckPeriod").orElse(1000L);
+        long capacity = MCRConfiguration2.getLong(CONFIG_PREFIX + "Capacity").orElse(64L * 1024 * 1024);
+        boolean softTier = MCRConfiguration2.getBoolean(CONFIG_PREFIX + "SoftTier").orElse(false);
+        cache = new MCRCache<>(capacity, (id, entry) -> entry.weight, softTier, "MCRMetadataCache");
+    }
+
+    public static MCRMetadataCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a copy of the stored XML of an object or derivate.
+     *
+     * @return null if there is no object or derivate with the given ID
+     * @see MCRXMLMetadataManager#retrieveXML(MCRObjectID)
+     */
+    public Document retrieveXML(MCRObjectID id) throws IOException, JDOMException, SAXException {
+        Entry entry = getEntry(id);
+        return entry == null ? null : entry.getXML();
+    }
+
+    /**
+     * Returns an object or derivate that is shared with other callers and must not be modified. Use
+     * {@link MCRMetadataManager#retrieve(MCRObjectID)} to get an instance that may be modified.
+     *
+     * @return null if there is no object or derivate with the given ID
+     * @throws MCRPersistenceException if the XML could not be read
+     */
+    public MCRBase retrieveReadOnly(MCRObjectID id) throws MCRPersistenceException {
+        try {
+            Entry entry = getEntry(id);
+            return entry == null ? null : entry.getReadOnly(id);
+        } catch (IOException | JDOMException | SAXException e) {
+            throw new MCRPersistenceException("Could not retrieve xml of " + id, e);
+        }
+    }
+
+    /**
+     * Removes the object or derivate from the cache.
+     */
+    public void invalidate(MCRObjectID id) {
+        generation.incrementAndGet();
+        cache.remove(id);
+        LOGGER.debug("removed {} from metadata cache", id);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Adds an object that was not read from the store, e.g. in tests.
+     */
+    void put(MCRObjectID id, MCRBase readOnly) {
+        cache.put(id, new Entry(readOnly));
+    }
+
+    private Entry getEntry(MCRObjectID id) throws IOException, JDOMException, SAXException {
+        if (!enabled) {
+            return load(id);
+        }
+        Entry entry = cache.get(id);
+        if (entry != null && entry.isOutdated(id, checkPeriod)) {
+            LOGGER.debug("{} was changed in the store without an event", id);
+            cache.remove(id);
+            entry = null;
+        }
+        if (entry == null) {
+            long loadGeneration = generation.get();
+            entry = load(id);
+            if (entry != null && loadGeneration == generation.get()) {
+                cache.put(id, entry);
+            }
+        }
+        return entry;
+    }
+
+    private static Entry load(MCRObjectID id) throws IOException, JDOMException, SAXException {
+        MCRContent content = MCRXMLMetadataManager.instance().retrieveContent(id);
+        if (content == null) {
+            return null;
+        }
+        long lastModified = content.lastModified();
+        if (lastModified < 0) {
+            lastModified = System.currentTimeMillis();
+        }
+        long length = content.length();
+        if (length < 0) {
+            //size is needed to weigh the entry
+            byte[] bytes = content.asByteArray();
+            length = bytes.length;
+            content = new MCRByteContent(bytes, lastModified);
+        }
+        Document xml = content.asXML();
+        return new Entry(xml, (int) Math.min(Integer.MAX_VALUE, Math.max(1, length)), lastModified);
+    }
+
+    private static final class Entry {
+
+        /** never handed out, so it is not modified */
+        private final Document xml;
+
+        private final int weight;
+
+        private final long lastModified;
+
+        private volatile long lastChecked;
+
+        private volatile MCRBase readOnly;
+
+        Entry(Document xml, int weight, long lastModified) {
+            this.xml = xml;
+            this.weight = weight;
+            this.lastModified = lastModified;
+            this.lastChecked = System.currentTimeMillis();
+        }
+
+        Entry(MCRBase readOnly) {
+            this(null, 1, System.currentTimeMillis());
+            this.readOnly = readOnly;
+        }
+
+        /**
+         * Compares the last modified date of the store at most every <code>checkPeriod</code> milliseconds.
+         */
+        boolean isOutdated(MCRObjectID id, long checkPeriod) throws IOException {
+            long now = System.currentTimeMillis();
+            if (xml == null || now - lastChecked < checkPeriod) {
+                return false;
+            }
+            lastChecked = now;
+            long storeLastModified = MCRXMLMetadataManager.instance().getLastModified(id);
+            return storeLastModified < 0 || storeLastModified > lastModified;
+        }
+
+        Document getXML() {
+            return xml == null ? readOnly.createXML() : xml.clone();
+        }
+
+        MCRBase getReadOnly(MCRObjectID id) {
+            MCRBase base = readOnly;
+            if (base == null) {
+                base = id.getTypeId().equals("derivate") ? new MCRDerivate(getXML()) : new MCRObject(getXML());
+                readOnly = base;
+            }
+            return base;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.metadata;
+
+import org.mycore.common.events.MCREvent;
+import org.mycore.common.events.MCREventHandlerBase;
+
+/**
+ * Removes changed objects and derivates from the {@link MCRMetadataCache}.
+ *
+ * It has to be registered after {@link org.mycore.datamodel.common.MCRXMLMetadataEventHandler}, so that documents
+ * read while the store is updated are removed, too.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRMetadataCacheEventHandler extends MCREventHandlerBase {
+
+    @Override
+    protected void handleObjectCreated(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void handleObjectDeleted(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void handleDerivateCreated(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handleDerivateUpdated(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handleDerivateDeleted(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handleDerivateRepaired(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void undoObjectCreated(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void undoObjectUpdated(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void undoObjectDeleted(MCREvent evt, MCRObject obj) {
+        invalidate(obj);
+    }
+
+    @Override
+    protected void undoDerivateCreated(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void undoDerivateUpdated(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void undoDerivateDeleted(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    private static void invalidate(MCRBase base) {
+        MCRMetadataCache.instance().invalidate(base.getId());
+    }
+}
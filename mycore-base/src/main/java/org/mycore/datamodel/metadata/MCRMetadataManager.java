@@ -662,7 +662,7 @@ public final class MCRMetadataManager {
      */
     public static MCRDerivate retrieveMCRDerivate(final MCRObjectID id) throws MCRPersistenceException {
         try {
-            Document xml = MCRXMLMetadataManager.instance().retrieveXML(id);
+            Document xml = MCRMetadataCache.instance().retrieveXML(id);
             if (xml == null) {
                 throw new MCRPersistenceException("Could not retrieve xml of derivate: " + id);
             }
@@ -682,7 +682,7 @@ public final class MCRMetadataManager {
      */
     public static MCRObject retrieveMCRObject(final MCRObjectID id) throws MCRPersistenceException {
         try {
-            Document xml = MCRXMLMetadataManager.instance().retrieveXML(id);
+            Document xml = MCRMetadataCache.instance().retrieveXML(id);
             if (xml == null) {
                 throw new MCRPersistenceException("Could not retrieve xml of object: " + id);
             }
@@ -963,6 +963,7 @@ public final class MCRMetadataManager {
             // the object will be in an invalid state (the not existing derivate will be
             // linked with the object).
             MCRXMLMetadataManager.instance().update(mcrObjectId, obj.createXML(), new Date());
+            MCRMetadataCache.instance().invalidate(mcrObjectId);
 
             // update and call event handlers
             MCRMetadataManager.update(obj);
@@ -0,0 +1,361 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.mycore.frontend.cli;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRException;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.datamodel.common.MCRMarkManager;
+import org.mycore.datamodel.common.MCRMarkManager.Operation;
+import org.mycore.datamodel.metadata.MCRBase;
+import org.mycore.datamodel.metadata.MCRMetadataManager;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.util.concurrent.MCRTransactionableCallable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Loads or updates many objects or derivates from files at once.
+ *
+ * Up to <code>MCR.CLI.BulkImport.Threads</code> files are parsed and validated in parallel, while the parsed objects
+ * are stored in the current thread in transactions of <code>MCR.CLI.BulkImport.BatchSize</code> objects. Objects are
+ * marked for import while they are stored, so that event handlers skip work that is better done for the whole batch,
+ * e.g. indexing. This work is done by the {@link MCRBulkImportPostProcessor} instances listed in
+ * <code>MCR.CLI.BulkImport.PostProcessors</code> after each batch was committed.
+ *
+ * A file that cannot be parsed or stored is logged and counted as failed, the import continues with the next file.
+ * If a transaction has to be rolled back, objects of the batch that were already stored are repaired.
+ *
+ * This class commits the transaction of the current session and leaves a new one active when it is done.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRBulkImport<T extends MCRBase> {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.CLI.BulkImport.";
+
+    private final String name;
+
+    private final Parser<T> parser;
+
+    private final Persister<T> persister;
+
+    private final int threads;
+
+    private final int batchSize;
+
+    private final List<MCRBulkImportPostProcessor> postProcessors;
+
+    /**
+     * @param name used in log messages, e.g. "objects"
+     * @param parser reads an object from a file, called in parallel
+     * @param persister creates or updates an object, called in the current thread
+     */
+    public MCRBulkImport(String name, Parser<T> parser, Persister<T> persister) {
+        this.name = name;
+        this.parser = parser;
+        this.persister = persister;
+        this.threads = MCRConfiguration2.getInt(CONFIG_PREFIX + "Threads")
+            .orElseGet(Runtime.getRuntime()::availableProcessors);
+        this.batchSize = Math.max(1, MCRConfiguration2.getOrThrow(CONFIG_PREFIX + "BatchSize", Integer::parseInt));
+        // an empty value is treated like an unset one
+        this.postProcessors = MCRConfiguration2.getString(CONFIG_PREFIX + "PostProcessors")
+            .map(MCRConfiguration2::splitValue)
+            .orElseGet(Stream::empty)
+            .map(MCRConfiguration2::<MCRBulkImportPostProcessor>instantiateClass)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Imports all files in the given order.
+     *
+     * @return the statistics of this run
+     */
+    public Statistics run(List<File> files) {
+        Statistics statistics = new Statistics();
+        if (files.isEmpty()) {
+            return statistics;
+        }
+        LOGGER.info("Importing {} {} with {} threads in batches of {}", files.size(), name, threads, batchSize);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())),
+            new ThreadFactoryBuilder().setNameFormat(MCRBulkImport.class.getSimpleName() + "-%d")
+                .setDaemon(true).build());
+        // parse the next batch while the current one is stored, but do not keep more objects in memory
+        int window = Math.max(2 * batchSize, 2 * threads);
+        Deque<Future<Parsed<T>>> pending = new ArrayDeque<>(window);
+        Iterator<File> fileIterator = files.iterator();
+        List<Parsed<T>> batch = new ArrayList<>(batchSize);
+        long start = System.nanoTime();
+        if (MCRTransactionHelper.isTransactionActive()) {
+            MCRTransactionHelper.commitTransaction();
+        }
+        try {
+            while (fileIterator.hasNext() || !pending.isEmpty()) {
+                while (fileIterator.hasNext() && pending.size() < window) {
+                    File file = fileIterator.next();
+                    pending.add(executor.submit(new MCRTransactionableCallable<>(() -> parse(file))));
+                }
+                Parsed<T> parsed = pending.removeFirst().get();
+                if (parsed.error != null) {
+                    statistics.fail(parsed.file, parsed.error);
+                } else {
+                    batch.add(parsed);
+                }
+                if (batch.size() >= batchSize || (pending.isEmpty() && !batch.isEmpty())) {
+                    store(batch, statistics);
+                    batch.clear();
+                    statistics.duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    LOGGER.info("Importing {}: {}", name, statistics);
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Import of {} was interrupted: {}", name, statistics);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // parse() handles exceptions of the parser
+            throw new MCRException("Error while parsing " + name, e.getCause());
+        } finally {
+            executor.shutdownNow();
+            statistics.duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (!MCRTransactionHelper.isTransactionActive()) {
+                MCRTransactionHelper.beginTransaction();
+            }
+        }
+        LOGGER.info("Import of {} finished: {}", name, statistics);
+        return statistics;
+    }
+
+    private Parsed<T> parse(File file) {
+        try {
+            return new Parsed<>(file, parser.parse(file), null);
+        } catch (Exception e) {
+            return new Parsed<>(file, null, e);
+        }
+    }
+
+    private void store(List<Parsed<T>> batch, Statistics statistics) {
+        MCRMarkManager markManager = MCRMarkManager.instance();
+        List<MCRObjectID> marked = new ArrayList<>(batch.size());
+        List<Parsed<T>> stored = new ArrayList<>(batch.size());
+        List<MCRObjectID> imported = new ArrayList<>(batch.size());
+        try {
+            MCRTransactionHelper.beginTransaction();
+            for (Parsed<T> parsed : batch) {
+                try {
+                    MCRObjectID id = assignId(parsed.base);
+                    markManager.mark(id, Operation.IMPORT);
+                    marked.add(id);
+                    persister.persist(parsed.base);
+                    stored.add(parsed);
+                } catch (Exception e) {
+                    statistics.fail(parsed.file, e);
+                    // the failed object may have left changes in the transaction
+                    rollback();
+                    imported.addAll(repair(stored, statistics));
+                    stored.clear();
+                    MCRTransactionHelper.beginTransaction();
+                }
+            }
+            try {
+                MCRTransactionHelper.commitTransaction();
+                stored.stream().map(parsed -> parsed.base.getId()).forEach(imported::add);
+            } catch (Exception e) {
+                LOGGER.error("Could not commit {} {}", stored.size(), name, e);
+                rollback();
+                imported.addAll(repair(stored, statistics));
+            }
+        } finally {
+            marked.forEach(markManager::remove);
+        }
+        if (MCRTransactionHelper.isDatabaseAccessEnabled()) {
+            // do not keep the entities of all batches in the persistence context
+            MCREntityManagerProvider.getCurrentEntityManager().clear();
+        }
+        statistics.imported.addAndGet(imported.size());
+        postProcess(imported);
+    }
+
+    /**
+     * Assigns new ids before the object is stored, so that it can be marked.
+     */
+    private static MCRObjectID assignId(MCRBase base) {
+        if (base.getId().getNumberAsInteger() == 0) {
+            base.setId(MCRObjectID.getNextFreeId(base.getId().getBase()));
+            LOGGER.info("Assigned new id {}", base.getId());
+        }
+        return base.getId();
+    }
+
+    private static void rollback() {
+        if (MCRTransactionHelper.isTransactionActive()) {
+            MCRTransactionHelper.rollbackTransaction();
+        }
+    }
+
+    /**
+     * Objects are stored in the metadata store even if the transaction was rolled back, so the database
+     * is brought in sync by firing repair events.
+     *
+     * @return the ids of the repaired objects
+     */
+    private List<MCRObjectID> repair(List<Parsed<T>> stored, Statistics statistics) {
+        if (stored.isEmpty()) {
+            return Collections.emptyList();
+        }
+        LOGGER.warn("Transaction was rolled back, repairing {} {} that were already stored", stored.size(), name);
+        List<MCRObjectID> ids = stored.stream()
+            .map(parsed -> parsed.base.getId())
+            .collect(Collectors.toList());
+        try {
+            MCRTransactionHelper.beginTransaction();
+            for (MCRObjectID id : ids) {
+                MCRMetadataManager.fireRepairEvent(MCRMetadataManager.retrieve(id));
+            }
+            MCRTransactionHelper.commitTransaction();
+            return ids;
+        } catch (Exception e) {
+            rollback();
+            stored.forEach(parsed -> statistics.fail(parsed.file, e));
+            return Collections.emptyList();
+        }
+    }
+
+    private void postProcess(List<MCRObjectID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (MCRBulkImportPostProcessor postProcessor : postProcessors) {
+            try {
+                MCRTransactionHelper.beginTransaction();
+                postProcessor.process(ids);
+                MCRTransactionHelper.commitTransaction();
+            } catch (Exception e) {
+                LOGGER.error("Error in {} while post processing {} {}", postProcessor.getClass().getName(),
+                    ids.size(), name, e);
+                rollback();
+            }
+        }
+    }
+
+    private static final class Parsed<T extends MCRBase> {
+
+        private final File file;
+
+        private final T base;
+
+        private final Exception error;
+
+        Parsed(File file, T base, Exception error) {
+            this.file = file;
+            this.base = base;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Reads an object from a file.
+     */
+    @FunctionalInterface
+    public interface Parser<T extends MCRBase> {
+        T parse(File file) throws Exception;
+    }
+
+    /**
+     * Creates or updates an object in the repository.
+     */
+    @FunctionalInterface
+    public interface Persister<T extends MCRBase> {
+        void persist(T base) throws Exception;
+    }
+
+    /**
+     * Throughput metrics of a bulk import.
+     */
+    public static final class Statistics {
+
+        private final AtomicInteger imported = new AtomicInteger();
+
+        private final List<File> failedFiles = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile long duration;
+
+        private void fail(File file, Exception e) {
+            LOGGER.error("Could not import {}", file, e);
+            failedFiles.add(file);
+        }
+
+        public int getImported() {
+            return imported.get();
+        }
+
+        public int getFailed() {
+            return failedFiles.size();
+        }
+
+        /**
+         * @return the files that could not be imported
+         */
+        public List<File> getFailedFiles() {
+            return Collections.unmodifiableList(failedFiles);
+        }
+
+        /**
+         * @return the duration of the run in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return imported objects per second
+         */
+        public double getThroughput() {
+            return duration == 0 ? 0 : imported.get() * 1000d / duration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d imported, %d failed in %d ms (%.2f/s)", getImported(),
+                getFailed(), getDuration(), getThroughput());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.mycore.frontend.cli;
+
+import java.util.List;
+
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * Handles work for a batch of objects and derivates imported by {@link MCRBulkImport}, that is skipped for single
+ * objects, because they were marked for import while they were stored.
+ *
+ * Add instances of this interface to the property <code>MCR.CLI.BulkImport.PostProcessors</code>.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see org.mycore.datamodel.common.MCRMarkManager.Operation#IMPORT
+ */
+@FunctionalInterface
+public interface MCRBulkImportPostProcessor {
+
+    /**
+     * Called after the batch was committed. A transaction is active.
+     *
+     * @param ids the ids of the objects and derivates that were imported successfully
+     */
+    void process(List<MCRObjectID> ids) throws Exception;
+
+}
@@ -31,8 +31,10 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -205,21 +207,74 @@ public class MCRDerivateCommands extends MCRAbstractCommands {
 
         List<String> cmds = new ArrayList<>();
         for (File file : list) {
-            String name = file.getName();
-            if (!(name.endsWith(".xml") && name.contains("derivate"))) {
-                continue;
+            if (isDerivateFile(dir, file)) {
+                cmds.add((update ? "update" : "load") + " derivate from file " + file.getAbsolutePath());
             }
-            name = name.substring(0, name.length() - 4); // remove ".xml"
-            File contentDir = new File(dir, name);
-            if (!(contentDir.exists() && contentDir.isDirectory())) {
-                continue;
-            }
-            cmds.add((update ? "update" : "load") + " derivate from file " + file.getAbsolutePath());
         }
 
         return cmds;
     }
 
+    private static boolean isDerivateFile(File dir, File file) {
+        String name = file.getName();
+        if (!(name.endsWith(".xml") && name.contains("derivate"))) {
+            return false;
+        }
+        name = name.substring(0, name.length() - 4); // remove ".xml"
+        File contentDir = new File(dir, name);
+        return contentDir.exists() && contentDir.isDirectory();
+    }
+
+    /**
+     * Loads MCRDerivates from all XML files in a directory with {@link MCRBulkImport}.
+     *
+     * @param directory
+     *            the directory containing the XML files
+     */
+    @MCRCommand(syntax = "bulk load all derivates from directory {0}",
+        help = "Loads all MCRDerivates from the directory {0} to the system, parsing files in parallel and storing "
+            + "them in batches. "
+            + "If the numerical part of a provided ID is zero, a new ID with the same project ID and type is assigned.",
+        order = 61)
+    public static void bulkLoadFromDirectory(String directory) {
+        bulkProcessFromDirectory(directory, false);
+    }
+
+    /**
+     * Updates MCRDerivates from all XML files in a directory with {@link MCRBulkImport}.
+     *
+     * @param directory
+     *            the directory containing the XML files
+     */
+    @MCRCommand(syntax = "bulk update all derivates from directory {0}",
+        help = "Updates all MCRDerivates from the directory {0} in the system, parsing files in parallel and storing "
+            + "them in batches.",
+        order = 71)
+    public static void bulkUpdateFromDirectory(String directory) {
+        bulkProcessFromDirectory(directory, true);
+    }
+
+    private static void bulkProcessFromDirectory(String directory, boolean update) {
+        File dir = new File(directory);
+        if (!dir.isDirectory()) {
+            LOGGER.warn("{} ignored, is not a directory.", directory);
+            return;
+        }
+        List<File> files = Optional.ofNullable(dir.listFiles())
+            .map(Arrays::stream)
+            .orElse(Stream.empty())
+            .filter(file -> isDerivateFile(dir, file))
+            .filter(File::isFile)
+            .sorted()
+            .collect(Collectors.toList());
+        if (files.isEmpty()) {
+            LOGGER.warn("No files found in directory {}", directory);
+            return;
+        }
+        new MCRBulkImport<MCRDerivate>("derivates", file -> readFromFile(file, true),
+            derivate -> store(derivate, update)).run(files);
+    }
+
     /**
      * Loads an MCRDerivates from an XML file.
      *
@@ -308,6 +363,11 @@ public class MCRDerivateCommands extends MCRAbstractCommands {
             return false;
         }
 
+        store(readFromFile(file, importMode), update);
+        return true;
+    }
+
+    private static MCRDerivate readFromFile(File file, boolean importMode) throws SAXParseException, IOException {
         LOGGER.info("Reading file {} ...", file);
 
         MCRDerivate derivate = new MCRDerivate(file.toURI());
@@ -335,7 +395,10 @@ public class MCRDerivateCommands extends MCRAbstractCommands {
             derivate.getDerivate().getInternals().setSourcePath(path);
             LOGGER.info("Source path --> {}", path);
         }
+        return derivate;
+    }
 
+    private static void store(MCRDerivate derivate, boolean update) throws MCRAccessException {
         if (update) {
             MCRMetadataManager.update(derivate);
             LOGGER.info("{} updated.", derivate.getId());
@@ -343,8 +406,6 @@ public class MCRDerivateCommands extends MCRAbstractCommands {
             MCRMetadataManager.create(derivate);
             LOGGER.info("{} loaded.", derivate.getId());
         }
-
-        return true;
     }
 
     /**
@@ -364,6 +364,58 @@ public class MCRObjectCommands extends MCRAbstractCommands {
         return processFromDirectory(false, directory, true);
     }
 
+    /**
+     * Load MCRObject's from all XML files in a directory with {@link MCRBulkImport}.
+     *
+     * @param directory
+     *            the directory containing the XML files
+     */
+    @MCRCommand(
+        syntax = "bulk load all objects from directory {0}",
+        help = "Loads all MCRObjects from the directory {0} to the system, parsing files in parallel and storing "
+            + "them in batches. Parents have to be stored before their children, files are sorted by name. "
+            + "If the numerical part of a provided ID is zero, a new ID with the same project ID and type is assigned.",
+        order = 71)
+    public static void bulkLoadFromDirectory(String directory) {
+        bulkProcessFromDirectory(directory, false);
+    }
+
+    /**
+     * Update MCRObject's from all XML files in a directory with {@link MCRBulkImport}.
+     *
+     * @param directory
+     *            the directory containing the XML files
+     */
+    @MCRCommand(
+        syntax = "bulk update all objects from directory {0}",
+        help = "Updates all MCRObjects from the directory {0} in the system, parsing files in parallel and storing "
+            + "them in batches.",
+        order = 91)
+    public static void bulkUpdateFromDirectory(String directory) {
+        bulkProcessFromDirectory(directory, true);
+    }
+
+    private static void bulkProcessFromDirectory(String directory, boolean update) {
+        File dir = new File(directory);
+        if (!dir.isDirectory()) {
+            LOGGER.warn("{} ignored, is not a directory.", directory);
+            return;
+        }
+        List<File> files = Optional.ofNullable(dir.listFiles())
+            .map(Arrays::stream)
+            .orElse(Stream.empty())
+            .filter(file -> file.getName().endsWith(".xml") && !file.getName().contains("derivate"))
+            .filter(File::isFile)
+            .sorted()
+            .collect(Collectors.toList());
+        if (files.isEmpty()) {
+            LOGGER.warn("No files found in directory {}", directory);
+            return;
+        }
+        new MCRBulkImport<MCRObject>("objects", file -> readFromFile(file, true), object -> store(object, update))
+            .run(files);
+    }
+
     /**
      * Load or update MCRObject's from all XML files in a directory.
      *
@@ -500,17 +552,26 @@ public class MCRObjectCommands extends MCRAbstractCommands {
             return false;
         }
 
+        store(readFromFile(file, importMode), update);
+        return true;
+    }
+
+    private static MCRObject readFromFile(File file, boolean importMode) throws SAXParseException, IOException {
         LOGGER.info("Reading file {} ...", file);
 
         MCRObject mcrObject = new MCRObject(file.toURI());
+        mcrObject.setImportMode(importMode);
+        LOGGER.debug("Label --> {}", mcrObject.getLabel());
+        return mcrObject;
+    }
+
+    private static void store(MCRObject mcrObject, boolean update) throws MCRAccessException {
         if (mcrObject.hasParent()) {
             MCRObjectID parentID = mcrObject.getStructure().getParentID();
             if (!MCRMetadataManager.exists(mcrObject.getStructure().getParentID())) {
                 throw new MCRException("The parent object " + parentID + "does not exist for " + mcrObject + ".");
             }
         }
-        mcrObject.setImportMode(importMode);
-        LOGGER.debug("Label --> {}", mcrObject.getLabel());
 
         if (update) {
             MCRMetadataManager.update(mcrObject);
@@ -519,8 +580,6 @@ public class MCRObjectCommands extends MCRAbstractCommands {
             MCRMetadataManager.create(mcrObject);
             LOGGER.info("{} loaded.", mcrObject.getId());
         }
-
-        return true;
     }
 
     /**
@@ -20,13 +20,18 @@ package org.mycore.services.queuedjob;
 
 import java.lang.reflect.Constructor;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
@@ -50,7 +55,13 @@ import org.mycore.util.concurrent.processing.MCRProcessableFactory;
 
 /**
  * The master of all {@link MCRJobThread}s threads.
- * 
+ *
+ * The master is woken up by {@link MCRJobQueue} if a job is offered or finished. If the queue is empty, it waits
+ * with exponential backoff between <code>MCR.QueuedJob.MinIdleWait</code> and
+ * <code>MCR.QueuedJob.MaxIdleWait</code> milliseconds. Use <code>MCR.QueuedJob.{?MCRJobAction?.}MaxJobThreads</code>
+ * to limit the number of concurrently running jobs of a single action, it defaults to
+ * <code>MCR.QueuedJob.{?MCRJobAction?.}JobThreads</code>.
+ *
  * @author Ren\u00E9 Adler
  */
 public class MCRJobMaster implements Runnable, Closeable {
@@ -59,6 +70,8 @@ public class MCRJobMaster implements Runnable, Closeable {
 
     private static Logger LOGGER = LogManager.getLogger(MCRJobMaster.class);
 
+    private static final long QUEUE_SIZE_UPDATE_INTERVAL = 1000;
+
     private final MCRJobQueue jobQueue;
 
     private Class<? extends MCRJobAction> action;
@@ -71,6 +84,18 @@ public class MCRJobMaster implements Runnable, Closeable {
 
     private ReentrantLock runLock;
 
+    private final Map<Class<? extends MCRJobAction>, AtomicInteger> activeJobs = new ConcurrentHashMap<>();
+
+    private final Map<Class<? extends MCRJobAction>, Integer> maxJobThreads = new ConcurrentHashMap<>();
+
+    private int jobThreadCount;
+
+    private final AtomicLong startedJobs = new AtomicLong();
+
+    private final AtomicLong totalPickupLatency = new AtomicLong();
+
+    private long lastQueueSizeUpdate;
+
     private MCRJobMaster(Class<? extends MCRJobAction> action) {
         MCRShutdownHandler.getInstance().addCloseable(this);
         this.action = action;
@@ -146,7 +171,7 @@ public class MCRJobMaster implements Runnable, Closeable {
             activated ? "activated" : "deactivated");
         if (activated) {
             running = true;
-            int jobThreadCount = MCRConfiguration2.getInt(MCRJobQueue.CONFIG_PREFIX + "JobThreads").orElse(2);
+            jobThreadCount = MCRConfiguration2.getInt(MCRJobQueue.CONFIG_PREFIX + "JobThreads").orElse(2);
             jobThreadCount = MCRConfiguration2
                 .getInt(MCRJobQueue.CONFIG_PREFIX + jobQueue.configPrefixAdd + "JobThreads").orElse(jobThreadCount);
 
@@ -169,6 +194,8 @@ public class MCRJobMaster implements Runnable, Closeable {
                 protected void afterExecute(Runnable r, Throwable t) {
                     super.afterExecute(r, t);
                     activeThreads.decrementAndGet();
+                    //a thread is available for the next job
+                    jobQueue.signal();
                 }
 
                 @Override
@@ -181,80 +208,28 @@ public class MCRJobMaster implements Runnable, Closeable {
             jobServe = MCRProcessableFactory.newPool(executor, processableCollection);
             processableCollection.setProperty("running", running);
 
+            long minIdleWait = MCRConfiguration2.getLong(MCRJobQueue.CONFIG_PREFIX + "MinIdleWait").orElse(10L);
+            long maxIdleWait = MCRConfiguration2.getLong(MCRJobQueue.CONFIG_PREFIX + "MaxIdleWait").orElse(60000L);
+            long idleWait = minIdleWait;
+
             LOGGER.info("JobMaster{} with {} thread(s) is started",
                 MCRJobQueue.singleQueue ? "" : " for \"" + action.getName() + "\"", jobThreadCount);
             while (running) {
                 try {
-                    while (activeThreads.get() < jobThreadCount) {
-                        runLock.lock();
-                        try {
-                            if (!running) {
-                                break;
-                            }
-
-                            EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-                            EntityTransaction transaction = em.getTransaction();
-
-                            MCRJob job = null;
-                            MCRJobAction action = null;
-                            try {
-                                transaction.begin();
-
-                                job = jobQueue.poll();
-                                processableCollection.setProperty("queue size", jobQueue.size());
-
-                                if (job != null) {
-                                    action = toMCRJobAction(job.getAction());
-
-                                    if (action != null && !action.isActivated()) {
-                                        job.setStatus(MCRJobStatus.NEW);
-                                        job.setStart(null);
-                                    }
-                                }
-
-                                transaction.commit();
-                            } catch (RollbackException e) {
-                                LOGGER.error("Error while getting next job.", e);
-                                if (transaction != null) {
-                                    try {
-                                        transaction.rollback();
-                                    } catch (RuntimeException re) {
-                                        LOGGER.warn("Could not rollback transaction.", re);
-                                    }
-                                }
-                            } finally {
-                                em.close();
-                            }
-                            if (job != null && action != null && action.isActivated()
-                                && !jobServe.getExecutor().isShutdown()) {
-                                LOGGER.info("Creating:{}", job);
-                                jobServe.submit(new MCRJobThread(job));
-                            } else {
-                                try {
-                                    synchronized (jobQueue) {
-                                        if (running) {
-                                            LOGGER.debug("No job in queue going to sleep");
-                                            //fixes a race conditioned deadlock situation
-                                            //do not wait longer than 60 sec. for a new MCRJob
-                                            jobQueue.wait(60000);
-                                        }
-                                    }
-                                } catch (InterruptedException e) {
-                                    LOGGER.error("Job thread was interrupted.", e);
-                                }
-                            }
-                        } finally {
-                            runLock.unlock();
-                        }
-                    } // while(activeThreads.get() < jobThreadCount)
-                    if (activeThreads.get() < jobThreadCount) {
-                        try {
-                            LOGGER.info("Waiting for a job to finish");
-                            Thread.sleep(1000);
-                        } catch (InterruptedException e) {
-                            LOGGER.error("Job thread was interrupted.", e);
-                        }
+                    long signalCount = jobQueue.getSignalCount();
+                    if (activeThreads.get() + workQueue.size() < jobThreadCount && dispatchNextJob()) {
+                        idleWait = minIdleWait;
+                        continue;
+                    }
+                    //wait until a job is offered, committed or finished
+                    //offered jobs may not be committed yet, so check again with increasing intervals
+                    if (running && jobQueue.awaitSignal(signalCount, idleWait)) {
+                        idleWait = minIdleWait;
+                    } else {
+                        idleWait = Math.min(idleWait * 2, maxIdleWait);
                     }
+                } catch (InterruptedException e) {
+                    LOGGER.error("Job thread was interrupted.", e);
                 } catch (PersistenceException e) {
                     LOGGER.warn("We have an database error, sleep and run later.", e);
                     try {
@@ -272,6 +247,116 @@ public class MCRJobMaster implements Runnable, Closeable {
         MCRSessionMgr.releaseCurrentSession();
     }
 
+    /**
+     * Polls the next job from the queue and submits it to a {@link MCRJobThread}.
+     *
+     * @return true, if a job was submitted
+     */
+    private boolean dispatchNextJob() {
+        runLock.lock();
+        try {
+            if (!running) {
+                return false;
+            }
+
+            EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+            EntityTransaction transaction = em.getTransaction();
+
+            MCRJob job = null;
+            MCRJobAction action = null;
+            try {
+                transaction.begin();
+
+                job = jobQueue.poll(getSaturatedActions());
+                updateQueueSize();
+
+                if (job != null) {
+                    action = toMCRJobAction(job.getAction());
+
+                    if (action != null && !action.isActivated()) {
+                        job.setStatus(MCRJobStatus.NEW);
+                        job.setStart(null);
+                    }
+                }
+
+                transaction.commit();
+            } catch (RollbackException e) {
+                LOGGER.error("Error while getting next job.", e);
+                if (transaction != null) {
+                    try {
+                        transaction.rollback();
+                    } catch (RuntimeException re) {
+                        LOGGER.warn("Could not rollback transaction.", re);
+                    }
+                }
+            } finally {
+                em.close();
+            }
+            if (job == null || action == null || !action.isActivated() || jobServe.getExecutor().isShutdown()) {
+                return false;
+            }
+            LOGGER.info("Creating:{}", job);
+            updatePickupLatency(job);
+            Class<? extends MCRJobAction> jobAction = job.getAction();
+            AtomicInteger activeJobsOfAction = activeJobs.computeIfAbsent(jobAction, k -> new AtomicInteger());
+            activeJobsOfAction.incrementAndGet();
+            jobServe.submit(new MCRJobThread(job)).getFuture()
+                .whenComplete((result, error) -> activeJobsOfAction.decrementAndGet());
+            return true;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * @return all actions that reached <code>MCR.QueuedJob.{?MCRJobAction?.}MaxJobThreads</code>
+     */
+    private Set<Class<? extends MCRJobAction>> getSaturatedActions() {
+        return getSaturatedActions(activeJobs,
+            jobAction -> maxJobThreads.computeIfAbsent(jobAction, k -> getMaxJobThreads(k, jobThreadCount)));
+    }
+
+    static Set<Class<? extends MCRJobAction>> getSaturatedActions(
+        Map<Class<? extends MCRJobAction>, AtomicInteger> activeJobs,
+        ToIntFunction<Class<? extends MCRJobAction>> maxJobThreads) {
+        Set<Class<? extends MCRJobAction>> saturatedActions = new HashSet<>();
+        activeJobs.forEach((jobAction, count) -> {
+            if (count.get() >= maxJobThreads.applyAsInt(jobAction)) {
+                saturatedActions.add(jobAction);
+            }
+        });
+        return saturatedActions;
+    }
+
+    /**
+     * @return <code>MCR.QueuedJob.{?MCRJobAction?.}MaxJobThreads</code>, defaults to <code>jobThreadCount</code>
+     */
+    static int getMaxJobThreads(Class<? extends MCRJobAction> jobAction, int jobThreadCount) {
+        return MCRConfiguration2.getInt(MCRJobQueue.CONFIG_PREFIX + jobAction.getSimpleName() + ".MaxJobThreads")
+            .orElse(jobThreadCount);
+    }
+
+    private void updateQueueSize() {
+        long now = System.currentTimeMillis();
+        //counting jobs is expensive, do not do it for every single job
+        if (now - lastQueueSizeUpdate >= QUEUE_SIZE_UPDATE_INTERVAL) {
+            processableCollection.setProperty("queue size", jobQueue.size());
+            lastQueueSizeUpdate = now;
+        }
+    }
+
+    private void updatePickupLatency(MCRJob job) {
+        if (job.getAdded() == null || job.getStart() == null) {
+            return;
+        }
+        long latency = job.getStart().getTime() - job.getAdded().getTime();
+        long started = startedJobs.incrementAndGet();
+        long total = totalPickupLatency.addAndGet(latency);
+        processableCollection.setProperty("jobs started", started);
+        processableCollection.setProperty("pickup latency (ms)", latency);
+        processableCollection.setProperty("average pickup latency (ms)", total / started);
+    }
+
     /**
      * stops transmitting {@link MCRJob} to {@link MCRJobThread} and prepares shutdown.
      */
@@ -280,10 +365,8 @@ public class MCRJobMaster implements Runnable, Closeable {
         //signal master thread to stop now
         running = false;
         //Wake up, Neo!
-        synchronized (jobQueue) {
-            LOGGER.debug("Wake up queue");
-            jobQueue.notifyAll();
-        }
+        LOGGER.debug("Wake up queue");
+        jobQueue.signal();
         runLock.lock();
         try {
             if (jobServe != null) {
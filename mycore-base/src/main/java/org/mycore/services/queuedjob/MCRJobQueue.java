@@ -20,13 +20,17 @@ package org.mycore.services.queuedjob;
 
 import java.util.AbstractQueue;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
@@ -50,10 +54,22 @@ import javax.persistence.criteria.Root;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCRShutdownHandler;
 import org.mycore.common.events.MCRShutdownHandler.Closeable;
 
+/**
+ * A queue of {@link MCRJob} instances stored in the database.
+ *
+ * The {@link MCRJobMaster} of this queue is signalled whenever a job is offered, the offering transaction is
+ * committed or a job is finished, so it does not have to poll the database periodically.
+ *
+ * Jobs of actions with a higher <code>MCR.QueuedJob.{?MCRJobAction?.}Priority</code> are returned first, jobs with
+ * the same priority in the order they were added.
+ */
 public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
     private static Logger LOGGER = LogManager.getLogger(MCRJobQueue.class);
 
@@ -75,6 +91,12 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
 
     private boolean running;
 
+    private final boolean hasPriorities;
+
+    private final ThreadLocal<CommitSignal> commitSignal = new ThreadLocal<>();
+
+    private long signalCount;
+
     private MCRJobQueue(Class<? extends MCRJobAction> action) {
         int waitTime = MCRConfiguration2.getInt(CONFIG_PREFIX + "TimeTillReset").orElse(10);
         if (!singleQueue && action != null) {
@@ -93,6 +115,8 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         preFetch = new ConcurrentLinkedQueue<>();
         running = true;
         pollLock = new ReentrantLock();
+        hasPriorities = MCRConfiguration2.getSubPropertiesMap(CONFIG_PREFIX).keySet().stream()
+            .anyMatch(key -> key.endsWith(".Priority"));
         MCRShutdownHandler.getInstance().addCloseable(this);
     }
 
@@ -117,12 +141,22 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
      */
     @Override
     public MCRJob poll() {
+        return poll(Collections.emptySet());
+    }
+
+    /**
+     * Same as {@link #poll()} but skips jobs of the given actions.
+     *
+     * @param excludedActions actions that should not be returned
+     * @return next available job instance
+     */
+    MCRJob poll(Set<Class<? extends MCRJobAction>> excludedActions) {
         if (!running) {
             return null;
         }
         try {
             pollLock.lock();
-            MCRJob job = getElement();
+            MCRJob job = getElement(excludedActions);
             if (job != null) {
                 job.setStart(new Date(System.currentTimeMillis()));
                 job.setStatus(MCRJobStatus.PROCESSING);
@@ -162,7 +196,7 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         if (!running) {
             return null;
         }
-        return getElement();
+        return getElement(Collections.emptySet());
     }
 
     /**
@@ -206,7 +240,11 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         job.setStatus(MCRJobStatus.NEW);
         job.setStart(null);
         if ((job.getId() == 0 && addJob(job)) || (updateJob(job))) {
+            if (hasPriorities) {
+                clearPreFetchWithLowerPriority(getPriority(job.getAction()));
+            }
             notifyListener();
+            signalOnCommit();
             return true;
         } else {
             return false;
@@ -386,30 +424,97 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         return result;
     }
 
-    private MCRJob getElement() {
+    private MCRJob getElement(Set<Class<? extends MCRJobAction>> excludedActions) {
         if (!running) {
             return null;
         }
-        MCRJob job = getNextPrefetchedElement();
+        MCRJob job = getNextPrefetchedElement(excludedActions);
         if (job != null) {
             return job;
         }
         LOGGER.debug("No prefetched jobs available");
-        if (preFetch(MCRConfiguration2.getInt(CONFIG_PREFIX + "preFetchAmount").orElse(50)) == 0) {
+        if (preFetch(MCRConfiguration2.getInt(CONFIG_PREFIX + "preFetchAmount").orElse(50), excludedActions) == 0) {
             return null;
         }
-        return getNextPrefetchedElement();
+        return getNextPrefetchedElement(excludedActions);
     }
 
-    private MCRJob getNextPrefetchedElement() {
-        MCRJob job = preFetch.poll();
+    private MCRJob getNextPrefetchedElement(Set<Class<? extends MCRJobAction>> excludedActions) {
+        MCRJob job = null;
+        if (excludedActions.isEmpty()) {
+            job = preFetch.poll();
+        } else {
+            Iterator<MCRJob> jobs = preFetch.iterator();
+            while (job == null && jobs.hasNext()) {
+                MCRJob candidate = jobs.next();
+                if (!excludedActions.contains(candidate.getAction())) {
+                    jobs.remove();
+                    job = candidate;
+                }
+            }
+        }
         LOGGER.debug("Fetched job: {}", job);
         return job;
     }
 
-    private int preFetch(int amount) {
+    private int preFetch(int amount, Set<Class<? extends MCRJobAction>> excludedActions) {
         EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
 
+        List<MCRJob> jobs = Collections.emptyList();
+        for (List<Class<? extends MCRJobAction>> actions : getActionsByPriority(em, excludedActions)) {
+            jobs = getNewJobs(em, actions, amount);
+            if (!jobs.isEmpty()) {
+                break;
+            }
+        }
+
+        int i = 0;
+        for (MCRJob job : jobs) {
+            if (job.getParameters().isEmpty()) {
+                continue;
+            }
+
+            i++;
+            preFetch.add(job.clone());
+            em.detach(job);
+        }
+        LOGGER.debug("prefetched {} jobs", i);
+        return i;
+    }
+
+    /**
+     * Returns the actions of new jobs grouped by descending priority. A <code>null</code> group stands for all
+     * actions and is used if neither priorities are configured nor actions are excluded.
+     */
+    private Collection<List<Class<? extends MCRJobAction>>> getActionsByPriority(EntityManager em,
+        Set<Class<? extends MCRJobAction>> excludedActions) {
+        if (!hasPriorities && excludedActions.isEmpty()) {
+            return Collections.singletonList(null);
+        }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        @SuppressWarnings("rawtypes")
+        CriteriaQuery<Class> cq = cb.createQuery(Class.class);
+        Root<MCRJob> root = cq.from(MCRJob.class);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get("status"), MCRJobStatus.NEW));
+        if (action != null) {
+            predicates.add(cb.equal(root.get("action"), action));
+        }
+        cq.select(root.get("action")).distinct(true).where(cb.and(predicates.toArray(new Predicate[] {})));
+
+        TreeMap<Integer, List<Class<? extends MCRJobAction>>> actionsByPriority = new TreeMap<>(
+            Comparator.reverseOrder());
+        for (Class<?> jobActionClass : em.createQuery(cq).getResultList()) {
+            @SuppressWarnings("unchecked")
+            Class<? extends MCRJobAction> jobAction = (Class<? extends MCRJobAction>) jobActionClass;
+            if (!excludedActions.contains(jobAction)) {
+                actionsByPriority.computeIfAbsent(getPriority(jobAction), p -> new ArrayList<>()).add(jobAction);
+            }
+        }
+        return actionsByPriority.values();
+    }
+
+    private List<MCRJob> getNewJobs(EntityManager em, List<Class<? extends MCRJobAction>> actions, int amount) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<MCRJob> cq = cb.createQuery(MCRJob.class);
         Root<MCRJob> root = cq.from(MCRJob.class);
@@ -419,6 +524,9 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         if (action != null) {
             predicates.add(cb.equal(root.get("action"), action));
         }
+        if (actions != null) {
+            predicates.add(root.get("action").in(actions));
+        }
         cq.where(cb.and(predicates.toArray(new Predicate[] {})));
         cq.orderBy(cb.asc(root.get("added")));
         cq.distinct(true);
@@ -426,26 +534,32 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         TypedQuery<MCRJob> query = em.createQuery(cq);
         query.setMaxResults(amount);
 
-        List<MCRJob> jobs = query.getResultList();
-
-        int i = 0;
-        for (MCRJob job : jobs) {
-            if (job.getParameters().isEmpty()) {
-                continue;
-            }
+        return query.getResultList();
+    }
 
-            i++;
-            preFetch.add(job.clone());
-            em.detach(job);
-        }
-        LOGGER.debug("prefetched {} jobs", i);
-        return i;
+    /**
+     * Returns the priority of the given action, set by <code>MCR.QueuedJob.{?MCRJobAction?.}Priority</code>.
+     * Defaults to <code>0</code>.
+     */
+    static int getPriority(Class<? extends MCRJobAction> action) {
+        return MCRConfiguration2.getInt(CONFIG_PREFIX + action.getSimpleName() + ".Priority").orElse(0);
     }
 
     private void clearPreFetch() {
         preFetch.clear();
     }
 
+    /**
+     * Prefetched jobs all have the same priority, so they are only dropped if they have a lower priority than an
+     * offered job.
+     */
+    private void clearPreFetchWithLowerPriority(int priority) {
+        MCRJob prefetched = preFetch.peek();
+        if (prefetched != null && getPriority(prefetched.getAction()) < priority) {
+            clearPreFetch();
+        }
+    }
+
     private boolean updateJob(MCRJob job) {
         if (!running) {
             return false;
@@ -469,7 +583,7 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
      * Starts {@link MCRJobMaster} if <code>"MCR.QueuedJob.autostart"</code> is set <code>true</code>.
      */
     public synchronized void notifyListener() {
-        this.notifyAll();
+        signal();
 
         boolean autostart = MCRConfiguration2.getBoolean(CONFIG_PREFIX + "autostart").orElse(true);
         autostart = MCRConfiguration2.getBoolean(CONFIG_PREFIX + configPrefixAdd + "autostart").orElse(autostart);
@@ -479,6 +593,59 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
         }
     }
 
+    /**
+     * Wakes up the {@link MCRJobMaster} waiting for this queue.
+     */
+    synchronized void signal() {
+        signalCount++;
+        this.notifyAll();
+    }
+
+    /**
+     * @return a counter that is incremented on every {@link #signal()}
+     */
+    synchronized long getSignalCount() {
+        return signalCount;
+    }
+
+    /**
+     * Waits until {@link #signal()} was called after <code>lastSignalCount</code> was obtained by
+     * {@link #getSignalCount()}.
+     *
+     * @param lastSignalCount the last known signal count
+     * @param timeout maximum time to wait in milliseconds
+     * @return true, if signalled; false, if the timeout elapsed
+     */
+    synchronized boolean awaitSignal(long lastSignalCount, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (signalCount == lastSignalCount) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            this.wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Signals the {@link MCRJobMaster} again after the current transaction is committed, as offered jobs are not
+     * visible to it before. Only one signal is registered per thread and transaction.
+     */
+    private void signalOnCommit() {
+        if (!MCRTransactionHelper.isTransactionActive()) {
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        CommitSignal pendingSignal = commitSignal.get();
+        if (pendingSignal != null && pendingSignal.isPendingFor(session)) {
+            return;
+        }
+        CommitSignal signal = new CommitSignal(session);
+        commitSignal.set(signal);
+        session.onCommit(signal);
+    }
+
     /**
      * removes specific job from queue no matter what its current status is.
      *
@@ -591,4 +758,32 @@ public class MCRJobQueue extends AbstractQueue<MCRJob> implements Closeable {
     public int getPriority() {
         return MCRShutdownHandler.Closeable.DEFAULT_PRIORITY;
     }
+
+    private class CommitSignal implements Runnable {
+
+        private final MCRSession session;
+
+        private final long accessTime;
+
+        private volatile boolean pending = true;
+
+        CommitSignal(MCRSession session) {
+            this.session = session;
+            this.accessTime = session.getThisAccessTime();
+        }
+
+        /**
+         * onCommit tasks are discarded if the session is released, so a signal is only pending during the same
+         * activation of the session.
+         */
+        boolean isPendingFor(MCRSession currentSession) {
+            return pending && session == currentSession && accessTime == currentSession.getThisAccessTime();
+        }
+
+        @Override
+        public void run() {
+            pending = false;
+            signal();
+        }
+    }
 }
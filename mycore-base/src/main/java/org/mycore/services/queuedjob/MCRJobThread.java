@@ -93,8 +93,8 @@ public class MCRJobThread extends MCRAbstractProcessable implements Runnable {
             transaction.commit();
 
             // notify the queue we have processed the job
-            synchronized (queue) {
-                queue.notifyAll();
+            if (queue != null) {
+                queue.signal();
             }
         } catch (Exception e) {
             LOGGER.error("Error while getting next job.", e);
@@ -0,0 +1,116 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.access;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTestCase;
+
+public class MCRAccessManagerTest extends MCRTestCase {
+
+    private static final String ID = "mcr_test_00000001";
+
+    private static final String OTHER_ID = "mcr_test_00000002";
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        MCRAccessMock.setMethodResult(true);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        MCRAccessMock.clearCheckPermissionCallsList();
+        super.tearDown();
+    }
+
+    @Test
+    public void sharedCache() {
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        newSession(null);
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        assertEquals("Decision should be shared by guest sessions", 1,
+            MCRAccessMock.getCheckPermissionCalls().size());
+
+        newSession("192.168.0.1");
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        assertEquals("Decision should not be shared by different IP addresses", 2,
+            MCRAccessMock.getCheckPermissionCalls().size());
+    }
+
+    @Test
+    public void invalidateAllCaches() {
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        MCRAccessManager.invalidAllPermissionCachesById(ID);
+        newSession(null);
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        assertEquals(2, MCRAccessMock.getCheckPermissionCalls().size());
+    }
+
+    @Test
+    public void individualSession() {
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        MCRAccessManager.invalidPermissionCacheByID(ID);
+        MCRAccessMock.setMethodResult(false);
+        assertFalse(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        MCRAccessMock.setMethodResult(true);
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        assertEquals("Session should use its own cache after invalidation", 3,
+            MCRAccessMock.getCheckPermissionCalls().size());
+    }
+
+    @Test
+    public void checkPermissionBulk() {
+        assertTrue(MCRAccessManager.checkPermission(ID, MCRAccessManager.PERMISSION_READ));
+        Map<String, Boolean> result = MCRAccessManager.checkPermission(List.of(OTHER_ID, ID, OTHER_ID),
+            MCRAccessManager.PERMISSION_READ);
+        assertEquals(List.of(OTHER_ID, ID), List.copyOf(result.keySet()));
+        assertTrue(result.get(ID));
+        assertTrue(result.get(OTHER_ID));
+        assertEquals("Cached and duplicate IDs should not be checked again", 2,
+            MCRAccessMock.getCheckPermissionCalls().size());
+    }
+
+    private static void newSession(String ip) {
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        MCRSessionMgr.releaseCurrentSession();
+        session.close();
+        MCRSessionMgr.unlock();
+        if (ip != null) {
+            MCRSessionMgr.getCurrentSession().setCurrentIP(ip);
+        }
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        final Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.Access.Class", MCRAccessMock.class.getName());
+        testProperties.put("MCR.Metadata.Type.test", Boolean.TRUE.toString());
+        return testProperties;
+    }
+}
@@ -53,6 +53,7 @@ public class MCRAccessMock implements MCRAccessInterface {
 
     public static void setMethodResult(boolean methodResult) {
         checkPermissionReturn = methodResult;
+        MCRAccessManager.invalidAllPermissionCaches();
     }
 
 
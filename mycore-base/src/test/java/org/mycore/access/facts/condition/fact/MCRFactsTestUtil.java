@@ -18,23 +18,25 @@
 
 package org.mycore.access.facts.condition.fact;
 
-import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 
-import org.mycore.access.facts.MCRObjectCacheFactory;
-import org.mycore.common.MCRCache;
+import org.mycore.datamodel.metadata.MCRBase;
+import org.mycore.datamodel.metadata.MCRMetadataCache;
 import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.datamodel.metadata.MCRObjectID;
 
 public class MCRFactsTestUtil {
 
-    public static void hackObjectIntoCache(MCRObject object, MCRObjectID testId) throws NoSuchFieldException,
-            IllegalAccessException {
-        MCRObjectCacheFactory instance = MCRObjectCacheFactory.instance();
-        Field objectCacheField = instance.getClass().getDeclaredField("objectCache");
-        objectCacheField.setAccessible(true);
-        MCRCache<MCRObjectID, MCRObject> o = (MCRCache<MCRObjectID, MCRObject>) objectCacheField.get(instance);
-        objectCacheField.setAccessible(false);
-        o.put(testId, object);
-
+    public static void hackObjectIntoCache(MCRObject object, MCRObjectID testId) throws IllegalAccessException {
+        MCRMetadataCache instance = MCRMetadataCache.instance();
+        try {
+            Method putMethod = instance.getClass().getDeclaredMethod("put", MCRObjectID.class, MCRBase.class);
+            putMethod.setAccessible(true);
+            putMethod.invoke(instance, testId, object);
+            putMethod.setAccessible(false);
+        } catch (NoSuchMethodException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
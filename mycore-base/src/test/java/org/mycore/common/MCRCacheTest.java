@@ -0,0 +1,128 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRCacheTest extends MCRTestCase {
+
+    @Test
+    public void weigher() {
+        MCRCache<String, String> cache = new MCRCache<>(10, (k, v) -> v.length(), false, "junit weigher");
+        try {
+            cache.put("a", "1234");
+            cache.put("b", "1234");
+            assertEquals(8, cache.getCurrentWeight());
+            cache.put("b", "12");
+            assertEquals(6, cache.getCurrentWeight());
+            cache.put("c", "123456");
+            //"a" is least recently used and does not fit anymore
+            assertNull(cache.get("a"));
+            assertEquals(8, cache.getCurrentWeight());
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void concurrencyLevel() {
+        MCRCache<String, String> cache = new MCRCache<>(100, (k, v) -> v.length(), false, 1,
+            "junit concurrency level");
+        try {
+            //with more segments the entry would exceed the capacity of its segment
+            cache.put("a", "a".repeat(90));
+            assertNotNull(cache.get("a"));
+            assertEquals(90, cache.getCurrentWeight());
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void softTier() {
+        MCRCache<String, String> cache = new MCRCache<>(2, null, true, "junit soft tier");
+        try {
+            cache.put("a", "Anton");
+            cache.put("b", "Bohnen");
+            cache.put("c", "Cache");
+            assertEquals(2, cache.getCurrentSize());
+            //evicted entry is still reachable via soft tier
+            assertEquals("Anton", cache.get("a"));
+            assertEquals(1, cache.getSoftTierHits());
+            cache.remove("a");
+            assertNull(cache.get("a"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void setCapacity() {
+        MCRCache<String, String> cache = new MCRCache<>(4, "junit capacity");
+        try {
+            cache.put("a", "Anton");
+            cache.put("b", "Bohnen");
+            cache.setCapacity(10);
+            assertEquals(10, cache.getCapacity());
+            assertEquals(2, cache.getCurrentSize());
+            assertEquals("Anton", cache.get("a"));
+            cache.put("b", "Berta");
+            assertEquals("Berta", cache.get("b"));
+            cache.setCapacity(1);
+            //shrinking evicts objects immediately
+            assertEquals(1, cache.getCurrentSize());
+            assertEquals(1, cache.getCurrentWeight());
+            assertNull(cache.get("c"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void loader() {
+        MCRCache<String, String> cache = new MCRCache<>(4, "junit loader");
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            assertEquals("A", cache.get("a", key -> {
+                loads.incrementAndGet();
+                return key.toUpperCase(Locale.ROOT);
+            }));
+            assertEquals("A", cache.get("a", key -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+            assertEquals(1, loads.get());
+            assertNull(cache.get("b", key -> null));
+            assertNotNull(cache.get("a"));
+        } finally {
+            cache.close();
+        }
+    }
+
+}
@@ -19,6 +19,12 @@
 package org.mycore.common;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.After;
 import org.junit.Before;
@@ -82,6 +88,29 @@ public class MCRSessionTest extends MCRTestCase {
         session.setUserInformation(SUPER_USER_INSTANCE);
     }
 
+    @Test
+    public void transactionAttributes() {
+        MCRSession current = MCRSessionMgr.getCurrentSession();
+        AtomicBoolean committed = new AtomicBoolean();
+        Object attribute = current.computeTransactionAttributeIfAbsent("junit", key -> {
+            current.onCommit(() -> committed.set(true));
+            return new Object();
+        });
+        assertSame(attribute, current.computeTransactionAttributeIfAbsent("junit", key -> new Object()));
+        MCRTransactionHelper.rollbackTransaction();
+        assertNull(current.getTransactionAttribute("junit"));
+        MCRTransactionHelper.commitTransaction();
+        assertFalse("onCommit task of rolled back transaction should be dropped", committed.get());
+
+        current.computeTransactionAttributeIfAbsent("junit", key -> {
+            current.onCommit(() -> committed.set(true));
+            return new Object();
+        });
+        MCRTransactionHelper.commitTransaction();
+        assertTrue(committed.get());
+        assertNull(current.getTransactionAttribute("junit"));
+    }
+
     private static MCRUserInformation getSimpleUserInformation(String userID) {
         return new MCRUserInformation() {
             @Override
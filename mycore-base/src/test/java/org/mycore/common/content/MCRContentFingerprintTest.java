@@ -0,0 +1,55 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MCRContentFingerprintTest {
+
+    @Test
+    public void testMatches() {
+        MCRContentFingerprint strong = MCRContentFingerprint.ofChecksum("abc", 1000);
+        assertEquals("\"abc\"", strong.getETag());
+        assertTrue(strong.isStrong());
+        assertTrue(strong.matches("\"def\", \"abc\"", false));
+        assertTrue(strong.matches("W/\"abc\"", true));
+        assertFalse(strong.matches("W/\"abc\"", false));
+        assertTrue(strong.matches("*", false));
+
+        MCRContentFingerprint weak = new MCRContentFingerprint("W/\"abc\"", 1000);
+        assertFalse(weak.isStrong());
+        assertTrue(weak.matches("\"abc\"", true));
+        assertFalse(weak.matches("W/\"abc\"", false));
+
+        MCRContentFingerprint unknown = new MCRContentFingerprint(null, -1);
+        assertFalse(unknown.matches("*", true));
+    }
+
+    @Test
+    public void testModifiedSince() {
+        MCRContentFingerprint fingerprint = new MCRContentFingerprint(null, 10_500);
+        assertFalse(fingerprint.isModifiedSince(10_000));
+        assertTrue(fingerprint.isModifiedSince(9_000));
+        assertTrue(new MCRContentFingerprint(null, -1).isModifiedSince(10_000));
+    }
+}
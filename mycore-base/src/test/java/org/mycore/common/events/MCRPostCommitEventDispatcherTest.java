@@ -0,0 +1,212 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.common.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRException;
+import org.mycore.common.MCRTestCase;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+public class MCRPostCommitEventDispatcherTest extends MCRTestCase {
+
+    private MCRPostCommitEventDispatcher dispatcher;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        dispatcher = new MCRPostCommitEventDispatcher(2, 10);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        dispatcher.prepareClose();
+        dispatcher.close();
+        super.tearDown();
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.Metadata.Type.test", Boolean.TRUE.toString());
+        testProperties.put("MCR.Persistence.Database.Enable", Boolean.FALSE.toString());
+        return testProperties;
+    }
+
+    @Test
+    public void dispatch() throws InterruptedException {
+        RecordingHandler handler = new RecordingHandler(new CountDownLatch(0));
+        MCRObject first = getValidObject("junit_test_00000001");
+        MCRObject second = getValidObject("junit_test_00000002");
+        List<String> eventTypes = List.of(MCREvent.CREATE_EVENT, MCREvent.DELETE_EVENT, MCREvent.CREATE_EVENT);
+        for (String eventType : eventTypes) {
+            dispatcher.dispatch(handler, getEvent(eventType, first, null));
+            dispatcher.dispatch(handler, getEvent(eventType, second, null));
+        }
+        handler.await(6);
+        assertEquals("events of one object should be handled in order", eventTypes,
+            handler.getEventTypes(first.getId()));
+        assertEquals("events of one object should be handled in order", eventTypes,
+            handler.getEventTypes(second.getId()));
+        assertEquals(0, dispatcher.getQueuedEventCount());
+    }
+
+    @Test
+    public void coalesce() throws InterruptedException {
+        CountDownLatch blocker = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler(blocker);
+        MCRObject object = getValidObject("junit_test_00000001");
+        dispatcher.dispatch(handler, getEvent(MCREvent.REPAIR_EVENT, object, null));
+        assertTrue("first event was not handled", handler.started.await(10, TimeUnit.SECONDS));
+
+        object.setLabel("first update");
+        dispatcher.dispatch(handler, getEvent(MCREvent.UPDATE_EVENT, object, null));
+        object.setLabel("second update");
+        dispatcher.dispatch(handler, getEvent(MCREvent.UPDATE_EVENT, object, null));
+        object.setLabel("after dispatch");
+        assertEquals("updates should be merged while waiting", 1, dispatcher.getQueuedEventCount());
+        blocker.countDown();
+
+        handler.await(2);
+        assertEquals(List.of(MCREvent.REPAIR_EVENT, MCREvent.UPDATE_EVENT), handler.getEventTypes(object.getId()));
+        MCRObject handled = (MCRObject) handler.events.get(1).get(MCREvent.OBJECT_KEY);
+        assertNotSame("handler should get a copy", object, handled);
+        assertEquals("second update", handled.getLabel());
+    }
+
+    @Test
+    public void getKey() {
+        MCREvent evt = new MCREvent(MCREvent.OBJECT_TYPE, MCREvent.UPDATE_EVENT);
+        assertEquals(MCREvent.OBJECT_TYPE, MCRPostCommitEventDispatcher.getKey(evt));
+        evt.put(MCREvent.OBJECT_KEY, getObject("junit_test_00000001"));
+        assertEquals("MCRObject:junit_test_00000001", MCRPostCommitEventDispatcher.getKey(evt));
+    }
+
+    @Test
+    public void merge() {
+        MCRObject oldObject = getObject("junit_test_00000001");
+        MCRObject newObject = getObject("junit_test_00000001");
+        MCRObject newestObject = getObject("junit_test_00000001");
+        MCREvent create = getEvent(MCREvent.CREATE_EVENT, newObject, null);
+        MCREvent update1 = getEvent(MCREvent.UPDATE_EVENT, newObject, oldObject);
+        MCREvent update2 = getEvent(MCREvent.UPDATE_EVENT, newestObject, newObject);
+
+        MCREvent merged = MCRPostCommitEventDispatcher.merge(update1, update2);
+        assertEquals(MCREvent.UPDATE_EVENT, merged.getEventType());
+        assertSame(newestObject, merged.get(MCREvent.OBJECT_KEY));
+        assertSame("old object should be from first update", oldObject, merged.get(MCREvent.OBJECT_OLD_KEY));
+
+        merged = MCRPostCommitEventDispatcher.merge(create, update2);
+        assertEquals(MCREvent.CREATE_EVENT, merged.getEventType());
+        assertSame(newestObject, merged.get(MCREvent.OBJECT_KEY));
+        assertFalse("create event has no old object", merged.containsKey(MCREvent.OBJECT_OLD_KEY));
+
+        MCREvent delete = getEvent(MCREvent.DELETE_EVENT, newestObject, null);
+        assertNull(MCRPostCommitEventDispatcher.merge(update1, delete));
+        assertNull(MCRPostCommitEventDispatcher.merge(delete, create));
+    }
+
+    private static MCREvent getEvent(String type, MCRObject object, MCRObject oldObject) {
+        MCREvent evt = new MCREvent(MCREvent.OBJECT_TYPE, type);
+        evt.put(MCREvent.OBJECT_KEY, object);
+        if (oldObject != null) {
+            evt.put(MCREvent.OBJECT_OLD_KEY, oldObject);
+        }
+        return evt;
+    }
+
+    private static MCRObject getObject(String id) {
+        MCRObject object = new MCRObject();
+        object.setId(MCRObjectID.getInstance(id));
+        return object;
+    }
+
+    private static MCRObject getValidObject(String id) {
+        MCRObject object = getObject(id);
+        object.setSchema("noSchema");
+        object.setLabel(id);
+        return object;
+    }
+
+    private static class RecordingHandler implements MCREventHandler {
+
+        private final List<MCREvent> events = new ArrayList<>();
+
+        private final Semaphore handled = new Semaphore(0);
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch blocker;
+
+        RecordingHandler(CountDownLatch blocker) {
+            this.blocker = blocker;
+        }
+
+        @Override
+        public void doHandleEvent(MCREvent evt) throws MCRException {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                throw new MCRException(e);
+            }
+            synchronized (events) {
+                events.add(evt);
+            }
+            handled.release();
+        }
+
+        @Override
+        public void undoHandleEvent(MCREvent evt) throws MCRException {
+        }
+
+        void await(int count) throws InterruptedException {
+            assertTrue("events were not handled", handled.tryAcquire(count, 10, TimeUnit.SECONDS));
+        }
+
+        List<String> getEventTypes(MCRObjectID id) {
+            synchronized (events) {
+                return events.stream()
+                    .filter(evt -> ((MCRObject) evt.get(MCREvent.OBJECT_KEY)).getId().equals(id))
+                    .map(MCREvent::getEventType)
+                    .collect(Collectors.toList());
+            }
+        }
+    }
+
+}
@@ -47,6 +47,7 @@ import org.junit.Test;
 import org.mycore.backend.jpa.MCREntityManagerProvider;
 import org.mycore.common.MCRException;
 import org.mycore.common.MCRJPATestCase;
+import org.mycore.common.MCRSessionMgr;
 import org.mycore.common.content.MCRURLContent;
 import org.mycore.common.xml.MCRXMLParserFactory;
 import org.mycore.datamodel.classifications2.MCRCategLinkReference;
@@ -120,6 +121,26 @@ public class MCRCategLinkServiceImplTest extends MCRJPATestCase {
             .intValue();
     }
 
+    @Test
+    public void replaceLinks() {
+        MCRCategoryImpl germany = (MCRCategoryImpl) category.getChildren().get(0).getChildren().get(0);
+        MCRCategoryImpl uk = (MCRCategoryImpl) category.getChildren().get(0).getChildren().get(1);
+        addTestLinks();
+        startNewTransaction();
+        SERVICE.setLinks(LONDON_REFERENCE, Collections.singletonList(uk.getId()));
+        assertEquals("Existing link should not be added again.", testLinks.size(), getLinkCount());
+        SERVICE.replaceLinks(LONDON_REFERENCE, Arrays.asList(germany.getId(), uk.getId()));
+        startNewTransaction();
+        assertEquals("Link count does not match.", testLinks.size() + 1, getLinkCount());
+        SERVICE.replaceLinks(LONDON_REFERENCE, Collections.singletonList(germany.getId()));
+        startNewTransaction();
+        assertEquals("Link count does not match.", testLinks.size(), getLinkCount());
+        assertEquals(Collections.singletonList(germany.getId()), SERVICE.getLinksFromReference(LONDON_REFERENCE));
+        SERVICE.replaceLinks(LONDON_REFERENCE, Collections.emptyList());
+        startNewTransaction();
+        assertEquals("Link count does not match.", testLinks.size() - 1, getLinkCount());
+    }
+
     /**
      * Test method for {@link org.mycore.datamodel.classifications2.impl.MCRCategLinkServiceImpl#deleteLink(MCRCategLinkReference)}.
      */
@@ -228,6 +249,47 @@ public class MCRCategLinkServiceImplTest extends MCRJPATestCase {
             .intValue());
     }
 
+    @Test
+    public void countLinksFromIndex() {
+        MCRCategoryImpl germany = (MCRCategoryImpl) category.getChildren().get(0).getChildren().get(0);
+        MCRCategoryID europeID = category.getChildren().get(0).getId();
+        addTestLinks();
+        startNewTransaction();
+        //links of other sessions are read from the index
+        MCRSessionMgr.releaseCurrentSession();
+        assertEquals("Count of Europe links does not match.", 8,
+            SERVICE.countLinks(category, false).get(europeID).intValue());
+        assertEquals("Count of Europe links does not match.", 8,
+            SERVICE.countLinks(category, true).get(europeID).intValue());
+        assertEquals("Count of Europe links does not match.", 2,
+            SERVICE.countLinksForType(category, "city", false).get(europeID).intValue());
+        assertTrue("Category should be in use", SERVICE.hasLinks(germany).get(germany.getId()));
+        SERVICE.deleteLink(LONDON_REFERENCE);
+        assertEquals("Count of Europe links does not match.", 7,
+            SERVICE.countLinks(category, false).get(europeID).intValue());
+        assertEquals("Count of Europe links does not match.", 1,
+            SERVICE.countLinksForType(category, "city", false).get(europeID).intValue());
+    }
+
+    @Test
+    public void deleteLinkWithoutIndex() {
+        MCRCategoryID europeID = category.getChildren().get(0).getId();
+        addTestLinks();
+        startNewTransaction();
+        //no link counts are loaded, so the linked classifications are not queried
+        MCRCategLinkCountIndex.touchAll();
+        assertTrue(MCRCategLinkCountIndex.isEmpty());
+        SERVICE.deleteLink(LONDON_REFERENCE);
+        assertEquals("Count of Europe links does not match.", 7,
+            SERVICE.countLinks(category, false).get(europeID).intValue());
+        assertTrue("Link counts of the current transaction should not be loaded", MCRCategLinkCountIndex.isEmpty());
+        startNewTransaction();
+        assertEquals("Count of Europe links does not match.", 7,
+            SERVICE.countLinks(category, false).get(europeID).intValue());
+        assertEquals("Count of Europe links does not match.", 1,
+            SERVICE.countLinksForType(category, "city", false).get(europeID).intValue());
+    }
+
     @Test
     public void hasLinks() {
         MCRCategoryImpl germany = (MCRCategoryImpl) category.getChildren().get(0).getChildren().get(0);
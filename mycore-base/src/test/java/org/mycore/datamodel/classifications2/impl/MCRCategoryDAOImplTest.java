@@ -381,6 +381,56 @@ public class MCRCategoryDAOImplTest extends MCRJPATestCase {
         assertEquals("Category count does not match.", 1 + countNodes(find), countNodes(rootCategory));
     }
 
+    @Test
+    public void snapshot() {
+        addWorldClassification();
+        MCRCategorySnapshot snapshot = MCRCategorySnapshot.load(category.getId().getRootID());
+        assertNotNull("Could not create snapshot", snapshot);
+        assertEquals("Category count does not match.", countNodes(category), snapshot.size());
+        MCRCategory europe = category.getChildren().get(0);
+        MCRCategory germany = find(category, "Germany").get();
+        for (MCRCategoryID id : List.of(category.getId(), europe.getId(), germany.getId())) {
+            for (int childLevel : new int[] { -1, 0, 1 }) {
+                assertSameCategory(DAO.getCategory(id, childLevel), snapshot.getCategory(id, childLevel));
+            }
+            assertEquals(DAO.getParents(id).stream().map(MCRCategory::getId).collect(Collectors.toList()),
+                snapshot.getParents(id).stream().map(MCRCategory::getId).collect(Collectors.toList()));
+            assertEquals(DAO.hasChildren(id), snapshot.hasChildren(id));
+            assertTrue(snapshot.exist(id));
+        }
+        MCRCategoryID unknownID = new MCRCategoryID(category.getId().getRootID(), "Atlantis");
+        assertFalse(snapshot.exist(unknownID));
+        assertNull(snapshot.getCategory(unknownID, 0));
+        MCRLabel label = germany.getLabels().iterator().next();
+        assertEquals(
+            DAO.getCategoriesByLabel(category.getId(), label.getLang(), label.getText()).stream()
+                .map(MCRCategory::getId).collect(Collectors.toList()),
+            snapshot.getCategoriesByLabel(category.getId(), label.getLang(), label.getText()).stream()
+                .map(MCRCategory::getId).collect(Collectors.toList()));
+        assertTrue(snapshot.getCategoriesByLabel(category.getChildren().get(1).getId(), label.getLang(),
+            label.getText()).isEmpty());
+    }
+
+    private static void assertSameCategory(MCRCategory expected, MCRCategory actual) {
+        assertEquals("IDs do not match.", expected.getId(), actual.getId());
+        assertEquals("Levels do not match: " + expected.getId(), expected.getLevel(), actual.getLevel());
+        assertEquals("Labels do not match: " + expected.getId(), expected.getLabels(), actual.getLabels());
+        assertEquals("URIs do not match: " + expected.getId(), expected.getURI(), actual.getURI());
+        assertEquals("Roots do not match: " + expected.getId(), expected.getRoot().getId(), actual.getRoot().getId());
+        assertEquals("Parents do not match: " + expected.getId(),
+            Optional.ofNullable(expected.getParent()).map(MCRCategory::getId),
+            Optional.ofNullable(actual.getParent()).map(MCRCategory::getId));
+        assertEquals("Left values do not match: " + expected.getId(), ((MCRCategoryImpl) expected).getLeft(),
+            ((MCRCategoryImpl) actual).getLeft());
+        assertEquals("Right values do not match: " + expected.getId(), ((MCRCategoryImpl) expected).getRight(),
+            ((MCRCategoryImpl) actual).getRight());
+        assertEquals("Child count does not match: " + expected.getId(), expected.getChildren().size(),
+            actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSameCategory(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
     @Test
     public void children() {
         addWorldClassification();
@@ -0,0 +1,77 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MCRLinkGraphTest {
+
+    private static final String PARENT = "mcr_test_00000001";
+
+    private static final String CHILD = "mcr_test_00000002";
+
+    private static final String DERIVATE = "mcr_derivate_00000001";
+
+    @Test
+    public void testLinks() {
+        MCRLinkGraph graph = new MCRLinkGraph();
+        graph.addLink(CHILD, PARENT, MCRLinkTableManager.ENTRY_TYPE_PARENT);
+        graph.addLink(CHILD, PARENT, MCRLinkTableManager.ENTRY_TYPE_PARENT);
+        graph.addLink(CHILD, PARENT, MCRLinkTableManager.ENTRY_TYPE_REFERENCE);
+        graph.addLink(CHILD, DERIVATE, MCRLinkTableManager.ENTRY_TYPE_DERIVATE);
+        assertEquals(3, graph.size());
+
+        assertEquals(List.of(CHILD), graph.getSources(PARENT, MCRLinkTableManager.ENTRY_TYPE_PARENT));
+        assertEquals(2, graph.countSources(PARENT, null));
+        assertEquals(1, graph.countSources(PARENT, MCRLinkTableManager.ENTRY_TYPE_REFERENCE));
+        assertEquals(0, graph.countSources(PARENT, MCRLinkTableManager.ENTRY_TYPE_DERIVATE_LINK));
+        assertEquals(List.of(DERIVATE), graph.getDestinations(CHILD, MCRLinkTableManager.ENTRY_TYPE_DERIVATE));
+        assertTrue(graph.getDestinations(PARENT, null).isEmpty());
+        assertTrue(graph.getSources("mcr_test_00000003", null).isEmpty());
+
+        Map<String, List<String>> destinations = graph.getDestinations(List.of(PARENT, CHILD), null);
+        assertEquals(List.of(PARENT, CHILD), List.copyOf(destinations.keySet()));
+        assertEquals(List.of(PARENT, PARENT, DERIVATE), destinations.get(CHILD));
+
+        graph.removeLinks(CHILD, PARENT, MCRLinkTableManager.ENTRY_TYPE_REFERENCE);
+        assertEquals(1, graph.countSources(PARENT, null));
+        assertEquals(2, graph.size());
+
+        graph.removeLinks(CHILD, null, null);
+        assertEquals(0, graph.size());
+        assertTrue(graph.getSources(PARENT, null).isEmpty());
+        assertTrue(graph.getDestinations(CHILD, null).isEmpty());
+    }
+
+    @Test
+    public void testGrow() {
+        MCRLinkGraph graph = new MCRLinkGraph();
+        for (int i = 0; i < 5000; i++) {
+            graph.addLink("mcr_test_" + i, PARENT, MCRLinkTableManager.ENTRY_TYPE_PARENT);
+        }
+        assertEquals(5000, graph.countSources(PARENT, MCRLinkTableManager.ENTRY_TYPE_PARENT));
+        assertEquals(List.of(PARENT), graph.getDestinations("mcr_test_4999", null));
+    }
+}
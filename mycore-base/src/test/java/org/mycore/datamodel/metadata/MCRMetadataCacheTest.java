@@ -0,0 +1,109 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.datamodel.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.jdom2.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.access.MCRAccessBaseImpl;
+import org.mycore.common.MCRStoreTestCase;
+import org.mycore.common.events.MCREventManager;
+import org.mycore.datamodel.common.MCRXMLMetadataEventHandler;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
+
+public class MCRMetadataCacheTest extends MCRStoreTestCase {
+
+    private MCRObject object;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        MCREventManager.instance().clear();
+        MCREventManager.instance().addEventHandler("MCRObject", new MCRXMLMetadataEventHandler());
+        MCREventManager.instance().addEventHandler("MCRObject", new MCRMetadataCacheEventHandler());
+        MCRMetadataCache.instance().clear();
+        object = new MCRObject();
+        object.setId(MCRObjectID.getInstance("test_document_00000001"));
+        object.setSchema("noSchema");
+        object.setLabel("created");
+        MCRMetadataManager.create(object);
+    }
+
+    @Test
+    public void retrieve() throws Exception {
+        MCRObject first = MCRMetadataManager.retrieveMCRObject(object.getId());
+        MCRObject second = MCRMetadataManager.retrieveMCRObject(object.getId());
+        assertNotSame("Every caller must get its own instance", first, second);
+        first.setLabel("modified");
+        assertEquals("created", MCRMetadataManager.retrieveMCRObject(object.getId()).getLabel());
+
+        Document xml = MCRMetadataCache.instance().retrieveXML(object.getId());
+        xml.getRootElement().setAttribute("label", "modified");
+        assertEquals("created", MCRMetadataCache.instance().retrieveXML(object.getId()).getRootElement()
+            .getAttributeValue("label"));
+
+        MCRBase readOnly = MCRMetadataCache.instance().retrieveReadOnly(object.getId());
+        assertSame(readOnly, MCRMetadataCache.instance().retrieveReadOnly(object.getId()));
+        assertNull(MCRMetadataCache.instance().retrieveReadOnly(MCRObjectID.getInstance("test_document_00000002")));
+    }
+
+    @Test
+    public void invalidateOnEvent() throws Exception {
+        assertEquals("created", MCRMetadataManager.retrieveMCRObject(object.getId()).getLabel());
+        object.setLabel("updated");
+        MCRMetadataManager.update(object);
+        assertEquals("updated", MCRMetadataManager.retrieveMCRObject(object.getId()).getLabel());
+        MCRObject readOnly = (MCRObject) MCRMetadataCache.instance().retrieveReadOnly(object.getId());
+        assertEquals("updated", readOnly.getLabel());
+        MCRMetadataManager.delete(object);
+        assertNull(MCRMetadataCache.instance().retrieveReadOnly(object.getId()));
+    }
+
+    @Test
+    public void invalidateOnStoreChange() throws Exception {
+        assertEquals("created", MCRMetadataManager.retrieveMCRObject(object.getId()).getLabel());
+        MCRObject changed = new MCRObject(object.createXML());
+        changed.setLabel("changed");
+        //bypasses the event system
+        MCRXMLMetadataManager.instance().update(object.getId(), changed.createXML(),
+            new Date(System.currentTimeMillis() + 1000));
+        assertEquals("changed", MCRMetadataManager.retrieveMCRObject(object.getId()).getLabel());
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties
+            .put("MCR.Persistence.LinkTable.Store.Class", "org.mycore.backend.hibernate.MCRHIBLinkTableStore");
+        testProperties.put("MCR.Access.Class", MCRAccessBaseImpl.class.getName());
+        testProperties.put("MCR.Metadata.Type.document", "true");
+        testProperties.put("MCR.Metadata.Cache.CheckPeriod", "0");
+        return testProperties;
+    }
+
+}
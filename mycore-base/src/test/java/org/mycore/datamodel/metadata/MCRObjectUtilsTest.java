@@ -60,6 +60,7 @@ public class MCRObjectUtilsTest extends MCRStoreTestCase {
         super.setUp();
         MCREventManager.instance().clear();
         MCREventManager.instance().addEventHandler("MCRObject", new MCRXMLMetadataEventHandler());
+        MCREventManager.instance().addEventHandler("MCRObject", new MCRMetadataCacheEventHandler());
         MCREventManager.instance().addEventHandler("MCRObject", new MCRLinkTableEventHandler());
         root = createObject("test_document_00000001", null);
         l11 = createObject("test_document_00000002", root.getId());
@@ -0,0 +1,163 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.mycore.frontend.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.access.MCRAccessBaseImpl;
+import org.mycore.common.MCRException;
+import org.mycore.common.MCRStoreTestCase;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.events.MCREvent;
+import org.mycore.common.events.MCREventHandlerBase;
+import org.mycore.common.events.MCREventManager;
+import org.mycore.datamodel.common.MCRXMLMetadataEventHandler;
+import org.mycore.datamodel.metadata.MCRMetadataManager;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+public class MCRBulkImportTest extends MCRStoreTestCase {
+
+    private static final List<List<MCRObjectID>> POST_PROCESSED = Collections.synchronizedList(new ArrayList<>());
+
+    private List<MCRObjectID> repaired;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        POST_PROCESSED.clear();
+        repaired = Collections.synchronizedList(new ArrayList<>());
+        MCREventManager.instance().clear();
+        MCREventManager.instance().addEventHandler("MCRObject", new MCRXMLMetadataEventHandler());
+        MCREventManager.instance().addEventHandler("MCRObject", new MCREventHandlerBase() {
+            @Override
+            protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
+                repaired.add(obj.getId());
+            }
+        });
+    }
+
+    @Test
+    public void batches() {
+        MCRConfiguration2.set("MCR.CLI.BulkImport.PostProcessors", RecordingPostProcessor.class.getName());
+        MCRBulkImport.Statistics statistics = new MCRBulkImport<MCRObject>("objects", MCRBulkImportTest::parse,
+            MCRMetadataManager::create).run(getFiles(5));
+
+        assertEquals(5, statistics.getImported());
+        assertEquals(0, statistics.getFailed());
+        assertEquals("Every committed batch should be post processed",
+            List.of(List.of(getId(1), getId(2)), List.of(getId(3), getId(4)), List.of(getId(5))), POST_PROCESSED);
+        IntStream.rangeClosed(1, 5)
+            .forEach(i -> assertTrue(getId(i) + " should exist", MCRMetadataManager.exists(getId(i))));
+    }
+
+    @Test
+    public void failedFiles() {
+        MCRBulkImport.Statistics statistics = new MCRBulkImport<MCRObject>("objects", file -> {
+            if (file.getName().startsWith(getId(2).toString())) {
+                throw new MCRException("Could not parse " + file);
+            }
+            return parse(file);
+        }, object -> {
+            if (object.getId().equals(getId(4))) {
+                throw new MCRException("Could not store " + object.getId());
+            }
+            MCRMetadataManager.create(object);
+        }).run(getFiles(5));
+
+        assertEquals(3, statistics.getImported());
+        assertEquals(List.of(getFiles(5).get(1), getFiles(5).get(3)), statistics.getFailedFiles());
+        assertTrue(MCRMetadataManager.exists(getId(1)));
+        assertFalse(MCRMetadataManager.exists(getId(2)));
+        assertTrue(MCRMetadataManager.exists(getId(3)));
+        assertFalse(MCRMetadataManager.exists(getId(4)));
+        assertTrue(MCRMetadataManager.exists(getId(5)));
+    }
+
+    @Test
+    public void rollbackRepairs() {
+        MCRConfiguration2.set("MCR.CLI.BulkImport.BatchSize", "3");
+        MCRBulkImport.Statistics statistics = new MCRBulkImport<MCRObject>("objects", MCRBulkImportTest::parse,
+            object -> {
+                MCRMetadataManager.create(object);
+                if (object.getId().equals(getId(2))) {
+                    //leaves a stored object in a transaction that has to be rolled back
+                    throw new MCRException("Could not finish " + object.getId());
+                }
+            }).run(getFiles(3));
+
+        assertEquals(2, statistics.getImported());
+        assertEquals(List.of(getFiles(3).get(1)), statistics.getFailedFiles());
+        assertEquals("Objects stored before the rollback should be repaired", List.of(getId(1)), repaired);
+        assertTrue(MCRMetadataManager.exists(getId(1)));
+        assertTrue(MCRMetadataManager.exists(getId(3)));
+    }
+
+    private static MCRObjectID getId(int number) {
+        return MCRObjectID.getInstance(MCRObjectID.formatID("junit_document", number));
+    }
+
+    private static List<File> getFiles(int count) {
+        return IntStream.rangeClosed(1, count)
+            .mapToObj(i -> new File(getId(i) + ".xml"))
+            .collect(Collectors.toList());
+    }
+
+    private static MCRObject parse(File file) {
+        MCRObject object = new MCRObject();
+        object.setId(MCRObjectID.getInstance(file.getName().substring(0, file.getName().lastIndexOf('.'))));
+        object.setSchema("noSchema");
+        object.setLabel(file.getName().toUpperCase(Locale.ROOT));
+        return object;
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties
+            .put("MCR.Persistence.LinkTable.Store.Class", "org.mycore.backend.hibernate.MCRHIBLinkTableStore");
+        testProperties.put("MCR.Access.Class", MCRAccessBaseImpl.class.getName());
+        testProperties.put("MCR.Metadata.Type.document", "true");
+        testProperties.put("MCR.CLI.BulkImport.Threads", "2");
+        testProperties.put("MCR.CLI.BulkImport.BatchSize", "2");
+        testProperties.put("MCR.CLI.BulkImport.PostProcessors", "");
+        return testProperties;
+    }
+
+    public static class RecordingPostProcessor implements MCRBulkImportPostProcessor {
+
+        @Override
+        public void process(List<MCRObjectID> ids) {
+            POST_PROCESSED.add(List.copyOf(ids));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.mycore.services.queuedjob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.common.MCRJPATestCase;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRJobQueuePriorityTest extends MCRJPATestCase {
+
+    private MCRJobQueue queue;
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.QueuedJob.autostart", "false");
+        testProperties.put("MCR.QueuedJob.MCRTestJobAction.Priority", "10");
+        testProperties.put("MCR.QueuedJob.MCRTestJobAction.MaxJobThreads", "1");
+        return testProperties;
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        //a queue for all actions, created with the priorities of this test
+        MCRJobQueue.INSTANCES.remove("single");
+        queue = MCRJobQueue.getInstance(null);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        queue.prepareClose();
+        MCRJobQueue.INSTANCES.remove("single");
+        super.tearDown();
+    }
+
+    @Test
+    public void pollByPriority() {
+        offer(LowPriorityJobAction.class, "1");
+        offer(LowPriorityJobAction.class, "2");
+        offer(MCRTestJobAction.class, "3");
+        assertEquals("3", queue.poll().getParameter("count"));
+        Set<String> lowPriorityJobs = new HashSet<>();
+        lowPriorityJobs.add(queue.poll().getParameter("count"));
+        //the other low priority job is prefetched now
+        offer(MCRTestJobAction.class, "4");
+        assertEquals("4", queue.poll().getParameter("count"));
+        lowPriorityJobs.add(queue.poll().getParameter("count"));
+        assertEquals(Set.of("1", "2"), lowPriorityJobs);
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void pollExcludedActions() {
+        offer(MCRTestJobAction.class, "1");
+        offer(LowPriorityJobAction.class, "2");
+        MCRJob job = queue.poll(Collections.singleton(MCRTestJobAction.class));
+        assertEquals(LowPriorityJobAction.class, job.getAction());
+        assertNull(queue.poll(Collections.singleton(MCRTestJobAction.class)));
+        assertEquals("1", queue.poll().getParameter("count"));
+    }
+
+    @Test
+    public void saturatedActions() {
+        assertEquals(1, MCRJobMaster.getMaxJobThreads(MCRTestJobAction.class, 4));
+        //defaults to the number of job threads
+        assertEquals(4, MCRJobMaster.getMaxJobThreads(LowPriorityJobAction.class, 4));
+        Map<Class<? extends MCRJobAction>, AtomicInteger> activeJobs = Map.of(
+            MCRTestJobAction.class, new AtomicInteger(1),
+            LowPriorityJobAction.class, new AtomicInteger(3));
+        Set<Class<? extends MCRJobAction>> saturated = MCRJobMaster.getSaturatedActions(activeJobs,
+            jobAction -> MCRJobMaster.getMaxJobThreads(jobAction, 4));
+        assertEquals(Collections.singleton(MCRTestJobAction.class), saturated);
+        activeJobs.get(LowPriorityJobAction.class).incrementAndGet();
+        saturated = MCRJobMaster.getSaturatedActions(activeJobs,
+            jobAction -> MCRJobMaster.getMaxJobThreads(jobAction, 4));
+        assertTrue(saturated.contains(LowPriorityJobAction.class));
+    }
+
+    private void offer(Class<? extends MCRJobAction> action, String count) {
+        MCRJob job = new MCRJob(action);
+        job.setParameter("count", count);
+        assertTrue("job should be offered", queue.offer(job));
+        endTransaction();
+        startNewTransaction();
+    }
+
+    public static class LowPriorityJobAction extends MCRTestJobAction {
+
+        public LowPriorityJobAction() {
+        }
+
+        public LowPriorityJobAction(MCRJob job) {
+            super(job);
+        }
+    }
+
+}
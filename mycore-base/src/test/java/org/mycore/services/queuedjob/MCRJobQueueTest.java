@@ -17,6 +17,7 @@
  */
 package org.mycore.services.queuedjob;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -67,4 +68,15 @@ public class MCRJobQueueTest extends MCRJPATestCase {
         assertTrue("job should be done", Boolean.parseBoolean(job.getParameter("done")));
     }
 
+    @Test
+    public void testSignal() throws InterruptedException {
+        MCRJobQueue queue = MCRJobQueue.getInstance(MCRTestJobAction.class);
+        long signalCount = queue.getSignalCount();
+        assertFalse("queue was not signalled", queue.awaitSignal(signalCount, 10));
+        Thread signaller = new Thread(queue::signal);
+        signaller.start();
+        assertTrue("queue should be signalled", queue.awaitSignal(signalCount, 60000));
+        signaller.join();
+    }
+
 }
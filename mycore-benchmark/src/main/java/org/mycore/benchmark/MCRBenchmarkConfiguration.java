@@ -0,0 +1,71 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.mycore.common.config.MCRConfigurationBase;
+
+/**
+ * Sets up the configuration that the benchmarks need and loads the fixtures.
+ *
+ * The benchmarks run without a MyCoRe application, so only the properties that the measured classes read are set.
+ * The configuration has to be initialized before {@link org.mycore.datamodel.metadata.MCRObjectID} is loaded, as
+ * it reads the valid object types only once.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+final class MCRBenchmarkConfiguration {
+
+    static final String OBJECT_FIXTURE = "mir_mods_00000042.xml";
+
+    static final String DERIVATE_FIXTURE = "mir_derivate_00000017.xml";
+
+    private static boolean initialized;
+
+    private MCRBenchmarkConfiguration() {
+    }
+
+    static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+        MCRConfigurationBase.initialize(Collections.emptyMap(), Map.of(
+            "MCR.Metadata.Type.mods", "true",
+            "MCR.Metadata.Type.derivate", "true",
+            "MCR.Metadata.DefaultLang", "de",
+            "MCR.XMLParser.ValidateSchema", "false"), true);
+        initialized = true;
+    }
+
+    static byte[] getFixture(String name) {
+        try (InputStream is = MCRBenchmarkConfiguration.class.getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Fixture not found: " + name);
+            }
+            return is.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read fixture " + name, e);
+        }
+    }
+}
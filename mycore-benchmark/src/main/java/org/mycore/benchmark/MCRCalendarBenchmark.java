@@ -0,0 +1,81 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mycore.common.MCRCalendar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.icu.util.Calendar;
+import com.ibm.icu.util.GregorianCalendar;
+
+/**
+ * Measures the conversions of historic dates by {@link MCRCalendar}.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MCRCalendarBenchmark {
+
+    @Param({ MCRCalendar.TAG_GREGORIAN, MCRCalendar.TAG_JULIAN })
+    public String calendar;
+
+    private Calendar date;
+
+    @Setup
+    public void setup() {
+        date = MCRCalendar.getHistoryDateAsCalendar("15.03.1521", false, calendar);
+    }
+
+    @Benchmark
+    public Calendar parse() {
+        return MCRCalendar.getHistoryDateAsCalendar("15.03.1521", false, calendar);
+    }
+
+    @Benchmark
+    public Calendar parseBC() {
+        return MCRCalendar.getHistoryDateAsCalendar("BC 15.03.44", true, calendar);
+    }
+
+    @Benchmark
+    public int getJulianDayNumber() {
+        return MCRCalendar.getJulianDayNumber(date);
+    }
+
+    @Benchmark
+    public GregorianCalendar toGregorianCalendar() {
+        return MCRCalendar.getGregorianCalendarOfACalendar(date);
+    }
+}
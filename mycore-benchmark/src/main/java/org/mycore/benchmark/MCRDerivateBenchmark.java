@@ -0,0 +1,88 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdom2.Document;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.mycore.datamodel.metadata.MCRDerivate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXParseException;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Measures reading and writing of a {@link MCRDerivate} with a file set of 31 files.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MCRDerivateBenchmark {
+
+    private byte[] bytes;
+
+    private MCRDerivate derivate;
+
+    @Setup
+    public void setup() throws SAXParseException {
+        MCRBenchmarkConfiguration.initialize();
+        bytes = MCRBenchmarkConfiguration.getFixture(MCRBenchmarkConfiguration.DERIVATE_FIXTURE);
+        derivate = new MCRDerivate(bytes, false);
+    }
+
+    @Benchmark
+    public MCRDerivate parseBytes() throws SAXParseException {
+        return new MCRDerivate(bytes, false);
+    }
+
+    @Benchmark
+    public Document createXML() {
+        return derivate.createXML();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        new XMLOutputter(Format.getRawFormat()).output(derivate.createXML(), out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public JsonObject createJSON() {
+        return derivate.createJSON();
+    }
+}
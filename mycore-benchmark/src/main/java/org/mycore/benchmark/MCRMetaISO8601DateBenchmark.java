@@ -0,0 +1,74 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.mycore.datamodel.metadata.MCRMetaISO8601Date;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing and formatting of {@link MCRMetaISO8601Date} in all supported precisions.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MCRMetaISO8601DateBenchmark {
+
+    @Param({ "2021", "2021-03", "2021-03-15", "2021-03-15T14:02Z", "2021-03-15T14:02:51Z",
+        "2021-03-15T14:02:51.007+01:00" })
+    public String isoDate;
+
+    private MCRMetaISO8601Date metaDate;
+
+    @Setup
+    public void setup() {
+        MCRBenchmarkConfiguration.initialize();
+        metaDate = new MCRMetaISO8601Date("servdate", "modifydate", 0);
+        metaDate.setDate(isoDate);
+    }
+
+    @Benchmark
+    public Date parse() {
+        MCRMetaISO8601Date date = new MCRMetaISO8601Date("servdate", "modifydate", 0);
+        date.setDate(isoDate);
+        return date.getDate();
+    }
+
+    @Benchmark
+    public String format() {
+        return metaDate.getISOString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXParseException;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Measures reading and writing of a {@link MCRObject} with MODS metadata.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MCRObjectBenchmark {
+
+    private byte[] bytes;
+
+    private Document document;
+
+    private MCRObject object;
+
+    @Setup
+    public void setup() throws IOException, JDOMException, SAXParseException {
+        MCRBenchmarkConfiguration.initialize();
+        bytes = MCRBenchmarkConfiguration.getFixture(MCRBenchmarkConfiguration.OBJECT_FIXTURE);
+        document = new SAXBuilder().build(new ByteArrayInputStream(bytes));
+        object = new MCRObject(bytes, false);
+    }
+
+    @Benchmark
+    public MCRObject parseBytes() throws SAXParseException {
+        return new MCRObject(bytes, false);
+    }
+
+    @Benchmark
+    public MCRObject parseDocument() {
+        return new MCRObject(document.clone());
+    }
+
+    @Benchmark
+    public Document createXML() {
+        return object.createXML();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        new XMLOutputter(Format.getRawFormat()).output(object.createXML(), out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public JsonObject createJSON() {
+        return object.createJSON();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookup of {@link MCRObjectID} instances in the pool and the validation and formatting of IDs.
+ *
+ * <code>getInstance</code> always asks for the same ID, <code>getInstanceOfMany</code> cycles through
+ * {@value #ID_COUNT} IDs that are still referenced, so that they stay in the pool.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MCRObjectIDBenchmark {
+
+    private static final int ID_COUNT = 4096;
+
+    private static final String ID = "mir_mods_00000042";
+
+    private String[] ids;
+
+    /** strong references, so that the pool keeps the instances */
+    @SuppressWarnings("unused")
+    private MCRObjectID[] objectIDs;
+
+    @Setup
+    public void setup() {
+        MCRBenchmarkConfiguration.initialize();
+        ids = IntStream.rangeClosed(1, ID_COUNT)
+            .mapToObj(i -> MCRObjectID.formatID("mir_mods", i))
+            .toArray(String[]::new);
+        objectIDs = new MCRObjectID[ID_COUNT];
+        for (int i = 0; i < ID_COUNT; i++) {
+            objectIDs[i] = MCRObjectID.getInstance(ids[i]);
+        }
+    }
+
+    @Benchmark
+    public MCRObjectID getInstance() {
+        return MCRObjectID.getInstance(ID);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public MCRObjectID getInstanceConcurrent() {
+        return MCRObjectID.getInstance(ID);
+    }
+
+    @Benchmark
+    public MCRObjectID getInstanceOfMany(Counter counter) {
+        return MCRObjectID.getInstance(ids[counter.next()]);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return MCRObjectID.isValid(ID);
+    }
+
+    @Benchmark
+    public String formatID(Counter counter) {
+        return MCRObjectID.formatID("mir", "mods", counter.next());
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+
+        private int value;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            value = 0;
+        }
+
+        int next() {
+            value = (value + 1) % ID_COUNT;
+            return value;
+        }
+    }
+}
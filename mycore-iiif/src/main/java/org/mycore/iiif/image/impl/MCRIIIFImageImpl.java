@@ -94,9 +94,23 @@ public abstract class MCRIIIFImageImpl {
         throws MCRIIIFImageNotFoundException, MCRIIIFImageProvidingException, MCRIIIFUnsupportedFormatException,
         MCRAccessException;
 
+    /**
+     * Returns the information of the image. Like {@link #provide}, this has to check that the current user may
+     * access the image.
+     */
     public abstract MCRIIIFImageInformation getInformation(String identifier)
         throws MCRIIIFImageNotFoundException, MCRIIIFImageProvidingException, MCRAccessException;
 
+    /**
+     * Checks that the current user may access the image. It is called before an image is served from cache
+     * without calling {@link #provide}. The default implementation relies on the check of
+     * {@link #getInformation(String)}, which is called before, and does nothing.
+     *
+     * @throws MCRAccessException if the current user may not access the image
+     */
+    public void checkAccess(String identifier) throws MCRIIIFImageNotFoundException, MCRAccessException {
+    }
+
     public abstract MCRIIIFImageProfile getProfile();
 
 }
@@ -26,6 +26,7 @@ import static org.mycore.iiif.image.MCRIIIFImageUtil.getIIIFURL;
 import static org.mycore.iiif.image.MCRIIIFImageUtil.getImpl;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
@@ -45,6 +46,8 @@ import javax.ws.rs.core.StreamingOutput;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.mycore.access.MCRAccessException;
+import org.mycore.common.MCRCache;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.frontend.jersey.MCRCacheControl;
 import org.mycore.iiif.common.MCRIIIFMediaTypeHelper;
 import org.mycore.iiif.image.impl.MCRIIIFImageImpl;
@@ -75,6 +78,19 @@ public class MCRIIIFImageResource {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final String OUTPUT_CACHE_PREFIX = "MCR.IIIF.Image.OutputCache.";
+
+    /**
+     * encoded images of at most <code>MCR.IIIF.Image.OutputCache.MaxPixels</code> pixels like thumbnails, that are
+     * requested again and again
+     */
+    private static final MCRCache<String, CachedImage> OUTPUT_CACHE = new MCRCache<>(
+        MCRConfiguration2.getLong(OUTPUT_CACHE_PREFIX + "MaxBytes").orElse(32L * 1024 * 1024),
+        (key, image) -> image.data.length, false, "IIIF Image output");
+
+    private static final long OUTPUT_CACHE_MAX_PIXELS = MCRConfiguration2
+        .getLong(OUTPUT_CACHE_PREFIX + "MaxPixels").orElse(512L * 512);
+
     @Context
     Request request;
 
@@ -154,6 +170,15 @@ public class MCRIIIFImageResource {
                 return cachedResponse.get();
             }
 
+            String cacheKey = impl.getImplName() + ':' + identifier + '/' + region + '/' + size + '/' + rotation
+                + '/' + quality + '.' + format;
+            CachedImage cachedImage = OUTPUT_CACHE.get(cacheKey);
+            if (cachedImage != null && cachedImage.lastModified == information.lastModified) {
+                impl.checkAccess(identifier);
+                return buildImageResponse(Response.Status.OK, impl, identifier, format, information)
+                    .entity(cachedImage.data).build();
+            }
+
             MCRIIIFRegionParser rp = new MCRIIIFRegionParser(region, information.width, information.height);
             MCRIIIFImageSourceRegion sourceRegion = rp.parseImageRegion();
 
@@ -171,13 +196,17 @@ public class MCRIIIFImageResource {
 
             Response.Status status = rp.isCompleteValid() ? Response.Status.OK : Response.Status.BAD_REQUEST;
 
-            Response.ResponseBuilder responseBuilder = Response.status(status);
+            Response.ResponseBuilder responseBuilder = buildImageResponse(status, impl, identifier, format,
+                information);
+            if (status == Response.Status.OK
+                && (long) targetSize.getWidth() * targetSize.getHeight() <= OUTPUT_CACHE_MAX_PIXELS) {
+                ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+                ImageIO.write(provide, format, imageData);
+                cachedImage = new CachedImage(imageData.toByteArray(), information.lastModified);
+                OUTPUT_CACHE.put(cacheKey, cachedImage);
+                return responseBuilder.entity(cachedImage.data).build();
+            }
             return responseBuilder
-                .header("Access-Control-Allow-Origin", "*")
-                .header("Link", buildCanonicalURL(impl, identifier))
-                .header("Profile", buildProfileURL())
-                .type("image/" + format)
-                .lastModified(new Date(information.lastModified))
                 .entity((StreamingOutput) outputStream -> ImageIO.write(provide, format, outputStream)).build();
         } catch (MCRIIIFImageNotFoundException e) {
             return Response.status(Response.Status.NOT_FOUND).entity(e.getMessage()).build();
@@ -193,6 +222,16 @@ public class MCRIIIFImageResource {
         }
     }
 
+    private static Response.ResponseBuilder buildImageResponse(Response.Status status, MCRIIIFImageImpl impl,
+        String identifier, String format, MCRIIIFImageInformation information) {
+        return Response.status(status)
+            .header("Access-Control-Allow-Origin", "*")
+            .header("Link", buildCanonicalURL(impl, identifier))
+            .header("Profile", buildProfileURL())
+            .type("image/" + format)
+            .lastModified(new Date(information.lastModified));
+    }
+
     @GET
     @Path("profile.json")
     @Produces(MCRIIIFMediaTypeHelper.APPLICATION_LD_JSON)
@@ -211,4 +250,16 @@ public class MCRIIIFImageResource {
         return profile;
     }
 
+    private static final class CachedImage {
+
+        private final byte[] data;
+
+        private final long lastModified;
+
+        CachedImage(byte[] data, long lastModified) {
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+    }
+
 }
@@ -0,0 +1,163 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iiif.presentation;
+
+import static org.mycore.iiif.presentation.MCRIIIFPresentationUtil.correctIDs;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRCache;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.iiif.presentation.impl.MCRIIIFPresentationImpl;
+import org.mycore.iiif.presentation.model.basic.MCRIIIFManifest;
+
+import com.google.gson.Gson;
+
+/**
+ * Caches generated manifests per implementation and identifier (e.g. derivate ID).
+ *
+ * A manifest is generated only once at a time per identifier: concurrent requests for the same manifest wait for
+ * the running generation, while manifests of other identifiers are generated in parallel. The serialized JSON of
+ * the manifest is kept with the cache entry.
+ *
+ * Entries expire after <code>MCR.IIIFPresentation.ManifestCache.MaxAge</code> milliseconds or if
+ * {@link #invalidate(String)} is called, e.g. by an event handler if a derivate was changed. At most
+ * <code>MCR.IIIFPresentation.ManifestCache.Capacity</code> manifests are cached.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public final class MCRIIIFPresentationManifestCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.IIIFPresentation.ManifestCache.";
+
+    private static final MCRIIIFPresentationManifestCache INSTANCE = new MCRIIIFPresentationManifestCache();
+
+    private final MCRCache<String, Entry> cache;
+
+    /** identifier -> time of last invalidation, detects manifests that were generated while being invalidated */
+    private final MCRCache<String, Long> invalidations;
+
+    private final long maxAge;
+
+    private MCRIIIFPresentationManifestCache() {
+        int capacity = MCRConfiguration2.getInt(CONFIG_PREFIX + "Capacity").orElse(1000);
+        cache = new MCRCache<>(capacity, "IIIF Presentation Manifests");
+        invalidations = new MCRCache<>(capacity, "IIIF Presentation Manifest Invalidations");
+        maxAge = MCRConfiguration2.getLong(CONFIG_PREFIX + "MaxAge").orElse(TimeUnit.HOURS.toMillis(1));
+    }
+
+    public static MCRIIIFPresentationManifestCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached manifest or generates it by {@link MCRIIIFPresentationImpl#getManifest(String)}.
+     *
+     * @param impl the name of the implementation as used in the request
+     * @param identifier the identifier of the manifest
+     * @param noCache if true, the manifest is generated again
+     */
+    public Entry getManifest(String impl, String identifier, boolean noCache) {
+        String key = Objects.toString(impl, "") + ':' + identifier;
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            if (!noCache && isUpToDate(entry, identifier)) {
+                LOGGER.info("Manifest {}:{} served from cache", impl, identifier);
+                return entry;
+            }
+            cache.remove(key);
+        }
+        return cache.get(key, k -> generate(impl, identifier));
+    }
+
+    /**
+     * Removes the manifests of the given identifier of all implementations from the cache.
+     */
+    public void invalidate(String identifier) {
+        invalidations.put(identifier, System.currentTimeMillis());
+        String suffix = ':' + identifier;
+        cache.keys().stream()
+            .filter(key -> key.endsWith(suffix))
+            .forEach(cache::remove);
+        LOGGER.debug("Invalidated manifests of {}", identifier);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private boolean isUpToDate(Entry entry, String identifier) {
+        if (entry.created < System.currentTimeMillis() - maxAge) {
+            return false;
+        }
+        Long invalidated = invalidations.get(identifier);
+        return invalidated == null || entry.created > invalidated;
+    }
+
+    private static Entry generate(String impl, String identifier) {
+        long startTime = System.currentTimeMillis();
+        MCRIIIFManifest manifest = MCRIIIFPresentationImpl.getInstance(impl).getManifest(identifier);
+        LOGGER.info("Manifest {}:{} generation needed: {}ms", impl, identifier,
+            System.currentTimeMillis() - startTime);
+        MCRIIIFPresentationManifestQuickAccess quickAccess = new MCRIIIFPresentationManifestQuickAccess(manifest);
+        correctIDs(manifest, impl, identifier);
+        return new Entry(quickAccess, startTime);
+    }
+
+    /**
+     * A generated manifest and its serialized form.
+     */
+    public static final class Entry {
+
+        private final MCRIIIFPresentationManifestQuickAccess quickAccess;
+
+        /** start of generation, all changes before are included */
+        private final long created;
+
+        private volatile String json;
+
+        Entry(MCRIIIFPresentationManifestQuickAccess quickAccess, long created) {
+            this.quickAccess = quickAccess;
+            this.created = created;
+        }
+
+        public MCRIIIFPresentationManifestQuickAccess getQuickAccess() {
+            return quickAccess;
+        }
+
+        /**
+         * Returns the manifest as JSON. The manifest is serialized only on the first call.
+         *
+         * @param gson serializes the manifest
+         */
+        public String getJSON(Gson gson) {
+            String manifestJSON = json;
+            if (manifestJSON == null) {
+                manifestJSON = gson.toJson(quickAccess.getManifest());
+                json = manifestJSON;
+            }
+            return manifestJSON;
+        }
+    }
+}
@@ -18,11 +18,8 @@
 
 package org.mycore.iiif.presentation.resources;
 
-import static org.mycore.iiif.presentation.MCRIIIFPresentationUtil.correctIDs;
-
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
@@ -34,14 +31,10 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.mycore.common.MCRCache;
 import org.mycore.frontend.jersey.MCRCacheControl;
 import org.mycore.iiif.common.MCRIIIFMediaTypeHelper;
+import org.mycore.iiif.presentation.MCRIIIFPresentationManifestCache;
 import org.mycore.iiif.presentation.MCRIIIFPresentationManifestQuickAccess;
-import org.mycore.iiif.presentation.impl.MCRIIIFPresentationImpl;
-import org.mycore.iiif.presentation.model.basic.MCRIIIFManifest;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -49,11 +42,6 @@ import com.google.gson.GsonBuilder;
 @Path("/presentation/v2{noop: /?}{impl: ([a-zA-Z0-9]+)?}")
 public class MCRIIIFPresentationResource {
 
-    private static final Logger LOGGER = LogManager.getLogger();
-
-    private static final MCRCache<String, MCRIIIFPresentationManifestQuickAccess> CACHE = new MCRCache<>(1000,
-        MCRIIIFPresentationResource.class.getName());
-
     private static final String IMPL_PARAM = "impl";
 
     private static final String NAME_PARAM = "name";
@@ -76,9 +64,9 @@ public class MCRIIIFPresentationResource {
         sMaxAge = @MCRCacheControl.Age(time = 1, unit = TimeUnit.DAYS))
     public Response getManifest(@PathParam(IMPL_PARAM) String impl, @PathParam(IDENTIFIER_PARAM) String identifier,
         @HeaderParam("Cache-Control") String cacheControl) throws CloneNotSupportedException {
-        MCRIIIFPresentationManifestQuickAccess quickAccess = getManifestQuickAccess(impl, identifier,
-            cacheHeaderAsList(cacheControl).contains("no-cache"));
-        String manifestAsJSON = getGson().toJson(quickAccess.getManifest());
+        String manifestAsJSON = MCRIIIFPresentationManifestCache.instance()
+            .getManifest(impl, identifier, cacheHeaderAsList(cacheControl).contains("no-cache"))
+            .getJSON(getGson());
         return addHeaders(Response.ok()).entity(manifestAsJSON).build();
     }
 
@@ -88,22 +76,7 @@ public class MCRIIIFPresentationResource {
 
     protected MCRIIIFPresentationManifestQuickAccess getManifestQuickAccess(String impl, String identifier,
         boolean noCache) {
-        MCRIIIFPresentationManifestQuickAccess quickAccess = CACHE
-            .getIfUpToDate(impl + identifier, TimeUnit.HOURS.toMillis(1));
-        if (quickAccess == null || noCache) {
-            long startTime = new Date().getTime();
-            MCRIIIFManifest manifest = MCRIIIFPresentationImpl.getInstance(impl).getManifest(identifier);
-            long endTime = new Date().getTime();
-            long timeNeeded = endTime - startTime;
-            LOGGER.info("Manifest {}:{} generation needed: {}ms", impl, identifier, timeNeeded);
-
-            quickAccess = new MCRIIIFPresentationManifestQuickAccess(manifest);
-            CACHE.put(impl + identifier, quickAccess);
-            correctIDs(manifest, impl, identifier);
-        } else {
-            LOGGER.info("Manifest {}:{} served from cache", impl, identifier);
-        }
-        return quickAccess;
+        return MCRIIIFPresentationManifestCache.instance().getManifest(impl, identifier, noCache).getQuickAccess();
     }
 
     protected Response.ResponseBuilder addHeaders(Response.ResponseBuilder builder) {
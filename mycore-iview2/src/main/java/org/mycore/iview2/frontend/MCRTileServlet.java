@@ -19,10 +19,9 @@
 package org.mycore.iview2.frontend;
 
 import java.io.IOException;
-import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
 
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
@@ -36,7 +35,7 @@ import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.iview2.backend.MCRDefaultTileFileProvider;
 import org.mycore.iview2.backend.MCRTileFileProvider;
 import org.mycore.iview2.backend.MCRTileInfo;
-import org.mycore.iview2.services.MCRIView2Tools;
+import org.mycore.iview2.services.MCRTileContainer;
 
 /**
  * Get a specific tile of an image.
@@ -74,32 +73,27 @@ public class MCRTileServlet extends HttpServlet {
             resp.sendError(HttpServletResponse.SC_NOT_FOUND, "File does not exist: " + iviewFile);
             return;
         }
-        try (FileSystem iviewFS = MCRIView2Tools.getFileSystem(iviewFile)) {
-            Path root = iviewFS.getRootDirectories().iterator().next();
-            Path tilePath = root.resolve(tileInfo.getTile());
-            BasicFileAttributes fileAttributes;
-            try {
-                fileAttributes = Files.readAttributes(tilePath, BasicFileAttributes.class);
-            } catch (IOException e) {
-                resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Tile not found: " + tileInfo);
-                return;
-            }
-            resp.setHeader("Cache-Control", "max-age=" + MAX_AGE);
-            resp.setDateHeader("Last-Modified", fileAttributes.lastModifiedTime().toMillis());
-            if (tileInfo.getTile().endsWith("xml")) {
-                resp.setContentType("text/xml");
-            } else {
-                resp.setContentType("image/jpeg");
-            }
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Extracting {} size {}", tilePath, fileAttributes.size());
-            }
-            //size of a tile or imageinfo.xml file is always smaller than Integer.MAX_VALUE
-            resp.setContentLength((int) fileAttributes.size());
-            try (ServletOutputStream out = resp.getOutputStream()) {
-                Files.copy(tilePath, out);
-            }
-
+        MCRTileContainer tileContainer = MCRTileContainer.getInstance(iviewFile);
+        Optional<MCRTileContainer.Entry> tileEntry = tileContainer.getEntry(tileInfo.getTile());
+        if (tileEntry.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Tile not found: " + tileInfo);
+            return;
+        }
+        MCRTileContainer.Entry tile = tileEntry.get();
+        resp.setHeader("Cache-Control", "max-age=" + MAX_AGE);
+        resp.setDateHeader("Last-Modified", tileContainer.getLastModified());
+        if (tileInfo.getTile().endsWith("xml")) {
+            resp.setContentType("text/xml");
+        } else {
+            resp.setContentType("image/jpeg");
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Extracting {} size {}", tile.getName(), tile.getSize());
+        }
+        //size of a tile or imageinfo.xml file is always smaller than Integer.MAX_VALUE
+        resp.setContentLength((int) tile.getSize());
+        try (ServletOutputStream out = resp.getOutputStream()) {
+            tileContainer.transferTo(tile, out);
         }
         LOGGER.debug("Ending MCRTileServlet");
     }
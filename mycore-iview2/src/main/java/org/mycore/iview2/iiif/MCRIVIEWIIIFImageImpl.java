@@ -32,12 +32,12 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
-import javax.imageio.ImageReader;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.mycore.access.MCRAccessException;
 import org.mycore.access.MCRAccessManager;
+import org.mycore.common.MCRCache;
 import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.config.MCRConfigurationException;
 import org.mycore.iiif.image.MCRIIIFImageUtil;
@@ -74,6 +74,11 @@ public class MCRIVIEWIIIFImageImpl extends MCRIIIFImageImpl {
 
     private static final Logger LOGGER = LogManager.getLogger(MCRIVIEWIIIFImageImpl.class);
 
+    /** image properties of .iview2 files, needed for every request */
+    private static final MCRCache<Path, MCRTiledPictureProps> PROPS_CACHE = new MCRCache<>(
+        MCRConfiguration2.getInt(MCRIView2Tools.CONFIG_PREFIX + "IIIF.PropertiesCache.Capacity").orElse(1000),
+        "IView2 image properties");
+
     private final java.util.List<String> transparentFormats;
 
     protected final MCRTileFileProvider tileFileProvider;
@@ -186,15 +191,13 @@ public class MCRIVIEWIIIFImageImpl extends MCRIIIFImageImpl {
             y2 = region.getY2() * zoomLevelScale;
 
         // now we detect the tiles to draw!
-        int x1Tile = (int) Math.floor(x1 / 256),
-            y1Tile = (int) Math.floor(y1 / 256),
-            x2Tile = (int) Math.ceil(x2 / 256),
-            y2Tile = (int) Math.ceil(y2 / 256);
-
-        try (FileSystem zipFileSystem = MCRIView2Tools.getFileSystem(oTileFile.get())) {
-            Path rootPath = zipFileSystem.getPath("/");
+        int x1Tile = (int) Math.floor(x1 / MCRIVIEWTileCompositor.TILE_SIZE),
+            y1Tile = (int) Math.floor(y1 / MCRIVIEWTileCompositor.TILE_SIZE),
+            x2Tile = (int) Math.ceil(x2 / MCRIVIEWTileCompositor.TILE_SIZE),
+            y2Tile = (int) Math.ceil(y2 / MCRIVIEWTileCompositor.TILE_SIZE);
 
-            Graphics2D graphics = targetImage.createGraphics();
+        Graphics2D graphics = targetImage.createGraphics();
+        try {
             if (rotation.isMirrored()) {
                 graphics.scale(-1, 1);
                 graphics.translate(-width, 0);
@@ -214,16 +217,12 @@ public class MCRIVIEWIIIFImageImpl extends MCRIIIFImageImpl {
             LOGGER.info(String.format(Locale.ROOT, "Using zoom-level: %d and scales %s/%s!", sourceZoomLevel,
                 drawScaleX, drawScaleY));
 
-            for (int x = x1Tile; x < x2Tile; x++) {
-                for (int y = y1Tile; y < y2Tile; y++) {
-                    ImageReader imageReader = MCRIView2Tools.getTileImageReader();
-                    BufferedImage tile = MCRIView2Tools.readTile(rootPath, imageReader, sourceZoomLevel, x, y);
-                    graphics.drawImage(tile, x * 256, y * 256, null);
-                }
-            }
-
+            MCRIVIEWTileCompositor.instance()
+                .drawTiles(graphics, oTileFile.get(), sourceZoomLevel, x1Tile, y1Tile, x2Tile, y2Tile);
         } catch (IOException e) {
             throw new MCRIIIFImageProvidingException("Error while reading tiles!", e);
+        } finally {
+            graphics.dispose();
         }
 
         return targetImage;
@@ -287,13 +286,21 @@ public class MCRIVIEWIIIFImageImpl extends MCRIIIFImageImpl {
     }
 
     private MCRTiledPictureProps getTiledPictureProps(Path tiledFile) throws MCRIIIFImageProvidingException {
-        MCRTiledPictureProps tiledPictureProps = null;
-        try (FileSystem fileSystem = MCRIView2Tools.getFileSystem(tiledFile)) {
-            tiledPictureProps = MCRTiledPictureProps.getInstanceFromDirectory(fileSystem.getPath("/"));
+        try {
+            long lastModified = Files.getLastModifiedTime(tiledFile).toMillis();
+            MCRTiledPictureProps tiledPictureProps = PROPS_CACHE.getIfUpToDate(tiledFile, lastModified);
+            if (tiledPictureProps == null) {
+                try (FileSystem fileSystem = MCRIView2Tools.getFileSystem(tiledFile)) {
+                    tiledPictureProps = MCRTiledPictureProps.getInstanceFromDirectory(fileSystem.getPath("/"));
+                }
+                if (tiledPictureProps != null) {
+                    PROPS_CACHE.put(tiledFile, tiledPictureProps, lastModified);
+                }
+            }
+            return tiledPictureProps;
         } catch (IOException e) {
             throw new MCRIIIFImageProvidingException("Could not provide image information!", e);
         }
-        return tiledPictureProps;
     }
 
     protected MCRTileInfo createTileInfo(String identifier) throws MCRIIIFImageNotFoundException {
@@ -318,6 +325,15 @@ public class MCRIVIEWIIIFImageImpl extends MCRIIIFImageImpl {
         if (!Files.exists(tileFilePath)) {
             throw new MCRIIIFImageNotFoundException(identifier);
         }
+        checkAccess(identifier, tileInfo);
+    }
+
+    @Override
+    public void checkAccess(String identifier) throws MCRIIIFImageNotFoundException, MCRAccessException {
+        checkAccess(identifier, createTileInfo(identifier));
+    }
+
+    private void checkAccess(String identifier, MCRTileInfo tileInfo) throws MCRAccessException {
         if (tileInfo.getDerivate() != null
             && !checkPermission(identifier, tileInfo)) {
             throw MCRAccessException.missingPermission(
@@ -0,0 +1,172 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iview2.iiif;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRCache;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.iview2.services.MCRIView2Tools;
+import org.mycore.iview2.services.MCRTileContainer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Draws the tiles of a zoom level of an .iview2 file.
+ *
+ * Tiles are read via {@link MCRTileContainer} without opening a ZIP file system and are decoded in parallel by
+ * <code>MCR.Module-iview2.IIIF.DecoderThreads</code> threads (default: number of CPUs). Every thread reuses its
+ * JPEG {@link ImageReader}. Decoded tiles are kept in a cache of at most
+ * <code>MCR.Module-iview2.IIIF.TileCache.MaxBytes</code> bytes shared by all IIIF image implementations, so that
+ * overlapping requests, e.g. of a viewer, do not decode the same tiles again.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public final class MCRIVIEWTileCompositor {
+
+    public static final int TILE_SIZE = 256;
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = MCRIView2Tools.CONFIG_PREFIX + "IIIF.";
+
+    private static final MCRIVIEWTileCompositor INSTANCE = new MCRIVIEWTileCompositor();
+
+    private static final ThreadLocal<ImageReader> IMAGE_READER = ThreadLocal
+        .withInitial(MCRIView2Tools::getTileImageReader);
+
+    private final MCRCache<String, BufferedImage> tileCache;
+
+    private final ExecutorService decoder;
+
+    private MCRIVIEWTileCompositor() {
+        tileCache = new MCRCache<>(
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "TileCache.MaxBytes").orElse(64L * 1024 * 1024),
+            (key, tile) -> getSize(tile), false, "IView2 decoded tiles");
+        int threads = MCRConfiguration2.getInt(CONFIG_PREFIX + "DecoderThreads")
+            .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        decoder = Executors.newFixedThreadPool(threads,
+            new ThreadFactoryBuilder().setNameFormat("MCRIVIEWTileDecoder-#%d").setDaemon(true).build());
+    }
+
+    public static MCRIVIEWTileCompositor instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Draws the tiles <code>x1Tile</code> to <code>x2Tile</code> (exclusive) and <code>y1Tile</code> to
+     * <code>y2Tile</code> (exclusive) of the zoom level at their position in the zoom level.
+     *
+     * @param graphics the transformed graphics of the target image
+     * @param iviewFile the .iview2 file
+     */
+    public void drawTiles(Graphics2D graphics, Path iviewFile, int zoomLevel, int x1Tile, int y1Tile, int x2Tile,
+        int y2Tile) throws IOException {
+        MCRTileContainer container = MCRTileContainer.getInstance(iviewFile);
+        List<CompletableFuture<BufferedImage>> tiles = new ArrayList<>((x2Tile - x1Tile) * (y2Tile - y1Tile));
+        for (int x = x1Tile; x < x2Tile; x++) {
+            for (int y = y1Tile; y < y2Tile; y++) {
+                tiles.add(getTile(container, zoomLevel, x, y));
+            }
+        }
+        //Graphics2D is not thread-safe, so tiles are drawn on this thread
+        int i = 0;
+        try {
+            for (int x = x1Tile; x < x2Tile; x++) {
+                for (int y = y1Tile; y < y2Tile; y++) {
+                    graphics.drawImage(tiles.get(i++).join(), x * TILE_SIZE, y * TILE_SIZE, null);
+                }
+            }
+        } catch (CompletionException e) {
+            tiles.forEach(tile -> tile.cancel(false));
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<BufferedImage> getTile(MCRTileContainer container, int zoomLevel, int x, int y) {
+        String tileName = String.format(Locale.ROOT, "%d/%d/%d.jpg", zoomLevel, y, x);
+        String key = container.getFile() + "@" + container.getLastModified() + ":" + tileName;
+        BufferedImage tile = tileCache.get(key);
+        if (tile != null) {
+            return CompletableFuture.completedFuture(tile);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                BufferedImage decoded = decode(container, tileName);
+                tileCache.put(key, decoded);
+                return decoded;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, decoder);
+    }
+
+    private static BufferedImage decode(MCRTileContainer container, String tileName) throws IOException {
+        MCRTileContainer.Entry entry = container.getEntry(tileName)
+            .orElseThrow(() -> new NoSuchFileException(container.getFile().toString(), tileName, null));
+        byte[] data;
+        try (InputStream in = container.newInputStream(entry)) {
+            data = in.readAllBytes();
+        }
+        ImageReader imageReader = IMAGE_READER.get();
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            imageReader.setInput(iis, true);
+            BufferedImage tile = imageReader.read(0);
+            LOGGER.debug("Decoded {} of {}", tileName, container.getFile());
+            return tile;
+        } finally {
+            imageReader.reset();
+        }
+    }
+
+    private static int getSize(BufferedImage tile) {
+        DataBuffer dataBuffer = tile.getRaster().getDataBuffer();
+        long bytes = (long) dataBuffer.getSize() * dataBuffer.getNumBanks()
+            * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    public void clearCache() {
+        tileCache.clear();
+    }
+}
@@ -20,6 +20,8 @@ package org.mycore.iview2.services;
 
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -70,6 +72,8 @@ public class MCRImageTiler implements Runnable, Closeable {
 
     private volatile Thread waiter;
 
+    private volatile ForkJoinPool tilingWorkers;
+
     private MCRImageTiler() {
         MCRShutdownHandler.getInstance().addCloseable(this);
         runLock = new ReentrantLock();
@@ -225,6 +229,33 @@ public class MCRImageTiler implements Runnable, Closeable {
         waiter = null;
     }
 
+    private static ForkJoinPool createTilingWorkers() {
+        int workerCount = MCRConfiguration2.getInt(MCRIView2Tools.CONFIG_PREFIX + "TilingWorkers")
+            .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        AtomicInteger tNum = new AtomicInteger();
+        return new ForkJoinPool(workerCount, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("TileWorker#" + tNum.incrementAndGet());
+            return worker;
+        }, null, false);
+    }
+
+    /**
+     * Returns the pool shared by all {@link MCRTilingAction} instances to tile a single large image in parallel.
+     * Use property <code>MCR.Module-iview2.TilingWorkers</code> to specify the number of worker threads, which
+     * defaults to the number of available processors.
+     */
+    public ForkJoinPool getTilingWorkers() {
+        if (tilingWorkers == null) {
+            synchronized (this) {
+                if (tilingWorkers == null) {
+                    tilingWorkers = createTilingWorkers();
+                }
+            }
+        }
+        return tilingWorkers;
+    }
+
     private MCRTilingAction getTilingAction(MCRTileJob job) {
         try {
             return tilingActionConstructor.newInstance(job);
@@ -276,6 +307,9 @@ public class MCRImageTiler implements Runnable, Closeable {
                 LOGGER.debug("Could not wait  60 seconds...", e);
             }
         }
+        if (tilingWorkers != null) {
+            tilingWorkers.shutdownNow();
+        }
         if (waiter != null && waiter.isAlive()) {
             //thread still running
             LOGGER.info("{} is still running.", waiter.getName());
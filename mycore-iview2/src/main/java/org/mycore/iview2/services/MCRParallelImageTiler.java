@@ -0,0 +1,437 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iview2.services;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.imagetiler.MCRImage;
+
+/**
+ * Tiles a single image using all threads of a {@link ForkJoinPool}.
+ *
+ * The highest zoom level is split into mega tiles of <code>2^MCR.Module-iview2.ParallelTiling.MegaTileLevels</code>
+ * tiles in each dimension. Every mega tile is read, tiled and scaled down to a single tile by a separate
+ * {@link ForkJoinTask}, while the tiles of the current zoom level are encoded in parallel to the scaling of the next
+ * one. The remaining zoom levels are built from the combined overview of all mega tiles. So only the source regions
+ * of the mega tiles currently processed have to be kept in memory.
+ *
+ * JPEG images cannot be decoded partially without decoding all preceding rows, so they are decoded once per row of
+ * mega tiles instead of once per mega tile.
+ *
+ * The resulting .iview2 file has the same layout as the one created by {@link MCRImage}.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRParallelImageTiler {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = MCRIView2Tools.CONFIG_PREFIX + "ParallelTiling.";
+
+    private static final int MEGA_TILE_LEVELS = MCRConfiguration2.getInt(CONFIG_PREFIX + "MegaTileLevels").orElse(4);
+
+    private static final float JPEG_QUALITY = MCRConfiguration2.getString(CONFIG_PREFIX + "JPEGQuality")
+        .map(Float::parseFloat)
+        .orElse(0.75f);
+
+    private static final String IMAGEINFO_XML = "imageinfo.xml";
+
+    private final Path imageFile;
+
+    private final String derivate;
+
+    private final String imagePath;
+
+    private final int width;
+
+    private final int height;
+
+    private final int imageType;
+
+    private final boolean readByRows;
+
+    private final int zoomLevel;
+
+    private int tilesCount;
+
+    private ZipOutputStream zout;
+
+    /**
+     * @param imageFile the image file in the default file system
+     * @param derivate derivate ID stored in imageinfo.xml
+     * @param imagePath path of the image in the derivate stored in imageinfo.xml
+     * @throws IOException if the image could not be read
+     */
+    public MCRParallelImageTiler(Path imageFile, String derivate, String imagePath) throws IOException {
+        this.imageFile = imageFile;
+        this.derivate = derivate;
+        this.imagePath = imagePath;
+        ImageReader reader = createImageReader();
+        try {
+            width = reader.getWidth(0);
+            height = reader.getHeight(0);
+            imageType = MCRImage.getImageType(reader);
+            readByRows = "jpeg".equalsIgnoreCase(reader.getFormatName());
+        } finally {
+            disposeImageReader(reader);
+        }
+        int z = 0;
+        for (int size = Math.max(width, height); size > MCRImage.getTileSize(); size = halve(size)) {
+            z++;
+        }
+        zoomLevel = z;
+    }
+
+    /**
+     * Tiles the image and writes the result to <code>iviewFile</code>. The file is replaced atomically, so readers
+     * never see a partially written .iview2 file.
+     *
+     * @param iviewFile the .iview2 file to create
+     * @param pool the pool to run the tiling tasks
+     */
+    public void tile(Path iviewFile, ForkJoinPool pool) throws IOException {
+        long start = System.currentTimeMillis();
+        Files.createDirectories(iviewFile.getParent());
+        Path tempFile = Files.createTempFile(iviewFile.getParent(), iviewFile.getFileName().toString(), ".tmp");
+        try {
+            tilesCount = 0;
+            try (OutputStream out = Files.newOutputStream(tempFile);
+                ZipOutputStream zipOut = new ZipOutputStream(out)) {
+                this.zout = zipOut;
+                pool.invoke(new ImageTask());
+                writeImageInfo();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                this.zout = null;
+            }
+            Files.move(tempFile, iviewFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        LOGGER.info("Tiled {}:{} ({}x{}, {} tiles) in {} ms.", derivate, imagePath, width, height, tilesCount,
+            System.currentTimeMillis() - start);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getZoomLevel() {
+        return zoomLevel;
+    }
+
+    /**
+     * @return number of tiles written by {@link #tile(Path, ForkJoinPool)}
+     */
+    public int getTilesCount() {
+        return tilesCount;
+    }
+
+    private static int halve(int size) {
+        return (size + 1) / 2;
+    }
+
+    private ImageReader createImageReader() throws IOException {
+        ImageInputStream iis = ImageIO.createImageInputStream(imageFile.toFile());
+        if (iis == null) {
+            throw new IOException("Could not acquire ImageInputStream from file: " + imageFile);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+        if (!readers.hasNext()) {
+            iis.close();
+            throw new IOException("No ImageReader available for file: " + imageFile);
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(iis, true, true);
+        return reader;
+    }
+
+    private static void disposeImageReader(ImageReader reader) throws IOException {
+        try {
+            Object input = reader.getInput();
+            if (input instanceof ImageInputStream) {
+                ((ImageInputStream) input).close();
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private BufferedImage readRegion(Rectangle region) throws IOException {
+        ImageReader reader = createImageReader();
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(region);
+            BufferedImage source = reader.read(0, param);
+            if (source.getType() == imageType) {
+                return source;
+            }
+            BufferedImage converted = new BufferedImage(source.getWidth(), source.getHeight(), imageType);
+            Graphics2D graphics = converted.createGraphics();
+            try {
+                graphics.drawImage(source, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+            return converted;
+        } finally {
+            disposeImageReader(reader);
+        }
+    }
+
+    private BufferedImage scaleDown(BufferedImage image) {
+        BufferedImage scaled = new BufferedImage(halve(image.getWidth()), halve(image.getHeight()), imageType);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, scaled.getWidth(), scaled.getHeight(), null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Writes all tiles of <code>image</code>, whose upper left tile is <code>x</code>, <code>y</code>.
+     */
+    private void writeTiles(BufferedImage image, int z, int x, int y) throws IOException {
+        int tileSize = MCRImage.getTileSize();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            for (int ty = 0; ty * tileSize < image.getHeight(); ty++) {
+                for (int tx = 0; tx * tileSize < image.getWidth(); tx++) {
+                    BufferedImage tile = image.getSubimage(tx * tileSize, ty * tileSize,
+                        Math.min(tileSize, image.getWidth() - tx * tileSize),
+                        Math.min(tileSize, image.getHeight() - ty * tileSize));
+                    bout.reset();
+                    try (ImageOutputStream ios = ImageIO.createImageOutputStream(bout)) {
+                        writer.setOutput(ios);
+                        writer.write(null, new IIOImage(tile, null, null), param);
+                    }
+                    writeEntry(String.format(Locale.ROOT, "%d/%d/%d.jpg", z, y + ty, x + tx), bout.toByteArray());
+                }
+            }
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Writes all zoom levels from <code>image</code> at zoom level <code>z</code> down to <code>minZ</code>.
+     * Tiles of a zoom level are encoded by a forked task while the next zoom level is scaled.
+     *
+     * @return the image of zoom level <code>minZ</code>
+     */
+    private BufferedImage writeZoomLevels(BufferedImage image, int z, int x, int y, int minZ) throws IOException {
+        BufferedImage current = image;
+        for (int level = z, factor = 1;; level--, factor *= 2) {
+            BufferedImage levelImage = current;
+            int levelZ = level;
+            int levelX = x / factor;
+            int levelY = y / factor;
+            ForkJoinTask<?> encoder = ForkJoinTask.adapt(() -> {
+                try {
+                    writeTiles(levelImage, levelZ, levelX, levelY);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).fork();
+            if (level > minZ) {
+                current = scaleDown(current);
+            }
+            encoder.join();
+            if (level == minZ) {
+                return current;
+            }
+        }
+    }
+
+    private synchronized void writeEntry(String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        //JPEG tiles do not compress, store them for direct transfer by MCRTileContainer
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        entry.setCrc(crc.getValue());
+        zout.putNextEntry(entry);
+        zout.write(data);
+        zout.closeEntry();
+        if (name.endsWith(".jpg")) {
+            tilesCount++;
+        }
+    }
+
+    private void writeImageInfo() throws IOException {
+        Element imageInfo = new Element("imageinfo");
+        imageInfo.setAttribute("derivate", derivate);
+        imageInfo.setAttribute("path", imagePath);
+        imageInfo.setAttribute("tiles", String.valueOf(tilesCount));
+        imageInfo.setAttribute("width", String.valueOf(width));
+        imageInfo.setAttribute("height", String.valueOf(height));
+        imageInfo.setAttribute("zoomLevel", String.valueOf(zoomLevel));
+        String xml = new XMLOutputter(Format.getCompactFormat()).outputString(new Document(imageInfo));
+        writeEntry(IMAGEINFO_XML, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Splits the image into mega tiles and builds the lower zoom levels from their overview.
+     */
+    private class ImageTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            int megaTileLevels = Math.max(0, Math.min(MEGA_TILE_LEVELS, zoomLevel));
+            int megaTileSize = MCRImage.getTileSize() << megaTileLevels;
+            int overviewLevel = zoomLevel - megaTileLevels;
+            int overviewWidth = width;
+            int overviewHeight = height;
+            for (int i = 0; i < megaTileLevels; i++) {
+                overviewWidth = halve(overviewWidth);
+                overviewHeight = halve(overviewHeight);
+            }
+            BufferedImage overview = new BufferedImage(overviewWidth, overviewHeight, imageType);
+            List<MegaTileTask> megaTiles = new ArrayList<>();
+            try {
+                for (int y = 0; y < height; y += megaTileSize) {
+                    int rowHeight = Math.min(megaTileSize, height - y);
+                    BufferedImage row = readByRows ? readRegion(new Rectangle(0, y, width, rowHeight)) : null;
+                    for (int x = 0; x < width; x += megaTileSize) {
+                        Rectangle region = new Rectangle(x, y, Math.min(megaTileSize, width - x), rowHeight);
+                        BufferedImage source = row == null ? null
+                            : row.getSubimage(x, 0, region.width, region.height);
+                        megaTiles.add(new MegaTileTask(region, source, megaTileLevels, overview));
+                    }
+                    if (row != null) {
+                        //keep only one decoded row in memory
+                        LOGGER.debug("Tiling row {} of {}:{}.", y / megaTileSize, derivate, imagePath);
+                        invokeAll(megaTiles);
+                        megaTiles.clear();
+                    }
+                }
+                LOGGER.debug("Tiling {}:{} with {} mega tiles.", derivate, imagePath, megaTiles.size());
+                invokeAll(megaTiles);
+                if (overviewLevel > 0) {
+                    writeZoomLevels(scaleDown(overview), overviewLevel - 1, 0, 0, 0);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Tiles one region of the highest zoom level and all zoom levels below, until the region fits into one tile.
+     */
+    private class MegaTileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Rectangle region;
+
+        private final BufferedImage source;
+
+        private final int levels;
+
+        private final BufferedImage overview;
+
+        /**
+         * @param source the decoded region or <code>null</code>, if the task should decode it
+         */
+        MegaTileTask(Rectangle region, BufferedImage source, int levels, BufferedImage overview) {
+            this.region = region;
+            this.source = source;
+            this.levels = levels;
+            this.overview = overview;
+        }
+
+        @Override
+        protected void compute() {
+            int tileSize = MCRImage.getTileSize();
+            int x = region.x / tileSize;
+            int y = region.y / tileSize;
+            try {
+                BufferedImage image = source == null ? readRegion(region) : source;
+                BufferedImage lowest = writeZoomLevels(image, zoomLevel, x, y, zoomLevel - levels);
+                int overviewX = x >> levels;
+                int overviewY = y >> levels;
+                synchronized (overview) {
+                    Graphics2D graphics = overview.createGraphics();
+                    try {
+                        graphics.drawImage(lowest, overviewX * tileSize, overviewY * tileSize, null);
+                    } finally {
+                        graphics.dispose();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
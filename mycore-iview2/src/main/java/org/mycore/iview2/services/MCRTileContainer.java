@@ -0,0 +1,373 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iview2.services;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRCache;
+import org.mycore.common.config.MCRConfiguration2;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Random access to the tiles of an .iview2 file.
+ *
+ * The central directory of the ZIP container is read once and the position of every tile is kept in memory. Tiles
+ * are read directly from a {@link FileChannel} at this position, so no ZIP {@link java.nio.file.FileSystem} has to
+ * be opened per request. Instances are cached (see {@link #getInstance(Path)}) and reread if the .iview2 file was
+ * modified.
+ *
+ * ZIP64 containers, which are written for .iview2 files larger than 4 GB or with more than 65535 tiles, are
+ * supported.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRTileContainer {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+    private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE = 56;
+
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE = 20;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    /**
+     * capacity is the total number of tiles of all cached containers
+     */
+    private static final MCRCache<Path, MCRTileContainer> CONTAINER_CACHE = new MCRCache<>(
+        MCRConfiguration2.getLong(MCRIView2Tools.CONFIG_PREFIX + "TileContainer.CacheCapacity").orElse(250_000L),
+        (path, container) -> container.entries.size(), false, "IView2 tile containers");
+
+    private final Path file;
+
+    private final long fileSize;
+
+    private final long lastModified;
+
+    private final Map<String, Entry> entries;
+
+    private MCRTileContainer(Path file, long fileSize, long lastModified, Map<String, Entry> entries) {
+        this.file = file;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the tile container for the given .iview2 file.
+     *
+     * @param iviewFile the .iview2 file
+     * @throws IOException if the file could not be read or is not a supported ZIP file
+     */
+    public static MCRTileContainer getInstance(Path iviewFile) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(iviewFile, BasicFileAttributes.class);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        MCRTileContainer container = CONTAINER_CACHE.getIfUpToDate(iviewFile, lastModified);
+        if (container == null || container.lastModified != lastModified || container.fileSize != attrs.size()) {
+            container = open(iviewFile, attrs.size(), lastModified);
+            CONTAINER_CACHE.put(iviewFile, container, lastModified);
+        }
+        return container;
+    }
+
+    private static MCRTileContainer open(Path iviewFile, long fileSize, long lastModified) throws IOException {
+        LOGGER.debug("Reading central directory of {}", iviewFile);
+        try (FileChannel channel = FileChannel.open(iviewFile, StandardOpenOption.READ)) {
+            //end of central directory is followed by a comment of at most 0xFFFF bytes
+            int tailSize = (int) Math.min(fileSize, END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF);
+            ByteBuffer tail = read(channel, fileSize - tailSize, tailSize);
+            int eocd = -1;
+            for (int i = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE; i >= 0; i--) {
+                if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd < 0) {
+                throw new ZipException("Could not find end of central directory in " + iviewFile);
+            }
+            long entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+            long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+            long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+            int locator = eocd - ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIZE;
+            if (locator >= 0 && tail.getInt(locator) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE) {
+                ByteBuffer zip64Eocd = read(channel, tail.getLong(locator + 8), ZIP64_END_OF_CENTRAL_DIRECTORY_SIZE);
+                if (zip64Eocd.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+                    throw new ZipException("Invalid ZIP64 end of central directory in " + iviewFile);
+                }
+                entryCount = zip64Eocd.getLong(32);
+                directorySize = zip64Eocd.getLong(40);
+                directoryOffset = zip64Eocd.getLong(48);
+            }
+            if (directorySize > Integer.MAX_VALUE || entryCount > Integer.MAX_VALUE) {
+                throw new ZipException("Central directory of " + iviewFile + " is too large: " + directorySize
+                    + " bytes, " + entryCount + " entries");
+            }
+            ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+            Map<String, Entry> entries = new HashMap<>((int) (entryCount / 0.75f) + 1);
+            int pos = 0;
+            for (int i = 0; i < entryCount; i++) {
+                if (directory.getInt(pos) != CENTRAL_DIRECTORY_SIGNATURE) {
+                    throw new ZipException("Invalid central directory header in " + iviewFile + " at " + pos);
+                }
+                int method = Short.toUnsignedInt(directory.getShort(pos + 10));
+                long compressedSize = Integer.toUnsignedLong(directory.getInt(pos + 20));
+                long size = Integer.toUnsignedLong(directory.getInt(pos + 24));
+                int nameLength = Short.toUnsignedInt(directory.getShort(pos + 28));
+                int extraLength = Short.toUnsignedInt(directory.getShort(pos + 30));
+                int commentLength = Short.toUnsignedInt(directory.getShort(pos + 32));
+                long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(pos + 42));
+                byte[] name = new byte[nameLength];
+                directory.position(pos + CENTRAL_DIRECTORY_HEADER_SIZE);
+                directory.get(name);
+                String entryName = new String(name, StandardCharsets.UTF_8);
+                if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                    //the extra field holds those values in this order that do not fit in 32 bit
+                    int extra = findZip64Extra(directory, pos + CENTRAL_DIRECTORY_HEADER_SIZE + nameLength,
+                        extraLength);
+                    if (extra < 0) {
+                        throw new ZipException("Missing ZIP64 extra field of " + entryName + " in " + iviewFile);
+                    }
+                    if (size == ZIP64_MAGIC) {
+                        size = directory.getLong(extra);
+                        extra += Long.BYTES;
+                    }
+                    if (compressedSize == ZIP64_MAGIC) {
+                        compressedSize = directory.getLong(extra);
+                        extra += Long.BYTES;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC) {
+                        localHeaderOffset = directory.getLong(extra);
+                    }
+                }
+                if (!entryName.endsWith("/")) {
+                    entries.put(entryName, new Entry(entryName, method, compressedSize, size, localHeaderOffset));
+                }
+                pos += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+            }
+            return new MCRTileContainer(iviewFile, fileSize, lastModified, Collections.unmodifiableMap(entries));
+        }
+    }
+
+    /**
+     * @return the position of the data of the ZIP64 extended information extra field, or -1
+     */
+    private static int findZip64Extra(ByteBuffer directory, int start, int length) {
+        int pos = start;
+        while (pos + 4 <= start + length) {
+            int id = Short.toUnsignedInt(directory.getShort(pos));
+            int size = Short.toUnsignedInt(directory.getShort(pos + 2));
+            if (id == ZIP64_EXTRA_FIELD_ID) {
+                return pos + 4;
+            }
+            pos += 4 + size;
+        }
+        return -1;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return last modified time of the .iview2 file in milliseconds
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the entry for the given tile name.
+     *
+     * @param name e.g. <code>imageinfo.xml</code> or <code>{z}/{y}/{x}.jpg</code>
+     */
+    public Optional<Entry> getEntry(String name) {
+        String entryName = name.startsWith("/") ? name.substring(1) : name;
+        return Optional.ofNullable(entries.get(entryName));
+    }
+
+    /**
+     * Writes the uncompressed content of the entry to the given output stream.
+     *
+     * If the entry is stored uncompressed, which is the default for JPEG tiles, the content is transfered directly
+     * from the {@link FileChannel}.
+     *
+     * @return number of bytes written
+     */
+    public long transferTo(Entry entry, OutputStream out) throws IOException {
+        if (entry.method != ZipEntry.STORED) {
+            try (InputStream in = newInputStream(entry)) {
+                return in.transferTo(out);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = getDataOffset(channel, entry);
+            long remaining = entry.size;
+            WritableByteChannel target = Channels.newChannel(out);
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Unexpected end of " + entry.name + " in " + file);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+            return entry.size;
+        }
+    }
+
+    /**
+     * Returns an input stream of the uncompressed content of the entry.
+     */
+    public InputStream newInputStream(Entry entry) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            channel.position(getDataOffset(channel, entry));
+            InputStream in = ByteStreams.limit(Channels.newInputStream(channel), entry.compressedSize);
+            switch (entry.method) {
+                case ZipEntry.STORED:
+                    return in;
+                case ZipEntry.DEFLATED:
+                    Inflater inflater = new Inflater(true);
+                    return new InflaterInputStream(in, inflater) {
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                inflater.end();
+                            }
+                        }
+                    };
+                default:
+                    throw new ZipException("Unsupported compression method " + entry.method + " of " + entry.name
+                        + " in " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long getDataOffset(FileChannel channel, Entry entry) throws IOException {
+        long dataOffset = entry.dataOffset;
+        if (dataOffset < 0) {
+            ByteBuffer header = read(channel, entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid local header of " + entry.name + " in " + file);
+            }
+            int nameLength = Short.toUnsignedInt(header.getShort(26));
+            int extraLength = Short.toUnsignedInt(header.getShort(28));
+            dataOffset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            entry.dataOffset = dataOffset;
+        }
+        return dataOffset;
+    }
+
+    /**
+     * Position and size of a single tile in the .iview2 file.
+     */
+    public static final class Entry {
+
+        private final String name;
+
+        private final int method;
+
+        private final long compressedSize;
+
+        private final long size;
+
+        private final long localHeaderOffset;
+
+        private volatile long dataOffset = -1;
+
+        Entry(String name, int method, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return uncompressed size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+    }
+}
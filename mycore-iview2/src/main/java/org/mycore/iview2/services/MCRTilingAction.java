@@ -32,6 +32,7 @@ import org.mycore.backend.jpa.MCREntityManagerProvider;
 import org.mycore.common.MCRSession;
 import org.mycore.common.MCRSessionMgr;
 import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.datamodel.niofs.MCRPath;
 import org.mycore.imagetiler.MCRImage;
 import org.mycore.imagetiler.MCRTileEventHandler;
@@ -43,12 +44,20 @@ import org.mycore.imagetiler.MCRTiledPictureProps;
  * This class can be extended. Any extending class should provide and implementation for {@link #getMCRImage()}.
  * To get the extending class invoked, one need to define a MyCoRe property, which defaults to:
  * <code>MCR.Module-iview2.MCRTilingActionImpl=org.mycore.iview2.services.MCRTilingAction</code>
+ *
+ * Images with at least <code>MCR.Module-iview2.ParallelTiling.MinPixels</code> pixels are tiled by
+ * {@link MCRParallelImageTiler} using the {@link MCRImageTiler#getTilingWorkers() shared tiling workers}, which
+ * read the image of the derivate directly. Extending classes that provide their own {@link #getMCRImage()} always
+ * use it, unless they override {@link #getParallelImageTiler()} as well.
  * @author Thomas Scheffler (yagee)
  *
  */
 public class MCRTilingAction implements Runnable {
     private static Logger LOGGER = LogManager.getLogger(MCRTilingAction.class);
 
+    private static final long PARALLEL_TILING_MIN_PIXELS = MCRConfiguration2
+        .getLong(MCRIView2Tools.CONFIG_PREFIX + "ParallelTiling.MinPixels").orElse(50_000_000L);
+
     protected MCRTileJob tileJob = null;
 
     public MCRTilingAction(MCRTileJob image) {
@@ -62,11 +71,15 @@ public class MCRTilingAction implements Runnable {
      */
     public void run() {
         tileJob.setStart(new Date());
-        MCRImage image;
+        MCRImage image = null;
+        MCRParallelImageTiler parallelTiler;
         Path tileDir = MCRIView2Tools.getTileDir();
         try {
-            image = getMCRImage();
-            image.setTileDir(tileDir);
+            parallelTiler = getParallelImageTiler();
+            if (parallelTiler == null) {
+                image = getMCRImage();
+                image.setTileDir(tileDir);
+            }
         } catch (IOException e) {
             LOGGER.error("Error while retrieving image for job: {}", tileJob, e);
             return;
@@ -96,13 +109,22 @@ public class MCRTilingAction implements Runnable {
 
             };
             try {
-                MCRTiledPictureProps picProps = image.tile(tileEventHandler);
+                if (parallelTiler == null) {
+                    MCRTiledPictureProps picProps = image.tile(tileEventHandler);
+                    tileJob.setHeight(picProps.getHeight());
+                    tileJob.setWidth(picProps.getWidth());
+                    tileJob.setTiles(picProps.getTilesCount());
+                    tileJob.setZoomLevel(picProps.getZoomlevel());
+                } else {
+                    parallelTiler.tile(MCRImage.getTiledFile(tileDir, tileJob.getDerivate(), tileJob.getPath()),
+                        MCRImageTiler.getInstance().getTilingWorkers());
+                    tileJob.setHeight(parallelTiler.getHeight());
+                    tileJob.setWidth(parallelTiler.getWidth());
+                    tileJob.setTiles(parallelTiler.getTilesCount());
+                    tileJob.setZoomLevel(parallelTiler.getZoomLevel());
+                }
                 tileJob.setFinished(new Date());
                 tileJob.setStatus(MCRJobState.FINISHED);
-                tileJob.setHeight(picProps.getHeight());
-                tileJob.setWidth(picProps.getWidth());
-                tileJob.setTiles(picProps.getTilesCount());
-                tileJob.setZoomLevel(picProps.getZoomlevel());
             } catch (IOException e) {
                 LOGGER.error("IOException occured while tiling a queued picture", e);
                 throw e;
@@ -138,6 +160,45 @@ public class MCRTilingAction implements Runnable {
         return MCRImage.getInstance(file, file.getOwner(), file.getOwnerRelativePath());
     }
 
+    /**
+     * Reads the image header without a database transaction.
+     *
+     * @return a parallel tiler, if the image referenced by {@link #tileJob} is large enough and can be read by
+     * {@link javax.imageio.ImageIO}, else <code>null</code>. Always <code>null</code>, if an extending class
+     * overrides {@link #getMCRImage()}.
+     * @throws IOException if the physical path of the image could not be resolved
+     */
+    protected MCRParallelImageTiler getParallelImageTiler() throws IOException {
+        if (PARALLEL_TILING_MIN_PIXELS <= 0 || overridesGetMCRImage()) {
+            return null;
+        }
+        MCRPath file = MCRPath.getPath(tileJob.getDerivate(), tileJob.getPath());
+        Path physicalPath = file.toPhysicalPath();
+        MCRParallelImageTiler parallelTiler;
+        try {
+            parallelTiler = new MCRParallelImageTiler(physicalPath, file.getOwner(), file.getOwnerRelativePath());
+        } catch (IOException e) {
+            LOGGER.info("Cannot tile {} in parallel, using default tiler: {}", file, e.getMessage());
+            return null;
+        }
+        if ((long) parallelTiler.getWidth() * parallelTiler.getHeight() < PARALLEL_TILING_MIN_PIXELS) {
+            return null;
+        }
+        return parallelTiler;
+    }
+
+    private boolean overridesGetMCRImage() {
+        for (Class<?> cls = getClass(); cls != MCRTilingAction.class; cls = cls.getSuperclass()) {
+            try {
+                cls.getDeclaredMethod("getMCRImage");
+                return true;
+            } catch (NoSuchMethodException e) {
+                //check superclass
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         if (tileJob == null) {
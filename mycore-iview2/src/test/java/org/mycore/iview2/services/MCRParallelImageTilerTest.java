@@ -0,0 +1,102 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iview2.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+public class MCRParallelImageTilerTest extends MCRTestCase {
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        //split 600x300 image into two mega tiles of 512x512 pixel
+        testProperties.put("MCR.Module-iview2.ParallelTiling.MegaTileLevels", "1");
+        return testProperties;
+    }
+
+    @Test
+    public final void tile() throws IOException {
+        tile("png");
+    }
+
+    @Test
+    public final void tileJPEG() throws IOException {
+        //decoded once per row of mega tiles
+        tile("jpg");
+    }
+
+    private void tile(String format) throws IOException {
+        BufferedImage image = new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 300, 300);
+        graphics.dispose();
+        Path imageFile = junitFolder.newFile("test." + format).toPath();
+        ImageIO.write(image, format, imageFile.toFile());
+
+        MCRParallelImageTiler tiler = new MCRParallelImageTiler(imageFile, "junit_derivate_00000001",
+            "/test." + format);
+        assertEquals(2, tiler.getZoomLevel());
+        Path iviewFile = junitFolder.getRoot().toPath().resolve("tiles").resolve("test.iview2");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            tiler.tile(iviewFile, pool);
+        } finally {
+            pool.shutdown();
+        }
+        //3x2 + 2x1 + 1x1
+        assertEquals(9, tiler.getTilesCount());
+
+        MCRTileContainer container = MCRTileContainer.getInstance(iviewFile);
+        assertEquals(44, readTile(container, "2/1/2.jpg").getHeight());
+        assertEquals(88, readTile(container, "2/1/2.jpg").getWidth());
+        assertEquals(44, readTile(container, "1/0/1.jpg").getWidth());
+        BufferedImage thumbnail = readTile(container, "0/0/0.jpg");
+        assertEquals(150, thumbnail.getWidth());
+        assertEquals(75, thumbnail.getHeight());
+        try (InputStream in = container.newInputStream(container.getEntry("imageinfo.xml").get())) {
+            String imageInfo = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(imageInfo, imageInfo.contains("tiles=\"9\""));
+            assertTrue(imageInfo, imageInfo.contains("zoomLevel=\"2\""));
+        }
+    }
+
+    private static BufferedImage readTile(MCRTileContainer container, String name) throws IOException {
+        try (InputStream in = container.newInputStream(container.getEntry(name).get())) {
+            return ImageIO.read(in);
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.iview2.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+
+public class MCRTileContainerTest extends MCRTestCase {
+
+    private static final byte[] TILE = "not really a jpeg".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] IMAGE_INFO = "<imageinfo width=\"256\" height=\"256\" />"
+        .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public final void testReadTiles() throws IOException {
+        Path iviewFile = junitFolder.newFile("test.iview2").toPath();
+        try (ZipOutputStream zout = new ZipOutputStream(Files.newOutputStream(iviewFile))) {
+            zout.putNextEntry(new ZipEntry("imageinfo.xml"));
+            zout.write(IMAGE_INFO);
+            zout.closeEntry();
+            zout.putNextEntry(new ZipEntry("0/"));
+            zout.closeEntry();
+            ZipEntry tileEntry = new ZipEntry("0/0/0.jpg");
+            tileEntry.setMethod(ZipEntry.STORED);
+            tileEntry.setSize(TILE.length);
+            CRC32 crc = new CRC32();
+            crc.update(TILE);
+            tileEntry.setCrc(crc.getValue());
+            zout.putNextEntry(tileEntry);
+            zout.write(TILE);
+            zout.closeEntry();
+        }
+
+        MCRTileContainer container = MCRTileContainer.getInstance(iviewFile);
+        assertSame("Tile container should be cached", container, MCRTileContainer.getInstance(iviewFile));
+        assertFalse(container.getEntry("0/").isPresent());
+        assertFalse(container.getEntry("0/0/1.jpg").isPresent());
+
+        MCRTileContainer.Entry tile = container.getEntry("/0/0/0.jpg").get();
+        assertEquals(TILE.length, tile.getSize());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(TILE.length, container.transferTo(tile, out));
+        assertArrayEquals(TILE, out.toByteArray());
+
+        MCRTileContainer.Entry imageInfo = container.getEntry("imageinfo.xml").get();
+        try (InputStream in = container.newInputStream(imageInfo)) {
+            assertArrayEquals(IMAGE_INFO, in.readAllBytes());
+        }
+        out.reset();
+        container.transferTo(imageInfo, out);
+        assertArrayEquals(IMAGE_INFO, out.toByteArray());
+    }
+
+    @Test
+    public final void testReadZip64() throws IOException {
+        Path iviewFile = junitFolder.newFile("zip64.iview2").toPath();
+        //ZipOutputStream writes ZIP64 records for more than 65535 entries
+        int tileCount = 0x10000;
+        try (ZipOutputStream zout = new ZipOutputStream(Files.newOutputStream(iviewFile))) {
+            zout.putNextEntry(new ZipEntry("imageinfo.xml"));
+            zout.write(IMAGE_INFO);
+            zout.closeEntry();
+            for (int x = 0; x < tileCount; x++) {
+                zout.putNextEntry(new ZipEntry("8/0/" + x + ".jpg"));
+                zout.write(TILE);
+                zout.closeEntry();
+            }
+        }
+
+        MCRTileContainer container = MCRTileContainer.getInstance(iviewFile);
+        MCRTileContainer.Entry lastTile = container.getEntry("8/0/" + (tileCount - 1) + ".jpg").get();
+        try (InputStream in = container.newInputStream(lastTile)) {
+            assertArrayEquals(TILE, in.readAllBytes());
+        }
+        MCRTileContainer.Entry imageInfo = container.getEntry("imageinfo.xml").get();
+        try (InputStream in = container.newInputStream(imageInfo)) {
+            assertArrayEquals(IMAGE_INFO, in.readAllBytes());
+        }
+    }
+
+}
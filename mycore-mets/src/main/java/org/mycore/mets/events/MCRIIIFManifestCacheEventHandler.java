@@ -0,0 +1,101 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.mets.events;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.mycore.common.events.MCREvent;
+import org.mycore.common.events.MCREventHandlerBase;
+import org.mycore.datamodel.metadata.MCRDerivate;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.niofs.MCRPath;
+import org.mycore.iiif.presentation.MCRIIIFPresentationManifestCache;
+
+/**
+ * Removes the IIIF manifests of a derivate from {@link MCRIIIFPresentationManifestCache} if the derivate, one of
+ * its files or the metadata of its object was changed.
+ *
+ * Should be registered as <code>PostCommitClass</code>, so that the manifest is not generated again before the
+ * changes are committed.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRIIIFManifestCacheEventHandler extends MCREventHandlerBase {
+
+    @Override
+    protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
+        invalidateDerivates(obj);
+    }
+
+    @Override
+    protected void handleObjectDeleted(MCREvent evt, MCRObject obj) {
+        invalidateDerivates(obj);
+    }
+
+    @Override
+    protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
+        invalidateDerivates(obj);
+    }
+
+    @Override
+    protected void handleDerivateUpdated(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handleDerivateDeleted(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handleDerivateRepaired(MCREvent evt, MCRDerivate der) {
+        invalidate(der);
+    }
+
+    @Override
+    protected void handlePathCreated(MCREvent evt, Path path, BasicFileAttributes attrs) {
+        invalidate(path);
+    }
+
+    @Override
+    protected void handlePathUpdated(MCREvent evt, Path path, BasicFileAttributes attrs) {
+        invalidate(path);
+    }
+
+    @Override
+    protected void handlePathDeleted(MCREvent evt, Path path, BasicFileAttributes attrs) {
+        invalidate(path);
+    }
+
+    private static void invalidateDerivates(MCRObject obj) {
+        obj.getStructure().getDerivates()
+            .forEach(derivate -> MCRIIIFPresentationManifestCache.instance().invalidate(derivate.getXLinkHref()));
+    }
+
+    private static void invalidate(MCRDerivate der) {
+        MCRIIIFPresentationManifestCache.instance().invalidate(der.getId().toString());
+    }
+
+    private static void invalidate(Path path) {
+        if (path instanceof MCRPath) {
+            MCRIIIFPresentationManifestCache.instance().invalidate(MCRPath.toMCRPath(path).getOwner());
+        }
+    }
+}
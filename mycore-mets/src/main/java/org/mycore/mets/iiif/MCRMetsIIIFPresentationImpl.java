@@ -20,6 +20,10 @@ package org.mycore.mets.iiif;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -57,6 +61,9 @@ public class MCRMetsIIIFPresentationImpl extends MCRIIIFPresentationImpl {
     public static final boolean STORE_METS_ON_GENERATE = MCRConfiguration2
         .getOrThrow("MCR.Mets.storeMetsOnGenerate", Boolean::parseBoolean);
 
+    /** derivate ID -> METS document that is currently generated */
+    private static final ConcurrentMap<String, CompletableFuture<Document>> GENERATING = new ConcurrentHashMap<>();
+
     public MCRMetsIIIFPresentationImpl(String implName) {
         super(implName);
     }
@@ -110,11 +117,35 @@ public class MCRMetsIIIFPresentationImpl extends MCRIIIFPresentationImpl {
         return content.asXML();
     }
 
-    private synchronized MCRJDOMContent generateMets(String id) {
-        final Document document = MCRMETSGeneratorFactory.create(MCRPath.getPath(id, "/")).generate().asDocument();
-        if (STORE_METS_ON_GENERATE) {
-            MCRMetsSave.saveMets(document, MCRObjectID.getInstance(id));
+    /**
+     * Generates the METS document of the derivate. If it is already generated by another thread, waits for that
+     * result instead of generating it again. Derivates are generated in parallel.
+     */
+    private MCRJDOMContent generateMets(String id) {
+        CompletableFuture<Document> generation = new CompletableFuture<>();
+        CompletableFuture<Document> running = GENERATING.putIfAbsent(id, generation);
+        if (running != null) {
+            LOGGER.debug("Waiting for METS generation of {}", id);
+            try {
+                return new MCRJDOMContent(running.join().clone());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            final Document document = MCRMETSGeneratorFactory.create(MCRPath.getPath(id, "/")).generate()
+                .asDocument();
+            if (STORE_METS_ON_GENERATE) {
+                MCRMetsSave.saveMets(document, MCRObjectID.getInstance(id));
+            }
+            //waiting threads get their own copy
+            generation.complete(document.clone());
+            return new MCRJDOMContent(document);
+        } catch (RuntimeException | Error e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            GENERATING.remove(id, generation);
         }
-        return new MCRJDOMContent(document);
     }
 }
@@ -70,6 +70,7 @@ import org.mycore.datamodel.metadata.MCRMetaDerivateLink;
 import org.mycore.datamodel.metadata.MCRMetaEnrichedLinkID;
 import org.mycore.datamodel.metadata.MCRMetaLangText;
 import org.mycore.datamodel.metadata.MCRMetaLinkID;
+import org.mycore.datamodel.metadata.MCRMetadataCache;
 import org.mycore.datamodel.metadata.MCRMetadataManager;
 import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.datamodel.metadata.MCRObjectID;
@@ -211,6 +212,7 @@ public class MCRMigrationCommands {
         if (changedObject) {
             // we use MCRXMLMetadataMananger because we don't want to validate the old mcr object
             MCRXMLMetadataManager.instance().update(objectID, xml, new Date());
+            MCRMetadataCache.instance().invalidate(objectID);
             // manually fire update event
             MCRObject newObject = MCRMetadataManager.retrieveMCRObject(objectID);
             newObject.setImportMode(true);
@@ -86,6 +86,24 @@ public class MCROAICombinedSearcher extends MCROAISearcher {
         return getMixedResult(solrResult);
     }
 
+    @Override
+    public MCROAIResult query(MCRSet set, Instant from, Instant until, String cursor, int offset) {
+        if (!this.deletedSearcher.isPresent()) {
+            return this.solrSearcher.query(set, from, until, cursor, offset);
+        }
+        if (isDeletedCursor(cursor)) {
+            return this.deletedSearcher.get().query(set, from, until, cursor, offset);
+        }
+        MCROAIResult solrResult = this.solrSearcher.query(set, from, until, cursor, offset);
+        int deletedHits = 0;
+        // the first result returns the number of all hits, the last solr result is mixed with deleted records
+        if (cursor == null || !solrResult.nextCursor().isPresent()) {
+            deletedHits = this.deletedSearcher.get().query(set, from, until).getNumHits();
+        }
+        this.numHits = solrResult.getNumHits() + deletedHits;
+        return getMixedResult(solrResult);
+    }
+
     @Override
     public Optional<Instant> getEarliestTimestamp() {
         Optional<Instant> solrTimestamp = this.solrSearcher.getEarliestTimestamp();
@@ -135,8 +135,10 @@ public class MCROAIObjectManager {
     }
 
     protected Element getJDOMRecord(String mcrId, MetadataFormat format) {
-        String uri = formatURI(this.recordUriPattern, mcrId, format.getPrefix());
-        return getURI(uri);
+        return MCROAIRecordCache.instance().getRecord(identify.getConfigPrefix(), format.getPrefix(), mcrId, () -> {
+            String uri = formatURI(this.recordUriPattern, mcrId, format.getPrefix());
+            return getURI(uri);
+        });
     }
 
     protected Element getURI(String uri) {
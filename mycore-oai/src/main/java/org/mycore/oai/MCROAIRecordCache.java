@@ -0,0 +1,228 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.oai;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Element;
+import org.mycore.access.MCRAccessManager;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.content.MCRJDOMContent;
+import org.mycore.common.content.MCRPathContent;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * Stores the transformed OAI records of MyCoRe objects on disk, so that harvesters requesting the same records
+ * again and again do not run the record transformation every time.
+ *
+ * Records are stored per OAI data provider instance, metadata format and object in
+ * <code>MCR.OAIDataProvider.RecordCache.Directory</code>. A stored record is used as long as it is newer than the
+ * last modification of the object, the last {@link MCRAccessManager#getLastGlobalPermissionChange() global change of
+ * permissions} and not older than <code>MCR.OAIDataProvider.RecordCache.MaxAge</code> milliseconds.
+ * {@link MCROAIRecordCacheEventHandler} removes the records of changed objects.
+ *
+ * Records depend on the permissions of the user they are created for, so the cache is only used for the guest user
+ * like harvesters. Records of other users are always created.
+ *
+ * The cache is disabled by default and is enabled by <code>MCR.OAIDataProvider.RecordCache.Enabled=true</code>.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public final class MCROAIRecordCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = MCROAIAdapter.PREFIX + "RecordCache.";
+
+    private static final String SUFFIX = ".xml";
+
+    private static final MCROAIRecordCache INSTANCE = new MCROAIRecordCache();
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final long maxAge;
+
+    private final LastModifiedProvider lastModifiedProvider;
+
+    private MCROAIRecordCache() {
+        this(MCRConfiguration2.getBoolean(CONFIG_PREFIX + "Enabled").orElse(false),
+            MCRConfiguration2.getString(CONFIG_PREFIX + "Directory").map(Paths::get).orElse(null),
+            MCRConfiguration2.getLong(CONFIG_PREFIX + "MaxAge").orElse(TimeUnit.DAYS.toMillis(1)),
+            mcrID -> MCRXMLMetadataManager.instance().getLastModified(mcrID));
+        if (enabled && directory == null) {
+            LOGGER.warn("{}Directory is not set, OAI records are not cached.", CONFIG_PREFIX);
+        }
+    }
+
+    MCROAIRecordCache(boolean enabled, Path directory, long maxAge, LastModifiedProvider lastModifiedProvider) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.lastModifiedProvider = lastModifiedProvider;
+    }
+
+    public static MCROAIRecordCache instance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled && directory != null;
+    }
+
+    /**
+     * Returns the cached record or creates it by <code>recordSupplier</code> and stores a copy in the cache.
+     *
+     * @param configPrefix the configuration prefix of the OAI data provider instance
+     * @param metadataPrefix the metadata format of the record
+     * @param mcrId the object of the record
+     * @param recordSupplier creates the record if it is not cached
+     */
+    public Element getRecord(String configPrefix, String metadataPrefix, String mcrId,
+        Supplier<Element> recordSupplier) {
+        if (!isEnabled() || !MCRObjectID.isValid(mcrId) || !isGuest()) {
+            return recordSupplier.get();
+        }
+        MCRObjectID mcrID = MCRObjectID.getInstance(mcrId);
+        Path file = getFile(configPrefix, metadataPrefix, mcrID);
+        long lastModified;
+        try {
+            lastModified = lastModifiedProvider.getLastModified(mcrID);
+        } catch (IOException e) {
+            LOGGER.warn("Could not get last modified date of {}, record is not cached.", mcrID, e);
+            return recordSupplier.get();
+        }
+        if (lastModified < 0) {
+            //deleted object
+            return recordSupplier.get();
+        }
+        Element cached = read(file, lastModified);
+        if (cached != null) {
+            return cached;
+        }
+        Element record = recordSupplier.get();
+        write(file, record);
+        if (isModifiedSince(mcrID, lastModified)) {
+            //object was changed while the record was created, the record may not contain the changes
+            remove(file);
+        }
+        return record;
+    }
+
+    /**
+     * Removes the records of the given object of all data provider instances and formats.
+     */
+    public void remove(MCRObjectID mcrID) {
+        if (!isEnabled() || !Files.isDirectory(directory)) {
+            return;
+        }
+        String fileName = mcrID + SUFFIX;
+        try (DirectoryStream<Path> instances = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path instance : instances) {
+                try (DirectoryStream<Path> formats = Files.newDirectoryStream(instance, Files::isDirectory)) {
+                    formats.forEach(format -> remove(format.resolve(fileName)));
+                }
+            }
+            LOGGER.debug("Removed cached OAI records of {}", mcrID);
+        } catch (IOException e) {
+            LOGGER.error("Could not remove cached OAI records of {}", mcrID, e);
+        }
+    }
+
+    private static boolean isGuest() {
+        return MCRSystemUserInformation.getGuestInstance().getUserID()
+            .equals(MCRSessionMgr.getCurrentSession().getUserInformation().getUserID());
+    }
+
+    private boolean isModifiedSince(MCRObjectID mcrID, long lastModified) {
+        try {
+            return lastModifiedProvider.getLastModified(mcrID) != lastModified;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    private static void remove(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.error("Could not remove cached OAI record {}", file, e);
+        }
+    }
+
+    private Path getFile(String configPrefix, String metadataPrefix, MCRObjectID mcrID) {
+        String instance = configPrefix.substring(MCROAIAdapter.PREFIX.length()).replace(".", "");
+        return directory.resolve(instance).resolve(metadataPrefix).resolve(mcrID + SUFFIX);
+    }
+
+    private Element read(Path file, long lastModified) {
+        try {
+            long fileModified = Files.getLastModifiedTime(file).toMillis();
+            if (fileModified < lastModified || fileModified < System.currentTimeMillis() - maxAge
+                || fileModified < MCRAccessManager.getLastGlobalPermissionChange()) {
+                return null;
+            }
+            Element record = new MCRPathContent(file).asXML().getRootElement().detach();
+            LOGGER.debug("Read cached OAI record {}", file);
+            return record;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            LOGGER.warn("Could not read cached OAI record {}", file, e);
+            return null;
+        }
+    }
+
+    private void write(Path file, Element record) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                new MCRJDOMContent(record.clone()).sendTo(tempFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not cache OAI record {}", file, e);
+        }
+    }
+
+    /**
+     * Returns the last modified date of an object, see {@link MCRXMLMetadataManager#getLastModified(MCRObjectID)}.
+     */
+    @FunctionalInterface
+    interface LastModifiedProvider {
+        long getLastModified(MCRObjectID mcrID) throws IOException;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.oai;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.MCRUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.events.MCREvent;
+import org.mycore.common.events.MCREventHandlerBase;
+import org.mycore.datamodel.metadata.MCRDerivate;
+import org.mycore.datamodel.metadata.MCRMetadataManager;
+import org.mycore.datamodel.metadata.MCRObject;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.frontend.MCRFrontendUtil;
+import org.mycore.oai.pmh.MetadataFormat;
+
+/**
+ * Removes the records of changed objects from {@link MCROAIRecordCache}.
+ *
+ * The records of created and updated objects and of objects whose derivates changed are created again for all
+ * metadata formats of the OAI data provider instances listed in <code>MCR.OAIDataProvider.RecordCache.Warm</code>,
+ * so that harvesters get them from the cache. Like harvesters, these records are created as guest user in the
+ * thread handling the event.
+ *
+ * Should be registered as <code>PostCommitClass</code>, so that records are created in the background after the
+ * changes are committed.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCROAIRecordCacheEventHandler extends MCREventHandlerBase {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final Map<String, MCROAIAdapter> ADAPTERS = new ConcurrentHashMap<>();
+
+    private final List<String> warmInstances = MCRConfiguration2
+        .getString(MCROAIAdapter.PREFIX + "RecordCache.Warm")
+        .map(MCRConfiguration2::splitValue)
+        .orElseGet(Stream::empty)
+        .collect(Collectors.toList());
+
+    @Override
+    protected void handleObjectCreated(MCREvent evt, MCRObject obj) {
+        warm(obj.getId());
+    }
+
+    @Override
+    protected void handleObjectUpdated(MCREvent evt, MCRObject obj) {
+        MCROAIRecordCache.instance().remove(obj.getId());
+        warm(obj.getId());
+    }
+
+    @Override
+    protected void handleObjectDeleted(MCREvent evt, MCRObject obj) {
+        MCROAIRecordCache.instance().remove(obj.getId());
+    }
+
+    @Override
+    protected void handleObjectRepaired(MCREvent evt, MCRObject obj) {
+        MCROAIRecordCache.instance().remove(obj.getId());
+    }
+
+    @Override
+    protected void handleDerivateCreated(MCREvent evt, MCRDerivate der) {
+        MCROAIRecordCache.instance().remove(der.getOwnerID());
+        warm(der.getOwnerID());
+    }
+
+    @Override
+    protected void handleDerivateUpdated(MCREvent evt, MCRDerivate der) {
+        MCROAIRecordCache.instance().remove(der.getOwnerID());
+        warm(der.getOwnerID());
+    }
+
+    @Override
+    protected void handleDerivateDeleted(MCREvent evt, MCRDerivate der) {
+        MCROAIRecordCache.instance().remove(der.getOwnerID());
+        warm(der.getOwnerID());
+    }
+
+    private void warm(MCRObjectID mcrID) {
+        if (!MCROAIRecordCache.instance().isEnabled() || warmInstances.isEmpty()) {
+            return;
+        }
+        //records are only cached for the guest user, switching from guest to any user is allowed afterwards
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        MCRUserInformation userInformation = session.getUserInformation();
+        session.setUserInformation(MCRSystemUserInformation.getGuestInstance());
+        try {
+            warmAsGuest(mcrID);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not create OAI records of {}", mcrID, e);
+        } finally {
+            session.setUserInformation(userInformation);
+        }
+    }
+
+    private void warmAsGuest(MCRObjectID mcrID) {
+        if (!MCRMetadataManager.exists(mcrID)) {
+            //derivates are deleted before their owner
+            return;
+        }
+        for (String instance : warmInstances) {
+            MCROAIAdapter adapter = ADAPTERS.computeIfAbsent(instance, MCROAIRecordCacheEventHandler::getAdapter);
+            for (MetadataFormat format : adapter.getMetadataFormats()) {
+                try {
+                    adapter.getObjectManager().getJDOMRecord(mcrID.toString(), format);
+                } catch (RuntimeException e) {
+                    //not every object can be disseminated in every format
+                    LOGGER.debug("Could not create {} record of {} for {}", format.getPrefix(), mcrID, instance, e);
+                }
+            }
+        }
+    }
+
+    private static MCROAIAdapter getAdapter(String instance) {
+        MCROAIAdapter adapter = MCRConfiguration2
+            .<MCROAIAdapter>getInstanceOf(MCROAIAdapter.PREFIX + instance + ".Adapter")
+            .orElseGet(MCROAIAdapter::new);
+        adapter.init(MCRFrontendUtil.getBaseURL() + instance, instance);
+        return adapter;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.oai;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mycore.oai.pmh.BadResumptionTokenException;
+
+/**
+ * Resumption token that contains the complete state of a query: metadata prefix, set, date bounds and the cursor
+ * of the searcher. Any {@link MCROAISearchManager}, even after a restart or on another node, can continue a query
+ * from it.
+ *
+ * The token is the URL safe base64 encoding of the fields.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+final class MCROAIResumptionToken {
+
+    private static final String VERSION = "1";
+
+    private static final String DELIMITER = "@";
+
+    private static final int FIELD_COUNT = 9;
+
+    private final String metadataPrefix;
+
+    private final String setSpec;
+
+    private final Instant from;
+
+    private final Instant until;
+
+    private final String cursor;
+
+    /** number of records returned before the cursor */
+    private final int offset;
+
+    private final int completeListSize;
+
+    private final Instant expirationDate;
+
+    MCROAIResumptionToken(String metadataPrefix, String setSpec, Instant from, Instant until, String cursor,
+        int offset, int completeListSize, Instant expirationDate) {
+        this.metadataPrefix = metadataPrefix;
+        this.setSpec = setSpec;
+        this.from = from;
+        this.until = until;
+        this.cursor = Objects.requireNonNull(cursor);
+        this.offset = offset;
+        this.completeListSize = completeListSize;
+        this.expirationDate = Objects.requireNonNull(expirationDate);
+    }
+
+    /**
+     * Decodes the token created by {@link #encode()}.
+     *
+     * @throws BadResumptionTokenException if the token is invalid or expired
+     */
+    static MCROAIResumptionToken decode(String token) throws BadResumptionTokenException {
+        String[] fields;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            fields = Stream.of(decoded.split(DELIMITER, -1))
+                .map(field -> URLDecoder.decode(field, StandardCharsets.UTF_8))
+                .toArray(String[]::new);
+        } catch (IllegalArgumentException e) {
+            throw new BadResumptionTokenException(token);
+        }
+        if (fields.length != FIELD_COUNT || !VERSION.equals(fields[0]) || fields[5].isEmpty()) {
+            throw new BadResumptionTokenException(token);
+        }
+        MCROAIResumptionToken resumptionToken;
+        try {
+            resumptionToken = new MCROAIResumptionToken(emptyToNull(fields[1]), emptyToNull(fields[2]),
+                toInstant(fields[3]), toInstant(fields[4]), fields[5], Integer.parseInt(fields[6]),
+                Integer.parseInt(fields[7]), Instant.ofEpochMilli(Long.parseLong(fields[8])));
+        } catch (RuntimeException e) {
+            throw new BadResumptionTokenException(token);
+        }
+        if (resumptionToken.getExpirationDate().isBefore(Instant.now())) {
+            throw new BadResumptionTokenException(token);
+        }
+        return resumptionToken;
+    }
+
+    String encode() {
+        String fields = Stream.of(VERSION, metadataPrefix, setSpec, toString(from), toString(until), cursor,
+            Integer.toString(offset), Integer.toString(completeListSize),
+            Long.toString(expirationDate.toEpochMilli()))
+            .map(field -> field == null ? "" : URLEncoder.encode(field, StandardCharsets.UTF_8))
+            .collect(Collectors.joining(DELIMITER));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fields.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String emptyToNull(String field) {
+        return field.isEmpty() ? null : field;
+    }
+
+    private static Instant toInstant(String field) {
+        return field.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(field));
+    }
+
+    private static String toString(Instant instant) {
+        return instant == null ? null : Long.toString(instant.toEpochMilli());
+    }
+
+    String getMetadataPrefix() {
+        return metadataPrefix;
+    }
+
+    String getSetSpec() {
+        return setSpec;
+    }
+
+    Instant getFrom() {
+        return from;
+    }
+
+    Instant getUntil() {
+        return until;
+    }
+
+    String getCursor() {
+        return cursor;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getCompleteListSize() {
+        return completeListSize;
+    }
+
+    Instant getExpirationDate() {
+        return expirationDate;
+    }
+}
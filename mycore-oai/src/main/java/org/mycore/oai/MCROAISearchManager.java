@@ -20,15 +20,10 @@ package org.mycore.oai;
 
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -53,9 +48,11 @@ import org.mycore.util.concurrent.MCRTransactionableRunnable;
  * {@link MCROAISearcher} instance for each
  * {@link #searchHeader(MetadataFormat, MCRSet, Instant, Instant)}
  * and {@link #searchRecord(MetadataFormat, MCRSet, Instant, Instant)} call.
- * The resumption token created by those methods can be reused for
- * later calls to the same searcher. A searcher is dropped after an
- * expiration time. The time increases for each query call.
+ *
+ * <p>The resumption tokens created by those methods contain the complete query: metadata prefix, set, date bounds
+ * and the cursor of the searcher (e.g. the solr <code>cursorMark</code>), see {@link MCROAIResumptionToken}.
+ * No searcher is kept in memory, so a harvest can be continued after a restart or on another node. A resumption
+ * token expires after <code>MCR.OAIDataProvider.ResumptionTokens.MaxAge</code> minutes.</p>
  *
  * <p>Due to token based querying it is not possible to set a current
  * position for the resumption token. Its always set to -1.</p>
@@ -66,12 +63,8 @@ public class MCROAISearchManager {
 
     protected static final Logger LOGGER = LogManager.getLogger(MCROAISearchManager.class);
 
-    protected static final String TOKEN_DELIMITER = "@";
-
     protected static int MAX_AGE;
 
-    protected Map<String, MCROAISearcher> resultMap;
-
     protected MCROAIIdentify identify;
 
     protected MCROAIObjectManager objManager;
@@ -90,21 +83,6 @@ public class MCROAISearchManager {
     }
 
     public MCROAISearchManager() {
-        this.resultMap = new ConcurrentHashMap<>();
-        TimerTask tt = new TimerTask() {
-            @Override
-            public void run() {
-                for (Map.Entry<String, MCROAISearcher> entry : resultMap.entrySet()) {
-                    String searchId = entry.getKey();
-                    MCROAISearcher searcher = entry.getValue();
-                    if ((searcher != null) && searcher.isExpired()) {
-                        LOGGER.info("Removing expired resumption token {}", searchId);
-                        resultMap.remove(searchId);
-                    }
-                }
-            }
-        };
-        new Timer().schedule(tt, new Date(System.currentTimeMillis() + MAX_AGE), MAX_AGE);
         runListRecordsParallel = MCRConfiguration2
             .getOrThrow(MCROAIAdapter.PREFIX + "RunListRecordsParallel", Boolean::parseBoolean);
         if (runListRecordsParallel) {
@@ -127,72 +105,91 @@ public class MCROAISearchManager {
     }
 
     public OAIDataList<Header> searchHeader(String resumptionToken) throws BadResumptionTokenException {
-        String searchId = getSearchId(resumptionToken);
-        String tokenCursor = getTokenCursor(resumptionToken);
-        MCROAISearcher searcher = this.resultMap.get(searchId);
-        if (searcher == null || tokenCursor == null || tokenCursor.length() <= 0) {
-            throw new BadResumptionTokenException(resumptionToken);
-        }
-        MCROAIResult result = searcher.query(tokenCursor);
-        return getHeaderList(searcher, result);
+        MCROAIResumptionToken token = MCROAIResumptionToken.decode(resumptionToken);
+        Query query = toQuery(resumptionToken, token);
+        MCROAISearcher searcher = getSearcher(this.identify, query.format, getPartitionSize(), setManager,
+            objManager);
+        MCROAIResult result = searcher.query(query.set, query.from, query.until, token.getCursor(),
+            token.getOffset());
+        return getHeaderList(query, token.getOffset(), token.getCompleteListSize(), result);
     }
 
     public OAIDataList<Record> searchRecord(String resumptionToken) throws BadResumptionTokenException {
-        String searchId = getSearchId(resumptionToken);
-        String tokenCursor = getTokenCursor(resumptionToken);
-        MCROAISearcher searcher = this.resultMap.get(searchId);
-        if (searcher == null || tokenCursor == null || tokenCursor.length() <= 0) {
-            throw new BadResumptionTokenException(resumptionToken);
-        }
-        MCROAIResult result = searcher.query(tokenCursor);
-        return getRecordList(searcher, result);
+        MCROAIResumptionToken token = MCROAIResumptionToken.decode(resumptionToken);
+        Query query = toQuery(resumptionToken, token);
+        MCROAISearcher searcher = getSearcher(this.identify, query.format, getPartitionSize(), setManager,
+            objManager);
+        MCROAIResult result = searcher.query(query.set, query.from, query.until, token.getCursor(),
+            token.getOffset());
+        return getRecordList(query, token.getOffset(), token.getCompleteListSize(), result);
     }
 
     public OAIDataList<Header> searchHeader(MetadataFormat format, MCRSet set, Instant from, Instant until) {
         MCROAISearcher searcher = getSearcher(this.identify, format, getPartitionSize(), setManager, objManager);
-        this.resultMap.put(searcher.getID(), searcher);
-        MCROAIResult result = searcher.query(set, from, until);
-        return getHeaderList(searcher, result);
+        MCROAIResult result = searcher.query(set, from, until, null, 0);
+        return getHeaderList(new Query(format, set, from, until), 0, result.getNumHits(), result);
     }
 
     public OAIDataList<Record> searchRecord(MetadataFormat format, MCRSet set, Instant from, Instant until) {
         MCROAISearcher searcher = getSearcher(this.identify, format, getPartitionSize(), setManager, objManager);
-        this.resultMap.put(searcher.getID(), searcher);
-        MCROAIResult result = searcher.query(set, from, until);
-        return getRecordList(searcher, result);
+        MCROAIResult result = searcher.query(set, from, until, null, 0);
+        return getRecordList(new Query(format, set, from, until), 0, result.getNumHits(), result);
+    }
+
+    private Query toQuery(String resumptionToken, MCROAIResumptionToken token)
+        throws BadResumptionTokenException {
+        MetadataFormat format = null;
+        if (token.getMetadataPrefix() != null) {
+            // same configuration as in MCROAIAdapter
+            String formatPrefix = MCROAIAdapter.PREFIX + "MetadataFormat." + token.getMetadataPrefix() + ".";
+            Optional<String> namespaceURI = MCRConfiguration2.getString(formatPrefix + "Namespace");
+            Optional<String> schema = MCRConfiguration2.getString(formatPrefix + "Schema");
+            if (namespaceURI.isEmpty() || schema.isEmpty()) {
+                throw new BadResumptionTokenException(resumptionToken);
+            }
+            format = new MetadataFormat(token.getMetadataPrefix(), namespaceURI.get(), schema.get());
+        }
+        MCRSet set = null;
+        if (token.getSetSpec() != null) {
+            set = MCROAISetManager.get(token.getSetSpec(), setManager.get());
+            if (set == null) {
+                throw new BadResumptionTokenException(resumptionToken);
+            }
+        }
+        return new Query(format, set, token.getFrom(), token.getUntil());
     }
 
-    protected OAIDataList<Record> getRecordList(MCROAISearcher searcher, MCROAIResult result) {
-        OAIDataList<Record> recordList = runListRecordsParallel ? getRecordListParallel(searcher, result)
-            : getRecordListSequential(searcher, result);
+    protected OAIDataList<Record> getRecordList(Query query, int offset, int completeListSize,
+        MCROAIResult result) {
+        List<Header> headerList = result.list();
+        OAIDataList<Record> recordList = runListRecordsParallel ? getRecordListParallel(query.format, headerList)
+            : getRecordListSequential(query.format, headerList);
         if (recordList.contains(null)) {
             if (MCRConfiguration2.getBoolean("MCR.OAIDataProvider.FailOnErrorRecords").orElse(false)) {
                 throw new MCRException(
                     "An internal error occur. Some of the following records are invalid and cannot be processed."
-                        + " Please inform the system administrator. " + result.list());
+                        + " Please inform the system administrator. " + headerList);
             }
             recordList.removeIf(Objects::isNull);
         }
-        this.setResumptionToken(recordList, searcher, result);
+        this.setResumptionToken(recordList, query, offset + headerList.size(), completeListSize, result);
         return recordList;
     }
 
-    private OAIDataList<Record> getRecordListSequential(MCROAISearcher searcher, MCROAIResult result) {
+    private OAIDataList<Record> getRecordListSequential(MetadataFormat metadataFormat, List<Header> headerList) {
         OAIDataList<Record> recordList = new OAIDataList<>();
-        result.list().forEach(header -> {
-            Record record = this.objManager.getRecord(header, searcher.getMetadataFormat());
+        headerList.forEach(header -> {
+            Record record = this.objManager.getRecord(header, metadataFormat);
             recordList.add(record);
         });
         return recordList;
     }
 
-    private OAIDataList<Record> getRecordListParallel(MCROAISearcher searcher, MCROAIResult result) {
-        List<Header> headerList = result.list();
+    private OAIDataList<Record> getRecordListParallel(MetadataFormat metadataFormat, List<Header> headerList) {
         int listSize = headerList.size();
         Record[] records = new Record[listSize];
         @SuppressWarnings("rawtypes")
         CompletableFuture[] futures = new CompletableFuture[listSize];
-        MetadataFormat metadataFormat = searcher.getMetadataFormat();
         MCRSession mcrSession = MCRSessionMgr.getCurrentSession();
         for (int i = 0; i < listSize; i++) {
             Header header = headerList.get(i);
@@ -208,36 +205,29 @@ public class MCROAISearchManager {
         return recordList;
     }
 
-    protected OAIDataList<Header> getHeaderList(MCROAISearcher searcher, MCROAIResult result) {
+    protected OAIDataList<Header> getHeaderList(Query query, int offset, int completeListSize,
+        MCROAIResult result) {
         OAIDataList<Header> headerList = new OAIDataList<>();
         headerList.addAll(result.list());
-        this.setResumptionToken(headerList, searcher, result);
+        this.setResumptionToken(headerList, query, offset + headerList.size(), completeListSize, result);
         return headerList;
     }
 
-    public String getSearchId(String token) throws BadResumptionTokenException {
-        try {
-            return token.split(TOKEN_DELIMITER)[0];
-        } catch (Exception exc) {
-            throw new BadResumptionTokenException(token);
-        }
-    }
-
-    public String getTokenCursor(String token) throws BadResumptionTokenException {
-        try {
-            String[] tokenParts = token.split(TOKEN_DELIMITER);
-            return tokenParts[tokenParts.length - 1];
-        } catch (Exception exc) {
-            throw new BadResumptionTokenException(token);
-        }
-    }
-
-    protected void setResumptionToken(OAIDataList<?> dataList, MCROAISearcher searcher, MCROAIResult result) {
+    /**
+     * @param nextOffset number of records returned including the current result
+     */
+    protected void setResumptionToken(OAIDataList<?> dataList, Query query, int nextOffset, int completeListSize,
+        MCROAIResult result) {
+        Instant expirationDate = Instant.now().plusMillis(MAX_AGE);
         result.nextCursor().map(cursor -> {
+            MCROAIResumptionToken token = new MCROAIResumptionToken(
+                query.format == null ? null : query.format.getPrefix(),
+                query.set == null ? null : query.set.getSpec(), query.from, query.until, cursor, nextOffset,
+                completeListSize, expirationDate);
             DefaultResumptionToken rsToken = new DefaultResumptionToken();
-            rsToken.setToken(searcher.getID() + TOKEN_DELIMITER + cursor);
-            rsToken.setCompleteListSize(result.getNumHits());
-            rsToken.setExpirationDate(searcher.getExpirationTime());
+            rsToken.setToken(token.encode());
+            rsToken.setCompleteListSize(completeListSize);
+            rsToken.setExpirationDate(expirationDate);
             return rsToken;
         }).ifPresent(dataList::setResumptionToken);
     }
@@ -255,4 +245,25 @@ public class MCROAISearchManager {
         return searcher;
     }
 
+    /**
+     * Parameters of a query, that are passed to every resumption token.
+     */
+    protected static class Query {
+
+        protected final MetadataFormat format;
+
+        protected final MCRSet set;
+
+        protected final Instant from;
+
+        protected final Instant until;
+
+        protected Query(MetadataFormat format, MCRSet set, Instant from, Instant until) {
+            this.format = format;
+            this.set = set;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
 }
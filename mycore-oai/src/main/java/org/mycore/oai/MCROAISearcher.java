@@ -84,6 +84,24 @@ public abstract class MCROAISearcher {
 
     public abstract MCROAIResult query(MCRSet set, Instant from, Instant until);
 
+    /**
+     * Queries a part of the result of {@link #query(MCRSet, Instant, Instant)} without relying on previous queries
+     * of this instance. Used for resumption tokens, that may be resolved by any searcher instance.
+     *
+     * <p>This implementation runs {@link #query(MCRSet, Instant, Instant)} before {@link #query(String)}.
+     * Subclasses should override it if they are able to resume the query directly.</p>
+     *
+     * @param set the set or null
+     * @param from the lower date bound or null
+     * @param until the upper date bound or null
+     * @param cursor the cursor returned by a previous query or null to start at the beginning
+     * @param offset number of records that were returned before the cursor
+     */
+    public MCROAIResult query(MCRSet set, Instant from, Instant until, String cursor, int offset) {
+        MCROAIResult result = query(set, from, until);
+        return cursor == null ? result : query(cursor);
+    }
+
     /**
      * Returns the earliest created/modified record time stamp. If the earliest time stamp cannot be retrieved an
      * empty optional is returned.
@@ -120,6 +120,27 @@ public class MCROAISolrSearcher extends MCROAISearcher {
         }
     }
 
+    /**
+     * Resumes the query at the given cursor mark. The end of the result list is detected by the number of hits and
+     * the offset, so no look ahead query is required.
+     */
+    @Override
+    public MCROAIResult query(MCRSet set, Instant from, Instant until, String cursor, int offset) {
+        this.set = set;
+        this.from = from;
+        this.until = until;
+        try {
+            MCROAISolrResult result = solrQuery(Optional.ofNullable(cursor));
+            long returned = (long) offset + result.getResponse().getResults().size();
+            if (returned >= result.getNumHits() || result.nextCursor().equals(Optional.ofNullable(cursor))) {
+                return MCROAISimpleResult.from(result).setNextCursor(null);
+            }
+            return result;
+        } catch (SolrServerException | IOException e) {
+            throw new MCRException("Error while handling query.", e);
+        }
+    }
+
     private MCROAIResult handleResult(MCROAISolrResult result) throws SolrServerException, IOException {
         this.nextResult = solrQuery(result.nextCursor());
         this.lastCursor = result.nextCursor();
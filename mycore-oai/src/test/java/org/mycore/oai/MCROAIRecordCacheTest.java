@@ -0,0 +1,115 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.oai;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.jdom2.Element;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.MCRTestCase;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCROAIRecordCacheTest extends MCRTestCase {
+
+    private static final String CONFIG_PREFIX = MCROAIAdapter.PREFIX + "OAIDataProvider.";
+
+    private static final String OBJECT_ID = "junit_test_00000001";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final AtomicLong lastModified = new AtomicLong();
+
+    private final AtomicInteger created = new AtomicInteger();
+
+    private final Supplier<Element> recordSupplier = () -> new Element("record")
+        .setText(Integer.toString(created.incrementAndGet()));
+
+    private MCROAIRecordCache cache;
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.Metadata.Type.test", Boolean.TRUE.toString());
+        return testProperties;
+    }
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        lastModified.set(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+        cache = new MCROAIRecordCache(true, cacheDir.getRoot().toPath(), TimeUnit.DAYS.toMillis(1),
+            mcrID -> lastModified.get());
+    }
+
+    @Test
+    public void hit() {
+        assertEquals("1", getRecord().getText());
+        assertEquals("cached record should be returned", "1", getRecord().getText());
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void modified() {
+        getRecord();
+        lastModified.set(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1));
+        assertEquals("record of modified object should be created again", "2", getRecord().getText());
+    }
+
+    @Test
+    public void remove() {
+        getRecord();
+        cache.remove(MCRObjectID.getInstance(OBJECT_ID));
+        assertEquals("removed record should be created again", "2", getRecord().getText());
+    }
+
+    @Test
+    public void nonGuest() throws IOException {
+        MCRSessionMgr.getCurrentSession().setUserInformation(MCRSystemUserInformation.getSuperUserInstance());
+        getRecord();
+        assertEquals("records of other users should not be cached", "2", getRecord().getText());
+        try (Stream<Path> files = Files.walk(cacheDir.getRoot().toPath())) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private Element getRecord() {
+        return cache.getRecord(CONFIG_PREFIX, "oai_dc", OBJECT_ID, recordSupplier);
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.oai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+import org.junit.Test;
+import org.mycore.oai.pmh.BadResumptionTokenException;
+
+public class MCROAIResumptionTokenTest {
+
+    private static final Instant EXPIRATION_DATE = Instant.now().plus(1, ChronoUnit.HOURS)
+        .truncatedTo(ChronoUnit.MILLIS);
+
+    @Test
+    public void roundTrip() throws BadResumptionTokenException {
+        Instant from = Instant.parse("2021-01-01T00:00:00Z");
+        Instant until = Instant.parse("2021-06-30T23:59:59.999Z");
+        MCROAIResumptionToken token = new MCROAIResumptionToken("oai_dc", "open_access:article@2021", from, until,
+            "AoE/cursor+with=chars", 100, 1234, EXPIRATION_DATE);
+        MCROAIResumptionToken decoded = MCROAIResumptionToken.decode(token.encode());
+        assertEquals("oai_dc", decoded.getMetadataPrefix());
+        assertEquals("open_access:article@2021", decoded.getSetSpec());
+        assertEquals(from, decoded.getFrom());
+        assertEquals(until, decoded.getUntil());
+        assertEquals("AoE/cursor+with=chars", decoded.getCursor());
+        assertEquals(100, decoded.getOffset());
+        assertEquals(1234, decoded.getCompleteListSize());
+        assertEquals(EXPIRATION_DATE, decoded.getExpirationDate());
+    }
+
+    @Test
+    public void roundTripWithoutOptionalFields() throws BadResumptionTokenException {
+        MCROAIResumptionToken token = new MCROAIResumptionToken("oai_dc", null, null, null, "*", 0, 1,
+            EXPIRATION_DATE);
+        MCROAIResumptionToken decoded = MCROAIResumptionToken.decode(token.encode());
+        assertNull(decoded.getSetSpec());
+        assertNull(decoded.getFrom());
+        assertNull(decoded.getUntil());
+        assertEquals("*", decoded.getCursor());
+    }
+
+    @Test
+    public void expired() {
+        MCROAIResumptionToken token = new MCROAIResumptionToken("oai_dc", null, null, null, "*", 0, 1,
+            Instant.now().minusSeconds(1));
+        assertBadToken(token.encode());
+    }
+
+    @Test
+    public void tampered() {
+        String fields = new MCROAIResumptionToken("oai_dc", null, null, null, "*", 0, 1, EXPIRATION_DATE)
+            .encode();
+        String decoded = new String(Base64.getUrlDecoder().decode(fields), StandardCharsets.UTF_8);
+        assertBadToken("not a token!");
+        assertBadToken(fields.substring(0, fields.length() / 2));
+        assertBadToken(encode(decoded.replaceFirst("^1@", "2@")));
+        assertBadToken(encode(decoded + "@additional"));
+        assertBadToken(encode(decoded.replace("@*@", "@@")));
+        assertBadToken(encode(decoded.replace("@0@", "@zero@")));
+    }
+
+    private static String encode(String fields) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(fields.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertBadToken(String token) {
+        try {
+            MCROAIResumptionToken.decode(token);
+            fail("Token should be rejected: " + token);
+        } catch (BadResumptionTokenException e) {
+            //expected
+        }
+    }
+
+}
@@ -0,0 +1,292 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.pi;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.pi.MCRPIJobService.PiJobAction;
+import org.mycore.pi.backend.MCRPI;
+import org.mycore.util.concurrent.MCRFixedUserCallable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Registers all identifiers of a {@link MCRPIJobService} whose registration has started, but which are not
+ * registered yet, instead of creating a {@link org.mycore.services.queuedjob.MCRJob} for every identifier.
+ *
+ * Up to <code>BatchRegistration.Threads</code> identifiers are registered in parallel, so that the metadata of the
+ * next identifiers is created while the remote registry handles the requests of the previous ones. A failed
+ * registration is retried <code>BatchRegistration.MaxRetries</code> times, the delay between the retries starts
+ * with <code>BatchRegistration.RetryDelay</code> milliseconds and is doubled on every retry. At most
+ * <code>BatchRegistration.Size</code> identifiers are registered in one run. All properties are properties of the
+ * service, e.g. <code>MCR.PI.Service.Datacite.BatchRegistration.Threads</code>.
+ *
+ * Identifiers that still have a register job, e.g. because it was queued before batch registration was enabled,
+ * are left to that job, so they are not registered twice.
+ *
+ * The identifiers are read in the current session, so a transaction has to be active.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see MCRPIJobService#BATCH_REGISTRATION_PROPERTY
+ */
+public class MCRPIBatchRegistration {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String PROPERTY_PREFIX = MCRPIJobService.BATCH_REGISTRATION_PROPERTY + ".";
+
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(5);
+
+    private final MCRPIJobService<?> service;
+
+    private final int threads;
+
+    private final int maxRetries;
+
+    private final long retryDelay;
+
+    private final int size;
+
+    public MCRPIBatchRegistration(MCRPIJobService<?> service) {
+        this.service = service;
+        Map<String, String> properties = service.getProperties();
+        threads = Integer.parseInt(properties.getOrDefault(PROPERTY_PREFIX + "Threads", "4"));
+        maxRetries = Integer.parseInt(properties.getOrDefault(PROPERTY_PREFIX + "MaxRetries", "3"));
+        retryDelay = Long.parseLong(properties.getOrDefault(PROPERTY_PREFIX + "RetryDelay", "1000"));
+        size = Integer.parseInt(properties.getOrDefault(PROPERTY_PREFIX + "Size", "-1"));
+    }
+
+    /**
+     * Registers the pending identifiers of all services with enabled batch registration.
+     */
+    public static void registerAll() {
+        MCRPIServiceManager.getInstance().getServiceList().stream()
+            .filter(MCRPIJobService.class::isInstance)
+            .map(MCRPIJobService.class::cast)
+            .filter(MCRPIJobService::isBatchRegistration)
+            .forEach(service -> new MCRPIBatchRegistration(service).run());
+    }
+
+    /**
+     * Registers the pending identifiers of the service.
+     *
+     * @return the statistics of this run
+     */
+    public Statistics run() {
+        List<PendingIdentifier> identifiers = getPendingIdentifiers();
+        LOGGER.info("Registering {} identifiers of {} with {} threads", identifiers.size(), service.getServiceID(),
+            threads);
+        Statistics statistics = run(identifiers, this::register, threads, maxRetries, retryDelay);
+        LOGGER.info("Batch registration of {} finished: {}", service.getServiceID(), statistics);
+        return statistics;
+    }
+
+    /**
+     * @return the identifiers of the service whose registration has started and which have no register job
+     */
+    List<PendingIdentifier> getPendingIdentifiers() {
+        return MCRPIManager.getInstance().getUnregisteredIdentifiers(service.getType(), -1).stream()
+            .filter(pi -> service.getServiceID().equals(pi.getService()))
+            .filter(pi -> pi.getRegistrationStarted() != null)
+            .map(this::toPendingIdentifier)
+            .flatMap(Optional::stream)
+            .filter(this::hasNoRegisterJob)
+            .limit(size < 0 ? Long.MAX_VALUE : size)
+            .collect(Collectors.toList());
+    }
+
+    private boolean hasNoRegisterJob(PendingIdentifier pi) {
+        if (service.hasRegisterJob(pi.parameters)) {
+            LOGGER.info("{} is registered by its register job", pi.identifier);
+            return false;
+        }
+        return true;
+    }
+
+    private Optional<PendingIdentifier> toPendingIdentifier(MCRPI pi) {
+        Optional<PendingIdentifier> pendingIdentifier = service.getRegisterJobParameters(pi)
+            .map(contextParameters -> new PendingIdentifier(pi,
+                service.getJobParameters(contextParameters, PiJobAction.REGISTER)));
+        if (pendingIdentifier.isEmpty()) {
+            LOGGER.warn("{} does not support batch registration, skipping {}", service.getServiceID(),
+                pi.getIdentifier());
+        }
+        return pendingIdentifier;
+    }
+
+    private void register(PendingIdentifier pi) throws Exception {
+        new MCRFixedUserCallable<>(() -> {
+            service.delegateAction(pi.parameters);
+            if (!service.isRegistered(pi.objectID, pi.additional)) {
+                //not every service updates the registration date itself
+                service.updateRegistrationDate(pi.objectID, pi.additional, new Date());
+            }
+            return null;
+        }, MCRSystemUserInformation.getJanitorInstance()).call();
+    }
+
+    /**
+     * Runs <code>task</code> for every item with at most <code>threads</code> tasks in parallel and waits until all
+     * are finished. Failed tasks are retried with exponential backoff.
+     */
+    static <P> Statistics run(List<P> items, Task<P> task, int threads, int maxRetries, long retryDelay) {
+        Statistics statistics = new Statistics();
+        if (items.isEmpty()) {
+            return statistics;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, items.size())),
+            new ThreadFactoryBuilder().setNameFormat(MCRPIBatchRegistration.class.getSimpleName() + "-%d")
+                .setDaemon(true).build());
+        long start = System.nanoTime();
+        try {
+            items.forEach(item -> executor.execute(() -> runWithRetry(item, task, maxRetries, retryDelay,
+                statistics)));
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Waiting for batch registration: {}", statistics);
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Batch registration was interrupted: {}", statistics);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            statistics.duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return statistics;
+    }
+
+    private static <P> void runWithRetry(P item, Task<P> task, int maxRetries, long retryDelay,
+        Statistics statistics) {
+        long delay = retryDelay;
+        for (int attempt = 0;; attempt++) {
+            try {
+                task.run(item);
+                statistics.registered.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    LOGGER.error("Could not register {} after {} attempts", item, attempt + 1, e);
+                    statistics.failed.incrementAndGet();
+                    return;
+                }
+                LOGGER.warn("Could not register {}, retrying in {} ms: {}", item, delay, e.getMessage());
+                statistics.retries.incrementAndGet();
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                statistics.failed.incrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = Math.min(MAX_RETRY_DELAY, delay * 2);
+        }
+    }
+
+    static final class PendingIdentifier {
+
+        private final String identifier;
+
+        private final MCRObjectID objectID;
+
+        private final String additional;
+
+        private final Map<String, String> parameters;
+
+        PendingIdentifier(MCRPI pi, Map<String, String> parameters) {
+            this.identifier = pi.getIdentifier();
+            this.objectID = MCRObjectID.getInstance(pi.getMycoreID());
+            this.additional = Optional.ofNullable(pi.getAdditional()).orElse("");
+            this.parameters = parameters;
+        }
+
+        String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public String toString() {
+            return identifier;
+        }
+    }
+
+    @FunctionalInterface
+    interface Task<P> {
+        void run(P item) throws Exception;
+    }
+
+    /**
+     * Throughput metrics of a batch registration.
+     */
+    public static final class Statistics {
+
+        private final AtomicInteger registered = new AtomicInteger();
+
+        private final AtomicInteger failed = new AtomicInteger();
+
+        private final AtomicInteger retries = new AtomicInteger();
+
+        private volatile long duration;
+
+        public int getRegistered() {
+            return registered.get();
+        }
+
+        public int getFailed() {
+            return failed.get();
+        }
+
+        public int getRetries() {
+            return retries.get();
+        }
+
+        /**
+         * @return the duration of the run in milliseconds
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return registered identifiers per second
+         */
+        public double getThroughput() {
+            return duration == 0 ? 0 : registered.get() * 1000d / duration;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d registered, %d failed, %d retries in %d ms (%.2f/s)",
+                getRegistered(), getFailed(), getRetries(), getDuration(), getThroughput());
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.apache.logging.log4j.Logger;
 import org.mycore.backend.jpa.MCREntityManagerProvider;
 import org.mycore.common.MCRException;
 import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCRShutdownHandler;
 import org.mycore.common.events.MCRStartupHandler;
 import org.mycore.datamodel.metadata.MCRObjectID;
@@ -53,6 +54,8 @@ import org.mycore.util.concurrent.MCRFixedUserCallable;
  * Handles various tasks that need to be executed time based:
  * <ul>
  *     <li>Check if created URNs are registered at the DNB</li>
+ *     <li>Register identifiers of services with {@link MCRPIJobService#BATCH_REGISTRATION_PROPERTY batch registration}
+ *     every <code>MCR.PI.BatchRegistration.Period</code> minutes (default: 5)</li>
  * </ul>
  */
 public class MCRPICronJob implements Runnable, MCRStartupHandler.AutoExecutable {
@@ -63,7 +66,10 @@ public class MCRPICronJob implements Runnable, MCRStartupHandler.AutoExecutable
 
     private static final int CRON_PERIOD_MINUTES = (int) TimeUnit.HOURS.toMinutes(12);
 
-    private static final int CRON_THREAD_COUNT = 1;
+    private static final int BATCH_PERIOD_MINUTES = MCRConfiguration2.getInt("MCR.PI.BatchRegistration.Period")
+        .orElse(5);
+
+    private static final int CRON_THREAD_COUNT = 2;
 
     private static final Logger LOGGER = LogManager.getLogger();
 
@@ -134,6 +140,17 @@ public class MCRPICronJob implements Runnable, MCRStartupHandler.AutoExecutable
 
     }
 
+    private void registerBatches() {
+        try {
+            new MCRFixedUserCallable<>(() -> {
+                MCRPIBatchRegistration.registerAll();
+                return null;
+            }, MCRSystemUserInformation.getJanitorInstance()).call();
+        } catch (Exception e) {
+            LOGGER.error("Error in batch registration!", e);
+        }
+    }
+
     private Map.Entry<MCRPI, Date> getDateRegistred(MCRPI mcrpi) {
         LOGGER.info("check {} is registered.", mcrpi.getIdentifier());
         MCRDNBURN dnburn = new MCRDNBURNParser()
@@ -183,5 +200,7 @@ public class MCRPICronJob implements Runnable, MCRStartupHandler.AutoExecutable
         addShutdownHandler(cronExcutorService);
         cronExcutorService
             .scheduleWithFixedDelay(this, CRON_INITIAL_DELAY_MINUTES, CRON_PERIOD_MINUTES, TimeUnit.MINUTES);
+        cronExcutorService.scheduleWithFixedDelay(this::registerBatches, CRON_INITIAL_DELAY_MINUTES,
+            BATCH_PERIOD_MINUTES, TimeUnit.MINUTES);
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.pi;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.SingularAttribute;
+
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRCache;
+import org.mycore.common.MCRSession;
+import org.mycore.common.MCRSessionMgr;
+import org.mycore.common.MCRTransactionHelper;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.pi.backend.MCRPI;
+import org.mycore.pi.backend.MCRPI_;
+
+/**
+ * Caches the committed {@link MCRPI} rows by MyCoRe ID and by identifier, so that {@link MCRPIManager} can answer
+ * <code>isCreated</code>, <code>isRegistered</code> and <code>getInfo</code> without a database query.
+ *
+ * Every MCRPI entity that is persisted, updated or removed in a transaction is reported by {@link Listener}.
+ * Until the transaction is committed its MyCoRe ID and identifier are looked up in the database, so that the
+ * session sees its own changes. After the commit the cache entries are removed, so that other sessions get the
+ * committed state. Changes made by other applications on the same database, e.g. the command line interface, are
+ * not reported, so entries expire after <code>MCR.PI.Index.MaxAge</code> milliseconds.
+ *
+ * The index is disabled by default and enabled by <code>MCR.PI.Index.Enabled=true</code>. It holds up to
+ * <code>MCR.PI.Index.Capacity</code> entries per key type.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public final class MCRPIIndex {
+
+    private static final String CONFIG_PREFIX = "MCR.PI.Index.";
+
+    private static final String TOUCHED_KEY = MCRPIIndex.class.getName() + ".touched";
+
+    private static final String OBJECT_PREFIX = "obj:";
+
+    private static final String IDENTIFIER_PREFIX = "pi:";
+
+    private static final MCRPIIndex INSTANCE = new MCRPIIndex();
+
+    private final boolean enabled;
+
+    private final long maxAge;
+
+    private final MCRCache<String, List<MCRPIRegistrationInfo>> byObject;
+
+    private final MCRCache<String, List<MCRPIRegistrationInfo>> byIdentifier;
+
+    /** changed on every invalidation, so that concurrently loaded outdated rows are not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    private MCRPIIndex() {
+        enabled = MCRConfiguration2.getBoolean(CONFIG_PREFIX + "Enabled").orElse(false);
+        maxAge = MCRConfiguration2.getLong(CONFIG_PREFIX + "MaxAge").orElse(60_000L);
+        int capacity = MCRConfiguration2.getInt(CONFIG_PREFIX + "Capacity").orElse(10000);
+        byObject = new MCRCache<>(capacity, "MCRPI by MyCoRe ID");
+        byIdentifier = new MCRCache<>(capacity, "MCRPI by identifier");
+    }
+
+    public static MCRPIIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return all persistent identifiers of the object with the given MyCoRe ID
+     */
+    List<MCRPIRegistrationInfo> getByObject(String mycoreID) {
+        return get(byObject, OBJECT_PREFIX, mycoreID, MCRPI_.mycoreID);
+    }
+
+    /**
+     * @return all database entries of the given identifier
+     */
+    List<MCRPIRegistrationInfo> getByIdentifier(String identifier) {
+        return get(byIdentifier, IDENTIFIER_PREFIX, identifier, MCRPI_.identifier);
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        byObject.clear();
+        byIdentifier.clear();
+    }
+
+    private List<MCRPIRegistrationInfo> get(MCRCache<String, List<MCRPIRegistrationInfo>> cache, String prefix,
+        String key, SingularAttribute<MCRPI, String> attribute) {
+        if (!enabled || isTouched(prefix + key)) {
+            return load(attribute, key);
+        }
+        List<MCRPIRegistrationInfo> entries = cache.getIfUpToDate(key, System.currentTimeMillis() - maxAge);
+        if (entries == null) {
+            long loadGeneration = generation.get();
+            long loadTime = System.currentTimeMillis();
+            entries = load(attribute, key);
+            if (loadGeneration == generation.get()) {
+                cache.put(key, entries, loadTime);
+            }
+        }
+        return entries;
+    }
+
+    private void invalidate(Set<String> keys) {
+        generation.incrementAndGet();
+        keys.forEach(key -> {
+            if (key.startsWith(OBJECT_PREFIX)) {
+                byObject.remove(key.substring(OBJECT_PREFIX.length()));
+            } else {
+                byIdentifier.remove(key.substring(IDENTIFIER_PREFIX.length()));
+            }
+        });
+    }
+
+    private static boolean isTouched(String key) {
+        if (!MCRSessionMgr.hasCurrentSession()) {
+            return false;
+        }
+        Set<String> touched = MCRSessionMgr.getCurrentSession().getTransactionAttribute(TOUCHED_KEY);
+        return touched != null && touched.contains(key);
+    }
+
+    private void touch(MCRPI pi) {
+        Set<String> keys = Set.of(OBJECT_PREFIX + pi.getMycoreID(), IDENTIFIER_PREFIX + pi.getIdentifier());
+        if (!MCRSessionMgr.hasCurrentSession() || !MCRTransactionHelper.isTransactionActive()) {
+            //the commit is unknown, entries loaded before it expire after maxAge
+            invalidate(keys);
+            return;
+        }
+        MCRSession session = MCRSessionMgr.getCurrentSession();
+        Set<String> touched = session.computeTransactionAttributeIfAbsent(TOUCHED_KEY, k -> {
+            Set<String> newTouched = ConcurrentHashMap.newKeySet();
+            session.onCommit(() -> invalidate(newTouched));
+            return newTouched;
+        });
+        touched.addAll(keys);
+    }
+
+    /**
+     * Loads the rows without creating managed entities, so that {@link Listener} is not called.
+     */
+    private static List<MCRPIRegistrationInfo> load(SingularAttribute<MCRPI, String> attribute, String value) {
+        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MCRPI> pi = query.from(MCRPI.class);
+        query.multiselect(pi.get(MCRPI_.identifier), pi.get(MCRPI_.type), pi.get(MCRPI_.mycoreID),
+            pi.get(MCRPI_.additional), pi.get(MCRPI_.service), pi.get(MCRPI_.mcrVersion),
+            pi.get(MCRPI_.mcrRevision), pi.get(MCRPI_.registrationStarted), pi.get(MCRPI_.registered),
+            pi.get(MCRPI_.created))
+            .where(cb.equal(pi.get(attribute), value));
+        return em.createQuery(query).getResultStream()
+            .map(Entry::new)
+            .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Reports the MCRPI entities of a session to the index.
+     */
+    public static class Listener {
+
+        @PrePersist
+        @PreUpdate
+        @PreRemove
+        public void touch(MCRPI pi) {
+            MCRPIIndex.instance().touch(pi);
+        }
+    }
+
+    private static final class Entry implements MCRPIRegistrationInfo {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String identifier;
+
+        private final String type;
+
+        private final String mycoreID;
+
+        private final String additional;
+
+        private final String service;
+
+        private final String mcrVersion;
+
+        private final int mcrRevision;
+
+        private final Date registrationStarted;
+
+        private final Date registered;
+
+        private final Date created;
+
+        Entry(Tuple tuple) {
+            identifier = tuple.get(0, String.class);
+            type = tuple.get(1, String.class);
+            mycoreID = tuple.get(2, String.class);
+            additional = tuple.get(3, String.class);
+            service = tuple.get(4, String.class);
+            mcrVersion = tuple.get(5, String.class);
+            Integer revision = tuple.get(6, Integer.class);
+            mcrRevision = revision == null ? 0 : revision;
+            registrationStarted = tuple.get(7, Date.class);
+            registered = tuple.get(8, Date.class);
+            created = tuple.get(9, Date.class);
+        }
+
+        @Override
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public String getMycoreID() {
+            return mycoreID;
+        }
+
+        @Override
+        public String getAdditional() {
+            return additional;
+        }
+
+        @Override
+        public String getMcrVersion() {
+            return mcrVersion;
+        }
+
+        @Override
+        public int getMcrRevision() {
+            return mcrRevision;
+        }
+
+        @Override
+        public Date getRegistrationStarted() {
+            return registrationStarted == null ? null : new Date(registrationStarted.getTime());
+        }
+
+        @Override
+        public Date getRegistered() {
+            return registered == null ? null : new Date(registered.getTime());
+        }
+
+        @Override
+        public Date getCreated() {
+            return created == null ? null : new Date(created.getTime());
+        }
+
+        @Override
+        public String getService() {
+            return service;
+        }
+    }
+}
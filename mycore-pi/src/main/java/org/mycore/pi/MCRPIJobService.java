@@ -20,6 +20,7 @@ package org.mycore.pi;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -41,6 +42,7 @@ import org.mycore.pi.exceptions.MCRPersistentIdentifierException;
 import org.mycore.services.queuedjob.MCRJob;
 import org.mycore.services.queuedjob.MCRJobAction;
 import org.mycore.services.queuedjob.MCRJobQueue;
+import org.mycore.services.queuedjob.MCRJobStatus;
 import org.mycore.user2.MCRUser;
 import org.mycore.user2.MCRUserManager;
 
@@ -55,6 +57,12 @@ public abstract class MCRPIJobService<T extends MCRPersistentIdentifier>
 
     public static final String JOB_API_USER_PROPERTY = "JobApiUser";
 
+    /**
+     * If <code>true</code>, no register jobs are created. Identifiers with a started registration are registered
+     * by {@link MCRPIBatchRegistration} instead.
+     */
+    public static final String BATCH_REGISTRATION_PROPERTY = "BatchRegistration";
+
     protected static final String REGISTRATION_PREDICATE = "RegistrationPredicate";
 
     protected static final String CREATION_PREDICATE = "CreationPredicate";
@@ -138,10 +146,43 @@ public abstract class MCRPIJobService<T extends MCRPersistentIdentifier>
      *                          the right {@link MCRPIJobService} and method.
      */
     protected void addRegisterJob(Map<String, String> contextParameters) {
+        if (isBatchRegistration()) {
+            LOGGER.debug("Batch registration of {} is enabled, no job is created for {}", getServiceID(),
+                contextParameters);
+            return;
+        }
         MCRJob job = createJob(contextParameters, PiJobAction.REGISTER);
         REGISTER_JOB_QUEUE.offer(job);
     }
 
+    /**
+     * Returns the parameters of {@link #registerJob(Map)} for an identifier that is not registered yet. Services
+     * must implement this to support {@link #BATCH_REGISTRATION_PROPERTY batch registration}.
+     *
+     * @param pi the database entry of the identifier
+     * @return the parameters which would be passed to {@link #addRegisterJob(Map)} or {@link Optional#empty()}, if
+     * batch registration is not supported
+     */
+    protected Optional<Map<String, String>> getRegisterJobParameters(MCRPI pi) {
+        return Optional.empty();
+    }
+
+    /**
+     * @param jobParameters the parameters of the register job, see {@link #getJobParameters(Map, PiJobAction)}
+     * @return <code>true</code>, if a register job with these parameters is waiting or running
+     */
+    boolean hasRegisterJob(Map<String, String> jobParameters) {
+        List<MCRJob> jobs = REGISTER_JOB_QUEUE == null ? null : REGISTER_JOB_QUEUE.getJobs(jobParameters);
+        return jobs != null && jobs.stream().anyMatch(job -> job.getStatus() != MCRJobStatus.FINISHED);
+    }
+
+    /**
+     * @return <code>true</code>, if identifiers of this service are registered by {@link MCRPIBatchRegistration}
+     */
+    public boolean isBatchRegistration() {
+        return Boolean.parseBoolean(getProperties().get(BATCH_REGISTRATION_PROPERTY));
+    }
+
     /**
      * If you use {@link #updateRegistrationDate(MCRObjectID, String, Date)} or
      * {@link #updateStartRegistrationDate(MCRObjectID, String, Date)} then you should validate if the user has the
@@ -217,13 +258,15 @@ public abstract class MCRPIJobService<T extends MCRPersistentIdentifier>
 
     private MCRJob createJob(Map<String, String> contextParameters, PiJobAction action) {
         MCRJob job = new MCRJob(MCRPIRegisterJobAction.class);
+        job.setParameters(getJobParameters(contextParameters, action));
+        return job;
+    }
 
+    Map<String, String> getJobParameters(Map<String, String> contextParameters, PiJobAction action) {
         HashMap<String, String> params = new HashMap<>(contextParameters);
         params.put("action", action.toString());
         params.put("registrationServiceID", this.getServiceID());
-        job.setParameters(params);
-
-        return job;
+        return params;
     }
 
     /**
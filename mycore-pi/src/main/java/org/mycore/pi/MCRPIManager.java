@@ -46,8 +46,6 @@ import org.mycore.pi.backend.MCRPI;
 import org.mycore.pi.backend.MCRPI_;
 
 public class MCRPIManager {
-    private static final String TYPE = "type";
-
     private static final String MCRID = "mcrId";
 
     private static final String SERVICE = "service";
@@ -138,25 +136,15 @@ public class MCRPIManager {
 
     public List<MCRPIRegistrationInfo> getCreatedIdentifiers(MCRObjectID id, String type,
         String registrationServiceID) {
-        return MCREntityManagerProvider
-            .getCurrentEntityManager()
-            .createNamedQuery("Get.PI.Created", MCRPIRegistrationInfo.class)
-            .setParameter(MCRID, id.toString())
-            .setParameter(TYPE, type)
-            .setParameter(SERVICE, registrationServiceID)
-            .getResultList();
+        return MCRPIIndex.instance().getByObject(id.toString()).stream()
+            .filter(pi -> Objects.equals(type, pi.getType()))
+            .filter(pi -> pi.getAdditional() != null)
+            .filter(pi -> Objects.equals(registrationServiceID, pi.getService()))
+            .collect(Collectors.toList());
     }
 
     public boolean isCreated(MCRObjectID id, String additional, String type, String registrationServiceID) {
-        return MCREntityManagerProvider
-            .getCurrentEntityManager()
-            .createNamedQuery("Count.PI.Created", Number.class)
-            .setParameter(MCRID, id.toString())
-            .setParameter(TYPE, type)
-            .setParameter(ADDITIONAL, additional)
-            .setParameter(SERVICE, registrationServiceID)
-            .getSingleResult()
-            .shortValue() > 0;
+        return getInfo(id.toString(), additional, type, registrationServiceID).isPresent();
     }
 
     public boolean isRegistered(MCRPI mcrPi) {
@@ -168,15 +156,9 @@ public class MCRPIManager {
     }
 
     public boolean isRegistered(String mcrId, String additional, String type, String registrationServiceID) {
-        return MCREntityManagerProvider
-            .getCurrentEntityManager()
-            .createNamedQuery("Count.PI.Registered", Number.class)
-            .setParameter(MCRID, mcrId)
-            .setParameter(TYPE, type)
-            .setParameter(ADDITIONAL, additional)
-            .setParameter(SERVICE, registrationServiceID)
-            .getSingleResult()
-            .shortValue() > 0;
+        return getInfo(mcrId, additional, type, registrationServiceID)
+            .filter(pi -> pi.getRegistered() != null)
+            .isPresent();
     }
 
     public boolean hasRegistrationStarted(MCRObjectID mcrId, String additional, String type,
@@ -185,15 +167,18 @@ public class MCRPIManager {
     }
 
     public boolean hasRegistrationStarted(String mcrId, String additional, String type, String registrationServiceID) {
-        return MCREntityManagerProvider
-            .getCurrentEntityManager()
-            .createNamedQuery("Count.PI.RegistrationStarted", Number.class)
-            .setParameter(MCRID, mcrId)
-            .setParameter(TYPE, type)
-            .setParameter(ADDITIONAL, additional)
-            .setParameter(SERVICE, registrationServiceID)
-            .getSingleResult()
-            .shortValue() > 0;
+        return additional != null && getInfo(mcrId, additional, type, registrationServiceID)
+            .filter(pi -> pi.getRegistrationStarted() != null)
+            .isPresent();
+    }
+
+    private Optional<MCRPIRegistrationInfo> getInfo(String mcrId, String additional, String type,
+        String registrationServiceID) {
+        return MCRPIIndex.instance().getByObject(mcrId).stream()
+            .filter(pi -> Objects.equals(type, pi.getType()))
+            .filter(pi -> Objects.equals(additional, pi.getAdditional()))
+            .filter(pi -> Objects.equals(registrationServiceID, pi.getService()))
+            .findAny();
     }
 
     public int getCount(String type) {
@@ -309,28 +294,13 @@ public class MCRPIManager {
     }
 
     public List<MCRPIRegistrationInfo> getInfo(String identifier) {
-        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<MCRPIRegistrationInfo> getQuery = cb.createQuery(MCRPIRegistrationInfo.class);
-        Root<MCRPI> pi = getQuery.from(MCRPI.class);
-        return em.createQuery(
-            getQuery
-                .select(pi)
-                .where(cb.equal(pi.get(MCRPI_.identifier), identifier)))
-            .getResultList();
+        return MCRPIIndex.instance().getByIdentifier(identifier);
     }
 
     public Optional<MCRPIRegistrationInfo> getInfo(String identifier, String type) {
-        EntityManager em = MCREntityManagerProvider.getCurrentEntityManager();
-        CriteriaBuilder cb = em.getCriteriaBuilder();
-        CriteriaQuery<MCRPIRegistrationInfo> getQuery = cb.createQuery(MCRPIRegistrationInfo.class);
-        Root<MCRPI> pi = getQuery.from(MCRPI.class);
-        final List<MCRPIRegistrationInfo> resultList = em.createQuery(
-            getQuery
-                .select(pi)
-                .where(cb.equal(pi.get(MCRPI_.identifier), identifier), cb.equal(pi.get(MCRPI_.type), type)))
-            .getResultList();
-        return resultList.size() == 0 ? Optional.empty() : Optional.of(resultList.get(0));
+        return getInfo(identifier).stream()
+            .filter(pi -> Objects.equals(type, pi.getType()))
+            .findFirst();
     }
 
     /**
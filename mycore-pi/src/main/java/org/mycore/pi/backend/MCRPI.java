@@ -22,6 +22,7 @@ import java.util.Date;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -32,8 +33,10 @@ import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 
 import org.mycore.common.MCRCoreVersion;
+import org.mycore.pi.MCRPIIndex;
 
 @Entity
+@EntityListeners(MCRPIIndex.Listener.class)
 @NamedQueries({
     @NamedQuery(name = "Count.PI.Created",
         query = "select count(u) from MCRPI u "
@@ -41,6 +41,8 @@ import org.mycore.datamodel.metadata.MCRObject;
 import org.mycore.datamodel.metadata.MCRObjectID;
 import org.mycore.frontend.cli.annotation.MCRCommand;
 import org.mycore.frontend.cli.annotation.MCRCommandGroup;
+import org.mycore.pi.MCRPIBatchRegistration;
+import org.mycore.pi.MCRPIJobService;
 import org.mycore.pi.MCRPIManager;
 import org.mycore.pi.MCRPIMetadataService;
 import org.mycore.pi.MCRPIRegistrationInfo;
@@ -252,4 +254,18 @@ public class MCRPICommands {
         InterruptedException {
         createPIForObjectIfNotExist(serviceID, objectIDString, "");
     }
+
+    @MCRCommand(syntax = "register pending pi of service {0}",
+        help = "Registers all identifiers of the pi service with the id {0} whose registration has started,"
+            + " but which are not registered yet. The service has to be a job service.",
+        order = 110)
+    public static void registerPendingPI(String serviceID) {
+        MCRPIService<?> registrationService = MCRPIServiceManager.getInstance().getRegistrationService(serviceID);
+        if (!(registrationService instanceof MCRPIJobService)) {
+            throw new MCRException("The pi service " + serviceID + " does not support batch registration.");
+        }
+        MCRPIBatchRegistration.Statistics statistics = new MCRPIBatchRegistration(
+            (MCRPIJobService<?>) registrationService).run();
+        LOGGER.info("Registered pending pi of {}: {}", serviceID, statistics);
+    }
 }
@@ -180,6 +180,14 @@ public abstract class MCRDOIBaseService extends MCRPIJobService<MCRDigitalObject
         this.addRegisterJob(contextParameters);
     }
 
+    @Override
+    protected Optional<Map<String, String>> getRegisterJobParameters(MCRPI pi) {
+        HashMap<String, String> contextParameters = new HashMap<>();
+        contextParameters.put(CONTEXT_DOI, pi.getIdentifier());
+        contextParameters.put(CONTEXT_OBJ, pi.getMycoreID());
+        return Optional.of(contextParameters);
+    }
+
     protected MCRContentTransformer getTransformer() {
         return MCRContentTransformerFactory.getTransformer(transformerID);
     }
@@ -243,6 +243,14 @@ public class MCREpicService extends MCRPIJobService<MCRHandle> {
         this.addRegisterJob(contextParameters);
     }
 
+    @Override
+    protected Optional<Map<String, String>> getRegisterJobParameters(MCRPI pi) {
+        HashMap<String, String> contextParameters = new HashMap<>();
+        contextParameters.put(EPIC_KEY, pi.getIdentifier());
+        contextParameters.put(OBJECT_ID_KEY, pi.getMycoreID());
+        return Optional.of(contextParameters);
+    }
+
     private void startDeleteJob(MCRBase obj, MCRHandle epic) {
         HashMap<String, String> contextParameters = new HashMap<String, String>();
         contextParameters.put(EPIC_KEY, epic.asString());
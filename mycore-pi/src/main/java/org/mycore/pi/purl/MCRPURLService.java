@@ -181,6 +181,14 @@ public class MCRPURLService extends MCRPIJobService<MCRPURL> {
         this.addRegisterJob(contextParameters);
     }
 
+    @Override
+    protected Optional<Map<String, String>> getRegisterJobParameters(MCRPI pi) {
+        HashMap<String, String> contextParameters = new HashMap<>();
+        contextParameters.put(CONTEXT_PURL, pi.getIdentifier());
+        contextParameters.put(CONTEXT_OBJECT, pi.getMycoreID());
+        return Optional.of(contextParameters);
+    }
+
     protected void doWithPURLManager(Consumer<MCRPURLManager> action) {
         Map<String, String> props = getProperties();
         String serverURL = props.get(PURL_SERVER_CONFIG);
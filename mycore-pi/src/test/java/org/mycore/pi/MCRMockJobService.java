@@ -0,0 +1,96 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.pi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.mycore.datamodel.metadata.MCRBase;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.pi.backend.MCRPI;
+import org.mycore.pi.exceptions.MCRPersistentIdentifierException;
+
+/**
+ * Job service that registers identifiers by setting the registration date in the database.
+ */
+public class MCRMockJobService extends MCRPIJobService<MCRMockIdentifier> {
+
+    static final String CONTEXT_IDENTIFIER = "identifier";
+
+    static final String CONTEXT_OBJECT = "object";
+
+    static final List<String> REGISTERED = Collections.synchronizedList(new ArrayList<>());
+
+    public MCRMockJobService() {
+        super(MCRMockIdentifierService.TYPE);
+    }
+
+    @Override
+    protected void registerIdentifier(MCRBase obj, String additional, MCRMockIdentifier pi) {
+    }
+
+    @Override
+    protected void delete(MCRMockIdentifier identifier, MCRBase obj, String additional) {
+    }
+
+    @Override
+    protected void update(MCRMockIdentifier identifier, MCRBase obj, String additional) {
+    }
+
+    @Override
+    protected void deleteJob(Map<String, String> parameters) {
+    }
+
+    @Override
+    protected void updateJob(Map<String, String> parameters) {
+    }
+
+    @Override
+    protected void registerJob(Map<String, String> parameters) throws MCRPersistentIdentifierException {
+        MCRPI pi = MCRPIManager.getInstance().get(getServiceID(), parameters.get(CONTEXT_OBJECT), "");
+        if (pi == null) {
+            throw new MCRPersistentIdentifierException("Unknown identifier " + parameters.get(CONTEXT_IDENTIFIER));
+        }
+        pi.setRegistered(new Date());
+        REGISTERED.add(parameters.get(CONTEXT_IDENTIFIER));
+    }
+
+    @Override
+    protected Optional<Map<String, String>> getRegisterJobParameters(MCRPI pi) {
+        HashMap<String, String> contextParameters = new HashMap<>();
+        contextParameters.put(CONTEXT_IDENTIFIER, pi.getIdentifier());
+        contextParameters.put(CONTEXT_OBJECT, pi.getMycoreID());
+        return Optional.of(contextParameters);
+    }
+
+    @Override
+    protected Optional<String> getJobInformation(Map<String, String> contextParameters) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void updateFlag(MCRObjectID id, String additional, MCRPI mcrpi) {
+        //there is no object to update
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.pi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mycore.backend.jpa.MCREntityManagerProvider;
+import org.mycore.common.MCRJPATestCase;
+import org.mycore.pi.MCRPIJobService.PiJobAction;
+import org.mycore.pi.backend.MCRPI;
+import org.mycore.services.queuedjob.MCRJob;
+import org.mycore.services.queuedjob.MCRJobQueue;
+
+public class MCRPIBatchRegistrationServiceTest extends MCRJPATestCase {
+
+    private static final String JOB_SERVICE = "MockJobService";
+
+    private static final String MOCK_SERVICE = "MockService";
+
+    private MCRMockJobService service;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        MCRPIIndex.instance().clear();
+        MCRMockJobService.REGISTERED.clear();
+        service = (MCRMockJobService) MCRPIServiceManager.getInstance().<MCRMockIdentifier>getRegistrationService(
+            JOB_SERVICE);
+    }
+
+    @Test
+    public void getPendingIdentifiers() {
+        MCRPI started = persist(1, JOB_SERVICE, true);
+        persist(2, JOB_SERVICE, false);
+        persist(3, MOCK_SERVICE, true);
+        MCRPI queued = persist(4, JOB_SERVICE, true);
+        MCRJob job = new MCRJob(MCRPIRegisterJobAction.class);
+        job.setParameters(service.getJobParameters(service.getRegisterJobParameters(queued).get(),
+            PiJobAction.REGISTER));
+        MCRJobQueue.getInstance(MCRPIRegisterJobAction.class).offer(job);
+
+        List<String> pending = new MCRPIBatchRegistration(service).getPendingIdentifiers().stream()
+            .map(MCRPIBatchRegistration.PendingIdentifier::getIdentifier)
+            .collect(Collectors.toList());
+
+        assertEquals("Only started identifiers of the service without register job should be pending",
+            List.of(started.getIdentifier()), pending);
+    }
+
+    @Test
+    public void register() {
+        MCRPI first = persist(1, JOB_SERVICE, true);
+        MCRPI second = persist(2, JOB_SERVICE, true);
+        persist(3, JOB_SERVICE, false);
+        //identifiers are registered in other transactions
+        startNewTransaction();
+
+        MCRPIBatchRegistration.Statistics statistics = new MCRPIBatchRegistration(service).run();
+
+        assertEquals(2, statistics.getRegistered());
+        assertEquals(0, statistics.getFailed());
+        assertEquals(Set.of(first.getIdentifier(), second.getIdentifier()), Set.copyOf(MCRMockJobService.REGISTERED));
+        startNewTransaction();
+        assertEquals("Only the identifier without started registration should be unregistered", 1,
+            MCRPIManager.getInstance().getUnregisteredIdentifiers(MCRMockIdentifierService.TYPE).size());
+        assertTrue(new MCRPIBatchRegistration(service).getPendingIdentifiers().isEmpty());
+    }
+
+    private static MCRPI persist(int number, String serviceID, boolean started) {
+        String mycoreID = String.format("junit_mock_%08d", number);
+        MCRPI pi = new MCRPI(MCRMockIdentifier.MOCK_SCHEME + "http://example.org/" + number,
+            MCRMockIdentifierService.TYPE, mycoreID, "", serviceID, null);
+        if (started) {
+            pi.setRegistrationStarted(new Date());
+        }
+        MCREntityManagerProvider.getCurrentEntityManager().persist(pi);
+        return pi;
+    }
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> configuration = super.getTestProperties();
+        configuration.put("MCR.Metadata.Type.mock", "true");
+        configuration.put("MCR.QueuedJob.autostart", "false");
+
+        configuration.put("MCR.PI.Service." + JOB_SERVICE, MCRMockJobService.class.getName());
+        configuration.put("MCR.PI.Service." + JOB_SERVICE + ".Generator", "MockIDGenerator");
+        configuration.put("MCR.PI.Service." + JOB_SERVICE + ".MetadataService", "MockInscriber");
+        configuration.put("MCR.PI.Service." + JOB_SERVICE + "." + MCRPIJobService.BATCH_REGISTRATION_PROPERTY,
+            "true");
+        configuration.put("MCR.PI.Service." + JOB_SERVICE + ".BatchRegistration.Threads", "2");
+        configuration.put("MCR.PI.Service." + JOB_SERVICE + ".BatchRegistration.MaxRetries", "0");
+        configuration.put("MCR.PI.Service." + MOCK_SERVICE, MCRMockIdentifierService.class.getName());
+        configuration.put("MCR.PI.Service." + MOCK_SERVICE + ".Generator", "MockIDGenerator");
+        configuration.put("MCR.PI.Service." + MOCK_SERVICE + ".MetadataService", "MockInscriber");
+
+        configuration.put("MCR.PI.MetadataService.MockInscriber", MCRMockMetadataService.class.getName());
+        configuration.put("MCR.PI.MetadataService.MockInscriber." + MCRMockMetadataService.TEST_PROPERTY,
+            MCRMockMetadataService.TEST_PROPERTY_VALUE);
+        configuration.put("MCR.PI.Generator.MockIDGenerator", MCRMockIdentifierGenerator.class.getName());
+        configuration.put("MCR.PI.Generator.MockIDGenerator." + MCRMockIdentifierGenerator.TEST_PROPERTY,
+            MCRMockIdentifierGenerator.TEST_PROPERTY_VALUE);
+        configuration.put("MCR.PI.Parsers." + MCRMockIdentifierService.TYPE, MCRMockIdentifierParser.class.getName());
+        return configuration;
+    }
+}
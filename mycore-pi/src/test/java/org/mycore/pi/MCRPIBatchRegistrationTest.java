@@ -0,0 +1,117 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.pi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class MCRPIBatchRegistrationTest {
+
+    @Test
+    public void testRun() {
+        MockRegistry registry = new MockRegistry(0);
+        List<String> identifiers = getIdentifiers(20);
+
+        MCRPIBatchRegistration.Statistics statistics = MCRPIBatchRegistration.run(identifiers, registry::register,
+            4, 0, 0);
+
+        assertEquals(20, statistics.getRegistered());
+        assertEquals(0, statistics.getFailed());
+        assertEquals(0, statistics.getRetries());
+        assertEquals(identifiers.size(), registry.registered.size());
+        assertTrue("Too many parallel requests: " + registry.maxParallel, registry.maxParallel.get() <= 4);
+        assertTrue("Requests were not sent in parallel", registry.maxParallel.get() > 1);
+    }
+
+    @Test
+    public void testRetry() {
+        MockRegistry registry = new MockRegistry(2);
+        List<String> identifiers = getIdentifiers(5);
+
+        MCRPIBatchRegistration.Statistics statistics = MCRPIBatchRegistration.run(identifiers, registry::register,
+            2, 2, 1);
+
+        assertEquals(5, statistics.getRegistered());
+        assertEquals(0, statistics.getFailed());
+        assertEquals(10, statistics.getRetries());
+        identifiers.forEach(id -> assertEquals(3, registry.attempts.get(id).get()));
+    }
+
+    @Test
+    public void testFailure() {
+        MockRegistry registry = new MockRegistry(3);
+        List<String> identifiers = getIdentifiers(3);
+
+        MCRPIBatchRegistration.Statistics statistics = MCRPIBatchRegistration.run(identifiers, registry::register,
+            2, 2, 1);
+
+        assertEquals(0, statistics.getRegistered());
+        assertEquals(3, statistics.getFailed());
+        assertEquals(6, statistics.getRetries());
+        assertTrue(registry.registered.isEmpty());
+    }
+
+    private static List<String> getIdentifiers(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> MCRMockIdentifier.MOCK_SCHEME + "http://example.org/" + i)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Registry that fails the first requests for every identifier.
+     */
+    private static class MockRegistry {
+
+        private final int failures;
+
+        private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        private final Map<String, Boolean> registered = new ConcurrentHashMap<>();
+
+        private final AtomicInteger parallel = new AtomicInteger();
+
+        private final AtomicInteger maxParallel = new AtomicInteger();
+
+        MockRegistry(int failures) {
+            this.failures = failures;
+        }
+
+        void register(String identifier) throws Exception {
+            maxParallel.accumulateAndGet(parallel.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+                if (attempts.computeIfAbsent(identifier, id -> new AtomicInteger()).incrementAndGet() <= failures) {
+                    throw new Exception("Service unavailable: " + identifier);
+                }
+                registered.put(identifier, Boolean.TRUE);
+            } finally {
+                parallel.decrementAndGet();
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.mycore.pi;
 
 import java.lang.reflect.Field;
+import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
@@ -147,6 +148,31 @@ public class MCRPIManagerTest extends MCRStoreTestCase {
         Assert.assertEquals("Wrong number of unregistered PI: ", 2, numOfUnregisteredPI);
     }
 
+    @Test
+    public void testIndex() throws Exception {
+        MCRPI mcrpi = generateMCRPI();
+        MCRObjectID mycoreID = MCRObjectID.getInstance(mcrpi.getMycoreID());
+        MCRPIManager manager = MCRPIManager.getInstance();
+
+        Assert.assertFalse(manager.isCreated(mycoreID, null, "Unregistered", MOCK_SERVICE));
+        Assert.assertTrue(manager.getInfo(mcrpi.getIdentifier()).isEmpty());
+
+        MCREntityManagerProvider.getCurrentEntityManager().persist(mcrpi);
+        Assert.assertTrue("Index should not hide created PI",
+            manager.isCreated(mycoreID, null, "Unregistered", MOCK_SERVICE));
+        Assert.assertFalse(manager.isRegistered(mycoreID, null, "Unregistered", MOCK_SERVICE));
+        Assert.assertEquals(1, manager.getInfo(mcrpi.getIdentifier()).size());
+
+        mcrpi.setRegistered(new Date());
+        Assert.assertTrue("Index should not hide registration",
+            manager.isRegistered(mycoreID, null, "Unregistered", MOCK_SERVICE));
+
+        startNewTransaction();
+        Assert.assertTrue(manager.isRegistered(mycoreID, null, "Unregistered", MOCK_SERVICE));
+        Assert.assertEquals(mcrpi.getMycoreID(),
+            manager.getInfo(mcrpi.getIdentifier(), "Unregistered").get().getMycoreID());
+    }
+
     private MCRPI generateMCRPI() throws MCRPersistentIdentifierException {
         MCRObjectID mycoreID = MCRObjectID.getNextFreeId("test_unregisterd");
         return new MCRPI(generatePIFor(mycoreID).asString(), "Unregistered",
@@ -163,6 +189,7 @@ public class MCRPIManagerTest extends MCRStoreTestCase {
 
     @Before
     public void resetManagerInstance() {
+        MCRPIIndex.instance().clear();
         try {
             Field instance = MCRPIManager.class.getDeclaredField("instance");
             instance.setAccessible(true);
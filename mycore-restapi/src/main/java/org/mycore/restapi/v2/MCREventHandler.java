@@ -20,11 +20,9 @@ package org.mycore.restapi.v2;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
-import java.util.Base64;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Optional;
@@ -32,10 +30,6 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import javax.servlet.ServletContext;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.sse.OutboundSseEvent;
-import javax.ws.rs.sse.Sse;
-import javax.ws.rs.sse.SseBroadcaster;
 
 import org.apache.logging.log4j.LogManager;
 import org.mycore.common.MCRException;
@@ -68,15 +62,6 @@ class MCREventHandler {
         }
     }
 
-    private static String getId(MCREvent evt) {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
-        byte[] bytes = byteBuffer.putLong(System.currentTimeMillis())
-            .putInt(evt.hashCode())
-            .array();
-        Base64.Encoder b64 = Base64.getEncoder();
-        return b64.encodeToString(bytes);
-    }
-
     private static void addUserInfo(JsonObject jEvent) {
         if (!MCRSessionMgr.hasCurrentSession()) {
             return;
@@ -104,16 +89,12 @@ class MCREventHandler {
     }
 
     public static class MCRObjectHandler implements org.mycore.common.events.MCREventHandler {
-        private final SseBroadcaster sseBroadcaster;
-
-        private final Sse sse;
+        private final MCREventStream eventStream;
 
         private final Function<URI, URI> uriResolver;
 
-        MCRObjectHandler(SseBroadcaster sseBroadcaster, Sse sse,
-            Function<URI, URI> uriResolver) {
-            this.sseBroadcaster = sseBroadcaster;
-            this.sse = sse;
+        MCRObjectHandler(MCREventStream eventStream, Function<URI, URI> uriResolver) {
+            this.eventStream = eventStream;
             this.uriResolver = uriResolver;
         }
 
@@ -132,13 +113,8 @@ class MCREventHandler {
                 JsonObject oldData = getData(oldObj);
                 jEvent.add("old", oldData);
             }
-            OutboundSseEvent event = sse.newEventBuilder()
-                .mediaType(MediaType.APPLICATION_JSON_TYPE)
-                .id(getId(evt))
-                .name(getName(evt))
-                .data(jEvent.toString())
-                .build();
-            sseBroadcaster.broadcast(event);
+            eventStream.publish(MCREvents.OBJECTS, getName(evt), obj.getId().toString(), obj.getId(),
+                evt.getEventType(), jEvent.toString());
         }
 
         private JsonObject getData(MCRObject obj) {
@@ -166,15 +142,12 @@ class MCREventHandler {
     }
 
     public static class MCRDerivateHandler implements org.mycore.common.events.MCREventHandler {
-        private final SseBroadcaster sseBroadcaster;
-
-        private final Sse sse;
+        private final MCREventStream eventStream;
 
         private final Function<URI, URI> uriResolver;
 
-        MCRDerivateHandler(SseBroadcaster sseBroadcaster, Sse sse, Function<URI, URI> uriResolver) {
-            this.sseBroadcaster = sseBroadcaster;
-            this.sse = sse;
+        MCRDerivateHandler(MCREventStream eventStream, Function<URI, URI> uriResolver) {
+            this.eventStream = eventStream;
             this.uriResolver = uriResolver;
         }
 
@@ -193,13 +166,8 @@ class MCREventHandler {
                 JsonObject oldData = getData(oldDer);
                 jEvent.add("old", oldData);
             }
-            OutboundSseEvent event = sse.newEventBuilder()
-                .mediaType(MediaType.APPLICATION_JSON_TYPE)
-                .id(getId(evt))
-                .name(getName(evt))
-                .data(jEvent.toString())
-                .build();
-            sseBroadcaster.broadcast(event);
+            eventStream.publish(MCREvents.DERIVATES, getName(evt), der.getId().toString(), der.getOwnerID(),
+                evt.getEventType(), jEvent.toString());
         }
 
         private JsonObject getData(MCRDerivate der) {
@@ -223,17 +191,14 @@ class MCREventHandler {
     }
 
     public static class MCRPathHandler extends MCREventHandlerBase {
-        private final SseBroadcaster sseBroadcaster;
-
-        private final Sse sse;
+        private final MCREventStream eventStream;
 
         private final ServletContext context;
 
         private final Function<URI, URI> uriResolver;
 
-        MCRPathHandler(SseBroadcaster sseBroadcaster, Sse sse, Function<URI, URI> uriResolver, ServletContext context) {
-            this.sseBroadcaster = sseBroadcaster;
-            this.sse = sse;
+        MCRPathHandler(MCREventStream eventStream, Function<URI, URI> uriResolver, ServletContext context) {
+            this.eventStream = eventStream;
             this.context = context;
             this.uriResolver = uriResolver;
         }
@@ -280,8 +245,9 @@ class MCREventHandler {
             addUserInfo(file);
             String derId = ((MCRPath) path).getOwner();
             String fPath = ((MCRPath) path).getOwnerRelativePath();
-            String objId = MCRMetadataManager.getObjectId(MCRObjectID.getInstance(derId), 1, TimeUnit.MINUTES)
-                .toString();
+            MCRObjectID objectID = MCRMetadataManager.getObjectId(MCRObjectID.getInstance(derId), 1,
+                TimeUnit.MINUTES);
+            String objId = objectID.toString();
             String relPath = String.format(Locale.ROOT, "objects/%s/derivates/%s/contents/%s", objId, derId, fPath);
             String uri = uriResolver.apply(getPathURI(relPath)).toString();
             file.addProperty("uri", uri);
@@ -291,13 +257,8 @@ class MCREventHandler {
             file.addProperty("modified", attrs.lastModifiedTime().toInstant().toString());
             file.addProperty("md5", ((MCRFileAttributes) attrs).md5sum());
             file.addProperty("mimeType", context.getMimeType(path.getFileName().toString()));
-            OutboundSseEvent event = sse.newEventBuilder()
-                .mediaType(MediaType.APPLICATION_JSON_TYPE)
-                .id(getId(evt))
-                .name(getName(evt))
-                .data(file.toString())
-                .build();
-            sseBroadcaster.broadcast(event);
+            eventStream.publish(MCREvents.FILES, getName(evt), derId + ':' + fPath, objectID, evt.getEventType(),
+                file.toString());
         }
 
         @Override
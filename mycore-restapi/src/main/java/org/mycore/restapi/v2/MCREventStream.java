@@ -0,0 +1,358 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.restapi.v2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.events.MCRShutdownHandler;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Distributes repository events to the subscribers of {@link MCREvents}.
+ *
+ * Events of the same type for the same ID that are published within
+ * <code>MCR.RestAPI.V2.Events.CoalesceWindow</code> milliseconds are sent only once with the latest data. The last
+ * <code>MCR.RestAPI.V2.Events.ReplayBuffer</code> events are kept, so that reconnecting clients get the events
+ * they missed since their <code>Last-Event-ID</code>.
+ *
+ * Every subscriber has its own queue of at most <code>MCR.RestAPI.V2.Events.MaxQueuedEvents</code> events that is
+ * sent on its own thread. A subscriber that does not keep up is disconnected, so that it does not delay the events
+ * of the other subscribers; it may reconnect with its <code>Last-Event-ID</code>.
+ *
+ * The threads of an instance are stopped by {@link #close()}, so it has to be registered with the
+ * {@link MCRShutdownHandler}.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+class MCREventStream implements MCRShutdownHandler.Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.RestAPI.V2.Events.";
+
+    /** distinguishes event IDs of this instance from those before a restart */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final Sse sse;
+
+    private final long coalesceWindow;
+
+    private final int replayBufferSize;
+
+    private final int maxQueuedEvents;
+
+    /** coalesce key -> event, in publication order */
+    private final Map<String, Event> pending = new LinkedHashMap<>();
+
+    private final Deque<OutboundEvent> replayBuffer = new ArrayDeque<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService flusher;
+
+    private final ExecutorService sender;
+
+    private long sequence;
+
+    MCREventStream(Sse sse) {
+        this.sse = sse;
+        coalesceWindow = MCRConfiguration2.getLong(CONFIG_PREFIX + "CoalesceWindow").orElse(500L);
+        replayBufferSize = MCRConfiguration2.getInt(CONFIG_PREFIX + "ReplayBuffer").orElse(1000);
+        maxQueuedEvents = MCRConfiguration2.getInt(CONFIG_PREFIX + "MaxQueuedEvents").orElse(1000);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("MCREventStream-flush").setDaemon(true).build());
+        sender = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("MCREventStream-send-#%d").setDaemon(true).build());
+        if (coalesceWindow > 0) {
+            flusher.scheduleWithFixedDelay(this::flush, coalesceWindow, coalesceWindow, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * @param category <code>objects</code>, <code>derivates</code> or <code>files</code>
+     * @param name the name of the event, e.g. <code>MCRObject.update</code>
+     * @param id the ID of the changed object, derivate or file, used to coalesce events
+     * @param objectID the object the event belongs to, used for filtering
+     * @param eventType the type of the event, e.g. <code>update</code>
+     * @param data the JSON data of the event
+     */
+    void publish(String category, String name, String id, MCRObjectID objectID, String eventType, String data) {
+        Event event = new Event(category, name, objectID, eventType, data);
+        synchronized (this) {
+            //a coalesced event keeps the position of the first one
+            pending.put(name + ':' + id, event);
+        }
+        if (coalesceWindow <= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Registers a subscriber and sends the buffered events after <code>lastEventId</code> to it.
+     *
+     * @param lastEventId value of the <code>Last-Event-ID</code> header or <code>null</code>
+     */
+    void register(SseEventSink sink, Filter filter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(sink, filter);
+        synchronized (this) {
+            replayBuffer.stream()
+                .filter(event -> isAfter(event, lastEventId))
+                .forEach(subscriber::offer);
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+    }
+
+    private boolean isAfter(OutboundEvent event, String lastEventId) {
+        if (lastEventId == null) {
+            return false;
+        }
+        int pos = lastEventId.indexOf(':');
+        if (pos < 0 || !epoch.equals(lastEventId.substring(0, pos))) {
+            //client was connected before a restart, all buffered events are new
+            return true;
+        }
+        try {
+            return event.sequence > Long.parseLong(lastEventId.substring(pos + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            for (Event event : pending.values()) {
+                long seq = ++sequence;
+                OutboundEvent outboundEvent = new OutboundEvent(event, seq, sse.newEventBuilder()
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .id(epoch + ':' + seq)
+                    .name(event.name)
+                    .data(event.data)
+                    .build());
+                replayBuffer.addLast(outboundEvent);
+                if (replayBuffer.size() > replayBufferSize) {
+                    replayBuffer.removeFirst();
+                }
+                subscribers.forEach(subscriber -> subscriber.offer(outboundEvent));
+            }
+        } finally {
+            pending.clear();
+        }
+        subscribers.forEach(Subscriber::schedule);
+    }
+
+    @Override
+    public void prepareClose() {
+        flusher.shutdown();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        sender.shutdownNow();
+    }
+
+    private static final class Event {
+
+        private final String category;
+
+        private final String name;
+
+        private final MCRObjectID objectID;
+
+        private final String eventType;
+
+        private final String data;
+
+        Event(String category, String name, MCRObjectID objectID, String eventType, String data) {
+            this.category = category;
+            this.name = name;
+            this.objectID = objectID;
+            this.eventType = eventType;
+            this.data = data;
+        }
+    }
+
+    private static final class OutboundEvent {
+
+        private final Event event;
+
+        private final long sequence;
+
+        private final OutboundSseEvent sseEvent;
+
+        OutboundEvent(Event event, long sequence, OutboundSseEvent sseEvent) {
+            this.event = event;
+            this.sequence = sequence;
+            this.sseEvent = sseEvent;
+        }
+    }
+
+    /**
+     * Selects the events a subscriber is interested in. Empty collections match every value.
+     */
+    static final class Filter {
+
+        private final Set<String> categories;
+
+        private final Collection<String> objectTypes;
+
+        private final Collection<String> projects;
+
+        private final Collection<String> eventTypes;
+
+        Filter(Set<String> categories, Collection<String> objectTypes, Collection<String> projects,
+            Collection<String> eventTypes) {
+            this.categories = categories;
+            this.objectTypes = objectTypes;
+            this.projects = projects;
+            this.eventTypes = eventTypes;
+        }
+
+        private boolean matches(Event event) {
+            return categories.contains(event.category)
+                && matches(objectTypes, event.objectID == null ? null : event.objectID.getTypeId())
+                && matches(projects, event.objectID == null ? null : event.objectID.getProjectId())
+                && matches(eventTypes, event.eventType);
+        }
+
+        private static boolean matches(Collection<String> values, String value) {
+            return values.isEmpty() || values.contains(value);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEventSink sink;
+
+        private final Filter filter;
+
+        private final Deque<OutboundSseEvent> queue = new ArrayDeque<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        Subscriber(SseEventSink sink, Filter filter) {
+            this.sink = sink;
+            this.filter = filter;
+        }
+
+        void offer(OutboundEvent event) {
+            if (closed || !filter.matches(event.event)) {
+                return;
+            }
+            boolean overflow;
+            synchronized (queue) {
+                overflow = queue.size() >= maxQueuedEvents;
+                if (!overflow) {
+                    queue.addLast(event.sseEvent);
+                }
+            }
+            if (overflow) {
+                LOGGER.warn("Disconnecting event stream client that does not keep up with {} queued events.",
+                    maxQueuedEvents);
+                closed = true;
+                sender.execute(this::close);
+            }
+        }
+
+        void schedule() {
+            if (!closed && sending.compareAndSet(false, true)) {
+                sender.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                List<OutboundSseEvent> events;
+                while (!closed) {
+                    synchronized (queue) {
+                        events = new ArrayList<>(queue);
+                        queue.clear();
+                    }
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    for (OutboundSseEvent event : events) {
+                        if (sink.isClosed()) {
+                            close();
+                            return;
+                        }
+                        sink.send(event).toCompletableFuture().join();
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not send event, disconnecting client.", e);
+                close();
+            } finally {
+                sending.set(false);
+            }
+            boolean hasMore;
+            synchronized (queue) {
+                hasMore = !queue.isEmpty();
+            }
+            if (hasMore) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            synchronized (queue) {
+                queue.clear();
+            }
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                LOGGER.debug("Error while closing event stream.", e);
+            }
+        }
+    }
+}
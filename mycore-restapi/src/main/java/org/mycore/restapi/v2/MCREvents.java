@@ -19,28 +19,37 @@
 package org.mycore.restapi.v2;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
 import javax.servlet.ServletContext;
+import javax.ws.rs.BeanParam;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.sse.Sse;
-import javax.ws.rs.sse.SseBroadcaster;
 import javax.ws.rs.sse.SseEventSink;
 
 import org.apache.logging.log4j.LogManager;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.common.events.MCREvent;
 import org.mycore.common.events.MCREventManager;
+import org.mycore.common.events.MCRShutdownHandler;
 import org.mycore.frontend.MCRFrontendUtil;
 
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 @Path("/events")
@@ -49,6 +58,12 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Singleton
 public class MCREvents {
 
+    static final String OBJECTS = "objects";
+
+    static final String DERIVATES = "derivates";
+
+    static final String FILES = "files";
+
     @Context
     Sse sse;
 
@@ -61,8 +76,7 @@ public class MCREvents {
     @Context
     UriInfo uriInfo;
 
-    private volatile SseBroadcaster objectBroadcaster,
-        derivateBroadcaster, pathBroadcaster;
+    private volatile MCREventStream eventStream;
 
     @PostConstruct
     public void init() {
@@ -70,43 +84,76 @@ public class MCREvents {
         URI baseUri = uriInfo.getBaseUri(); //accquired from first request
         URI webAppBase = URI.create(MCRFrontendUtil.getBaseURL()); //use official URL
         Function<URI, URI> uriResolver = webAppBase.resolve(baseUri.getPath())::resolve;
-        objectBroadcaster = sse.newBroadcaster();
+        eventStream = new MCREventStream(sse);
+        MCRShutdownHandler.getInstance().addCloseable(eventStream);
         MCREventManager.instance().addEventHandler(MCREvent.OBJECT_TYPE,
-            new MCREventHandler.MCRObjectHandler(objectBroadcaster, sse, uriResolver));
-        derivateBroadcaster = sse.newBroadcaster();
+            new MCREventHandler.MCRObjectHandler(eventStream, uriResolver));
         MCREventManager.instance().addEventHandler(MCREvent.DERIVATE_TYPE,
-            new MCREventHandler.MCRDerivateHandler(derivateBroadcaster, sse, uriResolver));
-        pathBroadcaster = sse.newBroadcaster();
+            new MCREventHandler.MCRDerivateHandler(eventStream, uriResolver));
         MCREventManager.instance().addEventHandler(MCREvent.PATH_TYPE,
-            new MCREventHandler.MCRPathHandler(pathBroadcaster, sse, uriResolver, context));
+            new MCREventHandler.MCRPathHandler(eventStream, uriResolver, context));
     }
 
     @GET
     @Produces(MediaType.SERVER_SENT_EVENTS)
-    public void registerAllEvents(@Context SseEventSink sseEventSink) {
-        registerObjectEvents(sseEventSink);
-        registerDerivateEvents(sseEventSink);
-        registerPathEvents(sseEventSink);
+    public void registerAllEvents(@Context SseEventSink sseEventSink, @BeanParam EventFilter filter) {
+        register(sseEventSink, filter, OBJECTS, DERIVATES, FILES);
     }
 
     @GET
     @Path("/objects")
     @Produces(MediaType.SERVER_SENT_EVENTS)
-    public void registerObjectEvents(@Context SseEventSink sseEventSink) {
-        objectBroadcaster.register(sseEventSink);
+    public void registerObjectEvents(@Context SseEventSink sseEventSink, @BeanParam EventFilter filter) {
+        register(sseEventSink, filter, OBJECTS);
     }
 
     @GET
     @Path("/derivates")
     @Produces(MediaType.SERVER_SENT_EVENTS)
-    public void registerDerivateEvents(@Context SseEventSink sseEventSink) {
-        derivateBroadcaster.register(sseEventSink);
+    public void registerDerivateEvents(@Context SseEventSink sseEventSink, @BeanParam EventFilter filter) {
+        register(sseEventSink, filter, DERIVATES);
     }
 
     @GET
     @Path("/files")
     @Produces(MediaType.SERVER_SENT_EVENTS)
-    public void registerPathEvents(@Context SseEventSink sseEventSink) {
-        pathBroadcaster.register(sseEventSink);
+    public void registerPathEvents(@Context SseEventSink sseEventSink, @BeanParam EventFilter filter) {
+        register(sseEventSink, filter, FILES);
+    }
+
+    private void register(SseEventSink sseEventSink, EventFilter filter, String... categories) {
+        eventStream.register(sseEventSink,
+            new MCREventStream.Filter(Set.of(categories), split(filter.objectTypes), split(filter.projects),
+                split(filter.eventTypes)),
+            filter.lastEventId);
+    }
+
+    private static Set<String> split(List<String> values) {
+        return values.stream()
+            .flatMap(MCRConfiguration2::splitValue)
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * Restricts the events sent to a client. All events match if a parameter is omitted, multiple values may be
+     * given comma separated.
+     */
+    public static class EventFilter {
+
+        @QueryParam("objectType")
+        @Parameter(description = "type of the object the event belongs to", example = "mods")
+        List<String> objectTypes;
+
+        @QueryParam("project")
+        @Parameter(description = "project of the object the event belongs to", example = "mir")
+        List<String> projects;
+
+        @QueryParam("eventType")
+        @Parameter(description = "type of event", example = "create,update")
+        List<String> eventTypes;
+
+        @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER)
+        @Parameter(description = "ID of the last event received, buffered events after it are sent again")
+        String lastEventId;
     }
 }
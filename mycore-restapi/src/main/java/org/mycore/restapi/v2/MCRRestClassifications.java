@@ -36,7 +36,9 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.xml.bind.annotation.XmlElementWrapper;
@@ -84,7 +86,9 @@ public class MCRRestClassifications {
     public Response listClassifications() {
         MCRCategoryDAO categoryDAO = MCRCategoryDAOFactory.getInstance();
         Date lastModified = new Date(categoryDAO.getLastModified());
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request.getRequest(), lastModified);
+        EntityTag eTag = getETag(lastModified);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request.getRequest(), lastModified,
+            eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -96,6 +100,8 @@ public class MCRRestClassifications {
         };
         return Response.ok(entity)
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
@@ -164,7 +170,9 @@ public class MCRRestClassifications {
     private Response getClassification(String classId, Function<MCRCategoryDAO, MCRCategory> categorySupplier) {
         MCRCategoryDAO categoryDAO = MCRCategoryDAOFactory.getInstance();
         Date lastModified = getLastModifiedDate(classId, categoryDAO);
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request.getRequest(), lastModified);
+        EntityTag eTag = getETag(lastModified);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request.getRequest(), lastModified,
+            eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -179,9 +187,16 @@ public class MCRRestClassifications {
             .entity(classification.isClassification() ? MCRClass.getClassification(classification)
                 : MCRClassCategory.getInstance(classification))
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
+    private EntityTag getETag(Date lastModified) {
+        return MCRRestUtils.getETag(request.getAcceptableMediaTypes(), lastModified.getTime(),
+            MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE);
+    }
+
     private static Date getLastModifiedDate(@PathParam(PARAM_CLASSID) String classId, MCRCategoryDAO categoryDAO) {
         long categoryLastModified = categoryDAO.getLastModified(classId);
         return new Date(categoryLastModified > 0 ? categoryLastModified : categoryDAO.getLastModified());
@@ -44,6 +44,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -104,6 +105,9 @@ public class MCRRestDerivates {
     @Context
     UriInfo uriInfo;
 
+    @Context
+    HttpHeaders headers;
+
     @Parameter(example = "mir_mods_00004711")
     @PathParam(PARAM_MCRID)
     MCRObjectID mcrId;
@@ -153,7 +157,9 @@ public class MCRRestDerivates {
                 .toException();
         }
         Date lastModified = new Date(modified);
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request, lastModified);
+        EntityTag eTag = MCRRestUtils.getETag(headers.getAcceptableMediaTypes(), modified,
+            MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request, lastModified, eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -163,6 +169,8 @@ public class MCRRestDerivates {
             .entity(new GenericEntity<List<MCRMetaEnrichedLinkID>>(derivates) {
             })
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
@@ -179,7 +187,9 @@ public class MCRRestDerivates {
         validateDerivateRelation(mcrId, derid);
         long modified = MCRXMLMetadataManager.instance().getLastModified(derid);
         Date lastModified = new Date(modified);
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request, lastModified);
+        EntityTag eTag = MCRRestUtils.getETag(headers.getAcceptableMediaTypes(), modified,
+            MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request, lastModified, eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -189,6 +199,8 @@ public class MCRRestDerivates {
                 new Annotation[] { MCRParams.Factory
                     .get(MCRParam.Factory.get(MCRContentAbstractWriter.PARAM_OBJECTTYPE, derid.getTypeId())) })
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
@@ -0,0 +1,305 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.restapi.v2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.GET;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.jdom2.Document;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.mycore.access.MCRAccessManager;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.content.MCRContent;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.restapi.annotations.MCRAccessControlExposeHeaders;
+import org.mycore.solr.MCRSolrClientFactory;
+
+import com.google.gson.stream.JsonWriter;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+
+/**
+ * Streams many objects in one response, e.g. for analytics jobs that would need a request per object otherwise.
+ *
+ * The objects are selected either by a list of IDs or by a Solr query and a modification range. Every response contains
+ * at most <code>rows</code> objects, a <code>Link</code> header with <code>rel="next"</code> points to the next
+ * page. Objects the current user may not read are omitted. The objects are read directly from the metadata store
+ * while the response is written, so the response starts before all objects are read.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+@Path("/export")
+public class MCRRestObjectExport {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CONFIG_PREFIX = "MCR.RestAPI.V2.Export.";
+
+    private static final int DEFAULT_ROWS = MCRConfiguration2.getInt(CONFIG_PREFIX + "Rows.Default").orElse(1000);
+
+    private static final int MAX_ROWS = MCRConfiguration2.getInt(CONFIG_PREFIX + "Rows.Max").orElse(10000);
+
+    private static final String IDS_DESCRIPTION = "comma separated list of IDs, if omitted 'query' is used;"
+        + " cannot be combined with 'query', 'modifiedFrom' or 'modifiedUntil'";
+
+    private static final String QUERY_DESCRIPTION = "Solr query that selects the objects";
+
+    private static final String QUERY_EXAMPLE = "category:\"mir_genres:article\"";
+
+    private static final String FROM_DESCRIPTION = "only objects modified at or after this instant";
+
+    private static final String FROM_EXAMPLE = "2020-01-01T00:00:00Z";
+
+    private static final String UNTIL_DESCRIPTION = "only objects modified at or before this instant";
+
+    private static final String ROWS_DESCRIPTION = "maximum number of objects in this response";
+
+    private static final String CURSOR_DESCRIPTION = "cursor from the 'next' link of the previous response";
+
+    @Context
+    UriInfo uriInfo;
+
+    @GET
+    @Path("/objects")
+    @Produces(MediaType.APPLICATION_XML)
+    @Operation(
+        summary = "Streams the metadata of many MCRObjects as XML, one page per request.",
+        tags = MCRRestUtils.TAG_MYCORE_OBJECT)
+    @MCRAccessControlExposeHeaders(HttpHeaders.LINK)
+    public Response exportObjectsXML(
+        @Parameter(description = IDS_DESCRIPTION) @QueryParam("ids") List<String> ids,
+        @Parameter(description = QUERY_DESCRIPTION, example = QUERY_EXAMPLE) @QueryParam("query") String query,
+        @Parameter(description = FROM_DESCRIPTION, example = FROM_EXAMPLE)
+        @QueryParam("modifiedFrom") String modifiedFrom,
+        @Parameter(description = UNTIL_DESCRIPTION) @QueryParam("modifiedUntil") String modifiedUntil,
+        @Parameter(description = ROWS_DESCRIPTION) @QueryParam("rows") Integer rows,
+        @Parameter(description = CURSOR_DESCRIPTION) @QueryParam("cursor") String cursor) {
+        Page page = getPage(ids, query, modifiedFrom, modifiedUntil, rows, cursor);
+        return buildResponse(page, out -> writeXML(page.ids, out));
+    }
+
+    @GET
+    @Path("/objects")
+    @Produces(APPLICATION_NDJSON)
+    @Operation(
+        summary = "Streams the metadata of many MCRObjects as JSON lines, one page per request.",
+        description = "Every line is a JSON object with the fields 'id', 'modified' and 'xml'.",
+        tags = MCRRestUtils.TAG_MYCORE_OBJECT)
+    @MCRAccessControlExposeHeaders(HttpHeaders.LINK)
+    public Response exportObjectsNDJSON(
+        @Parameter(description = IDS_DESCRIPTION) @QueryParam("ids") List<String> ids,
+        @Parameter(description = QUERY_DESCRIPTION, example = QUERY_EXAMPLE) @QueryParam("query") String query,
+        @Parameter(description = FROM_DESCRIPTION, example = FROM_EXAMPLE)
+        @QueryParam("modifiedFrom") String modifiedFrom,
+        @Parameter(description = UNTIL_DESCRIPTION) @QueryParam("modifiedUntil") String modifiedUntil,
+        @Parameter(description = ROWS_DESCRIPTION) @QueryParam("rows") Integer rows,
+        @Parameter(description = CURSOR_DESCRIPTION) @QueryParam("cursor") String cursor) {
+        Page page = getPage(ids, query, modifiedFrom, modifiedUntil, rows, cursor);
+        return buildResponse(page, out -> writeNDJSON(page.ids, out));
+    }
+
+    private Response buildResponse(Page page, StreamingOutput output) {
+        Response.ResponseBuilder response = Response.ok(output);
+        if (page.nextCursor != null) {
+            response.link(uriInfo.getRequestUriBuilder().replaceQueryParam("cursor", page.nextCursor).build(),
+                "next");
+        }
+        return response.build();
+    }
+
+    private static Page getPage(List<String> ids, String query, String modifiedFrom, String modifiedUntil,
+        Integer rows, String cursor) {
+        int pageSize = Optional.ofNullable(rows).orElse(DEFAULT_ROWS);
+        if (pageSize < 1 || pageSize > MAX_ROWS) {
+            throw new BadRequestException("'rows' must be between 1 and " + MAX_ROWS + ".");
+        }
+        List<MCRObjectID> idList = ids.stream()
+            .flatMap(MCRConfiguration2::splitValue)
+            .map(MCRRestObjectExport::toObjectID)
+            .collect(Collectors.toList());
+        if (!idList.isEmpty()) {
+            if ((query != null && !query.isBlank()) || modifiedFrom != null || modifiedUntil != null) {
+                throw new BadRequestException(
+                    "'ids' cannot be combined with 'query', 'modifiedFrom' or 'modifiedUntil'.");
+            }
+            return getIdPage(idList, cursor, pageSize);
+        }
+        return getQueryPage(Optional.ofNullable(query).filter(q -> !q.isBlank()).orElse("*:*"),
+            toInstant("modifiedFrom", modifiedFrom), toInstant("modifiedUntil", modifiedUntil), cursor, pageSize);
+    }
+
+    private static Page getIdPage(List<MCRObjectID> ids, String cursor, int rows) {
+        int offset;
+        try {
+            offset = cursor == null ? 0 : Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        if (offset < 0 || offset > ids.size()) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
+        int end = Math.min(ids.size(), offset + rows);
+        return new Page(ids.subList(offset, end), end < ids.size() ? Integer.toString(end) : null);
+    }
+
+    private static Page getQueryPage(String query, Instant from, Instant until, String cursor, int rows) {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set("q", query);
+        params.add("fq", "objectKind:mycoreobject");
+        if (from != null || until != null) {
+            params.add("fq", "modified:[" + Objects.toString(from, "*") + " TO " + Objects.toString(until, "*") + "]");
+        }
+        params.set("fl", "id");
+        params.set("sort", "modified asc,id asc");
+        params.set("rows", rows);
+        String cursorMark = Optional.ofNullable(cursor).orElse(CursorMarkParams.CURSOR_MARK_START);
+        params.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+        QueryResponse response;
+        try {
+            response = MCRSolrClientFactory.getMainSolrClient().query(params);
+        } catch (SolrException e) {
+            if (e.code() == SolrException.ErrorCode.BAD_REQUEST.code) {
+                throw new BadRequestException("Invalid query: " + query, e);
+            }
+            LOGGER.error("Error while querying objects to export: {}", params, e);
+            throw new InternalServerErrorException("Could not query objects.", e);
+        } catch (SolrServerException | IOException e) {
+            LOGGER.error("Error while querying objects to export: {}", params, e);
+            throw new ServiceUnavailableException("Search index is not available.");
+        }
+        List<MCRObjectID> ids = response.getResults().stream()
+            .map(doc -> doc.getFieldValue("id").toString())
+            .filter(MCRObjectID::isValid)
+            .map(MCRObjectID::getInstance)
+            .collect(Collectors.toList());
+        String nextCursor = response.getNextCursorMark();
+        boolean hasNext = ids.size() == rows && nextCursor != null && !nextCursor.equals(cursorMark);
+        return new Page(ids, hasNext ? nextCursor : null);
+    }
+
+    private static void writeXML(List<MCRObjectID> ids, OutputStream out) throws IOException {
+        XMLOutputter xmlOutputter = new XMLOutputter(Format.getRawFormat().setOmitDeclaration(true));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<mycoreobjects>\n");
+        for (MCRObjectID id : ids) {
+            Optional<MCRContent> content = retrieveContent(id);
+            if (content.isPresent()) {
+                Document doc;
+                try {
+                    doc = content.get().asXML();
+                } catch (Exception e) {
+                    LOGGER.error("Could not export {}", id, e);
+                    continue;
+                }
+                xmlOutputter.output(doc.getRootElement(), writer);
+                writer.write('\n');
+            }
+        }
+        writer.write("</mycoreobjects>\n");
+        writer.flush();
+    }
+
+    private static void writeNDJSON(List<MCRObjectID> ids, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        for (MCRObjectID id : ids) {
+            Optional<MCRContent> content = retrieveContent(id);
+            if (content.isPresent()) {
+                JsonWriter jsonWriter = new JsonWriter(writer);
+                jsonWriter.beginObject()
+                    .name("id").value(id.toString())
+                    .name("modified").value(Instant.ofEpochMilli(content.get().lastModified()).toString())
+                    .name("xml").value(content.get().asString())
+                    .endObject();
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private static Optional<MCRContent> retrieveContent(MCRObjectID id) throws IOException {
+        if (!MCRAccessManager.checkPermission(id, MCRAccessManager.PERMISSION_READ)) {
+            LOGGER.debug("Skipping {}, no read permission", id);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(MCRXMLMetadataManager.instance().retrieveContent(id));
+    }
+
+    private static MCRObjectID toObjectID(String id) {
+        if (!MCRObjectID.isValid(id)) {
+            throw new BadRequestException("Invalid MCRObjectID: " + id);
+        }
+        return MCRObjectID.getInstance(id);
+    }
+
+    private static Instant toInstant(String name, String value) {
+        try {
+            return value == null ? null : Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("'" + name + "' is not a valid ISO 8601 instant: " + value);
+        }
+    }
+
+    private static final class Page {
+
+        private final List<MCRObjectID> ids;
+
+        private final String nextCursor;
+
+        Page(List<MCRObjectID> ids, String nextCursor) {
+            this.ids = ids;
+            this.nextCursor = nextCursor;
+        }
+    }
+}
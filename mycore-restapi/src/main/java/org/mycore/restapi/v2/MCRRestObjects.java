@@ -54,6 +54,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -136,6 +137,9 @@ public class MCRRestObjects {
     @Context
     UriInfo uriInfo;
 
+    @Context
+    HttpHeaders headers;
+
     public static final List<MCRThumbnailGenerator> THUMBNAIL_GENERATORS = Collections
         .unmodifiableList(MCRConfiguration2
             .getOrThrow("MCR.Media.Thumbnail.Generators", MCRConfiguration2::splitValue)
@@ -228,7 +232,9 @@ public class MCRRestObjects {
             throw new NotFoundException("MCRObject " + id + " not found");
         }
         Date lastModified = new Date(modified);
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request, lastModified);
+        EntityTag eTag = MCRRestUtils.getETag(headers.getAcceptableMediaTypes(), modified,
+            MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request, lastModified, eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -238,6 +244,8 @@ public class MCRRestObjects {
                 new Annotation[] { MCRParams.Factory
                     .get(MCRParam.Factory.get(MCRContentAbstractWriter.PARAM_OBJECTTYPE, id.getTypeId())) })
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
@@ -256,7 +264,9 @@ public class MCRRestObjects {
             throw new NotFoundException("MCRObject " + id + " not found");
         }
         Date lastModified = new Date(modified);
-        Optional<Response> cachedResponse = MCRRestUtils.getCachedResponse(request, lastModified);
+        EntityTag eTag = MCRRestUtils.getETag(headers.getAcceptableMediaTypes(), modified,
+            MediaType.APPLICATION_XML_TYPE);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(request, lastModified, eTag);
         if (cachedResponse.isPresent()) {
             return cachedResponse.get();
         }
@@ -267,6 +277,8 @@ public class MCRRestObjects {
                 new Annotation[] { MCRParams.Factory
                     .get(MCRParam.Factory.get(MCRContentAbstractWriter.PARAM_OBJECTTYPE, id.getTypeId())) })
             .lastModified(lastModified)
+            .tag(eTag)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
             .build();
     }
 
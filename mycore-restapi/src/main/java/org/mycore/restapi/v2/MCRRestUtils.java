@@ -19,12 +19,18 @@
 package org.mycore.restapi.v2;
 
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
+import org.mycore.restapi.converter.MCRDetailLevel;
+
 public final class MCRRestUtils {
 
     public static final String JSON_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
@@ -55,4 +61,49 @@ public final class MCRRestUtils {
             .map(r -> r.evaluatePreconditions(lastModified, eTag))
             .map(Response.ResponseBuilder::build);
     }
+
+    /**
+     * Evaluates the preconditions of a request for a resource with an ETag of
+     * {@link #getETag(List, String, MediaType...)}. As the ETag, the response varies on the Accept header.
+     */
+    static Optional<Response> getCachedVariantResponse(Request request, Date lastModified, EntityTag eTag) {
+        return Optional.ofNullable(request)
+            .map(r -> r.evaluatePreconditions(lastModified, eTag))
+            .map(builder -> builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+            .map(Response.ResponseBuilder::build);
+    }
+
+    /**
+     * Returns a weak ETag for a version of a resource.
+     *
+     * The ETag differs for the media types and detail levels a resource is delivered in, so it can be calculated
+     * from the request before the resource is loaded. Responses with this ETag have to set
+     * <code>Vary: Accept</code>.
+     *
+     * @param acceptableMediaTypes the acceptable media types of the request
+     * @param version the version of the resource, e.g. the revision or last modified date
+     * @param produces the media types of the resource method, the first one is used for wildcards
+     */
+    static EntityTag getETag(List<MediaType> acceptableMediaTypes, String version, MediaType... produces) {
+        String variant = acceptableMediaTypes.stream()
+            .flatMap(accepted -> Stream.of(produces)
+                .filter(accepted::isCompatible)
+                .limit(1)
+                .map(mediaType -> mediaType.getSubtype() + Optional
+                    .ofNullable(accepted.getParameters().get(MCRDetailLevel.MEDIA_TYPE_PARAMETER))
+                    .map(detail -> '-' + detail)
+                    .orElse("")))
+            .findFirst()
+            .orElse("");
+        return new EntityTag(variant.isEmpty() ? version : version + '-' + variant, true);
+    }
+
+    /**
+     * Returns a weak ETag for the last modified date of a resource.
+     *
+     * @see #getETag(List, String, MediaType...)
+     */
+    static EntityTag getETag(List<MediaType> acceptableMediaTypes, long lastModified, MediaType... produces) {
+        return getETag(acceptableMediaTypes, Long.toString(lastModified, Character.MAX_RADIX), produces);
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.restapi.v2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.ws.rs.sse.OutboundSseEvent;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseBroadcaster;
+import javax.ws.rs.sse.SseEventSink;
+
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.After;
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+import org.mycore.common.config.MCRConfiguration2;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCREventStreamTest extends MCRTestCase {
+
+    private static final Sse SSE = new Sse() {
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new OutboundEvent.Builder();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private static final MCREventStream.Filter ALL_OBJECTS = new MCREventStream.Filter(
+        Set.of(MCREvents.OBJECTS), Set.of(), Set.of(), Set.of());
+
+    private MCREventStream eventStream;
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.RestAPI.V2.Events.CoalesceWindow", "0");
+        testProperties.put("MCR.RestAPI.V2.Events.MaxQueuedEvents", "2");
+        return testProperties;
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        if (eventStream != null) {
+            eventStream.close();
+        }
+        super.tearDown();
+    }
+
+    @Test
+    public void coalesce() throws InterruptedException {
+        MCRConfiguration2.set("MCR.RestAPI.V2.Events.CoalesceWindow", "3600000");
+        eventStream = new MCREventStream(SSE);
+        RecordingSink sink = new RecordingSink();
+        eventStream.register(sink, ALL_OBJECTS, null);
+        publish("junit_test_00000001", "1");
+        publish("junit_test_00000002", "2");
+        publish("junit_test_00000001", "3");
+        eventStream.flush();
+        sink.await(2);
+        assertEquals("coalesced event should keep its position", List.of("3", "2"), sink.getData());
+    }
+
+    @Test
+    public void replay() throws InterruptedException {
+        eventStream = new MCREventStream(SSE);
+        RecordingSink first = new RecordingSink();
+        eventStream.register(first, ALL_OBJECTS, null);
+        publish("junit_test_00000001", "1");
+        publish("junit_test_00000002", "2");
+        first.await(2);
+
+        RecordingSink reconnected = new RecordingSink();
+        eventStream.register(reconnected, ALL_OBJECTS, first.events.get(0).getId());
+        reconnected.await(1);
+        assertEquals("events after Last-Event-ID should be replayed", List.of("2"), reconnected.getData());
+
+        RecordingSink restarted = new RecordingSink();
+        eventStream.register(restarted, ALL_OBJECTS, "0:1");
+        restarted.await(2);
+        assertEquals("all events are new after a restart", List.of("1", "2"), restarted.getData());
+    }
+
+    @Test
+    public void dropSlowSubscriber() throws InterruptedException {
+        eventStream = new MCREventStream(SSE);
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+        RecordingSink slow = new RecordingSink(blocker);
+        RecordingSink fast = new RecordingSink();
+        eventStream.register(slow, ALL_OBJECTS, null);
+        eventStream.register(fast, ALL_OBJECTS, null);
+        publish("junit_test_00000001", "1");
+        slow.await(1);
+        //the first event is sending, the next two are queued
+        for (int i = 2; i <= 4; i++) {
+            publish("junit_test_0000000" + i, Integer.toString(i));
+        }
+        assertTrue("slow subscriber should be disconnected", slow.closed.await(10, TimeUnit.SECONDS));
+        blocker.complete(null);
+        fast.await(4);
+        assertEquals(List.of("1", "2", "3", "4"), fast.getData());
+    }
+
+    private void publish(String id, String data) {
+        eventStream.publish(MCREvents.OBJECTS, "MCRObject.update", id, null, "update", data);
+    }
+
+    private static class RecordingSink implements SseEventSink {
+
+        private final List<OutboundSseEvent> events = new CopyOnWriteArrayList<>();
+
+        private final Semaphore sent = new Semaphore(0);
+
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        private final CompletableFuture<Void> sendResult;
+
+        RecordingSink() {
+            this(CompletableFuture.completedFuture(null));
+        }
+
+        RecordingSink(CompletableFuture<Void> sendResult) {
+            this.sendResult = sendResult;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed.getCount() == 0;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            events.add(event);
+            sent.release();
+            return sendResult;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        void await(int count) throws InterruptedException {
+            assertTrue("events were not sent", sent.tryAcquire(count, 10, TimeUnit.SECONDS));
+        }
+
+        List<String> getData() {
+            return events.stream().map(OutboundSseEvent::getData).map(String.class::cast)
+                .collect(Collectors.toList());
+        }
+    }
+
+}
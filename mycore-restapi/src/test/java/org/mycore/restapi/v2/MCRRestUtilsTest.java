@@ -0,0 +1,91 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.restapi.v2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.junit.Test;
+import org.mycore.restapi.converter.MCRDetailLevel;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRRestUtilsTest {
+
+    private static final long LAST_MODIFIED = 1_600_000_000_000L;
+
+    private static final MediaType[] PRODUCES = { MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE };
+
+    @Test
+    public void getETag() {
+        EntityTag xml = getETag(MediaType.APPLICATION_XML_TYPE);
+        EntityTag json = getETag(MediaType.APPLICATION_JSON_TYPE);
+        EntityTag jsonDetailed = getETag(new MediaType("application", "json",
+            Map.of(MCRDetailLevel.MEDIA_TYPE_PARAMETER, MCRDetailLevel.detailed.name())));
+        assertTrue(xml.isWeak());
+        assertNotEquals("variants should have different ETags", xml, json);
+        assertNotEquals("detail levels should have different ETags", json, jsonDetailed);
+        assertEquals("wildcard should select the first variant", xml, getETag(MediaType.WILDCARD_TYPE));
+        assertNotEquals("ETag should change with the version", xml,
+            MCRRestUtils.getETag(List.of(MediaType.APPLICATION_XML_TYPE), LAST_MODIFIED + 1000, PRODUCES));
+    }
+
+    @Test
+    public void getCachedVariantResponse() {
+        EntityTag xml = getETag(MediaType.APPLICATION_XML_TYPE);
+        Optional<Response> cachedResponse = MCRRestUtils.getCachedVariantResponse(getRequest(xml),
+            new Date(LAST_MODIFIED), xml);
+        assertTrue("matching ETag should be answered by cache", cachedResponse.isPresent());
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), cachedResponse.get().getStatus());
+        assertEquals(HttpHeaders.ACCEPT, cachedResponse.get().getHeaderString(HttpHeaders.VARY));
+
+        EntityTag json = getETag(MediaType.APPLICATION_JSON_TYPE);
+        assertFalse("ETag of another variant should not match",
+            MCRRestUtils.getCachedVariantResponse(getRequest(xml), new Date(LAST_MODIFIED), json).isPresent());
+    }
+
+    private static EntityTag getETag(MediaType accepted) {
+        return MCRRestUtils.getETag(List.of(accepted), LAST_MODIFIED, PRODUCES);
+    }
+
+    private static ContainerRequest getRequest(EntityTag ifNoneMatch) {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/"),
+            URI.create("http://localhost/api/v2/objects/junit_test_00000001"), "GET", null,
+            new MapPropertiesDelegate(), null);
+        request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch.toString());
+        return request;
+    }
+
+}
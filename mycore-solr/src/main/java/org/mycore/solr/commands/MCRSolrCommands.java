@@ -24,6 +24,9 @@ import static org.mycore.solr.MCRSolrConstants.SOLR_CORE_NAME_SUFFIX;
 import static org.mycore.solr.MCRSolrConstants.SOLR_CORE_PREFIX;
 import static org.mycore.solr.MCRSolrConstants.SOLR_CORE_SERVER_SUFFIX;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.Locale;
@@ -33,6 +36,7 @@ import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.mycore.common.config.MCRConfiguration2;
 import org.mycore.frontend.cli.MCRAbstractCommands;
 import org.mycore.frontend.cli.MCRObjectCommands;
 import org.mycore.frontend.cli.annotation.MCRCommand;
@@ -41,7 +45,9 @@ import org.mycore.solr.MCRSolrClientFactory;
 import org.mycore.solr.MCRSolrCore;
 import org.mycore.solr.MCRSolrUtils;
 import org.mycore.solr.classification.MCRSolrClassificationUtil;
+import org.mycore.solr.index.MCRSolrIndexCheckpoint;
 import org.mycore.solr.index.MCRSolrIndexer;
+import org.mycore.solr.index.MCRSolrResumableIndexer;
 import org.mycore.solr.schema.MCRSolrConfigReloader;
 import org.mycore.solr.schema.MCRSolrSchemaReloader;
 import org.mycore.solr.search.MCRSolrSearchUtils;
@@ -186,6 +192,32 @@ public class MCRSolrCommands extends MCRAbstractCommands {
         MCRSolrIndexer.rebuildMetadataIndex(core.getClient());
     }
 
+    @MCRCommand(
+        syntax = "rebuild solr metadata index with checkpoints in core {0}",
+        help = "rebuilds metadata index in Solr in core with the id {0} in parallel partitions and records the "
+            + "progress, so that the rebuild can be resumed",
+        order = 151)
+    public static void rebuildMetadataIndexWithCheckpoints(String coreID) throws Exception {
+        MCRSolrCore core = getCore(coreID);
+        MCRSolrIndexCheckpoint checkpoint = getCheckpoint(coreID);
+        checkpoint.clear();
+        new MCRSolrResumableIndexer(core.getClient(), checkpoint).rebuildMetadataIndex();
+    }
+
+    @MCRCommand(
+        syntax = "resume rebuild of solr metadata index in core {0}",
+        help = "resumes an interrupted rebuild of the metadata index in Solr in core with the id {0}, "
+            + "partitions that were already indexed are skipped",
+        order = 152)
+    public static void resumeMetadataIndex(String coreID) throws Exception {
+        MCRSolrCore core = getCore(coreID);
+        MCRSolrIndexCheckpoint checkpoint = getCheckpoint(coreID);
+        if (checkpoint.getCompletedCount() == 0) {
+            LOGGER.info("No checkpoint found at {}, rebuilding complete metadata index.", checkpoint.getFile());
+        }
+        new MCRSolrResumableIndexer(core.getClient(), checkpoint).rebuildMetadataIndex();
+    }
+
     @MCRCommand(
         syntax = "rebuild solr content index for object {0} in core {1}",
         help = "rebuilds content index in Solr for the all derivates of object with the id {0} "
@@ -280,6 +312,12 @@ public class MCRSolrCommands extends MCRAbstractCommands {
         MCRSolrIndexer.optimize(core.getClient());
     }
 
+    private static MCRSolrIndexCheckpoint getCheckpoint(String coreID) throws IOException {
+        Path checkpointDir = Paths
+            .get(MCRConfiguration2.getStringOrThrow(SOLR_CONFIG_PREFIX + "Indexer.CheckpointDir"));
+        return new MCRSolrIndexCheckpoint(checkpointDir.resolve("reindex-" + coreID + ".checkpoint"));
+    }
+
     private static MCRSolrCore getCore(String coreID) {
         return MCRSolrClientFactory.get(coreID)
             .orElseThrow(() -> MCRSolrUtils.getCoreConfigMissingException(coreID));
@@ -0,0 +1,117 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.solr.index;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Computes the size of the next bulk request while rebuilding the metadata index.
+ *
+ * The controller keeps a moving average of the time solr needs per document and sizes the next bulk so
+ * that it takes roughly <code>targetTime</code> milliseconds. The result is always kept between
+ * <code>minSize</code> and <code>maxSize</code>. Independent from the document count a bulk is closed as soon as
+ * the accumulated content length reaches <code>maxBytes</code>, so that large documents produce smaller bulks.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRSolrBulkSizeController {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * weight of the most recent measurement in the moving average
+     */
+    private static final double SMOOTHING = 0.3;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long maxBytes;
+
+    private final long targetTime;
+
+    private double timePerDocument;
+
+    private volatile int bulkSize;
+
+    /**
+     * @param initialSize bulk size to start with
+     * @param minSize lower bound of the bulk size
+     * @param maxSize upper bound of the bulk size
+     * @param maxBytes maximum accumulated content length of a bulk
+     * @param targetTime time in milliseconds a single bulk request should take
+     */
+    public MCRSolrBulkSizeController(int initialSize, int minSize, int maxSize, long maxBytes, long targetTime) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid bulk size range: " + minSize + " - " + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxBytes = maxBytes;
+        this.targetTime = targetTime;
+        this.timePerDocument = -1;
+        this.bulkSize = clamp(initialSize);
+    }
+
+    /**
+     * @return the number of documents that should be submitted with the next bulk
+     */
+    public int getBulkSize() {
+        return bulkSize;
+    }
+
+    /**
+     * @param documents number of documents collected so far for the current bulk
+     * @param bytes accumulated content length of the current bulk
+     * @return true, if the current bulk should be submitted now
+     */
+    public boolean isBulkComplete(int documents, long bytes) {
+        return documents >= bulkSize || (maxBytes > 0 && bytes >= maxBytes);
+    }
+
+    /**
+     * Reports the time a finished bulk request needed and adjusts the bulk size.
+     *
+     * @param documents number of documents of the bulk
+     * @param time time in milliseconds the bulk request took
+     */
+    public synchronized void reportBulk(int documents, long time) {
+        if (documents <= 0 || targetTime <= 0) {
+            return;
+        }
+        double current = (double) Math.max(time, 1) / documents;
+        timePerDocument = timePerDocument < 0 ? current
+            : SMOOTHING * current + (1 - SMOOTHING) * timePerDocument;
+        int newSize = clamp((int) Math.round(targetTime / timePerDocument));
+        //do not grow too fast, a single fast bulk is not reliable
+        newSize = Math.min(newSize, bulkSize * 2);
+        if (newSize != bulkSize) {
+            LOGGER.debug("Changing bulk size from {} to {} ({} ms per document).", bulkSize, newSize,
+                timePerDocument);
+            bulkSize = newSize;
+        }
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.solr.index;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * Keeps track of completed partitions of a metadata index rebuild in a local file.
+ *
+ * A partition consists of all objects of one base ID (<code>project_type</code>) within a range of object numbers.
+ * Every completed partition is appended as a single line to the checkpoint file, so that an interrupted rebuild
+ * can skip these partitions on the next run.
+ *
+ * @author Thomas Scheffler (yagee)
+ * @see MCRSolrResumableIndexer
+ */
+public class MCRSolrIndexCheckpoint {
+
+    private final Path file;
+
+    private final Set<String> completed;
+
+    /**
+     * Creates a checkpoint backed by the given file and reads already completed partitions from it.
+     *
+     * @param file the checkpoint file, need not exist
+     */
+    public MCRSolrIndexCheckpoint(Path file) throws IOException {
+        this.file = file;
+        this.completed = Collections.synchronizedSet(new HashSet<>());
+        if (Files.exists(file)) {
+            completed.addAll(Files.readAllLines(file, StandardCharsets.UTF_8)
+                .stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toSet()));
+        }
+    }
+
+    /**
+     * Returns the partition the given object belongs to.
+     *
+     * @param id the object id
+     * @param rangeSize number of object numbers in one partition
+     * @return partition name in form <code>{base}:{rangeIndex}</code>
+     */
+    public static String getPartition(MCRObjectID id, int rangeSize) {
+        return String.format(Locale.ROOT, "%s:%d", id.getBase(), id.getNumberAsInteger() / rangeSize);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isCompleted(String partition) {
+        return completed.contains(partition);
+    }
+
+    public int getCompletedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Marks the partition as completed and writes it to the checkpoint file.
+     */
+    public synchronized void markCompleted(String partition) throws IOException {
+        if (!completed.add(partition)) {
+            return;
+        }
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(file, Collections.singletonList(partition), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+    }
+
+    /**
+     * Forgets all completed partitions and deletes the checkpoint file.
+     */
+    public synchronized void clear() throws IOException {
+        completed.clear();
+        Files.deleteIfExists(file);
+    }
+
+}
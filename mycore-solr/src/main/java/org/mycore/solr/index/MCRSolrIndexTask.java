@@ -33,6 +33,8 @@ public class MCRSolrIndexTask implements Callable<List<MCRSolrIndexHandler>> {
 
     protected MCRSolrIndexHandler indexHandler;
 
+    private volatile long duration = -1;
+
     /**
      * Creates a new solr index task.
      * 
@@ -48,11 +50,21 @@ public class MCRSolrIndexTask implements Callable<List<MCRSolrIndexHandler>> {
         long start = System.currentTimeMillis();
         this.indexHandler.index();
         long end = System.currentTimeMillis();
+        duration = end - start;
         indexHandler.getStatistic().addDocument(indexHandler.getDocuments());
-        indexHandler.getStatistic().addTime(end - start);
+        indexHandler.getStatistic().addTime(duration);
         return this.indexHandler.getSubHandlers();
     }
 
+    /**
+     * Returns the time in milliseconds the index handler took.
+     *
+     * @return -1 if the task was not executed yet
+     */
+    public long getDuration() {
+        return duration;
+    }
+
     @Override
     public String toString() {
         return "Solr: " + this.indexHandler;
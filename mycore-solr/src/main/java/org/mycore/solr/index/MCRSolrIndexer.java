@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -83,24 +84,60 @@ public class MCRSolrIndexer {
      */
     static final int BULK_SIZE = MCRConfiguration2.getInt(SOLR_CONFIG_PREFIX + "Indexer.BulkSize").orElse(100);
 
+    /**
+     * Lower bound of the adaptive bulk size. Default is 10.
+     */
+    static final int BULK_MIN_SIZE = MCRConfiguration2.getInt(SOLR_CONFIG_PREFIX + "Indexer.BulkMinSize")
+        .map(size -> Math.min(size, BULK_SIZE))
+        .orElse(Math.min(10, BULK_SIZE));
+
+    /**
+     * Upper bound of the adaptive bulk size. Default is 10 times {@link #BULK_SIZE}.
+     */
+    static final int BULK_MAX_SIZE = MCRConfiguration2.getInt(SOLR_CONFIG_PREFIX + "Indexer.BulkMaxSize")
+        .map(size -> Math.max(size, BULK_SIZE))
+        .orElse(BULK_SIZE * 10);
+
+    /**
+     * Maximum accumulated content length in bytes of a bulk. Default is 32 MiB, 0 disables the limit.
+     */
+    static final long BULK_MAX_BYTES = MCRConfiguration2.getLong(SOLR_CONFIG_PREFIX + "Indexer.BulkMaxBytes")
+        .orElse(32L * 1024 * 1024);
+
+    /**
+     * Time in milliseconds a single bulk request should take. The bulk size is adapted to the measured latency of
+     * solr. Default is 5000, 0 disables adaption of the bulk size.
+     */
+    static final long BULK_TARGET_TIME = MCRConfiguration2.getLong(SOLR_CONFIG_PREFIX + "Indexer.BulkTargetTime")
+        .orElse(5000L);
+
     static final MCRProcessableExecutor SOLR_EXECUTOR;
 
     static final ExecutorService SOLR_SUB_EXECUTOR;
 
     static final MCRProcessableDefaultCollection SOLR_COLLECTION;
 
-    private static final int BATCH_AUTO_COMMIT_WITHIN_MS = 60000;
+    /**
+     * Maximum number of bulks waiting for or in indexing while rebuilding the metadata index. Default is twice the
+     * number of indexer threads.
+     */
+    static final int MAX_PENDING_BULKS;
+
+    static final int BATCH_AUTO_COMMIT_WITHIN_MS = 60000;
 
     static {
         MCRProcessableRegistry registry = MCRProcessableRegistry.getSingleInstance();
 
         int poolSize = MCRConfiguration2.getInt(SOLR_CONFIG_PREFIX + "Indexer.ThreadCount").orElse(4);
+        MAX_PENDING_BULKS = MCRConfiguration2.getInt(SOLR_CONFIG_PREFIX + "Indexer.MaxPendingBulks")
+            .orElse(poolSize * 2);
         final ExecutorService threadPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
             MCRProcessableFactory.newPriorityBlockingQueue(),
             new ThreadFactoryBuilder().setNameFormat("SOLR-Indexer-#%d").build());
         SOLR_COLLECTION = new MCRProcessableDefaultCollection("Solr Indexer");
         SOLR_COLLECTION.setProperty("pool size (threads)", poolSize);
         SOLR_COLLECTION.setProperty("bulk size", BULK_SIZE);
+        SOLR_COLLECTION.setProperty("max pending bulks", MAX_PENDING_BULKS);
         SOLR_COLLECTION.setProperty("commit within (ms)", BATCH_AUTO_COMMIT_WITHIN_MS);
 
         registry.register(SOLR_COLLECTION);
@@ -336,7 +373,11 @@ public class MCRSolrIndexer {
 
         MCRXMLMetadataManager metadataMgr = MCRXMLMetadataManager.instance();
         MCRSolrIndexStatistic statistic = null;
+        MCRSolrBulkSizeController bulkSizeController = new MCRSolrBulkSizeController(BULK_SIZE, BULK_MIN_SIZE,
+            BULK_MAX_SIZE, BULK_MAX_BYTES, BULK_TARGET_TIME);
+        Semaphore pendingBulks = new Semaphore(MAX_PENDING_BULKS);
         HashMap<MCRObjectID, MCRContent> contentMap = new HashMap<>((int) (BULK_SIZE * 1.4));
+        long contentLength = 0;
         int i = 0;
         for (String id : list) {
             i++;
@@ -345,15 +386,24 @@ public class MCRSolrIndexer {
                 MCRObjectID objId = MCRObjectID.getInstance(id);
                 MCRContent content = metadataMgr.retrieveContent(objId);
                 contentMap.put(objId, content);
-                if (i % BULK_SIZE == 0 || totalCount == i) {
+                contentLength += Math.max(0, content.length());
+                if (bulkSizeController.isBulkComplete(contentMap.size(), contentLength) || totalCount == i) {
                     MCRSolrIndexHandler indexHandler = MCRSolrIndexHandlerFactory.getInstance()
                         .getIndexHandler(contentMap);
                     indexHandler.setCommitWithin(BATCH_AUTO_COMMIT_WITHIN_MS);
                     indexHandler.setSolrServer(solrClient);
                     statistic = indexHandler.getStatistic();
-                    submitIndexHandler(indexHandler);
-                    contentMap = new HashMap<>((int) (BULK_SIZE * 1.4));
+                    //blocks if solr cannot keep up with loading XML from the store
+                    pendingBulks.acquire();
+                    submitBulkIndexHandler(indexHandler, contentMap.size(), bulkSizeController, pendingBulks);
+                    int nextBulkSize = bulkSizeController.getBulkSize();
+                    contentMap = new HashMap<>((int) (nextBulkSize * 1.4));
+                    contentLength = 0;
                 }
+            } catch (InterruptedException ex) {
+                LOGGER.warn("Interrupted while waiting for solr, stopped re-building metadata index at {}.", id);
+                Thread.currentThread().interrupt();
+                break;
             } catch (Exception ex) {
                 LOGGER.error("Error creating index thread for object {}", id, ex);
             }
@@ -364,6 +414,31 @@ public class MCRSolrIndexer {
         }
     }
 
+    private static void submitBulkIndexHandler(MCRSolrIndexHandler indexHandler, int documents,
+        MCRSolrBulkSizeController bulkSizeController, Semaphore pendingBulks) {
+        MCRSolrIndexStatistic statistic = indexHandler.getStatistic();
+        statistic.addPendingDocuments(documents);
+        MCRSolrIndexTask task = new MCRSolrIndexTask(indexHandler);
+        MCRFixedUserCallable<List<MCRSolrIndexHandler>> indexTask = new MCRFixedUserCallable<>(task,
+            MCRSystemUserInformation.getSystemUserInstance());
+        MCRProcessableSupplier<List<MCRSolrIndexHandler>> supplier;
+        try {
+            supplier = SOLR_EXECUTOR.submit(indexTask, LOW_PRIORITY);
+        } catch (RuntimeException e) {
+            statistic.addPendingDocuments(-documents);
+            pendingBulks.release();
+            throw e;
+        }
+        supplier.getFuture().whenComplete((handlerList, exc) -> {
+            pendingBulks.release();
+            statistic.addPendingDocuments(-documents);
+            if (exc == null && task.getDuration() >= 0) {
+                bulkSizeController.reportBulk(documents, task.getDuration());
+                SOLR_COLLECTION.setProperty("bulk size", bulkSizeController.getBulkSize());
+            }
+        }).whenCompleteAsync(afterIndex(indexHandler, LOW_PRIORITY), SOLR_SUB_EXECUTOR);
+    }
+
     /**
      * Rebuilds solr's content index.
      */
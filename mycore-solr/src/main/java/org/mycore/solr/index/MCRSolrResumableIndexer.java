@@ -0,0 +1,222 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.solr.index;
+
+import static org.mycore.solr.MCRSolrConstants.SOLR_CONFIG_PREFIX;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.ConcurrentUpdateSolrClient;
+import org.mycore.common.MCRException;
+import org.mycore.common.MCRSystemUserInformation;
+import org.mycore.common.config.MCRConfiguration2;
+import org.mycore.common.content.MCRContent;
+import org.mycore.datamodel.common.MCRXMLMetadataManager;
+import org.mycore.datamodel.metadata.MCRObjectID;
+import org.mycore.solr.index.handlers.MCRSolrIndexHandlerFactory;
+import org.mycore.util.concurrent.MCRFixedUserCallable;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Rebuilds the metadata index in partitions and records every completed partition in a
+ * {@link MCRSolrIndexCheckpoint}. If the rebuild is interrupted, it can be resumed and skips completed partitions.
+ *
+ * The ID space is split by base ID (<code>project_type</code>) and by ranges of
+ * <code>MCR.Solr.Indexer.Resumable.RangeSize</code> object numbers. Partitions are indexed in parallel by
+ * <code>MCR.Solr.Indexer.Resumable.ThreadCount</code> worker threads. Each worker sends its bulks synchronously, so a
+ * partition is only marked as completed after solr accepted all of its documents. For this reason a
+ * {@link ConcurrentUpdateSolrClient}, which only logs failed requests, cannot be used. The bulk size is adapted like
+ * in {@link MCRSolrIndexer#rebuildMetadataIndex(List, SolrClient)}.
+ *
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRSolrResumableIndexer {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final int RANGE_SIZE = MCRConfiguration2
+        .getInt(SOLR_CONFIG_PREFIX + "Indexer.Resumable.RangeSize").orElse(10000);
+
+    private static final int THREAD_COUNT = MCRConfiguration2
+        .getInt(SOLR_CONFIG_PREFIX + "Indexer.Resumable.ThreadCount")
+        .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+
+    private final SolrClient solrClient;
+
+    private final MCRSolrIndexCheckpoint checkpoint;
+
+    private final MCRSolrBulkSizeController bulkSizeController;
+
+    /**
+     * @param solrClient solr server to index, must report failed requests
+     * @param checkpoint the checkpoint to resume from and to write progress to
+     * @throws MCRException if <code>solrClient</code> is a {@link ConcurrentUpdateSolrClient}
+     */
+    public MCRSolrResumableIndexer(SolrClient solrClient, MCRSolrIndexCheckpoint checkpoint) {
+        if (solrClient instanceof ConcurrentUpdateSolrClient) {
+            throw new MCRException("ConcurrentUpdateSolrClient does not report failed requests, "
+                + "completed partitions could not be detected.");
+        }
+        this.solrClient = solrClient;
+        this.checkpoint = checkpoint;
+        this.bulkSizeController = new MCRSolrBulkSizeController(MCRSolrIndexer.BULK_SIZE,
+            MCRSolrIndexer.BULK_MIN_SIZE, MCRSolrIndexer.BULK_MAX_SIZE, MCRSolrIndexer.BULK_MAX_BYTES,
+            MCRSolrIndexer.BULK_TARGET_TIME);
+    }
+
+    /**
+     * Rebuilds the metadata index of all objects and derivates, skipping partitions already completed in the
+     * checkpoint. After all partitions were indexed successfully the checkpoint file is removed.
+     *
+     * @return true, if all partitions were indexed
+     */
+    public boolean rebuildMetadataIndex() throws IOException, InterruptedException {
+        Map<String, List<String>> partitions = getPartitions();
+        int skipped = 0;
+        List<String> pending = new ArrayList<>(partitions.size());
+        for (String partition : partitions.keySet()) {
+            if (checkpoint.isCompleted(partition)) {
+                skipped++;
+            } else {
+                pending.add(partition);
+            }
+        }
+        LOGGER.info("Re-building Metadata Index: {} partitions, {} already completed according to {}.",
+            partitions.size(), skipped, checkpoint.getFile());
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREAD_COUNT,
+            new ThreadFactoryBuilder().setNameFormat("SOLR-Reindex-#%d").build());
+        Map<String, Future<Integer>> results = new HashMap<>();
+        AtomicInteger completedCount = new AtomicInteger(skipped);
+        try {
+            for (String partition : pending) {
+                List<String> ids = partitions.get(partition);
+                results.put(partition, workers.submit(new MCRFixedUserCallable<>(() -> {
+                    indexPartition(ids);
+                    checkpoint.markCompleted(partition);
+                    LOGGER.info("Indexed partition {} with {} objects ({}/{}).", partition, ids.size(),
+                        completedCount.incrementAndGet(), partitions.size());
+                    return ids.size();
+                }, MCRSystemUserInformation.getSystemUserInstance())));
+            }
+        } finally {
+            workers.shutdown();
+        }
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("Waiting for partitions to complete: {}/{}", completedCount.get(), partitions.size());
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted, stopping re-building of metadata index.");
+            workers.shutdownNow();
+            throw e;
+        }
+
+        int failed = 0;
+        for (Map.Entry<String, Future<Integer>> result : results.entrySet()) {
+            try {
+                result.getValue().get();
+            } catch (ExecutionException e) {
+                failed++;
+                LOGGER.error("Error while indexing partition {}.", result.getKey(), e.getCause());
+            }
+        }
+        if (failed > 0) {
+            LOGGER.warn("{} partitions could not be indexed. Resume to retry them.", failed);
+            return false;
+        }
+        checkpoint.clear();
+        LOGGER.info("Re-building Metadata Index is complete.");
+        return true;
+    }
+
+    /**
+     * Returns all object IDs of the metadata store grouped by partition.
+     */
+    static Map<String, List<String>> getPartitions() {
+        MCRXMLMetadataManager metadataManager = MCRXMLMetadataManager.instance();
+        TreeMap<String, List<String>> partitions = new TreeMap<>();
+        for (String base : metadataManager.getObjectBaseIds()) {
+            for (String id : metadataManager.listIDsForBase(base)) {
+                String partition = MCRSolrIndexCheckpoint.getPartition(MCRObjectID.getInstance(id), RANGE_SIZE);
+                partitions.computeIfAbsent(partition, p -> new ArrayList<>()).add(id);
+            }
+        }
+        return partitions;
+    }
+
+    private void indexPartition(List<String> ids) throws IOException, SolrServerException {
+        MCRXMLMetadataManager metadataManager = MCRXMLMetadataManager.instance();
+        HashMap<MCRObjectID, MCRContent> contentMap = new HashMap<>(
+            (int) (bulkSizeController.getBulkSize() * 1.4));
+        long contentLength = 0;
+        int i = 0;
+        for (String id : ids) {
+            i++;
+            MCRObjectID objId = MCRObjectID.getInstance(id);
+            MCRContent content = metadataManager.retrieveContent(objId);
+            if (content == null) {
+                LOGGER.warn("Could not retrieve {}, it was probably deleted.", id);
+            } else {
+                contentMap.put(objId, content);
+                contentLength += Math.max(0, content.length());
+            }
+            if (!contentMap.isEmpty()
+                && (bulkSizeController.isBulkComplete(contentMap.size(), contentLength) || ids.size() == i)) {
+                MCRSolrIndexHandler indexHandler = MCRSolrIndexHandlerFactory.getInstance()
+                    .getIndexHandler(contentMap);
+                indexHandler.setCommitWithin(MCRSolrIndexer.BATCH_AUTO_COMMIT_WITHIN_MS);
+                indexHandler.setSolrServer(solrClient);
+                int documents = contentMap.size();
+                MCRSolrIndexTask task = new MCRSolrIndexTask(indexHandler);
+                List<MCRSolrIndexHandler> subHandlers = task.call();
+                bulkSizeController.reportBulk(documents, task.getDuration());
+                for (MCRSolrIndexHandler subHandler : subHandlers) {
+                    index(subHandler);
+                }
+                contentMap = new HashMap<>((int) (bulkSizeController.getBulkSize() * 1.4));
+                contentLength = 0;
+            }
+        }
+    }
+
+    private void index(MCRSolrIndexHandler indexHandler) throws IOException, SolrServerException {
+        List<MCRSolrIndexHandler> subHandlers = new MCRSolrIndexTask(indexHandler).call();
+        for (MCRSolrIndexHandler subHandler : subHandlers) {
+            index(subHandler);
+        }
+    }
+
+}
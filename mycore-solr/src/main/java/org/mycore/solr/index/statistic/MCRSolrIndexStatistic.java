@@ -36,12 +36,15 @@ public class MCRSolrIndexStatistic {
 
     final AtomicLong accumulatedTime;
 
+    final AtomicInteger pendingDocuments;
+
     String name;
 
     public MCRSolrIndexStatistic(String name) {
         this.name = name;
         this.documents = new AtomicInteger();
         this.accumulatedTime = new AtomicLong();
+        this.pendingDocuments = new AtomicInteger();
     }
 
     public long addTime(long time) {
@@ -62,6 +65,31 @@ public class MCRSolrIndexStatistic {
         return documents.get();
     }
 
+    /**
+     * Adds (or removes if <code>docs</code> is negative) documents that are submitted but not yet indexed.
+     */
+    public int addPendingDocuments(int docs) {
+        return pendingDocuments.addAndGet(docs);
+    }
+
+    /**
+     * Returns the number of documents that are submitted but not yet indexed.
+     */
+    public int getPendingDocuments() {
+        return pendingDocuments.get();
+    }
+
+    /**
+     * Returns the average number of documents per second and indexing thread since last {@link #reset()}.
+     */
+    public double getThroughput() {
+        long time = accumulatedTime.get();
+        if (time == 0) {
+            return 0;
+        }
+        return documents.get() * 1000d / time;
+    }
+
     /**
      * resets statistic and returns average time in ms per document.
      */
@@ -0,0 +1,75 @@
+/*
+ * This file is part of ***  M y C o R e  ***
+ * See http://www.mycore.de/ for details.
+ *
+ * MyCoRe is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MyCoRe is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MyCoRe.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.mycore.solr.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mycore.common.MCRTestCase;
+import org.mycore.datamodel.metadata.MCRObjectID;
+
+/**
+ * @author Thomas Scheffler (yagee)
+ */
+public class MCRSolrIndexCheckpointTest extends MCRTestCase {
+
+    @Override
+    protected Map<String, String> getTestProperties() {
+        Map<String, String> testProperties = super.getTestProperties();
+        testProperties.put("MCR.Metadata.Type.test", Boolean.TRUE.toString());
+        return testProperties;
+    }
+
+    @Test
+    public void getPartition() {
+        assertEquals("junit_test:0",
+            MCRSolrIndexCheckpoint.getPartition(MCRObjectID.getInstance("junit_test_00000001"), 1000));
+        assertEquals("junit_test:0",
+            MCRSolrIndexCheckpoint.getPartition(MCRObjectID.getInstance("junit_test_00000999"), 1000));
+        assertEquals("junit_test:1",
+            MCRSolrIndexCheckpoint.getPartition(MCRObjectID.getInstance("junit_test_00001000"), 1000));
+    }
+
+    @Test
+    public void resume() throws Exception {
+        Path file = junitFolder.getRoot().toPath().resolve("checkpoint").resolve("test.checkpoint");
+        MCRSolrIndexCheckpoint checkpoint = new MCRSolrIndexCheckpoint(file);
+        assertEquals(0, checkpoint.getCompletedCount());
+        checkpoint.markCompleted("junit_test:0");
+        checkpoint.markCompleted("junit_test:2");
+        checkpoint.markCompleted("junit_test:2");
+
+        MCRSolrIndexCheckpoint resumed = new MCRSolrIndexCheckpoint(file);
+        assertEquals(2, resumed.getCompletedCount());
+        assertTrue(resumed.isCompleted("junit_test:0"));
+        assertFalse(resumed.isCompleted("junit_test:1"));
+        assertTrue(resumed.isCompleted("junit_test:2"));
+
+        resumed.clear();
+        assertFalse(Files.exists(file));
+        assertEquals(0, new MCRSolrIndexCheckpoint(file).getCompletedCount());
+    }
+
+}
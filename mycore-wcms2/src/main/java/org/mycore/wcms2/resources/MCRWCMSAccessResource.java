@@ -29,6 +29,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response.Status;
 
+import org.mycore.access.MCRAccessManager;
 import org.mycore.access.mcrimpl.MCRAccessRule;
 import org.mycore.access.mcrimpl.MCRAccessStore;
 import org.mycore.access.mcrimpl.MCRRuleMapping;
@@ -53,6 +54,7 @@ public class MCRWCMSAccessResource {
         MCRAccessStore accessStore = MCRAccessStore.getInstance();
         MCRRuleMapping ruleMap = accessStore.getAccessDefinition(perm, MCRLayoutUtilities.getWebpageACLID(webPageID));
         accessStore.deleteAccessDefinition(ruleMap);
+        MCRAccessManager.invalidAllPermissionCaches();
         JsonObject doneObject = new JsonObject();
         returnObject.addProperty("type", "editDone");
         returnObject.add("edit", doneObject);
@@ -78,6 +80,7 @@ public class MCRWCMSAccessResource {
             ruleMap.setObjId(MCRLayoutUtilities.getWebpageACLID(webPageID));
             accessStore.createAccessDefinition(ruleMap);
         }
+        MCRAccessManager.invalidAllPermissionCaches();
         JsonObject doneObject = new JsonObject();
         returnObject.addProperty("type", "editDone");
         returnObject.add("edit", doneObject);